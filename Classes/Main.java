@@ -1,5 +1,5 @@
+import java.nio.file.Paths;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.InputMismatchException;
 import java.util.List;
@@ -8,6 +8,12 @@ import java.util.Locale;
 
 import br.com.tiopatinhasexchange.exceptions.ValorInvalidoException;
 import br.com.tiopatinhasexchange.model.*;
+import br.com.tiopatinhasexchange.service.EstatisticasEstrategia;
+import br.com.tiopatinhasexchange.service.GeradorIds;
+import br.com.tiopatinhasexchange.service.MotorRisco;
+import br.com.tiopatinhasexchange.service.MotorTaxas;
+import br.com.tiopatinhasexchange.service.RegistroExecucoes;
+import br.com.tiopatinhasexchange.service.Relogio;
 
 public class Main {
 
@@ -17,6 +23,9 @@ public class Main {
         Scanner scanner = new Scanner(System.in);
         scanner.useLocale(Locale.US); // Considera "." como separador decimal
 
+        // IDs das entidades persistidos entre execuções
+        GeradorIds.setPadrao(new GeradorIds(Paths.get("dados", "ids.properties")));
+
         // Instâncias das Classes
 
         // Instanciar usuário
@@ -32,6 +41,12 @@ public class Main {
         // Instanciar Carteira
         Carteira carteira = new Carteira(1, usuario.getId());
 
+        // Taxas de negociação (maker/taker) por faixa de volume em 30 dias
+        MotorTaxas motorTaxas = new MotorTaxas(0.001, 0.0015);
+        motorTaxas.adicionarFaixa(100000.0, 0.0008, 0.0012);
+        motorTaxas.adicionarFaixa(1000000.0, 0.0005, 0.0008);
+        carteira.setMotorTaxas(motorTaxas);
+
         // Instanciar criptoativos
         Criptoativo btc = new Criptoativo(1, "Bitcoin", "BTC", 581757.84);
         Criptoativo eth = new Criptoativo(2, "Ethereum", "ETH", 12404.99);
@@ -43,6 +58,13 @@ public class Main {
         mercado.atualizarPrecos(java.util.Map.of(btc.getId(), btc.getPrecoAtual()));
         mercado.atualizarPrecos(java.util.Map.of(eth.getId(), eth.getPrecoAtual()));
 
+        // Verificação de risco pré-negociação; alertas de segurança vão para o usuário
+        MotorRisco motorRisco = new MotorRisco(mercado);
+        motorRisco.setValorMaximoOrdem(1000000.0);
+        motorRisco.setLimiteNocionalUsuario(5000000.0);
+        motorRisco.setNotificador(usuario::adicionarAlerta);
+        carteira.setMotorRisco(motorRisco);
+
         // Adicionar carteira à conta do usuário
         usuario.adicionarCarteira(carteira);
 
@@ -51,6 +73,9 @@ public class Main {
 
         // Lista de estrategias
         List<EstrategiaAutomatica> estrategias = new ArrayList<>();
+
+        // Registro das execuções de estratégias, mantido entre execuções do programa
+        RegistroExecucoes registroExecucoes = new RegistroExecucoes(Paths.get("dados", "execucoes.log"));
         
         // Lista de módulos educacionais
         List<ModuloEducacional> modulosEducacionais = new ArrayList<>();
@@ -348,7 +373,7 @@ public class Main {
                                     alerta.setValorReferencia(valorAlerta);
                                     alerta.setTitulo(tituloAlerta);
                                     alerta.setConteudo(descricaoAlerta);
-                                    alerta.setDataHoraCriacao(LocalDateTime.now());
+                                    alerta.setDataHoraCriacao(Relogio.getPadrao().agora());
                                     
                                     usuario.adicionarAlerta(alerta);
                                     System.out.println("Alerta criado com sucesso!");
@@ -421,6 +446,8 @@ public class Main {
                                     } catch (InputMismatchException e) {
                                         System.out.println("Erro: Valor numérico inválido!");
                                         scanner.nextLine(); // Limpar buffer em caso de erro
+                                    } catch (IllegalArgumentException e) {
+                                        System.out.println("Erro: " + e.getMessage());
                                     } catch (Exception e) {
                                         System.out.println("Erro inesperado: " + e.getMessage());
                                     }
@@ -438,7 +465,29 @@ public class Main {
                                     }
                                     break;
                                 case 10:
-                                    System.out.println("Nenhuma execução de estratégia disponível.");
+                                    // Consultar execuções de estratégias
+                                    if (registroExecucoes.getQuantidade() == 0) {
+                                        System.out.println("Nenhuma execução de estratégia disponível.");
+                                        break;
+                                    }
+                                    System.out.println("===== EXECUÇÕES DE ESTRATÉGIAS =====");
+                                    for (ExecucaoEstrategia execucao : registroExecucoes.getExecucoes()) {
+                                        if (execucao.getIdCarteira() == carteira.getId()) {
+                                            execucao.exibirDetalhes();
+                                        }
+                                    }
+                                    for (EstrategiaAutomatica estrategiaAtual : estrategias) {
+                                        if (estrategiaAtual.getIdCarteira() != carteira.getId()) {
+                                            continue;
+                                        }
+                                        EstatisticasEstrategia estatisticas = registroExecucoes
+                                                .obterEstatisticas(estrategiaAtual.getId());
+                                        if (estatisticas != null) {
+                                            estatisticas.exibirDetalhes(
+                                                    mercado.obterPrecoAtual(estrategiaAtual.getIdCriptoativo()));
+                                        }
+                                    }
+                                    System.out.println("====================================");
                                     break;
                                 case 11:
                                     // Ver conteúdos educacionais
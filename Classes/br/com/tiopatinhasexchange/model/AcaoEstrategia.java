@@ -0,0 +1,35 @@
+package br.com.tiopatinhasexchange.model;
+
+/**
+ * Ações que uma estratégia automática pode executar.
+ */
+public enum AcaoEstrategia {
+    COMPRAR("compra"),
+    VENDER("venda");
+
+    private final String descricao; // Usada nas mensagens ao usuário
+
+    AcaoEstrategia(String descricao) {
+        this.descricao = descricao;
+    }
+
+    /**
+     * Converte o código textual da ação (ex.: "COMPRAR")
+     * @param codigo Código da ação
+     * @return Ação correspondente
+     */
+    public static AcaoEstrategia deCodigo(String codigo) {
+        if (codigo != null) {
+            for (AcaoEstrategia acao : values()) {
+                if (acao.name().equalsIgnoreCase(codigo.trim())) {
+                    return acao;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Ação inválida: " + codigo);
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+}
@@ -1,4 +1,7 @@
 package br.com.tiopatinhasexchange.model;
+import br.com.tiopatinhasexchange.service.GeradorIds;
+import br.com.tiopatinhasexchange.service.TipoEntidade;
+
 /*
  * Classe que representa um alerta para o usuário sobre eventos importantes,
  * como variações bruscas de preço, execução de estratégias automáticas, etc.
@@ -14,9 +17,11 @@ public abstract class Alerta {
 
     // Construtores
     public Alerta() {
+        this.id = GeradorIds.getPadrao().proximoId(TipoEntidade.ALERTA);
     }
     
     public Alerta(String tipo, String titulo, String conteudo) {
+        this.id = GeradorIds.getPadrao().proximoId(TipoEntidade.ALERTA);
         this.tipo = tipo;
         this.titulo = titulo;
         this.conteudo = conteudo;
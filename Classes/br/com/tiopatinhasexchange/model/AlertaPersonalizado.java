@@ -1,6 +1,8 @@
 package br.com.tiopatinhasexchange.model;
 import java.time.LocalDateTime;
 
+import br.com.tiopatinhasexchange.service.Relogio;
+
 /*
  * Classe que representa um alerta personalizado pelo usuário sobre volatilidade de algum criptoativo.
 */
@@ -29,7 +31,7 @@ public class AlertaPersonalizado extends Alerta {
         super("VOLATILIDADE", titulo, conteudo);
         this.idUsuario = idUsuario;
         this.idCriptoativo = idCriptoativo;
-        this.dataHoraCriacao = LocalDateTime.now();
+        this.dataHoraCriacao = Relogio.getPadrao().agora();
         this.condicao = condicao;
         this.valorReferencia = valorReferencia;
     }
@@ -1,6 +1,8 @@
 package br.com.tiopatinhasexchange.model;
 import java.time.LocalDateTime;
 
+import br.com.tiopatinhasexchange.service.Relogio;
+
 /**
  * Classe associativa que representa o histórico de cotações de um criptoativo.
  * Registra o valor do ativo em diferentes momentos no tempo.
@@ -23,12 +25,12 @@ public class AtivoCotacao {
     
     // Construtores
     public AtivoCotacao() {
-        this.timestamp = LocalDateTime.now();
+        this.timestamp = Relogio.getPadrao().agora();
     }
     
     public AtivoCotacao(int idCriptoativo, double preco) {
         this.idCriptoativo = idCriptoativo;
-        this.timestamp = LocalDateTime.now();
+        this.timestamp = Relogio.getPadrao().agora();
         this.precoAbertura = preco;
         this.precoFechamento = preco;
         this.precoMaximo = preco;
@@ -38,7 +40,7 @@ public class AtivoCotacao {
     public AtivoCotacao(int idCriptoativo, double precoAbertura, double precoFechamento, 
                        double precoMaximo, double precoMinimo) {
         this.idCriptoativo = idCriptoativo;
-        this.timestamp = LocalDateTime.now();
+        this.timestamp = Relogio.getPadrao().agora();
         this.precoAbertura = precoAbertura;
         this.precoFechamento = precoFechamento;
         this.precoMaximo = precoMaximo;
@@ -5,9 +5,14 @@ import java.util.List;
 import java.util.Map;
 
 import br.com.tiopatinhasexchange.exceptions.ValorInvalidoException;
+import br.com.tiopatinhasexchange.service.ArmazemEventosCarteira;
+import br.com.tiopatinhasexchange.service.MotorRisco;
+import br.com.tiopatinhasexchange.service.MotorTaxas;
 
 /**
  * Classe que representa uma carteira de criptoativos do usuário.
+ * Quando associada a um {@link ArmazemEventosCarteira}, cada alteração de saldo ou posição
+ * é publicada como um {@link EventoCarteira}, permitindo reconstruir a carteira depois.
  */
 public class Carteira {
     
@@ -17,6 +22,9 @@ public class Carteira {
     private double saldo;
     private Map<Integer, Double> posicoes; // Mapa de criptoativos: <ID do criptoativo, quantidade>
     private List<Transacao> transacoes;
+    private MotorTaxas motorTaxas; // Calcula as taxas das ordens (null = sem taxas)
+    private MotorRisco motorRisco; // Verificação de risco pré-negociação (null = sem verificação)
+    private ArmazemEventosCarteira armazemEventos; // Destino dos eventos da carteira (null = não publica)
 
     // Construtores
     public Carteira() {
@@ -39,6 +47,7 @@ public class Carteira {
     public double depositar(double valor) throws ValorInvalidoException {
         if (valor > 0) {
             this.saldo += valor;
+            publicarEvento(TipoEventoCarteira.DEPOSITO, 0, 0.0, valor);
         }
         else if (valor < 0) {
             throw new ValorInvalidoException("O valor do depósito deve ser positivo");
@@ -54,6 +63,7 @@ public class Carteira {
     public double sacar(double valor) throws ValorInvalidoException {
         if (valor > 0 && valor <= this.saldo) {
             this.saldo -= valor;
+            publicarEvento(TipoEventoCarteira.SAQUE, 0, 0.0, valor);
         }
         else if (valor < 0) {
             throw new ValorInvalidoException("O valor do saque deve ser positivo");            
@@ -62,15 +72,18 @@ public class Carteira {
     }
     
     /**
-     * Compra um criptoativo
+     * Compra um criptoativo. O custo inclui a taxa de compra (taker) da ordem e
+     * a ordem precisa ser aprovada pelo motor de risco, quando configurado.
      * @param ativo Criptoativo a ser comprado
      * @param quantidade Quantidade a ser comprada
      * @param preco Preço unitário da compra
      * @return true se a compra foi bem-sucedida
      */
     public boolean comprarAtivo(Criptoativo ativo, double quantidade, double preco) {
-        double custo = quantidade * preco;
-        if (custo <= this.saldo) {
+        double valor = quantidade * preco;
+        double taxa = calcularTaxa(ativo.getId(), valor);
+        double custo = valor + taxa;
+        if (custo <= this.saldo && aprovarRisco(ativo.getId(), quantidade, preco, true)) {
             this.saldo -= custo;
             
             if (this.posicoes == null) {
@@ -81,12 +94,15 @@ public class Carteira {
             this.posicoes.put(ativo.getId(), atual + quantidade);
             
             // Registrar transação
-            Transacao transacao = new Transacao();
-            transacao.setIdUsuario(this.idUsuario);
-            transacao.setIdAtivo(ativo.getId());
-            transacao.setTipo("compra");
-            transacao.setVolumeTransacao(quantidade);
+            Transacao transacao = new Transacao(this.idUsuario, this.id, ativo.getId(),
+                    preco, quantidade, taxa, "SALDO_CARTEIRA");
+            transacao.confirmar();
             this.transacoes.add(transacao);
+            registrarVolume(valor);
+            publicarEvento(TipoEventoCarteira.COMPRA, ativo.getId(), quantidade, valor);
+            if (taxa > 0) {
+                publicarEvento(TipoEventoCarteira.TAXA, ativo.getId(), 0.0, taxa);
+            }
             
             return true;
         }
@@ -94,7 +110,8 @@ public class Carteira {
     }
     
     /**
-     * Vende um criptoativo
+     * Vende um criptoativo. O valor creditado é descontado da taxa de venda (taker) da ordem
+     * e a ordem precisa ser aprovada pelo motor de risco, quando configurado.
      * @param ativo Criptoativo a ser vendido
      * @param quantidade Quantidade a ser vendida
      * @param preco Preço unitário da venda
@@ -103,17 +120,23 @@ public class Carteira {
     public boolean venderAtivo(Criptoativo ativo, double quantidade, double preco) {
         if (this.posicoes != null) {
             Double possuido = this.posicoes.getOrDefault(ativo.getId(), 0.0);
-            if (possuido >= quantidade) {
-                this.saldo += quantidade * preco;
+            if (possuido >= quantidade && aprovarRisco(ativo.getId(), quantidade, preco, false)) {
+                double valor = quantidade * preco;
+                double taxa = calcularTaxa(ativo.getId(), valor);
+                this.saldo += valor - taxa;
                 this.posicoes.put(ativo.getId(), possuido - quantidade);
                 
                 // Registrar transação
-                Transacao transacao = new Transacao();
-                transacao.setIdUsuario(this.idUsuario);
-                transacao.setIdAtivo(ativo.getId());
-                transacao.setTipo("venda");
-                transacao.setVolumeTransacao(quantidade);
+                Transacao transacao = new Transacao(this.idUsuario, this.id, ativo.getId(),
+                        preco, quantidade, taxa, 0.0);
+                transacao.setVendaTotal(possuido == quantidade);
+                transacao.confirmar();
                 this.transacoes.add(transacao);
+                registrarVolume(valor);
+                publicarEvento(TipoEventoCarteira.VENDA, ativo.getId(), quantidade, valor);
+                if (taxa > 0) {
+                    publicarEvento(TipoEventoCarteira.TAXA, ativo.getId(), 0.0, taxa);
+                }
                 
                 return true;
             }
@@ -121,6 +144,118 @@ public class Carteira {
         return false;
     }
     
+    /**
+     * Obtém a transação mais recente da carteira
+     * @return Última transação, ou null se não houver
+     */
+    public Transacao obterUltimaTransacao() {
+        return this.transacoes.isEmpty() ? null : this.transacoes.get(this.transacoes.size() - 1);
+    }
+    
+    /**
+     * Submete a ordem à verificação de risco, que já reserva a exposição se aprovada
+     */
+    private boolean aprovarRisco(int idAtivo, double quantidade, double preco, boolean compra) {
+        if (this.motorRisco == null) {
+            return true;
+        }
+        return this.motorRisco.avaliarOrdem(this.idUsuario, idAtivo, quantidade, preco, compra).isAprovada();
+    }
+    
+    /**
+     * Calcula a taxa (taker) de uma ordem a mercado desta carteira
+     */
+    private double calcularTaxa(int idAtivo, double valor) {
+        if (this.motorTaxas == null) {
+            return 0.0;
+        }
+        return this.motorTaxas.calcularTaxa(this.idUsuario, idAtivo, valor, false);
+    }
+    
+    /**
+     * Soma o valor executado ao volume de 30 dias do usuário
+     */
+    private void registrarVolume(double valor) {
+        if (this.motorTaxas != null) {
+            this.motorTaxas.registrarVolume(this.idUsuario, valor);
+        }
+    }
+    
+    /**
+     * Publica um evento da carteira no armazém, se houver um configurado
+     */
+    private void publicarEvento(TipoEventoCarteira tipo, int idAtivo, double quantidade, double valor) {
+        if (this.armazemEventos != null) {
+            this.armazemEventos.registrar(
+                    new EventoCarteira(0, 0, this.id, this.idUsuario, tipo, idAtivo, quantidade, valor));
+        }
+    }
+    
+    /**
+     * Aplica um evento ao estado da carteira, sem validações, taxas ou publicação.
+     * Usado para reconstruir a carteira a partir do seu histórico de eventos.
+     * @param evento Evento a ser aplicado
+     */
+    public void aplicarEvento(EventoCarteira evento) {
+        if (this.posicoes == null) {
+            this.posicoes = new HashMap<>();
+        }
+        
+        switch (evento.getTipo()) {
+            case DEPOSITO:
+            case VENDA:
+                this.saldo += evento.getValor();
+                break;
+            case SAQUE:
+            case COMPRA:
+            case TAXA:
+                this.saldo -= evento.getValor();
+                break;
+        }
+        
+        if (evento.getTipo() == TipoEventoCarteira.COMPRA) {
+            this.posicoes.merge(evento.getIdAtivo(), evento.getQuantidade(), Double::sum);
+        } else if (evento.getTipo() == TipoEventoCarteira.VENDA) {
+            this.posicoes.merge(evento.getIdAtivo(), -evento.getQuantidade(), Double::sum);
+        }
+    }
+    
+    /**
+     * Cria um snapshot compacto do estado atual da carteira
+     * @param sequencia Último evento refletido no estado
+     * @param instante Instante desse evento
+     * @return Snapshot da carteira
+     */
+    public SnapshotCarteira criarSnapshot(long sequencia, long instante) {
+        int quantidadeAtivos = this.posicoes == null ? 0 : this.posicoes.size();
+        int[] idsAtivos = new int[quantidadeAtivos];
+        double[] quantidades = new double[quantidadeAtivos];
+        
+        int i = 0;
+        if (this.posicoes != null) {
+            for (Map.Entry<Integer, Double> posicao : this.posicoes.entrySet()) {
+                idsAtivos[i] = posicao.getKey();
+                quantidades[i] = posicao.getValue();
+                i++;
+            }
+        }
+        
+        return new SnapshotCarteira(this.id, this.idUsuario, sequencia, instante,
+                this.saldo, idsAtivos, quantidades);
+    }
+    
+    /**
+     * Substitui o saldo e as posições da carteira pelos de um snapshot
+     * @param snapshot Snapshot a ser restaurado
+     */
+    public void restaurarSnapshot(SnapshotCarteira snapshot) {
+        this.saldo = snapshot.getSaldo();
+        this.posicoes = new HashMap<>();
+        for (int i = 0; i < snapshot.getQuantidadeAtivos(); i++) {
+            this.posicoes.put(snapshot.getIdAtivo(i), snapshot.getQuantidade(i));
+        }
+    }
+    
     /**
      * Calcula o valor total da carteira com base nos preços atuais dos ativos
      * @param mercado Objeto Mercado com os preços atuais
@@ -195,4 +330,28 @@ public class Carteira {
     public void setTransacoes(List<Transacao> transacoes) {
         this.transacoes = transacoes;
     }
+
+    public MotorTaxas getMotorTaxas() {
+        return motorTaxas;
+    }
+
+    public void setMotorTaxas(MotorTaxas motorTaxas) {
+        this.motorTaxas = motorTaxas;
+    }
+
+    public MotorRisco getMotorRisco() {
+        return motorRisco;
+    }
+
+    public void setMotorRisco(MotorRisco motorRisco) {
+        this.motorRisco = motorRisco;
+    }
+
+    public ArmazemEventosCarteira getArmazemEventos() {
+        return armazemEventos;
+    }
+
+    public void setArmazemEventos(ArmazemEventosCarteira armazemEventos) {
+        this.armazemEventos = armazemEventos;
+    }
 }
\ No newline at end of file
@@ -3,6 +3,8 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+import br.com.tiopatinhasexchange.service.Relogio;
+
 /**
  * Classe associativa que representa o relacionamento entre Carteira e Criptoativo.
  * Gerencia a quantidade de cada criptoativo em uma carteira e seu histórico de transações.
@@ -26,7 +28,7 @@ public class CarteiraAtivo {
         this.quantidade = 0.0;
         this.precoMedio = 0.0;
         this.valorTotalInvestido = 0.0;
-        this.ultimaAtualizacao = LocalDateTime.now();
+        this.ultimaAtualizacao = Relogio.getPadrao().agora();
         this.idTransacoes = new ArrayList<>();
     }
     
@@ -36,7 +38,7 @@ public class CarteiraAtivo {
         this.quantidade = 0.0;
         this.precoMedio = 0.0;
         this.valorTotalInvestido = 0.0;
-        this.ultimaAtualizacao = LocalDateTime.now();
+        this.ultimaAtualizacao = Relogio.getPadrao().agora();
         this.idTransacoes = new ArrayList<>();
     }
     
@@ -64,7 +66,7 @@ public class CarteiraAtivo {
         
         this.quantidade = novaQuantidadeTotal;
         this.valorTotalInvestido = novoValorTotal;
-        this.ultimaAtualizacao = LocalDateTime.now();
+        this.ultimaAtualizacao = Relogio.getPadrao().agora();
         
         // Registra a transação
         if (!this.idTransacoes.contains(idTransacao)) {
@@ -98,7 +100,7 @@ public class CarteiraAtivo {
         double proporcaoVendida = quantidade / (quantidade + this.quantidade);
         this.valorTotalInvestido -= (this.valorTotalInvestido * proporcaoVendida);
         
-        this.ultimaAtualizacao = LocalDateTime.now();
+        this.ultimaAtualizacao = Relogio.getPadrao().agora();
         
         // Registra a transação
         if (!this.idTransacoes.contains(idTransacao)) {
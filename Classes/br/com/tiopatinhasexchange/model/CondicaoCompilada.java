@@ -0,0 +1,66 @@
+package br.com.tiopatinhasexchange.model;
+
+/**
+ * Condição de uma estratégia já interpretada: código da condição, ativo e referência.
+ * É criada uma única vez por estratégia e usada tanto na execução real quanto na
+ * simulação, sem comparações de texto nem alocações por avaliação.
+ */
+public final class CondicaoCompilada {
+
+    // Atributos
+    private final CondicaoEstrategia condicao;
+    private final int idCriptoativo;
+    private final double valorReferencia;
+
+    // Construtores
+    public CondicaoCompilada(CondicaoEstrategia condicao, int idCriptoativo, double valorReferencia) {
+        if (condicao == null) {
+            throw new IllegalArgumentException("A condição não pode ser nula");
+        }
+        this.condicao = condicao;
+        this.idCriptoativo = idCriptoativo;
+        this.valorReferencia = valorReferencia;
+    }
+
+    // Métodos
+    /**
+     * Avalia a condição com valores já conhecidos (ex.: durante uma simulação)
+     * @param preco Preço atual do ativo
+     * @param variacao Variação percentual no período (NaN se indisponível)
+     * @return true se a condição é atendida
+     */
+    public boolean avaliar(double preco, double variacao) {
+        return this.condicao.avaliar(preco, variacao, this.valorReferencia);
+    }
+
+    /**
+     * Avalia a condição com os dados atuais do mercado
+     * @param mercado Mercado com os preços atuais
+     * @return true se a condição é atendida
+     */
+    public boolean avaliar(Mercado mercado) {
+        double preco = mercado.obterPrecoAtual(this.idCriptoativo);
+        if (preco < 0) {
+            return false;
+        }
+
+        double variacao = Double.NaN;
+        if (this.condicao.isUsaVariacao()) {
+            variacao = mercado.calcularVariacao(this.idCriptoativo, CondicaoEstrategia.PERIODO_VARIACAO_HORAS);
+        }
+        return this.condicao.avaliar(preco, variacao, this.valorReferencia);
+    }
+
+    // Getters
+    public CondicaoEstrategia getCondicao() {
+        return condicao;
+    }
+
+    public int getIdCriptoativo() {
+        return idCriptoativo;
+    }
+
+    public double getValorReferencia() {
+        return valorReferencia;
+    }
+}
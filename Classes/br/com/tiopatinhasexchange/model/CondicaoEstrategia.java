@@ -0,0 +1,59 @@
+package br.com.tiopatinhasexchange.model;
+
+/**
+ * Condições suportadas pelas estratégias automáticas.
+ * As condições de preço comparam o preço atual com a referência; as de variação
+ * comparam a variação percentual em 24 horas.
+ */
+public enum CondicaoEstrategia {
+    PRECO_ACIMA(false, true),
+    PRECO_ABAIXO(false, false),
+    VARIACAO_ACIMA(true, true),
+    VARIACAO_ABAIXO(true, false);
+
+    public static final int PERIODO_VARIACAO_HORAS = 24;
+
+    private final boolean usaVariacao;
+    private final boolean acima;
+
+    CondicaoEstrategia(boolean usaVariacao, boolean acima) {
+        this.usaVariacao = usaVariacao;
+        this.acima = acima;
+    }
+
+    /**
+     * Converte o código textual da condição (ex.: "PRECO_ACIMA")
+     * @param codigo Código da condição
+     * @return Condição correspondente
+     */
+    public static CondicaoEstrategia deCodigo(String codigo) {
+        if (codigo != null) {
+            for (CondicaoEstrategia condicao : values()) {
+                if (condicao.name().equalsIgnoreCase(codigo.trim())) {
+                    return condicao;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Condição inválida: " + codigo);
+    }
+
+    /**
+     * Avalia a condição
+     * @param preco Preço atual do ativo
+     * @param variacao Variação percentual no período (NaN se indisponível)
+     * @param referencia Valor de referência da estratégia
+     * @return true se a condição é atendida
+     */
+    public boolean avaliar(double preco, double variacao, double referencia) {
+        double observado = this.usaVariacao ? variacao : preco;
+        return this.acima ? observado >= referencia : observado <= referencia;
+    }
+
+    public boolean isUsaVariacao() {
+        return usaVariacao;
+    }
+
+    public boolean isAcima() {
+        return acima;
+    }
+}
@@ -1,6 +1,8 @@
 package br.com.tiopatinhasexchange.model;
 import java.time.LocalDateTime;
 
+import br.com.tiopatinhasexchange.service.Relogio;
+
 /**
  * Classe que representa um criptoativo no sistema.
  * Versão simplificada que trata todos os criptoativos de forma unificada.
@@ -23,7 +25,7 @@ public class Criptoativo {
     
     // Construtores
     public Criptoativo() {
-        this.ultimaAtualizacao = LocalDateTime.now();
+        this.ultimaAtualizacao = Relogio.getPadrao().agora();
     }
     
     public Criptoativo(int id, String nome, String simbolo, double precoAtual) {
@@ -31,7 +33,7 @@ public class Criptoativo {
         this.nome = nome;
         this.simbolo = simbolo;
         this.precoAtual = precoAtual;
-        this.ultimaAtualizacao = LocalDateTime.now();
+        this.ultimaAtualizacao = Relogio.getPadrao().agora();
     }
     
     // Construtor completo
@@ -52,7 +54,7 @@ public class Criptoativo {
         double precoAntigo = this.precoAtual;
         this.precoAtual = novoPreco;
         this.variacaoDia = ((novoPreco - precoAntigo) / precoAntigo) * 100;
-        this.ultimaAtualizacao = LocalDateTime.now();
+        this.ultimaAtualizacao = Relogio.getPadrao().agora();
     }
     
     /**
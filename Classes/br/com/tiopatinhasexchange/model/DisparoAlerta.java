@@ -1,6 +1,10 @@
 package br.com.tiopatinhasexchange.model;
 import java.time.LocalDateTime;
 
+import br.com.tiopatinhasexchange.service.GeradorIds;
+import br.com.tiopatinhasexchange.service.Relogio;
+import br.com.tiopatinhasexchange.service.TipoEntidade;
+
 /**
  * Classe associativa que representa o disparo de um alerta para um usuário.
  * É uma entidade associativa que conecta Alertas e Usuários, controlando o envio e
@@ -25,7 +29,8 @@ public class DisparoAlerta {
     
     // Construtores
     public DisparoAlerta() {
-        this.dataHoraEnvio = LocalDateTime.now();
+        this.id = GeradorIds.getPadrao().proximoId(TipoEntidade.DISPARO_ALERTA);
+        this.dataHoraEnvio = Relogio.getPadrao().agora();
         this.visualizado = false;
         this.tentativasEnvio = 0;
         this.envioBemSucedido = false;
@@ -35,7 +40,8 @@ public class DisparoAlerta {
         this.idAlerta = idAlerta;
         this.idUsuario = idUsuario;
         this.canalEnvio = canalEnvio;
-        this.dataHoraEnvio = LocalDateTime.now();
+        this.id = GeradorIds.getPadrao().proximoId(TipoEntidade.DISPARO_ALERTA);
+        this.dataHoraEnvio = Relogio.getPadrao().agora();
         this.visualizado = false;
         this.tentativasEnvio = 1;
         this.envioBemSucedido = false;
@@ -46,7 +52,8 @@ public class DisparoAlerta {
         this.idUsuario = idUsuario;
         this.canalEnvio = canalEnvio;
         this.mensagem = mensagem;
-        this.dataHoraEnvio = LocalDateTime.now();
+        this.id = GeradorIds.getPadrao().proximoId(TipoEntidade.DISPARO_ALERTA);
+        this.dataHoraEnvio = Relogio.getPadrao().agora();
         this.visualizado = false;
         this.tentativasEnvio = 1;
         this.envioBemSucedido = false;
@@ -58,7 +65,7 @@ public class DisparoAlerta {
      */
     public void marcarComoVisualizado() {
         this.visualizado = true;
-        this.dataHoraVisualizacao = LocalDateTime.now();
+        this.dataHoraVisualizacao = Relogio.getPadrao().agora();
     }
     
     /**
@@ -107,7 +114,7 @@ public class DisparoAlerta {
      * @return true se o alerta tiver alta prioridade para visualização
      */
     public boolean verificarPrioridadeAlta() {
-        LocalDateTime agora = LocalDateTime.now();
+        LocalDateTime agora = Relogio.getPadrao().agora();
         // Se não visualizado e mais de 1 hora desde o envio, é alta prioridade
         return !this.visualizado && 
                this.envioBemSucedido && 
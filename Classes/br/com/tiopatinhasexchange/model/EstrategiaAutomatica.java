@@ -1,10 +1,23 @@
 package br.com.tiopatinhasexchange.model;
 import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+import br.com.tiopatinhasexchange.service.ContextoAvaliacao;
+import br.com.tiopatinhasexchange.service.ExpressaoCondicao;
+import br.com.tiopatinhasexchange.service.GeradorIds;
+import br.com.tiopatinhasexchange.service.Relogio;
+import br.com.tiopatinhasexchange.service.TipoEntidade;
 
 /**
  * Classe que representa uma estratégia automática para compra e venda de
  * criptoativos
  * com base em condições predefinidas pelo usuário.
+ * A condição é compilada uma única vez ({@link CondicaoCompilada}) e recompilada apenas
+ * quando o ativo, a condição ou o valor de referência mudam.
+ * Opcionalmente, a estratégia pode usar uma expressão composta ({@link ExpressaoCondicao})
+ * no lugar da condição simples.
+ * Os limites de frequência (recarga, execuções por janela e execução única) são
+ * aplicados por {@link br.com.tiopatinhasexchange.service.ControleRecargaEstrategias}.
  */
 public class EstrategiaAutomatica {
 
@@ -13,32 +26,50 @@ public class EstrategiaAutomatica {
     private int idUsuario;
     private int idCriptoativo;
     private int idCarteira; // Carteira onde a estratégia será executada
-    private String condicao; // PRECO_ACIMA, PRECO_ABAIXO, VARIACAO_ACIMA, VARIACAO_ABAIXO
-    private String acao; // COMPRAR, VENDER
+    private CondicaoEstrategia condicao; // PRECO_ACIMA, PRECO_ABAIXO, VARIACAO_ACIMA, VARIACAO_ABAIXO
+    private AcaoEstrategia acao; // COMPRAR, VENDER
     private double valorReferencia; // Valor de referência para a condição
     private double quantidade; // Quantidade a ser comprada ou vendida
     private boolean ativa; // Se a estratégia está ativa ou não
     private LocalDateTime dataHoraCriacao;
     private LocalDateTime ultimaExecucao;
+    private CondicaoCompilada condicaoCompilada; // Condição pronta para avaliação
+    private ExpressaoCondicao expressao; // Expressão composta (null = usa a condição simples)
+    private long intervaloRecargaSegundos; // Tempo mínimo entre execuções (0 = sem recarga)
+    private int maxExecucoesPorJanela; // Execuções permitidas por janela (0 = sem limite)
+    private long janelaExecucoesSegundos; // Duração da janela de execuções
+    private boolean execucaoUnica; // Desativa a estratégia após a primeira execução
     // frequenciaVerificação
 
     // Construtores
     public EstrategiaAutomatica() {
-        this.dataHoraCriacao = LocalDateTime.now();
+        this.id = GeradorIds.getPadrao().proximoId(TipoEntidade.ESTRATEGIA);
+        this.dataHoraCriacao = Relogio.getPadrao().agora();
         this.ativa = true;
     }
 
     public EstrategiaAutomatica(int idUsuario, int idCriptoativo, String condicao, String acao,
             double valorReferencia, double quantidade, int idCarteira) {
+        this(GeradorIds.getPadrao().proximoId(TipoEntidade.ESTRATEGIA), idUsuario, idCriptoativo, condicao, acao,
+                valorReferencia, quantidade, idCarteira);
+    }
+
+    /**
+     * Cria a estratégia com um ID já existente, sem consumir a sequência do {@link GeradorIds}
+     */
+    public EstrategiaAutomatica(int id, int idUsuario, int idCriptoativo, String condicao, String acao,
+            double valorReferencia, double quantidade, int idCarteira) {
+        this.id = id;
         this.idUsuario = idUsuario;
         this.idCriptoativo = idCriptoativo;
-        this.condicao = condicao;
-        this.acao = acao;
+        this.condicao = CondicaoEstrategia.deCodigo(condicao);
+        this.acao = AcaoEstrategia.deCodigo(acao);
         this.valorReferencia = valorReferencia;
         this.quantidade = quantidade;
         this.idCarteira = idCarteira;
-        this.dataHoraCriacao = LocalDateTime.now();
+        this.dataHoraCriacao = Relogio.getPadrao().agora();
         this.ativa = true;
+        compilarCondicao();
     }
 
     // Métodos
@@ -53,36 +84,44 @@ public class EstrategiaAutomatica {
             return false;
         }
 
-        double precoAtual = mercado.obterPrecoAtual(this.idCriptoativo);
-
-        // Verificar se o ativo existe no mercado
-        if (precoAtual < 0) {
-            return false;
+        if (this.expressao != null) {
+            return this.expressao.avaliar(new ContextoAvaliacao(mercado));
         }
 
-        // Verificar a condição
-        switch (this.condicao) {
-            case "PRECO_ACIMA":
-                return precoAtual >= this.valorReferencia;
+        CondicaoCompilada compilada = this.condicaoCompilada;
+        return compilada != null && compilada.avaliar(mercado);
+    }
 
-            case "PRECO_ABAIXO":
-                return precoAtual <= this.valorReferencia;
+    /**
+     * Verifica a condição no tick atual de um contexto compartilhado entre estratégias,
+     * aproveitando as subexpressões já calculadas por outras estratégias no mesmo tick
+     * 
+     * @param contexto Contexto de avaliação do tick
+     * @return true se a estratégia deve ser executada
+     */
+    public boolean verificarCondicao(ContextoAvaliacao contexto) {
+        if (!this.ativa) {
+            return false;
+        }
 
-            case "VARIACAO_ACIMA":
-                double variacao = mercado.calcularVariacao(this.idCriptoativo, 24);
-                return variacao >= this.valorReferencia;
+        if (this.expressao != null) {
+            return this.expressao.avaliar(contexto);
+        }
 
-            case "VARIACAO_ABAIXO":
-                double variacaoNegativa = mercado.calcularVariacao(this.idCriptoativo, 24);
-                return variacaoNegativa <= this.valorReferencia;
+        CondicaoCompilada compilada = this.condicaoCompilada;
+        return compilada != null && compilada.avaliar(contexto.getMercado());
+    }
 
-            default:
-                return false;
-        }
+    /**
+     * Recompila a condição após alterar o ativo, a condição ou a referência
+     */
+    private void compilarCondicao() {
+        this.condicaoCompilada = this.condicao == null ? null
+                : new CondicaoCompilada(this.condicao, this.idCriptoativo, this.valorReferencia);
     }
 
     /**
-     * Executa a estratégia na carteira do usuário
+     * Executa a estratégia na carteira do usuário, exibindo o alerta gerado no console
      * 
      * @param carteira Carteira do usuário
      * @param ativo    Criptoativo a ser negociado
@@ -90,44 +129,95 @@ public class EstrategiaAutomatica {
      * @return true se a estratégia foi executada com sucesso
      */
     public boolean executar(Carteira carteira, Criptoativo ativo, Mercado mercado) {
+        return executar(carteira, ativo, mercado,
+                alerta -> System.out.println("Alerta criado: " + alerta.getTitulo()));
+    }
+
+    /**
+     * Executa a estratégia na carteira do usuário
+     * 
+     * @param carteira    Carteira do usuário
+     * @param ativo       Criptoativo a ser negociado
+     * @param mercado     Mercado para obter o preço atual
+     * @param notificador Destino do alerta de execução (null = descarta)
+     * @return true se a estratégia foi executada com sucesso
+     */
+    public boolean executar(Carteira carteira, Criptoativo ativo, Mercado mercado,
+            Consumer<? super AlertaExecucaoEstrategia> notificador) {
+        return executarOrdem(carteira, ativo, mercado, notificador) != null;
+    }
+
+    /**
+     * Executa a estratégia na carteira do usuário e devolve o registro da execução
+     * 
+     * @param carteira    Carteira do usuário
+     * @param ativo       Criptoativo a ser negociado
+     * @param mercado     Mercado para obter o preço atual
+     * @param notificador Destino do alerta de execução (null = descarta)
+     * @return Registro da execução, ou null se a ordem não foi executada
+     */
+    public ExecucaoEstrategia executarOrdem(Carteira carteira, Criptoativo ativo, Mercado mercado,
+            Consumer<? super AlertaExecucaoEstrategia> notificador) {
         if (!this.ativa || carteira.getId() != this.idCarteira) {
-            return false;
+            return null;
         }
 
+        long inicio = System.nanoTime();
         double precoAtual = mercado.obterPrecoAtual(this.idCriptoativo);
 
         if (precoAtual < 0) {
-            return false;
+            return null;
         }
 
         boolean resultado = false;
 
         // Executar a ação
-        if (this.acao.equals("COMPRAR")) {
+        if (this.acao == AcaoEstrategia.COMPRAR) {
             resultado = carteira.comprarAtivo(ativo, this.quantidade, precoAtual);
-        } else if (this.acao.equals("VENDER")) {
+        } else if (this.acao == AcaoEstrategia.VENDER) {
             resultado = carteira.venderAtivo(ativo, this.quantidade, precoAtual);
         }
 
-        if (resultado) {
-            this.ultimaExecucao = LocalDateTime.now();
-
-            // Criar registro de execucao da estratégia
-            ExecucaoEstrategia execucao = new ExecucaoEstrategia(this.id, this.idCarteira);
+        if (!resultado) {
+            return null;
+        }
 
-            // Criar alerta para notificar o usuário
-            AlertaExecucaoEstrategia alerta = AlertaExecucaoEstrategia.criarAlertaExecucaoEstrategia(
-                    this.idUsuario,
-                    this.idCriptoativo,
-                    this.acao.toLowerCase(),
-                    this.quantidade,
-                    execucao.getId());
+        Transacao transacao = carteira.obterUltimaTransacao();
+        ExecucaoEstrategia execucao = registrarExecucao(precoAtual, transacao == null ? 0 : transacao.getId(),
+                notificador);
+        execucao.setLatenciaNanos(System.nanoTime() - inicio);
+        return execucao;
+    }
 
-            // Em uma implementação real, o alerta seria salvo em banco de dados
-            System.out.println("Alerta criado: " + alerta.getTitulo());
+    /**
+     * Registra uma execução da estratégia cuja ordem já foi enviada (ou compensada
+     * com outras estratégias) e notifica o usuário
+     * 
+     * @param precoExecucao Preço da ordem que atendeu a estratégia
+     * @param idTransacao   Transação da ordem (0 = compensada sem ordem)
+     * @param notificador   Destino do alerta de execução (null = descarta)
+     * @return Registro da execução
+     */
+    public ExecucaoEstrategia registrarExecucao(double precoExecucao, int idTransacao,
+            Consumer<? super AlertaExecucaoEstrategia> notificador) {
+        this.ultimaExecucao = Relogio.getPadrao().agora();
+
+        // Criar registro de execucao da estratégia
+        ExecucaoEstrategia execucao = new ExecucaoEstrategia(this.id, this.idCarteira, this.idCriptoativo,
+                this.acao, this.quantidade, precoExecucao, idTransacao);
+
+        // Criar alerta para notificar o usuário
+        AlertaExecucaoEstrategia alerta = AlertaExecucaoEstrategia.criarAlertaExecucaoEstrategia(
+                this.idUsuario,
+                this.idCriptoativo,
+                this.acao.getDescricao(),
+                this.quantidade,
+                execucao.getId());
+
+        if (notificador != null) {
+            notificador.accept(alerta);
         }
-
-        return resultado;
+        return execucao;
     }
 
     /**
@@ -148,12 +238,26 @@ public class EstrategiaAutomatica {
         System.out.println("=== Estratégia Automática ===");
         System.out.println("ID: " + this.id);
         System.out.println("Criptoativo: " + this.idCriptoativo);
-        System.out.println("Condição: " + this.condicao);
+        if (this.expressao != null) {
+            System.out.println("Condição: " + this.expressao.getTexto());
+        } else {
+            System.out.println("Condição: " + this.condicao);
+        }
         System.out.println("Valor de Referência: " + this.valorReferencia);
         System.out.println("Ação: " + this.acao);
         System.out.println("Quantidade: " + this.quantidade);
         System.out.println("Status: " + (this.ativa ? "Ativa" : "Inativa"));
         System.out.println("Data de Criação: " + this.dataHoraCriacao);
+        if (this.intervaloRecargaSegundos > 0) {
+            System.out.println("Recarga: " + this.intervaloRecargaSegundos + "s");
+        }
+        if (this.maxExecucoesPorJanela > 0) {
+            System.out.println("Limite: " + this.maxExecucoesPorJanela + " execução(ões) a cada "
+                    + this.janelaExecucoesSegundos + "s");
+        }
+        if (this.execucaoUnica) {
+            System.out.println("Execução única");
+        }
         if (this.ultimaExecucao != null) {
             System.out.println("Última Execução: " + this.ultimaExecucao);
         }
@@ -183,30 +287,45 @@ public class EstrategiaAutomatica {
 
     public void setIdCriptoativo(int idCriptoativo) {
         this.idCriptoativo = idCriptoativo;
+        compilarCondicao();
     }
 
-    public String getCondicao() {
+    public CondicaoEstrategia getCondicao() {
         return condicao;
     }
 
-    public void setCondicao(String condicao) {
+    public void setCondicao(CondicaoEstrategia condicao) {
         this.condicao = condicao;
+        compilarCondicao();
     }
 
-    public String getAcao() {
+    public AcaoEstrategia getAcao() {
         return acao;
     }
 
-    public void setAcao(String acao) {
+    public void setAcao(AcaoEstrategia acao) {
         this.acao = acao;
     }
 
+    public CondicaoCompilada getCondicaoCompilada() {
+        return condicaoCompilada;
+    }
+
+    public ExpressaoCondicao getExpressao() {
+        return expressao;
+    }
+
+    public void setExpressao(ExpressaoCondicao expressao) {
+        this.expressao = expressao;
+    }
+
     public double getValorReferencia() {
         return valorReferencia;
     }
 
     public void setValorReferencia(double valorReferencia) {
         this.valorReferencia = valorReferencia;
+        compilarCondicao();
     }
 
     public double getQuantidade() {
@@ -241,6 +360,47 @@ public class EstrategiaAutomatica {
         this.ultimaExecucao = ultimaExecucao;
     }
 
+    public long getIntervaloRecargaSegundos() {
+        return intervaloRecargaSegundos;
+    }
+
+    public void setIntervaloRecargaSegundos(long intervaloRecargaSegundos) {
+        if (intervaloRecargaSegundos < 0) {
+            throw new IllegalArgumentException("O intervalo de recarga não pode ser negativo");
+        }
+        this.intervaloRecargaSegundos = intervaloRecargaSegundos;
+    }
+
+    public int getMaxExecucoesPorJanela() {
+        return maxExecucoesPorJanela;
+    }
+
+    public long getJanelaExecucoesSegundos() {
+        return janelaExecucoesSegundos;
+    }
+
+    /**
+     * Limita a quantidade de execuções dentro de uma janela de tempo
+     * 
+     * @param maxExecucoes  Execuções permitidas por janela (0 = sem limite)
+     * @param janelaSegundos Duração da janela em segundos
+     */
+    public void setLimiteExecucoes(int maxExecucoes, long janelaSegundos) {
+        if (maxExecucoes < 0 || (maxExecucoes > 0 && janelaSegundos <= 0)) {
+            throw new IllegalArgumentException("Limite de execuções inválido");
+        }
+        this.maxExecucoesPorJanela = maxExecucoes;
+        this.janelaExecucoesSegundos = maxExecucoes == 0 ? 0 : janelaSegundos;
+    }
+
+    public boolean isExecucaoUnica() {
+        return execucaoUnica;
+    }
+
+    public void setExecucaoUnica(boolean execucaoUnica) {
+        this.execucaoUnica = execucaoUnica;
+    }
+
     public int getIdCarteira() {
         return idCarteira;
     }
@@ -0,0 +1,77 @@
+package br.com.tiopatinhasexchange.model;
+
+/**
+ * Classe que representa um evento de domínio de uma carteira (depósito, saque, compra,
+ * venda ou taxa). O estado de uma carteira é o resultado de aplicar, em ordem, todos os
+ * seus eventos. Eventos são imutáveis depois de criados.
+ */
+public class EventoCarteira {
+
+    // Atributos
+    private final long sequencia; // Posição do evento no fluxo da carteira (começa em 1)
+    private final long instante; // Momento do evento, em milissegundos desde a época
+    private final int idCarteira;
+    private final int idUsuario;
+    private final TipoEventoCarteira tipo;
+    private final int idAtivo; // Criptoativo envolvido (0 para depósito, saque e taxa)
+    private final double quantidade; // Quantidade do ativo (compra e venda)
+    private final double valor; // Valor financeiro que entra ou sai do saldo
+
+    // Construtores
+    public EventoCarteira(long sequencia, long instante, int idCarteira, int idUsuario,
+            TipoEventoCarteira tipo, int idAtivo, double quantidade, double valor) {
+        this.sequencia = sequencia;
+        this.instante = instante;
+        this.idCarteira = idCarteira;
+        this.idUsuario = idUsuario;
+        this.tipo = tipo;
+        this.idAtivo = idAtivo;
+        this.quantidade = quantidade;
+        this.valor = valor;
+    }
+
+    // Métodos
+    /**
+     * Cria uma cópia do evento com a sequência e o instante definidos pelo armazenamento
+     * @param sequencia Sequência atribuída
+     * @param instante Instante atribuído
+     * @return Novo evento
+     */
+    public EventoCarteira comSequencia(long sequencia, long instante) {
+        return new EventoCarteira(sequencia, instante, this.idCarteira, this.idUsuario,
+                this.tipo, this.idAtivo, this.quantidade, this.valor);
+    }
+
+    // Getters
+    public long getSequencia() {
+        return sequencia;
+    }
+
+    public long getInstante() {
+        return instante;
+    }
+
+    public int getIdCarteira() {
+        return idCarteira;
+    }
+
+    public int getIdUsuario() {
+        return idUsuario;
+    }
+
+    public TipoEventoCarteira getTipo() {
+        return tipo;
+    }
+
+    public int getIdAtivo() {
+        return idAtivo;
+    }
+
+    public double getQuantidade() {
+        return quantidade;
+    }
+
+    public double getValor() {
+        return valor;
+    }
+}
@@ -1,8 +1,14 @@
 package br.com.tiopatinhasexchange.model;
 import java.time.LocalDateTime;
 
+import br.com.tiopatinhasexchange.service.GeradorIds;
+import br.com.tiopatinhasexchange.service.Relogio;
+import br.com.tiopatinhasexchange.service.TipoEntidade;
+
 /*
  * Classe que representa uma execução de alguma estratégia.
+ * Quando várias estratégias são compensadas numa única ordem, todas as execuções
+ * apontam para a mesma transação.
 */
 
 public class ExecucaoEstrategia {
@@ -12,19 +18,65 @@ public class ExecucaoEstrategia {
     private int idEstrategiaAutomatica; // EstrategiaExecutada
     private int idCarteira; // Carteira em que foi executada a estratégia
     private LocalDateTime dataHoraExecucao;
-
-    // Métodos
+    private int idCriptoativo;
+    private AcaoEstrategia acao;
+    private double quantidade; // Quantidade pedida pela estratégia
+    private double precoExecucao; // Preço da ordem que atendeu a estratégia
+    private double precoDisparo; // Preço de mercado quando a estratégia disparou
+    private long latenciaNanos; // Do disparo até a execução da ordem
+    private int idTransacao; // Transação da ordem (0 = compensada sem ordem)
 
     // Construtores
 
     public ExecucaoEstrategia() {
-        this.dataHoraExecucao = LocalDateTime.now();
+        this.id = GeradorIds.getPadrao().proximoId(TipoEntidade.EXECUCAO_ESTRATEGIA);
+        this.dataHoraExecucao = Relogio.getPadrao().agora();
     }
     
     public ExecucaoEstrategia(int idEstrategiaAutomatica, int idCarteira) {
         this.idEstrategiaAutomatica = idEstrategiaAutomatica;
         this.idCarteira = idCarteira;
-        this.dataHoraExecucao = LocalDateTime.now();
+        this.id = GeradorIds.getPadrao().proximoId(TipoEntidade.EXECUCAO_ESTRATEGIA);
+        this.dataHoraExecucao = Relogio.getPadrao().agora();
+    }
+
+    public ExecucaoEstrategia(int idEstrategiaAutomatica, int idCarteira, int idCriptoativo, AcaoEstrategia acao,
+            double quantidade, double precoExecucao, int idTransacao) {
+        this(GeradorIds.getPadrao().proximoId(TipoEntidade.EXECUCAO_ESTRATEGIA), idEstrategiaAutomatica, idCarteira,
+                idCriptoativo, acao, quantidade, precoExecucao, idTransacao, Relogio.getPadrao().agora());
+    }
+
+    /**
+     * Restaura uma execução já registrada, mantendo o ID original sem consumir a
+     * sequência do {@link GeradorIds}
+     */
+    public ExecucaoEstrategia(int id, int idEstrategiaAutomatica, int idCarteira, int idCriptoativo,
+            AcaoEstrategia acao, double quantidade, double precoExecucao, int idTransacao,
+            LocalDateTime dataHoraExecucao) {
+        this.id = id;
+        this.idEstrategiaAutomatica = idEstrategiaAutomatica;
+        this.idCarteira = idCarteira;
+        this.dataHoraExecucao = dataHoraExecucao;
+        this.idCriptoativo = idCriptoativo;
+        this.acao = acao;
+        this.quantidade = quantidade;
+        this.precoExecucao = precoExecucao;
+        this.precoDisparo = precoExecucao;
+        this.idTransacao = idTransacao;
+    }
+
+    // Métodos
+    /**
+     * Calcula a derrapagem do preço de execução em relação ao preço no disparo.
+     * Positiva quando a execução foi desfavorável (compra mais cara ou venda mais barata).
+     * @return Derrapagem relativa (0.01 = 1%)
+     */
+    public double calcularDerrapagem() {
+        if (this.precoDisparo <= 0) {
+            return 0.0;
+        }
+        double diferenca = (this.precoExecucao - this.precoDisparo) / this.precoDisparo;
+        return this.acao == AcaoEstrategia.VENDER ? -diferenca : diferenca;
     }
 
     // Getters e Setters
@@ -53,6 +105,48 @@ public class ExecucaoEstrategia {
     public void setDataHoraExecucao(LocalDateTime dataHoraExecucao) {
         this.dataHoraExecucao = dataHoraExecucao;
     }
+    public int getIdCriptoativo() {
+        return idCriptoativo;
+    }
+    public void setIdCriptoativo(int idCriptoativo) {
+        this.idCriptoativo = idCriptoativo;
+    }
+    public AcaoEstrategia getAcao() {
+        return acao;
+    }
+    public void setAcao(AcaoEstrategia acao) {
+        this.acao = acao;
+    }
+    public double getQuantidade() {
+        return quantidade;
+    }
+    public void setQuantidade(double quantidade) {
+        this.quantidade = quantidade;
+    }
+    public double getPrecoExecucao() {
+        return precoExecucao;
+    }
+    public void setPrecoExecucao(double precoExecucao) {
+        this.precoExecucao = precoExecucao;
+    }
+    public double getPrecoDisparo() {
+        return precoDisparo;
+    }
+    public void setPrecoDisparo(double precoDisparo) {
+        this.precoDisparo = precoDisparo;
+    }
+    public long getLatenciaNanos() {
+        return latenciaNanos;
+    }
+    public void setLatenciaNanos(long latenciaNanos) {
+        this.latenciaNanos = latenciaNanos;
+    }
+    public int getIdTransacao() {
+        return idTransacao;
+    }
+    public void setIdTransacao(int idTransacao) {
+        this.idTransacao = idTransacao;
+    }
 
     // Exibir detalhes
     /**
@@ -64,6 +158,12 @@ public class ExecucaoEstrategia {
         System.out.println("Estratégia Automática: " + this.idEstrategiaAutomatica);
         System.out.println("Carteira: " + this.idCarteira);
         System.out.println("Data e Hora da Execução: " + this.dataHoraExecucao);
+        System.out.println("Criptoativo: " + this.idCriptoativo);
+        System.out.println("Ação: " + this.acao);
+        System.out.println("Quantidade: " + this.quantidade);
+        System.out.println("Preço: " + this.precoExecucao + " (no disparo: " + this.precoDisparo + ")");
+        System.out.printf("Latência: %.1f µs%n", this.latenciaNanos / 1000.0);
+        System.out.println("Transação: " + (this.idTransacao == 0 ? "compensada" : this.idTransacao));
         System.out.println("==============");
     }
 }
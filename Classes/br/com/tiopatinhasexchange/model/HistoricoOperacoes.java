@@ -0,0 +1,145 @@
+package br.com.tiopatinhasexchange.model;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Histórico de operações simuladas, somente de acréscimo, em vetores paralelos
+ * (tipo, ativo, quantidade, preço, total e instante). Cada operação ocupa 37 bytes,
+ * sem objetos por operação, e é lida pelos acessores tipados pelo índice.
+ */
+public class HistoricoOperacoes {
+
+    private static final AcaoEstrategia[] ACOES = AcaoEstrategia.values();
+
+    // Atributos
+    private int tamanho;
+    private byte[] tipos; // Ordinal de AcaoEstrategia
+    private int[] idsCriptoativos;
+    private double[] quantidades;
+    private double[] valoresUnitarios;
+    private double[] valoresTotais;
+    private long[] instantes; // Epoch em milissegundos
+
+    // Construtores
+    public HistoricoOperacoes() {
+        this(16);
+    }
+
+    public HistoricoOperacoes(int capacidadeInicial) {
+        int capacidade = Math.max(1, capacidadeInicial);
+        this.tipos = new byte[capacidade];
+        this.idsCriptoativos = new int[capacidade];
+        this.quantidades = new double[capacidade];
+        this.valoresUnitarios = new double[capacidade];
+        this.valoresTotais = new double[capacidade];
+        this.instantes = new long[capacidade];
+    }
+
+    // Métodos
+    /**
+     * Acrescenta uma operação ao histórico
+     * @param acao Compra ou venda
+     * @param idCriptoativo ID do criptoativo
+     * @param quantidade Quantidade negociada
+     * @param valorUnitario Preço unitário
+     * @param valorTotal Valor total da operação
+     * @param instanteMillis Instante da operação (epoch em milissegundos)
+     */
+    public void registrar(AcaoEstrategia acao, int idCriptoativo, double quantidade, double valorUnitario,
+            double valorTotal, long instanteMillis) {
+        if (this.tamanho == this.tipos.length) {
+            crescer();
+        }
+        int i = this.tamanho++;
+        this.tipos[i] = (byte) acao.ordinal();
+        this.idsCriptoativos[i] = idCriptoativo;
+        this.quantidades[i] = quantidade;
+        this.valoresUnitarios[i] = valorUnitario;
+        this.valoresTotais[i] = valorTotal;
+        this.instantes[i] = instanteMillis;
+    }
+
+    /**
+     * Remove todas as operações, mantendo a capacidade já alocada
+     */
+    public void limpar() {
+        this.tamanho = 0;
+    }
+
+    /**
+     * Exporta o histórico em CSV, uma operação por vez, sem montar o texto inteiro em memória
+     * @param destino Destino do CSV
+     */
+    public void exportarCsv(Writer destino) {
+        try {
+            destino.write("tipo,idCriptoativo,quantidade,valorUnitario,valorTotal,instante\n");
+            StringBuilder linha = new StringBuilder(96);
+            for (int i = 0; i < this.tamanho; i++) {
+                linha.setLength(0);
+                linha.append(getAcao(i).getDescricao()).append(',')
+                        .append(this.idsCriptoativos[i]).append(',')
+                        .append(this.quantidades[i]).append(',')
+                        .append(this.valoresUnitarios[i]).append(',')
+                        .append(this.valoresTotais[i]).append(',')
+                        .append(this.instantes[i]).append('\n');
+                destino.append(linha);
+            }
+            destino.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível exportar o histórico", e);
+        }
+    }
+
+    private void crescer() {
+        int capacidade = this.tipos.length * 2;
+        this.tipos = Arrays.copyOf(this.tipos, capacidade);
+        this.idsCriptoativos = Arrays.copyOf(this.idsCriptoativos, capacidade);
+        this.quantidades = Arrays.copyOf(this.quantidades, capacidade);
+        this.valoresUnitarios = Arrays.copyOf(this.valoresUnitarios, capacidade);
+        this.valoresTotais = Arrays.copyOf(this.valoresTotais, capacidade);
+        this.instantes = Arrays.copyOf(this.instantes, capacidade);
+    }
+
+    private void verificarIndice(int i) {
+        if (i < 0 || i >= this.tamanho) {
+            throw new IndexOutOfBoundsException("Operação " + i + " fora do histórico (" + this.tamanho + ")");
+        }
+    }
+
+    // Getters e Setters
+    public int getTamanho() {
+        return this.tamanho;
+    }
+
+    public AcaoEstrategia getAcao(int i) {
+        verificarIndice(i);
+        return ACOES[this.tipos[i]];
+    }
+
+    public int getIdCriptoativo(int i) {
+        verificarIndice(i);
+        return this.idsCriptoativos[i];
+    }
+
+    public double getQuantidade(int i) {
+        verificarIndice(i);
+        return this.quantidades[i];
+    }
+
+    public double getValorUnitario(int i) {
+        verificarIndice(i);
+        return this.valoresUnitarios[i];
+    }
+
+    public double getValorTotal(int i) {
+        verificarIndice(i);
+        return this.valoresTotais[i];
+    }
+
+    public long getInstante(int i) {
+        verificarIndice(i);
+        return this.instantes[i];
+    }
+}
@@ -5,6 +5,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import br.com.tiopatinhasexchange.service.RegistroTicksMercado;
+import br.com.tiopatinhasexchange.service.Relogio;
+
 /**
  * Classe responsável por coletar, processar e fornecer dados em tempo real sobre
  * o mercado de criptoativos, como preços, tendências e eventos críticos.
@@ -20,6 +23,7 @@ public class Mercado {
     private Map<String, Double> indicadoresMercado; // Indicadores gerais do mercado (dominância BTC, etc.)
     private List<String> eventos; // Eventos importantes (notícias, regulamentações, etc.)
     private LocalDateTime ultimaAtualizacao; // Timestamp da última atualização de dados
+    private RegistroTicksMercado registroTicks; // null = ticks não são gravados
 
     // Construtores
     public Mercado() {
@@ -29,7 +33,7 @@ public class Mercado {
         this.volumeNegociacao24h = new HashMap<>();
         this.indicadoresMercado = new HashMap<>();
         this.eventos = new ArrayList<>();
-        this.ultimaAtualizacao = LocalDateTime.now();
+        this.ultimaAtualizacao = Relogio.getPadrao().agora();
     }
 
     // Métodos
@@ -50,7 +54,13 @@ public class Mercado {
         
         // Atualizar preços
         this.precosAtuais.putAll(dadosAtualizados);
-        this.ultimaAtualizacao = LocalDateTime.now();
+        // O tick é gravado com o instante do relógio, não reconvertido da data local
+        // (ambígua na volta do horário de verão)
+        long instante = Relogio.getPadrao().agoraMillis();
+        this.ultimaAtualizacao = Relogio.paraDataHora(instante);
+        if (this.registroTicks != null) {
+            this.registroTicks.registrar(instante, dadosAtualizados);
+        }
         
         return true;
     }
@@ -136,6 +146,47 @@ public class Mercado {
         return ((precoAtual - precoAnterior) / precoAnterior) * 100;
     }
     
+    /**
+     * Calcula o índice de força relativa (RSI) de um ativo sobre as últimas atualizações
+     * @param idAtivo ID do criptoativo
+     * @param periodos Número de variações consideradas
+     * @return RSI entre 0 e 100, ou 50 se não houver histórico suficiente
+     */
+    public double calcularRsi(Integer idAtivo, int periodos) {
+        if (periodos <= 0 || !this.precosAtuais.containsKey(idAtivo)) {
+            return 50.0;
+        }
+        
+        // O histórico guarda os preços anteriores a cada atualização; o último ponto é o preço atual
+        int inicio = Math.max(0, this.historicoPrecos.size() - periodos);
+        double ganhos = 0.0;
+        double perdas = 0.0;
+        double anterior = Double.NaN;
+        
+        for (int i = inicio; i <= this.historicoPrecos.size(); i++) {
+            Double preco = i < this.historicoPrecos.size()
+                    ? this.historicoPrecos.get(i).get(idAtivo)
+                    : this.precosAtuais.get(idAtivo);
+            if (preco == null) {
+                continue;
+            }
+            if (!Double.isNaN(anterior)) {
+                double diferenca = preco - anterior;
+                if (diferenca > 0) {
+                    ganhos += diferenca;
+                } else {
+                    perdas -= diferenca;
+                }
+            }
+            anterior = preco;
+        }
+        
+        if (ganhos + perdas == 0) {
+            return 50.0;
+        }
+        return 100.0 * ganhos / (ganhos + perdas);
+    }
+    
     /**
      * Detecta ativos com variação brusca de preço
      * @param limiteVariacao Limite percentual para considerar variação brusca
@@ -234,4 +285,16 @@ public class Mercado {
     public void setUltimaAtualizacao(LocalDateTime ultimaAtualizacao) {
         this.ultimaAtualizacao = ultimaAtualizacao;
     }
+
+    public RegistroTicksMercado getRegistroTicks() {
+        return registroTicks;
+    }
+
+    /**
+     * Define onde os ticks de preço são gravados para reprodução posterior
+     * @param registroTicks Registro de ticks (null para não gravar)
+     */
+    public void setRegistroTicks(RegistroTicksMercado registroTicks) {
+        this.registroTicks = registroTicks;
+    }
 }
\ No newline at end of file
@@ -3,6 +3,8 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+import br.com.tiopatinhasexchange.service.Relogio;
+
 /**
  * Classe responsável pelo módulo educacional interativo,
  * oferecendo conteúdo para aprendizado sobre criptoativos e mercado financeiro.
@@ -24,7 +26,7 @@ public class ModuloEducacional {
     // Construtores
     public ModuloEducacional() {
         this.comentarios = new ArrayList<>();
-        this.dataPublicacao = LocalDateTime.now();
+        this.dataPublicacao = Relogio.getPadrao().agora();
         this.visualizacoes = 0;
         this.avaliacaoMedia = 0.0;
     }
@@ -35,7 +37,7 @@ public class ModuloEducacional {
         this.conteudo = conteudo;
         this.nivel = nivel;
         this.comentarios = new ArrayList<>();
-        this.dataPublicacao = LocalDateTime.now();
+        this.dataPublicacao = Relogio.getPadrao().agora();
         this.visualizacoes = 0;
         this.avaliacaoMedia = 0.0;
     }
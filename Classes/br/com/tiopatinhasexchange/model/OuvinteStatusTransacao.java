@@ -0,0 +1,17 @@
+package br.com.tiopatinhasexchange.model;
+
+/**
+ * Interface para ser notificado quando uma transação muda de status.
+ * A notificação ocorre na thread que efetuou a transição, depois que ela foi aplicada.
+ */
+@FunctionalInterface
+public interface OuvinteStatusTransacao {
+
+    /**
+     * Chamado após uma transição de status bem-sucedida
+     * @param transacao Transação alterada
+     * @param anterior Status anterior
+     * @param novo Novo status
+     */
+    void statusAlterado(Transacao transacao, StatusTransacao anterior, StatusTransacao novo);
+}
@@ -6,29 +6,61 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 
+import br.com.tiopatinhasexchange.service.CursorPrecos;
+import br.com.tiopatinhasexchange.service.EstatisticasMonteCarlo;
+import br.com.tiopatinhasexchange.service.FaixaParametro;
+import br.com.tiopatinhasexchange.service.GeradorIds;
+import br.com.tiopatinhasexchange.service.GeradorMercadoCorrelacionado;
+import br.com.tiopatinhasexchange.service.JanelaVariacao;
+import br.com.tiopatinhasexchange.service.ModeloExecucao;
+import br.com.tiopatinhasexchange.service.ModeloPreco;
+import br.com.tiopatinhasexchange.service.MotorBacktest;
+import br.com.tiopatinhasexchange.service.MotorMonteCarlo;
+import br.com.tiopatinhasexchange.service.MotorRiscoCenarios;
+import br.com.tiopatinhasexchange.service.OtimizadorWalkForward;
+import br.com.tiopatinhasexchange.service.RelatorioRiscoCenarios;
+import br.com.tiopatinhasexchange.service.Relogio;
+import br.com.tiopatinhasexchange.service.ResultadoWalkForward;
+import br.com.tiopatinhasexchange.service.SerieCandles;
+import br.com.tiopatinhasexchange.service.TipoEntidade;
+
 /**
  * Classe responsável por simular investimentos em criptoativos sem risco real,
  * permitindo que usuários testem estratégias antes de investir com dinheiro real.
  */
 public class Simulador {
     
+    private static final long MILLIS_POR_DIA = 86_400_000L;
+    private static final long PERIODO_VARIACAO_MILLIS = CondicaoEstrategia.PERIODO_VARIACAO_HORAS * 3_600_000L;
+    
     // Atributos
     private int id;
     private int idUsuario;
     private double saldoVirtual;
     private Map<Integer, Double> posicoes; // Mapa de posições: <ID do ativo, quantidade>
-    private List<Map<String, Object>> historico; // Histórico de operações simuladas
+    private HistoricoOperacoes historico; // Histórico de operações simuladas
+    private boolean registrarHistorico; // false em simulações longas, para manter a memória constante
+    private ModeloExecucao modeloExecucao; // Quantidade e preço executados das ordens das estratégias
     private LocalDateTime dataInicio;
     private LocalDateTime dataFim;
     private double rendimentoTotal;
     private boolean ativo;
     private Map<String, Object> parametrosSimulacao; // Parâmetros personalizáveis da simulação
 
+    // Vetores de uma posição reaproveitados a cada ordem enviada ao modelo de execução
+    private final boolean[] ordemCompra = new boolean[1];
+    private final double[] ordemQuantidade = new double[1];
+    private final double[] quantidadeExecutada = new double[1];
+    private final double[] precoExecucao = new double[1];
+
     // Construtores
     public Simulador() {
+        this.id = GeradorIds.getPadrao().proximoId(TipoEntidade.SIMULADOR);
         this.posicoes = new HashMap<>();
-        this.historico = new ArrayList<>();
-        this.dataInicio = LocalDateTime.now();
+        this.historico = new HistoricoOperacoes();
+        this.registrarHistorico = true;
+        this.modeloExecucao = ModeloExecucao.IDEAL;
+        this.dataInicio = Relogio.getPadrao().agora();
         this.saldoVirtual = 10000.0; // Saldo inicial padrão
         this.rendimentoTotal = 0.0;
         this.ativo = true;
@@ -36,10 +68,13 @@ public class Simulador {
     }
     
     public Simulador(int idUsuario, double saldoInicial) {
+        this.id = GeradorIds.getPadrao().proximoId(TipoEntidade.SIMULADOR);
         this.idUsuario = idUsuario;
         this.posicoes = new HashMap<>();
-        this.historico = new ArrayList<>();
-        this.dataInicio = LocalDateTime.now();
+        this.historico = new HistoricoOperacoes();
+        this.registrarHistorico = true;
+        this.modeloExecucao = ModeloExecucao.IDEAL;
+        this.dataInicio = Relogio.getPadrao().agora();
         this.saldoVirtual = saldoInicial;
         this.rendimentoTotal = 0.0;
         this.ativo = true;
@@ -74,14 +109,10 @@ public class Simulador {
         this.posicoes.put(idCriptoativo, posicaoAtual + quantidade);
         
         // Registrar operação no histórico
-        Map<String, Object> operacao = new HashMap<>();
-        operacao.put("tipo", "compra");
-        operacao.put("idCriptoativo", idCriptoativo);
-        operacao.put("quantidade", quantidade);
-        operacao.put("valorUnitario", valorUnitario);
-        operacao.put("valorTotal", valorTotal);
-        operacao.put("dataHora", LocalDateTime.now());
-        this.historico.add(operacao);
+        if (this.registrarHistorico) {
+            this.historico.registrar(AcaoEstrategia.COMPRAR, idCriptoativo, quantidade, valorUnitario, valorTotal,
+                    Relogio.getPadrao().agoraMillis());
+        }
         
         return true;
     }
@@ -117,14 +148,10 @@ public class Simulador {
         }
         
         // Registrar operação no histórico
-        Map<String, Object> operacao = new HashMap<>();
-        operacao.put("tipo", "venda");
-        operacao.put("idCriptoativo", idCriptoativo);
-        operacao.put("quantidade", quantidade);
-        operacao.put("valorUnitario", valorUnitario);
-        operacao.put("valorTotal", valorTotal);
-        operacao.put("dataHora", LocalDateTime.now());
-        this.historico.add(operacao);
+        if (this.registrarHistorico) {
+            this.historico.registrar(AcaoEstrategia.VENDER, idCriptoativo, quantidade, valorUnitario, valorTotal,
+                    Relogio.getPadrao().agoraMillis());
+        }
         
         return true;
     }
@@ -160,6 +187,87 @@ public class Simulador {
         return precos;
     }
     
+    /**
+     * Simula muitas trajetórias de preço em paralelo e resume o resultado, sem guardar
+     * as trajetórias. O resultado é sempre o mesmo para a mesma semente.
+     * @param precoInicial Preço inicial do ativo
+     * @param volatilidade Volatilidade do ativo (0.0 a 1.0)
+     * @param diasSimulados Número de dias de cada trajetória
+     * @param trajetorias Número de trajetórias
+     * @param semente Semente da simulação
+     * @return Estatísticas das trajetórias
+     */
+    public EstatisticasMonteCarlo simularMonteCarlo(double precoInicial, double volatilidade, int diasSimulados,
+            long trajetorias, long semente) {
+        return new MotorMonteCarlo().simular(precoInicial, volatilidade, diasSimulados, trajetorias, semente);
+    }
+    
+    /**
+     * Simula vários ativos correlacionados ao mesmo tempo, um preço por dia, no formato
+     * aceito por {@link #simularEstrategia}
+     * @param idsCriptoativos IDs dos criptoativos
+     * @param precosIniciais Preço inicial de cada ativo
+     * @param modelos Modelo de preço de cada ativo
+     * @param correlacao Matriz de correlação entre os ativos
+     * @param diasSimulados Número de dias a simular
+     * @param semente Semente da simulação
+     * @return Lista de preços simulados por ID do ativo, começando pelo preço inicial
+     */
+    public Map<Integer, List<Double>> simularMercadoCorrelacionado(int[] idsCriptoativos, double[] precosIniciais,
+            ModeloPreco[] modelos, double[][] correlacao, int diasSimulados, long semente) {
+        if (idsCriptoativos.length != modelos.length) {
+            throw new IllegalArgumentException("Informe um modelo por ativo");
+        }
+        double[][] precos = new GeradorMercadoCorrelacionado(modelos, precosIniciais, correlacao)
+                .gerar(diasSimulados, GeradorMercadoCorrelacionado.DT_DIA, semente);
+        
+        Map<Integer, List<Double>> mercadoSimulado = new HashMap<>();
+        for (int a = 0; a < idsCriptoativos.length; a++) {
+            List<Double> serie = new ArrayList<>(precos[a].length);
+            for (double preco : precos[a]) {
+                serie.add(preco);
+            }
+            mercadoSimulado.put(idsCriptoativos[a], serie);
+        }
+        return mercadoSimulado;
+    }
+    
+    /**
+     * Avalia o risco das posições atuais da simulação (VaR, CVaR e drawdown máximo)
+     * em cenários de preço correlacionados
+     * @param precos Preço atual por ID do criptoativo
+     * @param volatilidade Volatilidade anual de cada ativo
+     * @param correlacao Correlação entre quaisquer dois ativos
+     * @param dias Horizonte em dias
+     * @param cenarios Número de cenários
+     * @param semente Semente da simulação
+     * @return Relatório de risco
+     */
+    public RelatorioRiscoCenarios avaliarRisco(Map<Integer, Double> precos, double volatilidade, double correlacao,
+            int dias, long cenarios, long semente) {
+        return new MotorRiscoCenarios().avaliar(this.posicoes, this.saldoVirtual, precos, volatilidade, correlacao,
+                dias, cenarios, semente);
+    }
+    
+    /**
+     * Otimiza os parâmetros de uma estratégia em janelas walk-forward sobre uma série
+     * histórica, com o saldo virtual e o modelo de execução da simulação
+     * @param modelo Estratégia cujos demais parâmetros são mantidos
+     * @param referencias Faixa do valor de referência
+     * @param quantidades Faixa da quantidade
+     * @param serie Série de candles do ativo da estratégia
+     * @param candlesOtimizacao Tamanho do trecho de otimização de cada janela
+     * @param candlesValidacao Tamanho do trecho de validação de cada janela
+     * @return Resultado por janela
+     */
+    public ResultadoWalkForward otimizarWalkForward(EstrategiaAutomatica modelo, FaixaParametro referencias,
+            FaixaParametro quantidades, SerieCandles serie, int candlesOtimizacao, int candlesValidacao) {
+        MotorBacktest motor = new MotorBacktest(this.saldoVirtual);
+        motor.setModeloExecucao(this.modeloExecucao);
+        return new OtimizadorWalkForward(motor).otimizarEmGrade(modelo, referencias, quantidades, serie,
+                candlesOtimizacao, candlesValidacao);
+    }
+    
     /**
      * Simula o resultado de uma estratégia automática ao longo do tempo
      * @param estrategia Estratégia a ser simulada
@@ -177,28 +285,20 @@ public class Simulador {
         }
         
         List<Double> precos = mercadoSimulado.get(idCriptoativo);
+        CondicaoCompilada condicao = estrategia.getCondicaoCompilada();
+        
+        // Janela de 24 horas sobre a série diária: incluindo o limite, a referência de cada
+        // dia é o preço do dia anterior
+        JanelaVariacao janela = condicao != null && condicao.getCondicao().isUsaVariacao()
+                ? new JanelaVariacao(PERIODO_VARIACAO_MILLIS, true) : null;
         
         // Simular cada dia
         for (int dia = 0; dia < Math.min(diasSimulados, precos.size() - 1); dia++) {
             double precoAtual = precos.get(dia);
+            double variacao = janela == null ? Double.NaN : janela.adicionar(dia * MILLIS_POR_DIA, precoAtual);
             
-            // Simular verificação da condição da estratégia
-            boolean executar = false;
-            
-            if (estrategia.getCondicao().equals("PRECO_ACIMA")) {
-                executar = precoAtual >= estrategia.getValorReferencia();
-            } else if (estrategia.getCondicao().equals("PRECO_ABAIXO")) {
-                executar = precoAtual <= estrategia.getValorReferencia();
-            }
-            
-            // Executar a estratégia se a condição for atendida
-            if (executar) {
-                if (estrategia.getAcao().equals("COMPRAR")) {
-                    simularCompra(idCriptoativo, estrategia.getQuantidade(), precoAtual);
-                } else if (estrategia.getAcao().equals("VENDER")) {
-                    simularVenda(idCriptoativo, estrategia.getQuantidade(), precoAtual);
-                }
-            }
+            // A série diária não tem volume: o modelo de execução o trata como desconhecido
+            executarPassoEstrategia(estrategia, precoAtual, variacao, 0.0);
         }
         
         // Calcular rendimento
@@ -218,12 +318,89 @@ public class Simulador {
         return this.rendimentoTotal;
     }
     
+    /**
+     * Simula uma estratégia passo a passo sobre um cursor de preços: cada passo gera o
+     * preço, avalia a condição e atualiza saldo e posição antes de ler o próximo. A memória
+     * não depende do número de passos (desde que o histórico esteja desativado com
+     * {@link #setRegistrarHistorico(boolean)}); a janela de variação guarda só as últimas 24 horas.
+     * @param estrategia Estratégia a ser simulada
+     * @param cursor Preços do ativo da estratégia
+     * @return Rendimento percentual da estratégia (posições em outros ativos não são reavaliadas)
+     */
+    public double simularEstrategia(EstrategiaAutomatica estrategia, CursorPrecos cursor) {
+        double saldoInicial = this.saldoVirtual;
+        int idCriptoativo = estrategia.getIdCriptoativo();
+        CondicaoCompilada condicao = estrategia.getCondicaoCompilada();
+        JanelaVariacao janela = condicao != null && condicao.getCondicao().isUsaVariacao()
+                ? new JanelaVariacao(PERIODO_VARIACAO_MILLIS) : null;
+        
+        double precoAtual = Double.NaN;
+        while (cursor.avancar()) {
+            precoAtual = cursor.getPreco();
+            double variacao = janela == null ? Double.NaN : janela.adicionar(cursor.getInstante(), precoAtual);
+            executarPassoEstrategia(estrategia, precoAtual, variacao);
+        }
+        
+        // Série vazia
+        if (Double.isNaN(precoAtual)) {
+            return 0.0;
+        }
+        
+        double saldoFinal = this.saldoVirtual + this.posicoes.getOrDefault(idCriptoativo, 0.0) * precoAtual;
+        this.rendimentoTotal = ((saldoFinal - saldoInicial) / saldoInicial) * 100;
+        return this.rendimentoTotal;
+    }
+    
+    /**
+     * Avalia a condição de uma estratégia num passo da simulação e, se atendida, simula a ordem
+     * @param estrategia Estratégia a ser avaliada
+     * @param preco Preço do ativo no passo
+     * @param variacao Variação de 24 horas no passo (NaN se a condição não usa variação)
+     * @return true se uma ordem foi simulada
+     */
+    public boolean executarPassoEstrategia(EstrategiaAutomatica estrategia, double preco, double variacao) {
+        return executarPassoEstrategia(estrategia, preco, variacao, 0.0);
+    }
+    
+    /**
+     * Avalia a condição de uma estratégia num passo da simulação e, se atendida, simula a
+     * ordem com a quantidade e o preço definidos pelo modelo de execução
+     * @param estrategia Estratégia a ser avaliada
+     * @param preco Preço de referência do ativo no passo
+     * @param variacao Variação de 24 horas no passo (NaN se a condição não usa variação)
+     * @param volume Volume negociado no passo (0 se desconhecido)
+     * @return true se uma ordem foi simulada
+     */
+    public boolean executarPassoEstrategia(EstrategiaAutomatica estrategia, double preco, double variacao,
+            double volume) {
+        CondicaoCompilada condicao = estrategia.getCondicaoCompilada();
+        if (condicao == null || !condicao.avaliar(preco, variacao)) {
+            return false;
+        }
+        AcaoEstrategia acao = estrategia.getAcao();
+        if (acao != AcaoEstrategia.COMPRAR && acao != AcaoEstrategia.VENDER) {
+            return false;
+        }
+        
+        boolean compra = acao == AcaoEstrategia.COMPRAR;
+        this.ordemCompra[0] = compra;
+        this.ordemQuantidade[0] = estrategia.getQuantidade();
+        this.modeloExecucao.executar(1, this.ordemCompra, this.ordemQuantidade, preco, volume,
+                this.quantidadeExecutada, this.precoExecucao);
+        double quantidade = this.quantidadeExecutada[0];
+        if (quantidade <= 0) {
+            return false;
+        }
+        return compra ? simularCompra(estrategia.getIdCriptoativo(), quantidade, this.precoExecucao[0])
+                : simularVenda(estrategia.getIdCriptoativo(), quantidade, this.precoExecucao[0]);
+    }
+    
     /**
      * Finaliza a simulação
      */
     public void finalizarSimulacao() {
         this.ativo = false;
-        this.dataFim = LocalDateTime.now();
+        this.dataFim = Relogio.getPadrao().agora();
     }
     
     /**
@@ -233,8 +410,8 @@ public class Simulador {
      */
     public boolean reiniciarSimulacao(double saldoInicial) {
         this.posicoes.clear();
-        this.historico.clear();
-        this.dataInicio = LocalDateTime.now();
+        this.historico.limpar();
+        this.dataInicio = Relogio.getPadrao().agora();
         this.dataFim = null;
         this.saldoVirtual = saldoInicial;
         this.rendimentoTotal = 0.0;
@@ -243,6 +420,18 @@ public class Simulador {
         return true;
     }
     
+    /**
+     * Prepara uma instância já usada para a simulação de outro usuário, mantendo o ID
+     * e a capacidade já alocada das posições e do histórico
+     * @param idUsuario ID do novo usuário
+     * @param saldoInicial Saldo inicial da nova simulação
+     */
+    public void reciclar(int idUsuario, double saldoInicial) {
+        this.idUsuario = idUsuario;
+        this.parametrosSimulacao.clear();
+        reiniciarSimulacao(saldoInicial);
+    }
+    
     /**
      * Exibe um resumo da simulação
      */
@@ -256,7 +445,7 @@ public class Simulador {
         System.out.println("Status: " + (this.ativo ? "Em andamento" : "Finalizada"));
         System.out.println("Saldo Virtual: " + this.saldoVirtual);
         System.out.println("Posições: " + this.posicoes.size());
-        System.out.println("Operações: " + this.historico.size());
+        System.out.println("Operações: " + this.historico.getTamanho());
         System.out.println("Rendimento Total: " + String.format("%.2f", this.rendimentoTotal) + "%");
         System.out.println("==========================");
     }
@@ -294,14 +483,33 @@ public class Simulador {
         this.posicoes = posicoes;
     }
 
-    public List<Map<String, Object>> getHistorico() {
+    public HistoricoOperacoes getHistorico() {
         return historico;
     }
 
-    public void setHistorico(List<Map<String, Object>> historico) {
+    public void setHistorico(HistoricoOperacoes historico) {
         this.historico = historico;
     }
 
+    public boolean isRegistrarHistorico() {
+        return registrarHistorico;
+    }
+
+    public void setRegistrarHistorico(boolean registrarHistorico) {
+        this.registrarHistorico = registrarHistorico;
+    }
+
+    public ModeloExecucao getModeloExecucao() {
+        return modeloExecucao;
+    }
+
+    public void setModeloExecucao(ModeloExecucao modeloExecucao) {
+        if (modeloExecucao == null) {
+            throw new IllegalArgumentException("O modelo de execução não pode ser nulo");
+        }
+        this.modeloExecucao = modeloExecucao;
+    }
+
     public LocalDateTime getDataInicio() {
         return dataInicio;
     }
@@ -0,0 +1,66 @@
+package br.com.tiopatinhasexchange.model;
+
+/**
+ * Classe que representa uma fotografia compacta do estado de uma carteira após um
+ * determinado evento. Permite reconstruir a carteira sem reaplicar todo o histórico:
+ * basta restaurar o snapshot e aplicar os eventos posteriores a ele.
+ */
+public class SnapshotCarteira {
+
+    // Atributos
+    private final int idCarteira;
+    private final int idUsuario;
+    private final long sequencia; // Último evento incluído no snapshot
+    private final long instante; // Instante desse último evento
+    private final double saldo;
+    private final int[] idsAtivos; // Ativos com posição
+    private final double[] quantidades; // Quantidade de cada ativo, na mesma ordem
+
+    // Construtores
+    public SnapshotCarteira(int idCarteira, int idUsuario, long sequencia, long instante,
+            double saldo, int[] idsAtivos, double[] quantidades) {
+        if (idsAtivos.length != quantidades.length) {
+            throw new IllegalArgumentException("Ativos e quantidades devem ter o mesmo tamanho");
+        }
+        this.idCarteira = idCarteira;
+        this.idUsuario = idUsuario;
+        this.sequencia = sequencia;
+        this.instante = instante;
+        this.saldo = saldo;
+        this.idsAtivos = idsAtivos;
+        this.quantidades = quantidades;
+    }
+
+    // Getters
+    public int getIdCarteira() {
+        return idCarteira;
+    }
+
+    public int getIdUsuario() {
+        return idUsuario;
+    }
+
+    public long getSequencia() {
+        return sequencia;
+    }
+
+    public long getInstante() {
+        return instante;
+    }
+
+    public double getSaldo() {
+        return saldo;
+    }
+
+    public int getQuantidadeAtivos() {
+        return idsAtivos.length;
+    }
+
+    public int getIdAtivo(int indice) {
+        return idsAtivos[indice];
+    }
+
+    public double getQuantidade(int indice) {
+        return quantidades[indice];
+    }
+}
@@ -0,0 +1,37 @@
+package br.com.tiopatinhasexchange.model;
+
+/**
+ * Estados possíveis de uma transação e as transições permitidas entre eles.
+ * PENDENTE pode ir para PARCIAL, CONCLUIDA ou CANCELADA; PARCIAL pode ir para
+ * CONCLUIDA ou CANCELADA; CONCLUIDA e CANCELADA são estados finais.
+ */
+public enum StatusTransacao {
+    PENDENTE,
+    PARCIAL,
+    CONCLUIDA,
+    CANCELADA;
+
+    /**
+     * Verifica se a transição deste estado para o destino é permitida
+     * @param destino Estado de destino
+     * @return true se a transição é válida
+     */
+    public boolean podeTransitarPara(StatusTransacao destino) {
+        switch (this) {
+            case PENDENTE:
+                return destino != PENDENTE;
+            case PARCIAL:
+                return destino == CONCLUIDA || destino == CANCELADA;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Verifica se o estado é final (não admite novas transições)
+     * @return true se o estado for CONCLUIDA ou CANCELADA
+     */
+    public boolean isFinal() {
+        return this == CONCLUIDA || this == CANCELADA;
+    }
+}
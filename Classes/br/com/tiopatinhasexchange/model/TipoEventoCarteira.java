@@ -0,0 +1,12 @@
+package br.com.tiopatinhasexchange.model;
+
+/**
+ * Tipos de evento de domínio que alteram o estado de uma carteira.
+ */
+public enum TipoEventoCarteira {
+    DEPOSITO,
+    SAQUE,
+    COMPRA,
+    VENDA,
+    TAXA
+}
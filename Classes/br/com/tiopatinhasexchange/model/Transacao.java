@@ -1,10 +1,20 @@
 package br.com.tiopatinhasexchange.model;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import br.com.tiopatinhasexchange.service.GeradorIds;
+import br.com.tiopatinhasexchange.service.Relogio;
+import br.com.tiopatinhasexchange.service.TipoEntidade;
 
 /**
  * Classe que representa uma transação de compra ou venda de criptoativos.
  * Implementa polimorfismo através do campo tipo e métodos que se comportam diferentemente
  * baseados no tipo da transação.
+ * O status é uma máquina de estados ({@link StatusTransacao}) guardada em um campo atômico:
+ * cada transição é feita por compare-and-set, de modo que confirmações e cancelamentos
+ * concorrentes nunca são aplicados ao mesmo tempo.
  */
 public class Transacao {
     
@@ -18,7 +28,8 @@ public class Transacao {
     private double volumeTransacao;
     private double valorTotal;
     private LocalDateTime dataHoraTransacao;
-    private String status; // "PENDENTE", "CONCLUIDA", "CANCELADA"
+    private final AtomicReference<StatusTransacao> status = new AtomicReference<>(StatusTransacao.PENDENTE);
+    private final List<OuvinteStatusTransacao> ouvintes = new CopyOnWriteArrayList<>();
     
     // Atributos específicos para compras
     private double taxaCompra;
@@ -33,17 +44,17 @@ public class Transacao {
 
     // Construtores
     public Transacao() {
-        this.dataHoraTransacao = LocalDateTime.now();
-        this.status = "PENDENTE";
+        this.id = GeradorIds.getPadrao().proximoId(TipoEntidade.TRANSACAO);
+        this.dataHoraTransacao = Relogio.getPadrao().agora();
     }
     
     public Transacao(int idUsuario, int idCarteira, int idAtivo, String tipo) {
+        this.id = GeradorIds.getPadrao().proximoId(TipoEntidade.TRANSACAO);
         this.idUsuario = idUsuario;
         this.idCarteira = idCarteira;
         this.idAtivo = idAtivo;
         this.tipo = tipo;
-        this.dataHoraTransacao = LocalDateTime.now();
-        this.status = "PENDENTE";
+        this.dataHoraTransacao = Relogio.getPadrao().agora();
     }
     
     // Construtor específico para transação de compra
@@ -97,12 +108,7 @@ public class Transacao {
      * @return true se a confirmação foi bem-sucedida
      */
     public boolean confirmar() {
-        if (!"PENDENTE".equals(this.status)) {
-            return false;
-        }
-        
-        this.status = "CONCLUIDA";
-        return true;
+        return transitar(StatusTransacao.CONCLUIDA);
     }
     
     /**
@@ -110,12 +116,53 @@ public class Transacao {
      * @return true se o cancelamento foi bem-sucedido
      */
     public boolean cancelar() {
-        if (!"PENDENTE".equals(this.status)) {
-            return false;
+        return transitar(StatusTransacao.CANCELADA);
+    }
+    
+    /**
+     * Marca a transação como parcialmente executada
+     * @return true se a transação estava pendente e passou a ser parcial
+     */
+    public boolean registrarExecucaoParcial() {
+        return transitar(StatusTransacao.PARCIAL);
+    }
+    
+    /**
+     * Aplica uma transição de status por compare-and-set. Entre duas transições
+     * concorrentes a partir do mesmo estado, apenas uma é aplicada.
+     * @param destino Novo status
+     * @return true se esta chamada efetuou a transição
+     */
+    private boolean transitar(StatusTransacao destino) {
+        while (true) {
+            StatusTransacao atual = this.status.get();
+            if (!atual.podeTransitarPara(destino)) {
+                return false;
+            }
+            if (this.status.compareAndSet(atual, destino)) {
+                for (OuvinteStatusTransacao ouvinte : this.ouvintes) {
+                    ouvinte.statusAlterado(this, atual, destino);
+                }
+                return true;
+            }
         }
-        
-        this.status = "CANCELADA";
-        return true;
+    }
+    
+    /**
+     * Registra um ouvinte para as mudanças de status
+     * @param ouvinte Ouvinte a ser notificado
+     */
+    public void adicionarOuvinte(OuvinteStatusTransacao ouvinte) {
+        this.ouvintes.add(ouvinte);
+    }
+    
+    /**
+     * Remove um ouvinte de mudanças de status
+     * @param ouvinte Ouvinte a ser removido
+     * @return true se o ouvinte estava registrado
+     */
+    public boolean removerOuvinte(OuvinteStatusTransacao ouvinte) {
+        return this.ouvintes.remove(ouvinte);
     }
     
     /**
@@ -124,7 +171,7 @@ public class Transacao {
     public void exibirDetalhes() {
         System.out.println("=== Transação ID: " + this.id + " ===");
         System.out.println("Tipo: " + this.tipo);
-        System.out.println("Status: " + this.status);
+        System.out.println("Status: " + this.status.get());
         System.out.println("Data/Hora: " + this.dataHoraTransacao);
         System.out.println("Usuário ID: " + this.idUsuario);
         System.out.println("Carteira ID: " + this.idCarteira);
@@ -156,7 +203,7 @@ public class Transacao {
      * @return true se a compra pode ser realizada
      */
     public boolean processarCompra(double saldoDisponivel) {
-        if (!"COMPRA".equals(this.tipo) || !"PENDENTE".equals(this.status)) {
+        if (!"COMPRA".equals(this.tipo) || this.status.get() != StatusTransacao.PENDENTE) {
             return false;
         }
         
@@ -179,7 +226,7 @@ public class Transacao {
      * @return true se a venda pode ser realizada
      */
     public boolean processarVenda(double volumeDisponivel) {
-        if (!"VENDA".equals(this.tipo) || !"PENDENTE".equals(this.status)) {
+        if (!"VENDA".equals(this.tipo) || this.status.get() != StatusTransacao.PENDENTE) {
             return false;
         }
         
@@ -275,12 +322,16 @@ public class Transacao {
         this.dataHoraTransacao = dataHoraTransacao;
     }
 
-    public String getStatus() {
-        return status;
+    public StatusTransacao getStatus() {
+        return status.get();
     }
 
-    public void setStatus(String status) {
-        this.status = status;
+    /**
+     * Define o status sem validar a transição (ex.: ao carregar do banco de dados)
+     * @param status Novo status
+     */
+    public void setStatus(StatusTransacao status) {
+        this.status.set(status);
     }
 
     public double getTaxaCompra() {
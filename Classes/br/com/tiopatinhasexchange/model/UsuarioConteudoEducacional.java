@@ -1,6 +1,8 @@
 package br.com.tiopatinhasexchange.model;
 import java.time.LocalDateTime;
 
+import br.com.tiopatinhasexchange.service.Relogio;
+
 /**
  * Classe associativa que representa o relacionamento entre Usuário e ModuloEducacional.
  * Armazena informações sobre a inscrição e progresso de um usuário em um módulo educacional.
@@ -22,7 +24,7 @@ public class UsuarioConteudoEducacional {
     
     // Construtores
     public UsuarioConteudoEducacional() {
-        this.dataInscricao = LocalDateTime.now();
+        this.dataInscricao = Relogio.getPadrao().agora();
         this.progresso = 0.0;
         this.concluido = false;
     }
@@ -30,7 +32,7 @@ public class UsuarioConteudoEducacional {
     public UsuarioConteudoEducacional(int idUsuario, int idModuloEducacional) {
         this.idUsuario = idUsuario;
         this.idModuloEducacional = idModuloEducacional;
-        this.dataInscricao = LocalDateTime.now();
+        this.dataInscricao = Relogio.getPadrao().agora();
         this.progresso = 0.0;
         this.concluido = false;
     }
@@ -51,7 +53,7 @@ public class UsuarioConteudoEducacional {
         // Se chegou a 100%, marca como concluído
         if (novoProgresso >= 100.0 && !this.concluido) {
             this.concluido = true;
-            this.dataConclusao = LocalDateTime.now();
+            this.dataConclusao = Relogio.getPadrao().agora();
         }
         
         return true;
@@ -0,0 +1,88 @@
+package br.com.tiopatinhasexchange.service;
+
+/**
+ * Acumula média, variância, mínimo e máximo de uma série de valores sem guardá-los,
+ * pelo algoritmo de Welford. Dois acumuladores podem ser combinados (Chan et al.),
+ * o que permite acumular em paralelo e juntar os resultados no final.
+ * A classe não é thread-safe: cada tarefa deve usar o seu.
+ */
+public class AcumuladorEstatistico {
+
+    // Atributos
+    private long quantidade;
+    private double media;
+    private double m2; // Soma dos quadrados das diferenças para a média
+    private double minimo = Double.POSITIVE_INFINITY;
+    private double maximo = Double.NEGATIVE_INFINITY;
+
+    // Métodos
+    /**
+     * Acrescenta um valor
+     * @param valor Valor observado
+     */
+    public void adicionar(double valor) {
+        this.quantidade++;
+        double delta = valor - this.media;
+        this.media += delta / this.quantidade;
+        this.m2 += delta * (valor - this.media);
+        if (valor < this.minimo) {
+            this.minimo = valor;
+        }
+        if (valor > this.maximo) {
+            this.maximo = valor;
+        }
+    }
+
+    /**
+     * Incorpora os valores de outro acumulador
+     * @param outro Acumulador a ser combinado
+     */
+    public void combinar(AcumuladorEstatistico outro) {
+        if (outro.quantidade == 0) {
+            return;
+        }
+        if (this.quantidade == 0) {
+            this.quantidade = outro.quantidade;
+            this.media = outro.media;
+            this.m2 = outro.m2;
+            this.minimo = outro.minimo;
+            this.maximo = outro.maximo;
+            return;
+        }
+        long total = this.quantidade + outro.quantidade;
+        double delta = outro.media - this.media;
+        this.media += delta * outro.quantidade / total;
+        this.m2 += outro.m2 + delta * delta * ((double) this.quantidade * outro.quantidade / total);
+        this.quantidade = total;
+        this.minimo = Math.min(this.minimo, outro.minimo);
+        this.maximo = Math.max(this.maximo, outro.maximo);
+    }
+
+    // Getters e Setters
+    public long getQuantidade() {
+        return this.quantidade;
+    }
+
+    public double getMedia() {
+        return this.quantidade == 0 ? Double.NaN : this.media;
+    }
+
+    /**
+     * @return Variância amostral (n - 1)
+     */
+    public double getVariancia() {
+        return this.quantidade < 2 ? 0.0 : this.m2 / (this.quantidade - 1);
+    }
+
+    public double getDesvioPadrao() {
+        return Math.sqrt(getVariancia());
+    }
+
+    public double getMinimo() {
+        return this.quantidade == 0 ? Double.NaN : this.minimo;
+    }
+
+    public double getMaximo() {
+        return this.quantidade == 0 ? Double.NaN : this.maximo;
+    }
+}
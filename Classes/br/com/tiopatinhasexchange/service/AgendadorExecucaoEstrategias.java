@@ -0,0 +1,524 @@
+package br.com.tiopatinhasexchange.service;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import br.com.tiopatinhasexchange.model.AlertaExecucaoEstrategia;
+import br.com.tiopatinhasexchange.model.Carteira;
+import br.com.tiopatinhasexchange.model.Criptoativo;
+import br.com.tiopatinhasexchange.model.EstrategiaAutomatica;
+import br.com.tiopatinhasexchange.model.ExecucaoEstrategia;
+import br.com.tiopatinhasexchange.model.Mercado;
+
+/**
+ * Agendador de execução das estratégias disparadas. Execuções da mesma carteira
+ * rodam uma de cada vez, na ordem em que foram agendadas; carteiras diferentes
+ * rodam em paralelo. As estratégias de um tick podem ser agendadas com compensação,
+ * virando uma única ordem líquida por carteira e ativo.
+ *
+ * Cada carteira tem uma fila própria e no máximo uma tarefa drenando essa fila.
+ * As tarefas rodam em threads virtuais quando a JVM oferece
+ * {@code Executors.newVirtualThreadPerTaskExecutor()} (Java 21+); caso contrário,
+ * num pool de threads daemon sob demanda. O mercado é apenas lido durante as
+ * execuções, então os preços devem ser atualizados entre um tick e outro.
+ */
+public class AgendadorExecucaoEstrategias implements AutoCloseable {
+
+    // Atributos
+    private final Mercado mercado;
+    private final Function<Integer, Carteira> carteiras; // ID da carteira -> carteira
+    private final Function<Integer, Criptoativo> ativos; // ID do criptoativo -> criptoativo
+    private final ExecutorService executor;
+    private final boolean threadsVirtuais;
+    private final ConcurrentHashMap<Integer, FilaCarteira> filas;
+    private final CompensadorOrdens compensador;
+    private volatile Consumer<? super AlertaExecucaoEstrategia> notificador;
+    private volatile ControleRecargaEstrategias controleRecarga; // null = sem limite de frequência
+    private volatile RegistroExecucoes registroExecucoes; // null = execuções não são registradas
+
+    // Métricas
+    private final AtomicInteger profundidadeFila;
+    private final LongAdder execucoesConcluidas;
+    private final LongAdder execucoesSemEfeito; // Condição não atendida, saldo insuficiente etc.
+    private final LongAdder execucoesComErro;
+    private final LongAdder falhasRegistro; // Execuções feitas que o registro não conseguiu gravar
+    private final LongAdder esperaTotalNanos; // Do agendamento ao início da execução
+    private final LongAdder latenciaTotalNanos; // Do agendamento ao fim da execução
+    private final AtomicLong latenciaMaximaNanos;
+
+    // Construtores
+    public AgendadorExecucaoEstrategias(Mercado mercado, Function<Integer, Carteira> carteiras,
+            Function<Integer, Criptoativo> ativos) {
+        if (mercado == null || carteiras == null || ativos == null) {
+            throw new IllegalArgumentException("Mercado, carteiras e ativos não podem ser nulos");
+        }
+        this.mercado = mercado;
+        this.carteiras = carteiras;
+        this.ativos = ativos;
+        this.filas = new ConcurrentHashMap<>();
+        this.compensador = new CompensadorOrdens(mercado);
+        this.profundidadeFila = new AtomicInteger();
+        this.execucoesConcluidas = new LongAdder();
+        this.execucoesSemEfeito = new LongAdder();
+        this.execucoesComErro = new LongAdder();
+        this.falhasRegistro = new LongAdder();
+        this.esperaTotalNanos = new LongAdder();
+        this.latenciaTotalNanos = new LongAdder();
+        this.latenciaMaximaNanos = new AtomicLong();
+
+        ExecutorService virtual = criarExecutorVirtual();
+        this.threadsVirtuais = virtual != null;
+        this.executor = virtual != null ? virtual : Executors.newCachedThreadPool(tarefa -> {
+            Thread thread = new Thread(tarefa, "execucao-estrategia");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Métodos
+    /**
+     * Agenda a execução de uma estratégia disparada. Se houver controle de recarga e a
+     * estratégia estiver bloqueada, nada é agendado; caso contrário, o controle é avisado
+     * do resultado quando a execução termina.
+     * @param estrategia Estratégia a ser executada
+     * @return Futuro com true se a ordem foi executada
+     */
+    public CompletableFuture<Boolean> agendar(EstrategiaAutomatica estrategia) {
+        if (estrategia == null) {
+            throw new IllegalArgumentException("A estratégia não pode ser nula");
+        }
+        if (this.executor.isShutdown()) {
+            throw new IllegalStateException("O agendador já foi encerrado");
+        }
+        ControleRecargaEstrategias controle = this.controleRecarga;
+        if (controle != null && !controle.tentarExecutar(estrategia, Relogio.getPadrao().agoraMillis())) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        long disparo = System.nanoTime();
+        double precoDisparo = this.mercado.obterPrecoAtual(estrategia.getIdCriptoativo());
+        CompletableFuture<Boolean> resultado = new CompletableFuture<>();
+        enfileirar(estrategia.getIdCarteira(), new Tarefa(() -> {
+            ExecucaoEstrategia execucao = executarEstrategia(estrategia);
+            if (execucao != null) {
+                concluir(Collections.singletonList(execucao), disparo, ativo -> precoDisparo);
+            }
+            // O controle é atualizado antes do futuro: quem aguarda o resultado já vê a recarga
+            if (controle != null) {
+                controle.concluirExecucao(estrategia, execucao != null, Relogio.getPadrao().agoraMillis());
+            }
+            resultado.complete(execucao != null);
+            return execucao != null;
+        }, erro -> {
+            if (controle != null) {
+                controle.concluirExecucao(estrategia, false, Relogio.getPadrao().agoraMillis());
+            }
+            resultado.completeExceptionally(erro);
+        }));
+        return resultado;
+    }
+
+    /**
+     * Agenda as estratégias disparadas num tick com compensação de ordens: em cada
+     * carteira, as estratégias do mesmo ativo viram uma única ordem líquida
+     * (ver {@link CompensadorOrdens}), executada numa única tarefa por carteira.
+     * @param disparadas Estratégias disparadas no tick
+     * @return Futuro com todas as execuções registradas
+     */
+    public CompletableFuture<List<ExecucaoEstrategia>> agendarCompensado(List<EstrategiaAutomatica> disparadas) {
+        if (this.executor.isShutdown()) {
+            throw new IllegalStateException("O agendador já foi encerrado");
+        }
+        List<EstrategiaAutomatica> admitidas = disparadas;
+        ControleRecargaEstrategias controle = this.controleRecarga;
+        if (controle != null) {
+            admitidas = new ArrayList<>(disparadas.size());
+            controle.filtrar(disparadas, Relogio.getPadrao().agoraMillis(), admitidas);
+        }
+
+        List<CompletableFuture<List<ExecucaoEstrategia>>> resultados = new ArrayList<>();
+        for (Map.Entry<Integer, List<EstrategiaAutomatica>> grupo : CompensadorOrdens.agruparPorCarteira(admitidas).entrySet()) {
+            int idCarteira = grupo.getKey();
+            List<EstrategiaAutomatica> estrategias = grupo.getValue();
+            long disparo = System.nanoTime();
+            Map<Integer, Double> precosDisparo = new HashMap<>();
+            for (EstrategiaAutomatica estrategia : estrategias) {
+                precosDisparo.computeIfAbsent(estrategia.getIdCriptoativo(), this.mercado::obterPrecoAtual);
+            }
+            CompletableFuture<List<ExecucaoEstrategia>> resultado = new CompletableFuture<>();
+            enfileirar(idCarteira, new Tarefa(() -> {
+                Carteira carteira = this.carteiras.apply(idCarteira);
+                List<ExecucaoEstrategia> execucoes = carteira == null ? new ArrayList<>()
+                        : this.compensador.executar(carteira, estrategias, this.ativos, this.notificador);
+                concluir(execucoes, disparo, precosDisparo::get);
+                if (controle != null) {
+                    concluirControle(controle, estrategias, execucoes);
+                }
+                resultado.complete(execucoes);
+                return !execucoes.isEmpty();
+            }, erro -> {
+                if (controle != null) {
+                    concluirControle(controle, estrategias, null);
+                }
+                resultado.completeExceptionally(erro);
+            }));
+            resultados.add(resultado);
+        }
+
+        return CompletableFuture.allOf(resultados.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            List<ExecucaoEstrategia> todas = new ArrayList<>();
+            for (CompletableFuture<List<ExecucaoEstrategia>> resultado : resultados) {
+                todas.addAll(resultado.join());
+            }
+            return todas;
+        });
+    }
+
+    /**
+     * Informa ao controle de recarga o resultado de cada estratégia de uma tarefa compensada;
+     * a estratégia foi executada se alguma execução registrada é dela
+     */
+    private static void concluirControle(ControleRecargaEstrategias controle, List<EstrategiaAutomatica> estrategias,
+            List<ExecucaoEstrategia> execucoes) {
+        long agora = Relogio.getPadrao().agoraMillis();
+        for (EstrategiaAutomatica estrategia : estrategias) {
+            boolean executada = false;
+            if (execucoes != null) {
+                for (ExecucaoEstrategia execucao : execucoes) {
+                    if (execucao.getIdEstrategiaAutomatica() == estrategia.getId()) {
+                        executada = true;
+                        break;
+                    }
+                }
+            }
+            controle.concluirExecucao(estrategia, executada, agora);
+        }
+    }
+
+    private void enfileirar(int idCarteira, Tarefa tarefa) {
+        this.profundidadeFila.incrementAndGet();
+        // A inclusão acontece dentro do compute para não competir com a remoção da fila ociosa
+        FilaCarteira fila = this.filas.compute(idCarteira, (id, atual) -> {
+            FilaCarteira destino = atual != null ? atual : new FilaCarteira(id);
+            destino.pendentes.add(tarefa);
+            return destino;
+        });
+        iniciarDrenagem(fila);
+    }
+
+    /**
+     * Remove a fila do mapa se ela estiver vazia e sem drenagem, para que carteiras
+     * inativas não fiquem ocupando memória. Uma nova tarefa da carteira cria outra fila.
+     */
+    private void removerSeOciosa(FilaCarteira fila) {
+        this.filas.computeIfPresent(fila.idCarteira, (id, atual) -> atual == fila && atual.pendentes.isEmpty()
+                && !atual.drenando.get() ? null : atual);
+    }
+
+    /**
+     * Inicia a drenagem da fila se nenhuma estiver ativa. Se o executor recusar a tarefa
+     * (ex.: já encerrado), a flag é liberada e as execuções pendentes falham.
+     */
+    private void iniciarDrenagem(FilaCarteira fila) {
+        if (!fila.drenando.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            this.executor.execute(() -> drenar(fila));
+        } catch (RuntimeException e) {
+            fila.drenando.set(false);
+            Tarefa tarefa;
+            while ((tarefa = fila.pendentes.poll()) != null) {
+                this.profundidadeFila.decrementAndGet();
+                this.execucoesComErro.increment();
+                tarefa.falha.accept(e);
+            }
+            removerSeOciosa(fila);
+        }
+    }
+
+    /**
+     * Agenda a execução de várias estratégias, preservando a ordem da lista
+     * dentro de cada carteira
+     * @param estrategias Estratégias disparadas
+     */
+    public void agendarTodas(List<EstrategiaAutomatica> estrategias) {
+        for (EstrategiaAutomatica estrategia : estrategias) {
+            agendar(estrategia);
+        }
+    }
+
+    /**
+     * Executa as tarefas de uma carteira até a fila esvaziar. Só existe uma
+     * drenagem ativa por carteira, garantida pela flag {@code drenando}.
+     */
+    private void drenar(FilaCarteira fila) {
+        boolean interrompida = true;
+        try {
+            do {
+                Tarefa tarefa;
+                while ((tarefa = fila.pendentes.poll()) != null) {
+                    this.profundidadeFila.decrementAndGet();
+                    executar(tarefa);
+                }
+                fila.drenando.set(false);
+
+                // Uma tarefa pode ter entrado entre o último poll e a liberação da flag
+            } while (!fila.pendentes.isEmpty() && fila.drenando.compareAndSet(false, true));
+            interrompida = false;
+        } finally {
+            if (interrompida) {
+                // Um Error escapou de uma tarefa: a carteira é liberada e o restante da
+                // fila segue numa nova drenagem
+                fila.drenando.set(false);
+                if (!fila.pendentes.isEmpty()) {
+                    iniciarDrenagem(fila);
+                }
+            }
+            removerSeOciosa(fila);
+            // A thread da drenagem pode terminar aqui (uma thread virtual por tarefa)
+            GeradorIds.getPadrao().devolverBlocos();
+        }
+    }
+
+    private void executar(Tarefa tarefa) {
+        long inicio = System.nanoTime();
+        this.esperaTotalNanos.add(inicio - tarefa.agendadaEm);
+
+        try {
+            boolean executada = tarefa.acao.getAsBoolean();
+
+            registrarLatencia(tarefa.agendadaEm);
+            if (executada) {
+                this.execucoesConcluidas.increment();
+            } else {
+                this.execucoesSemEfeito.increment();
+            }
+        } catch (RuntimeException e) {
+            registrarLatencia(tarefa.agendadaEm);
+            this.execucoesComErro.increment();
+            tarefa.falha.accept(e);
+        } catch (Error e) {
+            // O futuro é completado antes de o erro seguir adiante
+            registrarLatencia(tarefa.agendadaEm);
+            this.execucoesComErro.increment();
+            tarefa.falha.accept(e);
+            throw e;
+        }
+    }
+
+    private ExecucaoEstrategia executarEstrategia(EstrategiaAutomatica estrategia) {
+        Carteira carteira = this.carteiras.apply(estrategia.getIdCarteira());
+        Criptoativo ativo = this.ativos.apply(estrategia.getIdCriptoativo());
+        if (carteira == null || ativo == null) {
+            return null;
+        }
+        return estrategia.executarOrdem(carteira, ativo, this.mercado, this.notificador);
+    }
+
+    /**
+     * Completa as execuções com o preço e o instante do disparo e as envia ao registro.
+     * Uma falha do registro não desfaz a ordem já executada: é apenas contabilizada.
+     */
+    private void concluir(List<ExecucaoEstrategia> execucoes, long disparo, Function<Integer, Double> precosDisparo) {
+        long latencia = System.nanoTime() - disparo;
+        for (ExecucaoEstrategia execucao : execucoes) {
+            Double preco = precosDisparo.apply(execucao.getIdCriptoativo());
+            if (preco != null && preco > 0) {
+                execucao.setPrecoDisparo(preco);
+            }
+            execucao.setLatenciaNanos(latencia);
+        }
+        RegistroExecucoes registro = this.registroExecucoes;
+        if (registro != null) {
+            try {
+                registro.registrarTodas(execucoes);
+            } catch (RuntimeException e) {
+                this.falhasRegistro.increment();
+            }
+        }
+    }
+
+    private void registrarLatencia(long agendadaEm) {
+        long latencia = System.nanoTime() - agendadaEm;
+        this.latenciaTotalNanos.add(latencia);
+        this.latenciaMaximaNanos.accumulateAndGet(latencia, Math::max);
+    }
+
+    /**
+     * Cria o executor de threads virtuais por reflexão, para que o código rode
+     * também em JVMs anteriores ao Java 21
+     * @return Executor de threads virtuais, ou null se indisponível
+     */
+    private static ExecutorService criarExecutorVirtual() {
+        try {
+            Method fabrica = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) fabrica.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Recusa novos agendamentos e aguarda as execuções pendentes terminarem
+     * @param timeoutMillis Tempo máximo de espera em milissegundos
+     * @return true se todas as execuções terminaram dentro do prazo
+     */
+    public boolean encerrar(long timeoutMillis) throws InterruptedException {
+        this.executor.shutdown();
+        return this.executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        try {
+            encerrar(Long.MAX_VALUE);
+        } catch (InterruptedException e) {
+            this.executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Zera os contadores de latência e de execuções
+     */
+    public void reiniciarMetricas() {
+        this.execucoesConcluidas.reset();
+        this.execucoesSemEfeito.reset();
+        this.execucoesComErro.reset();
+        this.falhasRegistro.reset();
+        this.esperaTotalNanos.reset();
+        this.latenciaTotalNanos.reset();
+        this.latenciaMaximaNanos.set(0);
+    }
+
+    /**
+     * Exibe as métricas do agendador
+     */
+    public void exibirMetricas() {
+        System.out.println("Fila de execução: " + getProfundidadeFila() + " pendente(s)");
+        System.out.println("Execuções: " + getExecucoesConcluidas() + " concluída(s), "
+                + getExecucoesSemEfeito() + " sem efeito, " + getExecucoesComErro() + " com erro");
+        if (getFalhasRegistro() > 0) {
+            System.out.println("Falhas ao gravar no registro de execuções: " + getFalhasRegistro());
+        }
+        System.out.printf("Latência média: %.1f µs (espera %.1f µs), máxima: %.1f µs%n",
+                getLatenciaMediaMicros(), getEsperaMediaMicros(), getLatenciaMaximaMicros());
+    }
+
+    // Getters e Setters
+    public int getProfundidadeFila() {
+        return this.profundidadeFila.get();
+    }
+
+    public int getProfundidadeFila(int idCarteira) {
+        FilaCarteira fila = this.filas.get(idCarteira);
+        return fila == null ? 0 : fila.pendentes.size();
+    }
+
+    public long getExecucoesConcluidas() {
+        return this.execucoesConcluidas.sum();
+    }
+
+    public long getExecucoesSemEfeito() {
+        return this.execucoesSemEfeito.sum();
+    }
+
+    public long getExecucoesComErro() {
+        return this.execucoesComErro.sum();
+    }
+
+    public long getFalhasRegistro() {
+        return this.falhasRegistro.sum();
+    }
+
+    private long getExecucoesTotais() {
+        return getExecucoesConcluidas() + getExecucoesSemEfeito() + getExecucoesComErro();
+    }
+
+    public double getLatenciaMediaMicros() {
+        long total = getExecucoesTotais();
+        return total == 0 ? 0 : this.latenciaTotalNanos.sum() / 1000.0 / total;
+    }
+
+    public double getEsperaMediaMicros() {
+        long total = getExecucoesTotais();
+        return total == 0 ? 0 : this.esperaTotalNanos.sum() / 1000.0 / total;
+    }
+
+    public double getLatenciaMaximaMicros() {
+        return this.latenciaMaximaNanos.get() / 1000.0;
+    }
+
+    public boolean isThreadsVirtuais() {
+        return this.threadsVirtuais;
+    }
+
+    public CompensadorOrdens getCompensador() {
+        return this.compensador;
+    }
+
+    public ControleRecargaEstrategias getControleRecarga() {
+        return this.controleRecarga;
+    }
+
+    public void setControleRecarga(ControleRecargaEstrategias controleRecarga) {
+        this.controleRecarga = controleRecarga;
+    }
+
+    public RegistroExecucoes getRegistroExecucoes() {
+        return this.registroExecucoes;
+    }
+
+    public void setRegistroExecucoes(RegistroExecucoes registroExecucoes) {
+        this.registroExecucoes = registroExecucoes;
+    }
+
+    public void setNotificador(Consumer<? super AlertaExecucaoEstrategia> notificador) {
+        this.notificador = notificador;
+    }
+
+    /**
+     * Fila de execuções pendentes de uma carteira
+     */
+    private static final class FilaCarteira {
+        final int idCarteira;
+        final ConcurrentLinkedQueue<Tarefa> pendentes = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean drenando = new AtomicBoolean();
+
+        FilaCarteira(int idCarteira) {
+            this.idCarteira = idCarteira;
+        }
+    }
+
+    /**
+     * Execução pendente: a ação completa o próprio futuro e informa se houve efeito
+     */
+    private static final class Tarefa {
+        final BooleanSupplier acao;
+        final Consumer<Throwable> falha;
+        final long agendadaEm;
+
+        Tarefa(BooleanSupplier acao, Consumer<Throwable> falha) {
+            this.acao = acao;
+            this.falha = falha;
+            this.agendadaEm = System.nanoTime();
+        }
+    }
+}
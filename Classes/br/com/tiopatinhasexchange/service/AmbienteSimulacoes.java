@@ -0,0 +1,431 @@
+package br.com.tiopatinhasexchange.service;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import br.com.tiopatinhasexchange.model.CondicaoCompilada;
+import br.com.tiopatinhasexchange.model.CondicaoEstrategia;
+import br.com.tiopatinhasexchange.model.EstrategiaAutomatica;
+import br.com.tiopatinhasexchange.model.Simulador;
+
+/**
+ * Ambiente que hospeda muitas simulações de usuários ao mesmo tempo.
+ *
+ * Os cenários de mercado ({@link SerieCandles}) são registrados uma vez e compartilhados,
+ * somente leitura, por todas as sessões. Cada sessão simula uma estratégia sobre um
+ * cenário com seu próprio {@link Simulador}; as sessões terminadas voltam para uma reserva
+ * e são reaproveitadas (o simulador é reciclado com {@link Simulador#reciclar}), então
+ * posições, histórico e janela de variação não são realocados a cada usuário.
+ *
+ * Um número fixo de trabalhadores executa as sessões em rodízio: cada trabalhador retira
+ * a próxima sessão da fila, executa no máximo {@code passosPorFatia} candles e a devolve
+ * ao fim da fila. Sessões longas não atrasam as curtas além de uma fatia por rodada.
+ */
+public class AmbienteSimulacoes implements AutoCloseable {
+
+    private static final long PERIODO_VARIACAO_MILLIS = CondicaoEstrategia.PERIODO_VARIACAO_HORAS * 3_600_000L;
+
+    // Atributos
+    private final Thread[] trabalhadores;
+    private final LinkedBlockingQueue<SessaoSimulacao> prontas; // Fila do rodízio
+    private final ConcurrentLinkedQueue<SessaoSimulacao> livres; // Sessões prontas para reaproveitamento
+    private final AtomicInteger quantidadeLivres;
+    private final int capacidadeReserva;
+    private final ConcurrentHashMap<String, SerieCandles> cenarios;
+    private volatile int passosPorFatia;
+    private volatile ModeloExecucao modeloExecucao; // Aplicado às sessões iniciadas a partir de então
+    private volatile boolean encerrado;
+
+    // Métricas
+    private final AtomicInteger sessoesAtivas;
+    private final LongAdder sessoesConcluidas;
+    private final LongAdder sessoesReaproveitadas;
+    private final LongAdder fatiasExecutadas;
+    private final LongAdder passosExecutados;
+
+    // Construtores
+    public AmbienteSimulacoes(int trabalhadores) {
+        this(trabalhadores, 100_000);
+    }
+
+    /**
+     * @param trabalhadores Número fixo de threads de simulação
+     * @param capacidadeReserva Máximo de sessões terminadas guardadas para reaproveitamento
+     */
+    public AmbienteSimulacoes(int trabalhadores, int capacidadeReserva) {
+        if (trabalhadores <= 0 || capacidadeReserva < 0) {
+            throw new IllegalArgumentException("Número de trabalhadores ou capacidade da reserva inválidos");
+        }
+        this.prontas = new LinkedBlockingQueue<>();
+        this.livres = new ConcurrentLinkedQueue<>();
+        this.quantidadeLivres = new AtomicInteger();
+        this.capacidadeReserva = capacidadeReserva;
+        this.cenarios = new ConcurrentHashMap<>();
+        this.passosPorFatia = 256;
+        this.modeloExecucao = ModeloExecucao.IDEAL;
+        this.sessoesAtivas = new AtomicInteger();
+        this.sessoesConcluidas = new LongAdder();
+        this.sessoesReaproveitadas = new LongAdder();
+        this.fatiasExecutadas = new LongAdder();
+        this.passosExecutados = new LongAdder();
+
+        this.trabalhadores = new Thread[trabalhadores];
+        for (int i = 0; i < trabalhadores; i++) {
+            Thread thread = new Thread(this::executarTrabalhador, "simulacao-" + i);
+            thread.setDaemon(true);
+            this.trabalhadores[i] = thread;
+            thread.start();
+        }
+    }
+
+    // Métodos
+    /**
+     * Registra um cenário de mercado compartilhado entre as sessões
+     * @param nome Nome do cenário
+     * @param serie Série de candles (não deve ser alterada depois de registrada)
+     */
+    public void registrarCenario(String nome, SerieCandles serie) {
+        if (nome == null || serie == null) {
+            throw new IllegalArgumentException("Nome e série do cenário não podem ser nulos");
+        }
+        this.cenarios.put(nome, serie);
+    }
+
+    /**
+     * Remove um cenário; sessões já iniciadas sobre ele continuam até o fim
+     * @param nome Nome do cenário
+     * @return true se o cenário existia
+     */
+    public boolean removerCenario(String nome) {
+        return this.cenarios.remove(nome) != null;
+    }
+
+    /**
+     * Inicia a simulação de uma estratégia de um usuário sobre um cenário registrado
+     * @param idUsuario ID do usuário
+     * @param saldoInicial Saldo virtual inicial
+     * @param estrategia Estratégia simulada (somente lida pela sessão)
+     * @param nomeCenario Nome do cenário
+     * @return Futuro com o resultado, concluído por um dos trabalhadores
+     */
+    public CompletableFuture<ResultadoSessao> iniciar(int idUsuario, double saldoInicial,
+            EstrategiaAutomatica estrategia, String nomeCenario) {
+        if (this.encerrado) {
+            throw new IllegalStateException("O ambiente de simulações já foi encerrado");
+        }
+        if (estrategia == null || saldoInicial <= 0) {
+            throw new IllegalArgumentException("Estratégia ou saldo inicial inválidos");
+        }
+        if (estrategia.getExpressao() != null) {
+            throw new IllegalArgumentException("A simulação não suporta expressões compostas (estratégia "
+                    + estrategia.getId() + ")");
+        }
+        SerieCandles serie = this.cenarios.get(nomeCenario);
+        if (serie == null) {
+            throw new IllegalArgumentException("Cenário não registrado: " + nomeCenario);
+        }
+
+        SessaoSimulacao sessao = this.livres.poll();
+        if (sessao != null) {
+            this.quantidadeLivres.decrementAndGet();
+            this.sessoesReaproveitadas.increment();
+        } else {
+            sessao = new SessaoSimulacao();
+        }
+        sessao.preparar(idUsuario, saldoInicial, estrategia, serie, this.modeloExecucao);
+        CompletableFuture<ResultadoSessao> resultado = sessao.resultado;
+        this.sessoesAtivas.incrementAndGet();
+        enfileirar(sessao);
+        return resultado;
+    }
+
+    /**
+     * Coloca a sessão na fila do rodízio. Se o ambiente foi encerrado entre a verificação
+     * e a inclusão, a fila já pode ter sido esvaziada por {@link #encerrar}: a sessão é
+     * retirada e termina com erro (só um dos dois consegue retirá-la).
+     */
+    private void enfileirar(SessaoSimulacao sessao) {
+        this.prontas.add(sessao);
+        if (this.encerrado && this.prontas.remove(sessao)) {
+            this.sessoesAtivas.decrementAndGet();
+            sessao.resultado.completeExceptionally(
+                    new IllegalStateException("O ambiente de simulações foi encerrado"));
+        }
+    }
+
+    private void executarTrabalhador() {
+        while (!this.encerrado) {
+            SessaoSimulacao sessao;
+            try {
+                sessao = this.prontas.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            try {
+                this.passosExecutados.add(sessao.executarFatia(this.passosPorFatia));
+                this.fatiasExecutadas.increment();
+                if (!sessao.isConcluida()) {
+                    enfileirar(sessao);
+                    continue;
+                }
+                ResultadoSessao resultado = sessao.criarResultado();
+                CompletableFuture<ResultadoSessao> futuro = sessao.resultado;
+                this.sessoesConcluidas.increment();
+                devolver(sessao);
+                futuro.complete(resultado);
+            } catch (Throwable e) {
+                // Inclusive Error: o futuro termina e o trabalhador segue atendendo a fila
+                CompletableFuture<ResultadoSessao> futuro = sessao.resultado;
+                devolver(sessao);
+                futuro.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Libera a sessão para reaproveitamento, se houver espaço na reserva
+     */
+    private void devolver(SessaoSimulacao sessao) {
+        this.sessoesAtivas.decrementAndGet();
+        sessao.liberar();
+        if (this.quantidadeLivres.incrementAndGet() <= this.capacidadeReserva) {
+            this.livres.offer(sessao);
+        } else {
+            this.quantidadeLivres.decrementAndGet();
+        }
+    }
+
+    /**
+     * Para os trabalhadores; as sessões ainda na fila terminam com erro
+     * @param timeoutMillis Tempo máximo de espera por trabalhador
+     * @return true se todos os trabalhadores pararam dentro do prazo
+     */
+    public boolean encerrar(long timeoutMillis) {
+        this.encerrado = true;
+        for (Thread trabalhador : this.trabalhadores) {
+            trabalhador.interrupt();
+        }
+        boolean parados = true;
+        try {
+            for (Thread trabalhador : this.trabalhadores) {
+                trabalhador.join(timeoutMillis);
+                parados &= !trabalhador.isAlive();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            parados = false;
+        }
+
+        SessaoSimulacao pendente;
+        while ((pendente = this.prontas.poll()) != null) {
+            this.sessoesAtivas.decrementAndGet();
+            pendente.resultado.completeExceptionally(
+                    new IllegalStateException("O ambiente de simulações foi encerrado"));
+        }
+        return parados;
+    }
+
+    @Override
+    public void close() {
+        encerrar(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * Exibe as métricas do ambiente
+     */
+    public void exibirMetricas() {
+        System.out.println("=== Ambiente de Simulações ===");
+        System.out.println("Trabalhadores: " + this.trabalhadores.length + " | Fatia: " + this.passosPorFatia
+                + " passos");
+        System.out.println("Cenários compartilhados: " + this.cenarios.size());
+        System.out.println("Sessões ativas: " + this.sessoesAtivas.get() + " | Na fila: " + this.prontas.size());
+        System.out.println("Sessões concluídas: " + this.sessoesConcluidas.sum() + " | Reaproveitadas: "
+                + this.sessoesReaproveitadas.sum() + " | Na reserva: " + this.quantidadeLivres.get());
+        System.out.println("Fatias executadas: " + this.fatiasExecutadas.sum() + " | Passos: "
+                + this.passosExecutados.sum());
+        System.out.println("==============================");
+    }
+
+    // Getters e Setters
+    public int getTrabalhadores() {
+        return this.trabalhadores.length;
+    }
+
+    public int getPassosPorFatia() {
+        return this.passosPorFatia;
+    }
+
+    public void setPassosPorFatia(int passosPorFatia) {
+        if (passosPorFatia <= 0) {
+            throw new IllegalArgumentException("A fatia deve ter ao menos um passo");
+        }
+        this.passosPorFatia = passosPorFatia;
+    }
+
+    public ModeloExecucao getModeloExecucao() {
+        return this.modeloExecucao;
+    }
+
+    public void setModeloExecucao(ModeloExecucao modeloExecucao) {
+        if (modeloExecucao == null) {
+            throw new IllegalArgumentException("O modelo de execução não pode ser nulo");
+        }
+        this.modeloExecucao = modeloExecucao;
+    }
+
+    public int getSessoesAtivas() {
+        return this.sessoesAtivas.get();
+    }
+
+    public long getSessoesConcluidas() {
+        return this.sessoesConcluidas.sum();
+    }
+
+    public long getSessoesReaproveitadas() {
+        return this.sessoesReaproveitadas.sum();
+    }
+
+    public long getPassosExecutados() {
+        return this.passosExecutados.sum();
+    }
+
+    /**
+     * Resultado de uma sessão concluída. O simulador da sessão é reaproveitado por outro
+     * usuário, então o resultado guarda apenas os valores finais.
+     */
+    public static class ResultadoSessao {
+        private final int idUsuario;
+        private final int idEstrategia;
+        private final double saldoFinal;
+        private final double posicaoFinal;
+        private final double patrimonioFinal;
+        private final double rendimento;
+        private final int operacoes;
+
+        public ResultadoSessao(int idUsuario, int idEstrategia, double saldoFinal, double posicaoFinal,
+                double patrimonioFinal, double rendimento, int operacoes) {
+            this.idUsuario = idUsuario;
+            this.idEstrategia = idEstrategia;
+            this.saldoFinal = saldoFinal;
+            this.posicaoFinal = posicaoFinal;
+            this.patrimonioFinal = patrimonioFinal;
+            this.rendimento = rendimento;
+            this.operacoes = operacoes;
+        }
+
+        public int getIdUsuario() {
+            return this.idUsuario;
+        }
+
+        public int getIdEstrategia() {
+            return this.idEstrategia;
+        }
+
+        public double getSaldoFinal() {
+            return this.saldoFinal;
+        }
+
+        public double getPosicaoFinal() {
+            return this.posicaoFinal;
+        }
+
+        public double getPatrimonioFinal() {
+            return this.patrimonioFinal;
+        }
+
+        /**
+         * @return Rendimento percentual da sessão
+         */
+        public double getRendimento() {
+            return this.rendimento;
+        }
+
+        public int getOperacoes() {
+            return this.operacoes;
+        }
+    }
+
+    /**
+     * Estado reaproveitável de uma simulação: simulador, janela de variação e posição na
+     * série. Acessada por um trabalhador de cada vez (a fila garante a passagem entre eles).
+     */
+    private static final class SessaoSimulacao {
+        private final Simulador simulador = new Simulador();
+        private final JanelaVariacao janela = new JanelaVariacao(PERIODO_VARIACAO_MILLIS);
+        private EstrategiaAutomatica estrategia;
+        private SerieCandles serie;
+        private boolean usaVariacao;
+        private int indice;
+        private double saldoInicial;
+        private int operacoes;
+        private CompletableFuture<ResultadoSessao> resultado;
+
+        void preparar(int idUsuario, double saldoInicial, EstrategiaAutomatica estrategia, SerieCandles serie,
+                ModeloExecucao modeloExecucao) {
+            this.simulador.reciclar(idUsuario, saldoInicial);
+            this.simulador.setRegistrarHistorico(false);
+            this.simulador.setModeloExecucao(modeloExecucao);
+            this.janela.limpar();
+            CondicaoCompilada condicao = estrategia.getCondicaoCompilada();
+            this.usaVariacao = condicao != null && condicao.getCondicao().isUsaVariacao();
+            this.estrategia = estrategia;
+            this.serie = serie;
+            this.indice = 0;
+            this.saldoInicial = saldoInicial;
+            this.operacoes = 0;
+            this.resultado = new CompletableFuture<>();
+        }
+
+        /**
+         * Executa até {@code maximo} candles a partir de onde a sessão parou
+         * @return Candles executados
+         */
+        int executarFatia(int maximo) {
+            int inicio = this.indice;
+            int fim = (int) Math.min(this.serie.getTamanho(), (long) inicio + maximo);
+            for (int i = inicio; i < fim; i++) {
+                double preco = this.serie.getFechamento(i);
+                double variacao = this.usaVariacao ? this.janela.adicionar(this.serie.getInstante(i), preco)
+                        : Double.NaN;
+                if (this.simulador.executarPassoEstrategia(this.estrategia, preco, variacao,
+                        this.serie.getVolume(i))) {
+                    this.operacoes++;
+                }
+            }
+            this.indice = fim;
+            return fim - inicio;
+        }
+
+        boolean isConcluida() {
+            return this.indice >= this.serie.getTamanho();
+        }
+
+        ResultadoSessao criarResultado() {
+            int tamanho = this.serie.getTamanho();
+            double ultimoPreco = tamanho == 0 ? 0.0 : this.serie.getFechamento(tamanho - 1);
+            double saldo = this.simulador.getSaldoVirtual();
+            double posicao = this.simulador.getPosicoes().getOrDefault(this.estrategia.getIdCriptoativo(), 0.0);
+            double patrimonio = saldo + posicao * ultimoPreco;
+            double rendimento = (patrimonio - this.saldoInicial) / this.saldoInicial * 100;
+            this.simulador.setRendimentoTotal(rendimento);
+            this.simulador.finalizarSimulacao();
+            return new ResultadoSessao(this.simulador.getIdUsuario(), this.estrategia.getId(), saldo, posicao,
+                    patrimonio, rendimento, this.operacoes);
+        }
+
+        /**
+         * Solta as referências da simulação anterior
+         */
+        void liberar() {
+            this.estrategia = null;
+            this.serie = null;
+            this.resultado = null;
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package br.com.tiopatinhasexchange.service;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import br.com.tiopatinhasexchange.model.Carteira;
+import br.com.tiopatinhasexchange.model.EventoCarteira;
+import br.com.tiopatinhasexchange.model.SnapshotCarteira;
+import br.com.tiopatinhasexchange.model.TipoEventoCarteira;
+
+/**
+ * Armazenamento append-only dos eventos das carteiras, com snapshots periódicos.
+ * Cada carteira tem seu próprio fluxo ordenado de eventos; a cada N eventos um snapshot
+ * compacto do estado é gravado. Para obter a carteira em qualquer instante basta restaurar
+ * o snapshot mais próximo anterior a ele e reaplicar apenas os eventos seguintes.
+ *
+ * Em disco os fluxos são divididos em partições (um arquivo por partição), que são lidas
+ * e reconstruídas em paralelo, cada uma de forma sequencial.
+ */
+public class ArmazemEventosCarteira {
+
+    // Atributos
+    public static final int INTERVALO_SNAPSHOT_PADRAO = 100;
+    private static final int FORMATO_ARQUIVO = 0x54504543; // "TPEC"
+    private static final int TAMANHO_BUFFER = 1 << 16;
+
+    private final int intervaloSnapshot; // Eventos entre dois snapshots
+    private final ConcurrentHashMap<Integer, FluxoCarteira> fluxos;
+
+    // Construtores
+    public ArmazemEventosCarteira() {
+        this(INTERVALO_SNAPSHOT_PADRAO);
+    }
+
+    public ArmazemEventosCarteira(int intervaloSnapshot) {
+        if (intervaloSnapshot <= 0) {
+            throw new IllegalArgumentException("O intervalo de snapshots deve ser positivo");
+        }
+        this.intervaloSnapshot = intervaloSnapshot;
+        this.fluxos = new ConcurrentHashMap<>();
+    }
+
+    // Métodos
+    /**
+     * Acrescenta um evento ao fluxo da sua carteira, atribuindo sequência e instante
+     * @param evento Evento a ser registrado
+     * @return Evento registrado, com sequência e instante definitivos
+     */
+    public EventoCarteira registrar(EventoCarteira evento) {
+        FluxoCarteira fluxo = this.fluxos.computeIfAbsent(evento.getIdCarteira(),
+                id -> new FluxoCarteira(id, evento.getIdUsuario()));
+        return fluxo.acrescentar(evento, Relogio.getPadrao().agoraMillis(), this.intervaloSnapshot);
+    }
+
+    /**
+     * Reconstrói o estado atual de uma carteira
+     * @param idCarteira ID da carteira
+     * @return Nova carteira com saldo e posições atuais, ou null se não houver eventos
+     */
+    public Carteira reconstruir(int idCarteira) {
+        return reconstruir(idCarteira, Long.MAX_VALUE);
+    }
+
+    /**
+     * Reconstrói uma carteira como ela estava em um instante passado
+     * @param idCarteira ID da carteira
+     * @param instante Instante desejado, em milissegundos desde a época
+     * @return Nova carteira com o estado no instante, ou null se não houver eventos
+     */
+    public Carteira reconstruir(int idCarteira, long instante) {
+        FluxoCarteira fluxo = this.fluxos.get(idCarteira);
+        if (fluxo == null) {
+            return null;
+        }
+        return fluxo.reconstruir(instante);
+    }
+
+    /**
+     * Reconstrói o estado atual de todas as carteiras, em paralelo
+     * @return Mapa com as carteiras por ID
+     */
+    public Map<Integer, Carteira> reconstruirTodas() {
+        return this.fluxos.values().parallelStream()
+                .collect(Collectors.toConcurrentMap(f -> f.idCarteira, f -> f.reconstruir(Long.MAX_VALUE)));
+    }
+
+    /**
+     * Obtém uma cópia dos eventos de uma carteira
+     * @param idCarteira ID da carteira
+     * @return Eventos em ordem de sequência
+     */
+    public List<EventoCarteira> obterEventos(int idCarteira) {
+        FluxoCarteira fluxo = this.fluxos.get(idCarteira);
+        if (fluxo == null) {
+            return new ArrayList<>();
+        }
+        synchronized (fluxo) {
+            return new ArrayList<>(fluxo.eventos);
+        }
+    }
+
+    /**
+     * Grava todos os fluxos em disco, divididos em partições
+     * @param diretorio Diretório de destino
+     * @param particoes Número de arquivos de partição
+     */
+    public void gravar(Path diretorio, int particoes) {
+        if (particoes <= 0) {
+            throw new IllegalArgumentException("O número de partições deve ser positivo");
+        }
+
+        List<List<FluxoCarteira>> porParticao = new ArrayList<>();
+        for (int i = 0; i < particoes; i++) {
+            porParticao.add(new ArrayList<>());
+        }
+        for (FluxoCarteira fluxo : this.fluxos.values()) {
+            porParticao.get(Math.floorMod(fluxo.idCarteira, particoes)).add(fluxo);
+        }
+
+        try {
+            Files.createDirectories(diretorio);
+            try (DirectoryStream<Path> antigos = Files.newDirectoryStream(diretorio, "eventos-*.bin")) {
+                for (Path antigo : antigos) {
+                    Files.delete(antigo);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível preparar o diretório " + diretorio, e);
+        }
+
+        IntStream.range(0, particoes).parallel().forEach(i -> {
+            Path arquivo = diretorio.resolve(String.format("eventos-%04d.bin", i));
+            try (DataOutputStream saida = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(arquivo), TAMANHO_BUFFER))) {
+                saida.writeInt(FORMATO_ARQUIVO);
+                saida.writeInt(porParticao.get(i).size());
+                for (FluxoCarteira fluxo : porParticao.get(i)) {
+                    synchronized (fluxo) {
+                        fluxo.gravar(saida);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Não foi possível gravar " + arquivo, e);
+            }
+        });
+    }
+
+    /**
+     * Carrega os fluxos gravados por {@link #gravar(Path, int)}. As partições são lidas
+     * em paralelo e o estado atual de cada carteira é reconstruído durante a leitura.
+     * @param diretorio Diretório com os arquivos de partição
+     * @param intervaloSnapshot Eventos entre dois snapshots para os novos eventos
+     * @return Armazém carregado
+     */
+    public static ArmazemEventosCarteira carregar(Path diretorio, int intervaloSnapshot) {
+        ArmazemEventosCarteira armazem = new ArmazemEventosCarteira(intervaloSnapshot);
+        if (!Files.isDirectory(diretorio)) {
+            return armazem;
+        }
+
+        List<Path> arquivos = new ArrayList<>();
+        try (DirectoryStream<Path> particoes = Files.newDirectoryStream(diretorio, "eventos-*.bin")) {
+            for (Path arquivo : particoes) {
+                arquivos.add(arquivo);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível listar " + diretorio, e);
+        }
+
+        arquivos.parallelStream().forEach(arquivo -> {
+            try (DataInputStream entrada = new DataInputStream(
+                    new BufferedInputStream(Files.newInputStream(arquivo), TAMANHO_BUFFER))) {
+                if (entrada.readInt() != FORMATO_ARQUIVO) {
+                    throw new IllegalStateException("Arquivo de eventos inválido: " + arquivo);
+                }
+                int quantidade = entrada.readInt();
+                for (int i = 0; i < quantidade; i++) {
+                    FluxoCarteira fluxo = FluxoCarteira.ler(entrada);
+                    armazem.fluxos.put(fluxo.idCarteira, fluxo);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Não foi possível ler " + arquivo, e);
+            }
+        });
+
+        return armazem;
+    }
+
+    // Getters
+    public int getIntervaloSnapshot() {
+        return intervaloSnapshot;
+    }
+
+    public int getQuantidadeCarteiras() {
+        return fluxos.size();
+    }
+
+    /**
+     * Fluxo de eventos e snapshots de uma carteira. Acessado sob o bloqueio do próprio objeto.
+     */
+    private static final class FluxoCarteira {
+        private final int idCarteira;
+        private final int idUsuario;
+        private final ArrayList<EventoCarteira> eventos = new ArrayList<>();
+        private final ArrayList<SnapshotCarteira> snapshots = new ArrayList<>();
+        private final Carteira projecao; // Estado após o último evento
+        private long ultimoInstante = Long.MIN_VALUE;
+
+        FluxoCarteira(int idCarteira, int idUsuario) {
+            this.idCarteira = idCarteira;
+            this.idUsuario = idUsuario;
+            this.projecao = new Carteira(idCarteira, idUsuario);
+        }
+
+        synchronized EventoCarteira acrescentar(EventoCarteira evento, long agora, int intervaloSnapshot) {
+            // Instantes nunca retrocedem dentro do fluxo, mesmo se o relógio do sistema voltar
+            long instante = Math.max(agora, this.ultimoInstante);
+            EventoCarteira registrado = evento.comSequencia(this.eventos.size() + 1L, instante);
+
+            this.eventos.add(registrado);
+            this.projecao.aplicarEvento(registrado);
+            this.ultimoInstante = instante;
+
+            if (this.eventos.size() % intervaloSnapshot == 0) {
+                this.snapshots.add(this.projecao.criarSnapshot(registrado.getSequencia(), instante));
+            }
+            return registrado;
+        }
+
+        synchronized Carteira reconstruir(long instante) {
+            Carteira carteira = new Carteira(this.idCarteira, this.idUsuario);
+
+            if (instante >= this.ultimoInstante) {
+                carteira.restaurarSnapshot(this.projecao.criarSnapshot(this.eventos.size(), this.ultimoInstante));
+                return carteira;
+            }
+
+            // Último snapshot com instante <= desejado
+            int inicio = 0;
+            int baixo = 0;
+            int alto = this.snapshots.size() - 1;
+            SnapshotCarteira base = null;
+            while (baixo <= alto) {
+                int meio = (baixo + alto) >>> 1;
+                if (this.snapshots.get(meio).getInstante() <= instante) {
+                    base = this.snapshots.get(meio);
+                    baixo = meio + 1;
+                } else {
+                    alto = meio - 1;
+                }
+            }
+            if (base != null) {
+                carteira.restaurarSnapshot(base);
+                inicio = (int) base.getSequencia();
+            }
+
+            for (int i = inicio; i < this.eventos.size(); i++) {
+                EventoCarteira evento = this.eventos.get(i);
+                if (evento.getInstante() > instante) {
+                    break;
+                }
+                carteira.aplicarEvento(evento);
+            }
+            return carteira;
+        }
+
+        void gravar(DataOutputStream saida) throws IOException {
+            saida.writeInt(this.idCarteira);
+            saida.writeInt(this.idUsuario);
+
+            saida.writeInt(this.snapshots.size());
+            for (SnapshotCarteira snapshot : this.snapshots) {
+                saida.writeLong(snapshot.getSequencia());
+                saida.writeLong(snapshot.getInstante());
+                saida.writeDouble(snapshot.getSaldo());
+                saida.writeInt(snapshot.getQuantidadeAtivos());
+                for (int i = 0; i < snapshot.getQuantidadeAtivos(); i++) {
+                    saida.writeInt(snapshot.getIdAtivo(i));
+                    saida.writeDouble(snapshot.getQuantidade(i));
+                }
+            }
+
+            saida.writeInt(this.eventos.size());
+            for (EventoCarteira evento : this.eventos) {
+                saida.writeLong(evento.getInstante());
+                saida.writeByte(evento.getTipo().ordinal());
+                saida.writeInt(evento.getIdAtivo());
+                saida.writeDouble(evento.getQuantidade());
+                saida.writeDouble(evento.getValor());
+            }
+        }
+
+        static FluxoCarteira ler(DataInputStream entrada) throws IOException {
+            FluxoCarteira fluxo = new FluxoCarteira(entrada.readInt(), entrada.readInt());
+
+            int quantidadeSnapshots = entrada.readInt();
+            for (int s = 0; s < quantidadeSnapshots; s++) {
+                long sequencia = entrada.readLong();
+                long instante = entrada.readLong();
+                double saldo = entrada.readDouble();
+                int quantidadeAtivos = entrada.readInt();
+                int[] idsAtivos = new int[quantidadeAtivos];
+                double[] quantidades = new double[quantidadeAtivos];
+                for (int i = 0; i < quantidadeAtivos; i++) {
+                    idsAtivos[i] = entrada.readInt();
+                    quantidades[i] = entrada.readDouble();
+                }
+                fluxo.snapshots.add(new SnapshotCarteira(fluxo.idCarteira, fluxo.idUsuario,
+                        sequencia, instante, saldo, idsAtivos, quantidades));
+            }
+
+            TipoEventoCarteira[] tipos = TipoEventoCarteira.values();
+            int quantidadeEventos = entrada.readInt();
+            fluxo.eventos.ensureCapacity(quantidadeEventos);
+            for (int i = 0; i < quantidadeEventos; i++) {
+                long instante = entrada.readLong();
+                TipoEventoCarteira tipo = tipos[entrada.readByte()];
+                int idAtivo = entrada.readInt();
+                double quantidade = entrada.readDouble();
+                double valor = entrada.readDouble();
+                fluxo.eventos.add(new EventoCarteira(i + 1L, instante, fluxo.idCarteira, fluxo.idUsuario,
+                        tipo, idAtivo, quantidade, valor));
+            }
+
+            // Estado atual: último snapshot + eventos seguintes
+            int inicio = 0;
+            if (!fluxo.snapshots.isEmpty()) {
+                SnapshotCarteira ultimo = fluxo.snapshots.get(fluxo.snapshots.size() - 1);
+                fluxo.projecao.restaurarSnapshot(ultimo);
+                inicio = (int) ultimo.getSequencia();
+            }
+            for (int i = inicio; i < fluxo.eventos.size(); i++) {
+                fluxo.projecao.aplicarEvento(fluxo.eventos.get(i));
+            }
+            if (!fluxo.eventos.isEmpty()) {
+                fluxo.ultimoInstante = fluxo.eventos.get(fluxo.eventos.size() - 1).getInstante();
+            }
+            return fluxo;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package br.com.tiopatinhasexchange.service;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import br.com.tiopatinhasexchange.model.AcaoEstrategia;
+import br.com.tiopatinhasexchange.model.AlertaExecucaoEstrategia;
+import br.com.tiopatinhasexchange.model.Carteira;
+import br.com.tiopatinhasexchange.model.Criptoativo;
+import br.com.tiopatinhasexchange.model.EstrategiaAutomatica;
+import br.com.tiopatinhasexchange.model.ExecucaoEstrategia;
+import br.com.tiopatinhasexchange.model.Mercado;
+import br.com.tiopatinhasexchange.model.Transacao;
+
+/**
+ * Compensação das ordens das estratégias disparadas num mesmo tick.
+ *
+ * As estratégias de uma carteira são agrupadas por ativo. Compras e vendas de cada grupo
+ * são somadas e só a diferença vira ordem, com uma única taxa. Cada estratégia do grupo
+ * recebe sua {@link ExecucaoEstrategia} vinculada a essa ordem. Se compras e vendas se
+ * anulam, nenhuma ordem é enviada e todas as estratégias são atendidas ao preço de mercado.
+ * Se a ordem líquida for recusada (saldo, posição ou risco), nenhuma estratégia do grupo
+ * é executada.
+ */
+public class CompensadorOrdens {
+
+    private static final double QUANTIDADE_MINIMA = 1e-12; // Abaixo disso a posição líquida é zero
+
+    // Atributos
+    private final Mercado mercado;
+    private final LongAdder ordensEnviadas;
+    private final LongAdder ordensRecusadas;
+    private final LongAdder execucoesAtendidas;
+    private final LongAdder volumeCompensadoCentavos; // Nocional que deixou de ir ao mercado
+
+    // Construtores
+    public CompensadorOrdens(Mercado mercado) {
+        if (mercado == null) {
+            throw new IllegalArgumentException("O mercado não pode ser nulo");
+        }
+        this.mercado = mercado;
+        this.ordensEnviadas = new LongAdder();
+        this.ordensRecusadas = new LongAdder();
+        this.execucoesAtendidas = new LongAdder();
+        this.volumeCompensadoCentavos = new LongAdder();
+    }
+
+    // Métodos
+    /**
+     * Agrupa as estratégias disparadas por carteira, preservando a ordem de disparo
+     * @param disparadas Estratégias disparadas no tick
+     * @return Mapa de ID da carteira para as estratégias dessa carteira
+     */
+    public static Map<Integer, List<EstrategiaAutomatica>> agruparPorCarteira(List<EstrategiaAutomatica> disparadas) {
+        Map<Integer, List<EstrategiaAutomatica>> grupos = new LinkedHashMap<>();
+        for (EstrategiaAutomatica estrategia : disparadas) {
+            grupos.computeIfAbsent(estrategia.getIdCarteira(), id -> new ArrayList<>()).add(estrategia);
+        }
+        return grupos;
+    }
+
+    /**
+     * Executa, de forma compensada, as estratégias disparadas de uma carteira
+     * @param carteira Carteira das estratégias
+     * @param disparadas Estratégias disparadas no tick (todas da mesma carteira)
+     * @param ativos Resolve o ID do criptoativo
+     * @param notificador Destino dos alertas de execução (null = descarta)
+     * @return Execuções registradas
+     */
+    public List<ExecucaoEstrategia> executar(Carteira carteira, List<EstrategiaAutomatica> disparadas,
+            Function<Integer, Criptoativo> ativos, Consumer<? super AlertaExecucaoEstrategia> notificador) {
+        Map<Integer, List<EstrategiaAutomatica>> porAtivo = new LinkedHashMap<>();
+        for (EstrategiaAutomatica estrategia : disparadas) {
+            if (estrategia.isAtiva() && estrategia.getIdCarteira() == carteira.getId()) {
+                porAtivo.computeIfAbsent(estrategia.getIdCriptoativo(), id -> new ArrayList<>()).add(estrategia);
+            }
+        }
+
+        List<ExecucaoEstrategia> execucoes = new ArrayList<>(disparadas.size());
+        for (Map.Entry<Integer, List<EstrategiaAutomatica>> grupo : porAtivo.entrySet()) {
+            executarGrupo(carteira, ativos.apply(grupo.getKey()), grupo.getValue(), notificador, execucoes);
+        }
+        return execucoes;
+    }
+
+    private void executarGrupo(Carteira carteira, Criptoativo ativo, List<EstrategiaAutomatica> grupo,
+            Consumer<? super AlertaExecucaoEstrategia> notificador, List<ExecucaoEstrategia> execucoes) {
+        if (ativo == null) {
+            return;
+        }
+        double preco = this.mercado.obterPrecoAtual(ativo.getId());
+        if (preco < 0) {
+            return;
+        }
+
+        double compras = 0;
+        double vendas = 0;
+        for (EstrategiaAutomatica estrategia : grupo) {
+            if (estrategia.getAcao() == AcaoEstrategia.COMPRAR) {
+                compras += estrategia.getQuantidade();
+            } else {
+                vendas += estrategia.getQuantidade();
+            }
+        }
+
+        double liquido = compras - vendas;
+        boolean executada;
+        if (liquido > QUANTIDADE_MINIMA) {
+            executada = carteira.comprarAtivo(ativo, liquido, preco);
+        } else if (liquido < -QUANTIDADE_MINIMA) {
+            executada = carteira.venderAtivo(ativo, -liquido, preco);
+        } else {
+            executada = true; // Compras e vendas se anulam: nada vai ao mercado
+            liquido = 0;
+        }
+
+        if (!executada) {
+            this.ordensRecusadas.increment();
+            return;
+        }
+
+        int idTransacao = 0;
+        if (liquido != 0) {
+            this.ordensEnviadas.increment();
+            Transacao transacao = carteira.obterUltimaTransacao();
+            idTransacao = transacao == null ? 0 : transacao.getId();
+        }
+        this.volumeCompensadoCentavos.add(Math.round((compras + vendas - Math.abs(liquido)) * preco * 100));
+
+        for (EstrategiaAutomatica estrategia : grupo) {
+            execucoes.add(estrategia.registrarExecucao(preco, idTransacao, notificador));
+        }
+        this.execucoesAtendidas.add(grupo.size());
+    }
+
+    /**
+     * Exibe as métricas de compensação
+     */
+    public void exibirMetricas() {
+        System.out.println("Execuções atendidas: " + getExecucoesAtendidas());
+        System.out.println("Ordens enviadas: " + getOrdensEnviadas() + " (recusadas: " + getOrdensRecusadas() + ")");
+        System.out.printf("Volume compensado: $%.2f%n", getVolumeCompensado());
+    }
+
+    // Getters e Setters
+    public long getOrdensEnviadas() {
+        return this.ordensEnviadas.sum();
+    }
+
+    public long getOrdensRecusadas() {
+        return this.ordensRecusadas.sum();
+    }
+
+    public long getExecucoesAtendidas() {
+        return this.execucoesAtendidas.sum();
+    }
+
+    public double getVolumeCompensado() {
+        return this.volumeCompensadoCentavos.sum() / 100.0;
+    }
+}
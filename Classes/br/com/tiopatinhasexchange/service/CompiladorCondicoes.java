@@ -0,0 +1,425 @@
+package br.com.tiopatinhasexchange.service;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+import br.com.tiopatinhasexchange.model.Criptoativo;
+import br.com.tiopatinhasexchange.model.Mercado;
+
+/**
+ * Compilador da linguagem de condições das estratégias. Exemplo:
+ * <pre>
+ * preco(BTC) &lt; 300000 AND rsi(BTC,14) &lt; 30 OR variacao(ETH,4h) &gt; 5
+ * </pre>
+ * Funções: {@code preco(ATIVO)}, {@code variacao(ATIVO,periodo)} com período em horas
+ * ({@code 4h}) ou dias ({@code 1d}) e {@code rsi(ATIVO,periodos)}. Operadores:
+ * {@code < <= > >= == !=}, {@code AND}, {@code OR}, {@code NOT} e parênteses; AND tem
+ * precedência sobre OR. Números podem ser negativos ({@code variacao(BTC,24h) < -5}).
+ * O ativo pode ser o símbolo registrado ou o ID numérico.
+ *
+ * Todas as expressões compiladas pela mesma instância compartilham as subexpressões
+ * iguais (o mesmo indicador, a mesma comparação), que são avaliadas uma vez por tick.
+ */
+public class CompiladorCondicoes {
+
+    // Atributos
+    private final Map<String, Integer> simbolos; // Símbolo do ativo -> ID
+    private final Map<String, ExpressaoCondicao.NoValor> nos; // Subexpressões já criadas, por chave canônica
+    private final Map<ExpressaoCondicao.NoValor, String> chaves; // Chave canônica de cada nó
+    private int proximaPosicao; // Próxima posição de memorização no contexto
+
+    // Construtores
+    public CompiladorCondicoes() {
+        this.simbolos = new ConcurrentHashMap<>();
+        this.nos = new HashMap<>();
+        this.chaves = new IdentityHashMap<>();
+    }
+
+    // Métodos
+    /**
+     * Registra o símbolo de um ativo para uso nas expressões
+     * @param simbolo Símbolo (ex.: BTC)
+     * @param idAtivo ID do criptoativo
+     */
+    public void registrarAtivo(String simbolo, int idAtivo) {
+        this.simbolos.put(simbolo.toUpperCase(Locale.ROOT), idAtivo);
+    }
+
+    /**
+     * Registra o símbolo de um criptoativo para uso nas expressões
+     * @param ativo Criptoativo
+     */
+    public void registrarAtivo(Criptoativo ativo) {
+        registrarAtivo(ativo.getSimbolo(), ativo.getId());
+    }
+
+    /**
+     * Compila uma expressão de condição
+     * @param texto Texto da expressão
+     * @return Expressão compilada
+     * @throws IllegalArgumentException se a expressão for inválida
+     */
+    public synchronized ExpressaoCondicao compilar(String texto) {
+        if (texto == null || texto.isBlank()) {
+            throw new IllegalArgumentException("A expressão não pode ser vazia");
+        }
+        Analisador analisador = new Analisador(texto);
+        ExpressaoCondicao.NoLogico raiz = analisador.ou();
+        if (analisador.atual.tipo != TipoToken.FIM) {
+            throw analisador.erro("fim da expressão esperado");
+        }
+        return new ExpressaoCondicao(texto.trim(), raiz);
+    }
+
+    /**
+     * Cria um contexto de avaliação com espaço para todas as subexpressões já compiladas.
+     * Subexpressões compiladas depois são avaliadas sem memorização nesse contexto.
+     * @param mercado Mercado lido durante a avaliação
+     * @return Novo contexto
+     */
+    public synchronized ContextoAvaliacao criarContexto(Mercado mercado) {
+        return new ContextoAvaliacao(mercado, this.proximaPosicao);
+    }
+
+    /**
+     * Obtém o número de subexpressões distintas já compiladas
+     * @return Quantidade de subexpressões compartilhadas
+     */
+    public synchronized int getQuantidadeSubexpressoes() {
+        return this.proximaPosicao;
+    }
+
+    /**
+     * Retorna o nó já existente com a chave ou cria um novo em uma nova posição
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends ExpressaoCondicao.NoValor> T obterNo(String chave, IntFunction<T> criar) {
+        ExpressaoCondicao.NoValor existente = this.nos.get(chave);
+        if (existente != null) {
+            return (T) existente;
+        }
+        T no = criar.apply(this.proximaPosicao++);
+        this.nos.put(chave, no);
+        this.chaves.put(no, chave);
+        return no;
+    }
+
+    private enum TipoToken {
+        NUMERO,
+        IDENTIFICADOR,
+        OPERADOR,
+        ABRE,
+        FECHA,
+        VIRGULA,
+        FIM
+    }
+
+    private static final class Token {
+        final TipoToken tipo;
+        final String texto;
+        final int posicao;
+
+        Token(TipoToken tipo, String texto, int posicao) {
+            this.tipo = tipo;
+            this.texto = texto;
+            this.posicao = posicao;
+        }
+    }
+
+    /**
+     * Analisador descendente recursivo da expressão
+     */
+    private final class Analisador {
+        private final String texto;
+        private int cursor;
+        private Token atual;
+
+        Analisador(String texto) {
+            this.texto = texto;
+            avancar();
+        }
+
+        ExpressaoCondicao.NoLogico ou() {
+            List<ExpressaoCondicao.NoLogico> termos = new ArrayList<>();
+            termos.add(e());
+            while (palavra("OR") || simbolo("||")) {
+                avancar();
+                termos.add(e());
+            }
+            if (termos.size() == 1) {
+                return termos.get(0);
+            }
+            ExpressaoCondicao.NoLogico[] vetor = termos.toArray(new ExpressaoCondicao.NoLogico[0]);
+            return obterNo("OU" + chaveLista(vetor), p -> new ExpressaoCondicao.Ou(p, vetor));
+        }
+
+        ExpressaoCondicao.NoLogico e() {
+            List<ExpressaoCondicao.NoLogico> termos = new ArrayList<>();
+            termos.add(nao());
+            while (palavra("AND") || simbolo("&&")) {
+                avancar();
+                termos.add(nao());
+            }
+            if (termos.size() == 1) {
+                return termos.get(0);
+            }
+            ExpressaoCondicao.NoLogico[] vetor = termos.toArray(new ExpressaoCondicao.NoLogico[0]);
+            return obterNo("E" + chaveLista(vetor), p -> new ExpressaoCondicao.E(p, vetor));
+        }
+
+        ExpressaoCondicao.NoLogico nao() {
+            if (palavra("NOT") || simbolo("!")) {
+                avancar();
+                ExpressaoCondicao.NoLogico termo = nao();
+                return obterNo("NAO(" + chaves.get(termo) + ")", p -> new ExpressaoCondicao.Nao(p, termo));
+            }
+            if (this.atual.tipo == TipoToken.ABRE) {
+                avancar();
+                ExpressaoCondicao.NoLogico grupo = ou();
+                esperar(TipoToken.FECHA, "')' esperado");
+                return grupo;
+            }
+            return comparacao();
+        }
+
+        ExpressaoCondicao.NoLogico comparacao() {
+            ExpressaoCondicao.NoValor esquerda = valor();
+            if (this.atual.tipo != TipoToken.OPERADOR) {
+                throw erro("operador de comparação esperado");
+            }
+            int operador;
+            switch (this.atual.texto) {
+                case "<":
+                    operador = ExpressaoCondicao.Comparacao.MENOR;
+                    break;
+                case "<=":
+                    operador = ExpressaoCondicao.Comparacao.MENOR_IGUAL;
+                    break;
+                case ">":
+                    operador = ExpressaoCondicao.Comparacao.MAIOR;
+                    break;
+                case ">=":
+                    operador = ExpressaoCondicao.Comparacao.MAIOR_IGUAL;
+                    break;
+                case "==":
+                    operador = ExpressaoCondicao.Comparacao.IGUAL;
+                    break;
+                case "!=":
+                    operador = ExpressaoCondicao.Comparacao.DIFERENTE;
+                    break;
+                default:
+                    throw erro("operador de comparação esperado");
+            }
+            avancar();
+            ExpressaoCondicao.NoValor direita = valor();
+
+            String chave = "CMP" + operador + "(" + chaves.get(esquerda) + "," + chaves.get(direita) + ")";
+            return obterNo(chave, p -> new ExpressaoCondicao.Comparacao(p, esquerda, operador, direita));
+        }
+
+        ExpressaoCondicao.NoValor valor() {
+            boolean negativo = simbolo("-");
+            if (negativo) {
+                avancar();
+                if (this.atual.tipo != TipoToken.NUMERO) {
+                    throw erro("número esperado após '-'");
+                }
+            }
+            if (this.atual.tipo == TipoToken.NUMERO) {
+                double numero = negativo ? -numero(this.atual) : numero(this.atual);
+                avancar();
+                // Constantes não ocupam posição de memorização
+                String chave = "K(" + numero + ")";
+                ExpressaoCondicao.NoValor constante = nos.get(chave);
+                if (constante == null) {
+                    constante = new ExpressaoCondicao.Constante(numero);
+                    nos.put(chave, constante);
+                    chaves.put(constante, chave);
+                }
+                return constante;
+            }
+            if (this.atual.tipo != TipoToken.IDENTIFICADOR) {
+                throw erro("número ou função esperada");
+            }
+
+            String funcao = this.atual.texto.toLowerCase(Locale.ROOT);
+            avancar();
+            esperar(TipoToken.ABRE, "'(' esperado após " + funcao);
+            int idAtivo = ativo();
+
+            switch (funcao) {
+                case "preco": {
+                    esperar(TipoToken.FECHA, "')' esperado");
+                    return obterNo("PRECO(" + idAtivo + ")", p -> new ExpressaoCondicao.Preco(p, idAtivo));
+                }
+                case "variacao": {
+                    esperar(TipoToken.VIRGULA, "período esperado em variacao");
+                    int horas = periodoHoras();
+                    esperar(TipoToken.FECHA, "')' esperado");
+                    return obterNo("VARIACAO(" + idAtivo + "," + horas + ")",
+                            p -> new ExpressaoCondicao.Variacao(p, idAtivo, horas));
+                }
+                case "rsi": {
+                    esperar(TipoToken.VIRGULA, "número de períodos esperado em rsi");
+                    int periodos = inteiro();
+                    esperar(TipoToken.FECHA, "')' esperado");
+                    return obterNo("RSI(" + idAtivo + "," + periodos + ")",
+                            p -> new ExpressaoCondicao.Rsi(p, idAtivo, periodos));
+                }
+                default:
+                    throw new IllegalArgumentException("Função desconhecida: " + funcao);
+            }
+        }
+
+        int ativo() {
+            Token token = this.atual;
+            avancar();
+            if (token.tipo == TipoToken.NUMERO) {
+                return (int) numero(token);
+            }
+            if (token.tipo == TipoToken.IDENTIFICADOR) {
+                Integer id = simbolos.get(token.texto.toUpperCase(Locale.ROOT));
+                if (id == null) {
+                    throw new IllegalArgumentException("Ativo desconhecido: " + token.texto);
+                }
+                return id;
+            }
+            throw erro("ativo esperado", token);
+        }
+
+        int inteiro() {
+            Token token = this.atual;
+            if (token.tipo != TipoToken.NUMERO) {
+                throw erro("número inteiro esperado");
+            }
+            avancar();
+            double valor = numero(token);
+            if (valor != Math.rint(valor) || valor <= 0) {
+                throw erro("número inteiro positivo esperado", token);
+            }
+            return (int) valor;
+        }
+
+        int periodoHoras() {
+            Token token = this.atual;
+            String texto = token.texto.toLowerCase(Locale.ROOT);
+            int multiplicador = 1;
+            if (texto.endsWith("h")) {
+                texto = texto.substring(0, texto.length() - 1);
+            } else if (texto.endsWith("d")) {
+                texto = texto.substring(0, texto.length() - 1);
+                multiplicador = 24;
+            }
+            try {
+                int valor = Integer.parseInt(texto) * multiplicador;
+                if (valor <= 0) {
+                    throw erro("período deve ser positivo", token);
+                }
+                avancar();
+                return valor;
+            } catch (NumberFormatException e) {
+                throw erro("período inválido (use, por exemplo, 4h ou 1d)", token);
+            }
+        }
+
+        double numero(Token token) {
+            try {
+                return Double.parseDouble(token.texto);
+            } catch (NumberFormatException e) {
+                throw erro("número inválido", token);
+            }
+        }
+
+        boolean palavra(String palavra) {
+            return this.atual.tipo == TipoToken.IDENTIFICADOR && this.atual.texto.equalsIgnoreCase(palavra);
+        }
+
+        boolean simbolo(String simbolo) {
+            return this.atual.tipo == TipoToken.OPERADOR && this.atual.texto.equals(simbolo);
+        }
+
+        void esperar(TipoToken tipo, String mensagem) {
+            if (this.atual.tipo != tipo) {
+                throw erro(mensagem);
+            }
+            avancar();
+        }
+
+        IllegalArgumentException erro(String mensagem) {
+            return erro(mensagem, this.atual);
+        }
+
+        IllegalArgumentException erro(String mensagem, Token token) {
+            return new IllegalArgumentException("Erro na expressão, posição " + (token.posicao + 1)
+                    + ": " + mensagem + " em \"" + this.texto + "\"");
+        }
+
+        /**
+         * Lê o próximo token
+         */
+        void avancar() {
+            while (this.cursor < this.texto.length() && Character.isWhitespace(this.texto.charAt(this.cursor))) {
+                this.cursor++;
+            }
+            int inicio = this.cursor;
+            if (this.cursor >= this.texto.length()) {
+                this.atual = new Token(TipoToken.FIM, "", inicio);
+                return;
+            }
+
+            char c = this.texto.charAt(this.cursor);
+            if (Character.isDigit(c) || c == '.') {
+                // Números podem ter sufixo de unidade (ex.: 4h)
+                while (this.cursor < this.texto.length()
+                        && (Character.isLetterOrDigit(this.texto.charAt(this.cursor)) || this.texto.charAt(this.cursor) == '.')) {
+                    this.cursor++;
+                }
+                this.atual = new Token(TipoToken.NUMERO, this.texto.substring(inicio, this.cursor), inicio);
+            } else if (Character.isLetter(c) || c == '_') {
+                while (this.cursor < this.texto.length()
+                        && (Character.isLetterOrDigit(this.texto.charAt(this.cursor)) || this.texto.charAt(this.cursor) == '_')) {
+                    this.cursor++;
+                }
+                this.atual = new Token(TipoToken.IDENTIFICADOR, this.texto.substring(inicio, this.cursor), inicio);
+            } else if (c == '(') {
+                this.cursor++;
+                this.atual = new Token(TipoToken.ABRE, "(", inicio);
+            } else if (c == ')') {
+                this.cursor++;
+                this.atual = new Token(TipoToken.FECHA, ")", inicio);
+            } else if (c == ',') {
+                this.cursor++;
+                this.atual = new Token(TipoToken.VIRGULA, ",", inicio);
+            } else {
+                String doisCaracteres = this.texto.substring(inicio, Math.min(inicio + 2, this.texto.length()));
+                if (doisCaracteres.equals("<=") || doisCaracteres.equals(">=") || doisCaracteres.equals("==")
+                        || doisCaracteres.equals("!=") || doisCaracteres.equals("&&") || doisCaracteres.equals("||")) {
+                    this.cursor += 2;
+                    this.atual = new Token(TipoToken.OPERADOR, doisCaracteres, inicio);
+                } else if (c == '<' || c == '>' || c == '!' || c == '-') {
+                    this.cursor++;
+                    this.atual = new Token(TipoToken.OPERADOR, String.valueOf(c), inicio);
+                } else {
+                    this.atual = new Token(TipoToken.FIM, "", inicio);
+                    throw erro("caractere inesperado '" + c + "'");
+                }
+            }
+        }
+    }
+
+    private String chaveLista(ExpressaoCondicao.NoValor[] termos) {
+        StringBuilder chave = new StringBuilder("(");
+        for (int i = 0; i < termos.length; i++) {
+            if (i > 0) {
+                chave.append(',');
+            }
+            chave.append(this.chaves.get(termos[i]));
+        }
+        return chave.append(')').toString();
+    }
+}
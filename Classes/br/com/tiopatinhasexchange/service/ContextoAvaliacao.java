@@ -0,0 +1,74 @@
+package br.com.tiopatinhasexchange.service;
+import br.com.tiopatinhasexchange.model.Mercado;
+
+/**
+ * Contexto de avaliação das expressões de condição em um tick de mercado.
+ * Guarda o valor já calculado de cada subexpressão compartilhada, de modo que um
+ * indicador usado por muitas estratégias é calculado uma única vez por tick.
+ * Cada thread de avaliação deve usar o seu próprio contexto.
+ */
+public class ContextoAvaliacao {
+
+    // Atributos
+    private final Mercado mercado;
+    private long tick; // Tick atual; valores de ticks anteriores são descartados
+    private final long[] ticksCalculados; // Tick em que cada posição foi calculada
+    private final double[] valores; // Valor memorizado de cada subexpressão
+
+    // Construtores
+    /**
+     * Cria um contexto sem memorização, para avaliações isoladas
+     * @param mercado Mercado lido durante a avaliação
+     */
+    public ContextoAvaliacao(Mercado mercado) {
+        this(mercado, 0);
+    }
+
+    /**
+     * @param mercado Mercado lido durante a avaliação
+     * @param capacidade Número de subexpressões memorizadas (ver {@link CompiladorCondicoes#criarContexto})
+     */
+    public ContextoAvaliacao(Mercado mercado, int capacidade) {
+        this.mercado = mercado;
+        this.tick = 1;
+        this.ticksCalculados = new long[Math.max(0, capacidade)];
+        this.valores = new double[Math.max(0, capacidade)];
+    }
+
+    // Métodos
+    /**
+     * Inicia um novo tick, invalidando todos os valores memorizados
+     */
+    public void novoTick() {
+        this.tick++;
+    }
+
+    /**
+     * Verifica se a subexpressão já foi calculada neste tick
+     * @param posicao Posição da subexpressão
+     * @return true se o valor memorizado é válido
+     */
+    boolean calculado(int posicao) {
+        return posicao < this.ticksCalculados.length && this.ticksCalculados[posicao] == this.tick;
+    }
+
+    double valor(int posicao) {
+        return this.valores[posicao];
+    }
+
+    void memorizar(int posicao, double valor) {
+        if (posicao < this.valores.length) {
+            this.valores[posicao] = valor;
+            this.ticksCalculados[posicao] = this.tick;
+        }
+    }
+
+    // Getters
+    public Mercado getMercado() {
+        return mercado;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+}
@@ -0,0 +1,233 @@
+package br.com.tiopatinhasexchange.service;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+import br.com.tiopatinhasexchange.model.EstrategiaAutomatica;
+
+/**
+ * Controle de frequência das estratégias automáticas: intervalo de recarga entre
+ * execuções, máximo de execuções por janela de tempo e execução única.
+ *
+ * Só as estratégias bloqueadas têm estado aqui. Cada bloqueio agenda sua liberação
+ * numa {@link RodaTemporizacao}, então não há um temporizador por estratégia e o
+ * custo por tick não depende de quantas recargas estão pendentes.
+ *
+ * A execução só é contabilizada (recarga, janela e execução única) quando
+ * {@link #concluirExecucao} informa que a ordem foi executada. Entre a admissão e a
+ * conclusão, a estratégia com algum limite fica marcada como em execução e não é
+ * admitida de novo, para que disparos em ticks seguidos não passem enquanto a primeira
+ * ordem ainda executa; se a ordem falhar, a marca é apenas removida.
+ */
+public class ControleRecargaEstrategias {
+
+    private static final int EVENTO_RECARGA = 0;
+    private static final int EVENTO_JANELA = 1;
+
+    // Atributos
+    private final RodaTemporizacao roda;
+    private final HashMap<Integer, EstadoRecarga> estados; // Apenas estratégias com bloqueio pendente
+    private final LongConsumer aoExpirar;
+    private long bloqueios;
+
+    // Construtores
+    public ControleRecargaEstrategias(long resolucaoMillis, long agoraMillis) {
+        this.roda = new RodaTemporizacao(resolucaoMillis, agoraMillis);
+        this.estados = new HashMap<>();
+        this.aoExpirar = this::expirar;
+    }
+
+    // Métodos
+    /**
+     * Verifica se a estratégia pode executar agora e, se puder, a marca como em execução
+     * até {@link #concluirExecucao}
+     * @param estrategia Estratégia disparada
+     * @param agoraMillis Instante atual em milissegundos
+     * @return true se a execução foi admitida
+     */
+    public synchronized boolean tentarExecutar(EstrategiaAutomatica estrategia, long agoraMillis) {
+        this.roda.avancar(agoraMillis, this.aoExpirar);
+        return admitir(estrategia, agoraMillis);
+    }
+
+    /**
+     * Filtra as estratégias disparadas num tick, mantendo apenas as admitidas
+     * @param disparadas Estratégias cuja condição foi atendida
+     * @param agoraMillis Instante do tick em milissegundos
+     * @param destino Lista que recebe as estratégias admitidas
+     * @return Quantidade de estratégias admitidas
+     */
+    public synchronized int filtrar(List<EstrategiaAutomatica> disparadas, long agoraMillis,
+            List<EstrategiaAutomatica> destino) {
+        this.roda.avancar(agoraMillis, this.aoExpirar);
+        int admitidas = 0;
+        for (EstrategiaAutomatica estrategia : disparadas) {
+            if (admitir(estrategia, agoraMillis)) {
+                destino.add(estrategia);
+                admitidas++;
+            }
+        }
+        return admitidas;
+    }
+
+    /**
+     * Avança o tempo, liberando as recargas e janelas expiradas
+     * @param agoraMillis Instante atual em milissegundos
+     * @return Quantidade de bloqueios liberados
+     */
+    public synchronized int avancar(long agoraMillis) {
+        return this.roda.avancar(agoraMillis, this.aoExpirar);
+    }
+
+    private boolean admitir(EstrategiaAutomatica estrategia, long agoraMillis) {
+        if (!estrategia.isAtiva()) {
+            return false;
+        }
+
+        int id = estrategia.getId();
+        EstadoRecarga estado = this.estados.get(id);
+        if (estado != null && (estado.emExecucao || bloqueada(estrategia, estado))) {
+            this.bloqueios++;
+            return false;
+        }
+
+        if (possuiLimite(estrategia)) {
+            obterEstado(id, estado).emExecucao = true;
+        }
+        return true;
+    }
+
+    /**
+     * Informa o fim de uma execução admitida. Só a execução bem-sucedida inicia a recarga,
+     * conta na janela e desativa a estratégia de execução única.
+     * @param estrategia Estratégia admitida por {@link #tentarExecutar} ou {@link #filtrar}
+     * @param executada true se a ordem foi executada
+     * @param agoraMillis Instante atual em milissegundos
+     */
+    public synchronized void concluirExecucao(EstrategiaAutomatica estrategia, boolean executada,
+            long agoraMillis) {
+        this.roda.avancar(agoraMillis, this.aoExpirar);
+        int id = estrategia.getId();
+        EstadoRecarga estado = this.estados.get(id);
+        if (estado == null || !estado.emExecucao) {
+            return;
+        }
+        estado.emExecucao = false;
+
+        if (executada) {
+            if (estrategia.isExecucaoUnica()) {
+                estrategia.setAtiva(false);
+            }
+            long recarga = estrategia.getIntervaloRecargaSegundos();
+            if (recarga > 0) {
+                this.roda.cancelar(estado.entradaRecarga);
+                estado.entradaRecarga = this.roda.agendar(chave(id, EVENTO_RECARGA), agoraMillis + recarga * 1000);
+            }
+            if (estrategia.getMaxExecucoesPorJanela() > 0) {
+                if (estado.entradaJanela < 0) {
+                    estado.entradaJanela = this.roda.agendar(chave(id, EVENTO_JANELA),
+                            agoraMillis + estrategia.getJanelaExecucoesSegundos() * 1000);
+                }
+                estado.execucoesJanela++;
+            }
+        }
+        if (estado.entradaRecarga < 0 && estado.entradaJanela < 0) {
+            this.estados.remove(id);
+        }
+    }
+
+    private static boolean possuiLimite(EstrategiaAutomatica estrategia) {
+        return estrategia.isExecucaoUnica() || estrategia.getIntervaloRecargaSegundos() > 0
+                || estrategia.getMaxExecucoesPorJanela() > 0;
+    }
+
+    private static boolean bloqueada(EstrategiaAutomatica estrategia, EstadoRecarga estado) {
+        int maxExecucoes = estrategia.getMaxExecucoesPorJanela();
+        return estado.entradaRecarga >= 0 || (maxExecucoes > 0 && estado.execucoesJanela >= maxExecucoes);
+    }
+
+    private EstadoRecarga obterEstado(int id, EstadoRecarga estado) {
+        if (estado == null) {
+            estado = new EstadoRecarga();
+            this.estados.put(id, estado);
+        }
+        return estado;
+    }
+
+    private void expirar(long chave) {
+        int id = (int) (chave >> 1);
+        EstadoRecarga estado = this.estados.get(id);
+        if (estado == null) {
+            return;
+        }
+        if ((chave & 1) == EVENTO_RECARGA) {
+            estado.entradaRecarga = -1;
+        } else {
+            estado.entradaJanela = -1;
+            estado.execucoesJanela = 0;
+        }
+        if (estado.entradaRecarga < 0 && estado.entradaJanela < 0 && !estado.emExecucao) {
+            this.estados.remove(id);
+        }
+    }
+
+    /**
+     * Remove os bloqueios de uma estratégia (por exemplo, ao excluí-la ou reconfigurá-la)
+     * @param idEstrategia ID da estratégia
+     */
+    public synchronized void liberar(int idEstrategia) {
+        EstadoRecarga estado = this.estados.remove(idEstrategia);
+        if (estado != null) {
+            this.roda.cancelar(estado.entradaRecarga);
+            this.roda.cancelar(estado.entradaJanela);
+        }
+    }
+
+    /**
+     * Verifica se a estratégia está em recarga ou com a janela de execuções esgotada
+     * @param estrategia Estratégia a consultar
+     * @return true se a estratégia está bloqueada
+     */
+    public synchronized boolean isBloqueada(EstrategiaAutomatica estrategia) {
+        EstadoRecarga estado = this.estados.get(estrategia.getId());
+        return estado != null && bloqueada(estrategia, estado);
+    }
+
+    private static long chave(int idEstrategia, int evento) {
+        return ((long) idEstrategia << 1) | evento;
+    }
+
+    // Getters e Setters
+    public synchronized int getEstrategiasControladas() {
+        return this.estados.size();
+    }
+
+    public synchronized int getExpiracoesPendentes() {
+        return this.roda.getTamanho();
+    }
+
+    public synchronized long getBloqueios() {
+        return this.bloqueios;
+    }
+
+    public long getResolucaoMillis() {
+        return this.roda.getResolucaoMillis();
+    }
+
+    /**
+     * Instante até onde o tempo já avançou; instantes anteriores não são mais vistos
+     */
+    public synchronized long getInstanteAtualMillis() {
+        return this.roda.getInstanteAtualMillis();
+    }
+
+    /**
+     * Bloqueios pendentes de uma estratégia
+     */
+    private static final class EstadoRecarga {
+        int entradaRecarga = -1; // Entrada na roda que encerra a recarga
+        int entradaJanela = -1; // Entrada na roda que encerra a janela atual
+        int execucoesJanela;
+        boolean emExecucao; // Admitida e ainda sem conclusão
+    }
+}
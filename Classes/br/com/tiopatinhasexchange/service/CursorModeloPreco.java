@@ -0,0 +1,102 @@
+package br.com.tiopatinhasexchange.service;
+import java.util.SplittableRandom;
+
+/**
+ * Cursor que gera os preços de um ativo sob demanda a partir de um {@link ModeloPreco}.
+ *
+ * Os passos são gerados em lotes de tamanho fixo num único vetor reutilizado, então a
+ * memória não depende do número de passos. Cada lote usa sementes derivadas da semente
+ * da simulação e do índice do lote, e a série é a mesma para a mesma semente.
+ */
+public class CursorModeloPreco implements CursorPrecos {
+
+    private static final int PASSOS_POR_LOTE = 1024;
+    private static final long SEMENTE_MODELO = 0x2545F4914F6CDD1DL;
+    private static final double MILLIS_POR_ANO = 365.0 * 86_400_000L;
+
+    // Atributos
+    private final ModeloPreco modelo; // Cópia própria, com o estado da trajetória
+    private final long passos; // Passos após o preço inicial
+    private final long intervaloMillis;
+    private final double dt; // Duração de um passo, em anos
+    private final long semente;
+    private final double[] lote;
+    private int tamanhoLote;
+    private int posicaoLote;
+    private long passo; // Passo atual (-1 antes da primeira chamada de avancar)
+    private double preco;
+
+    // Construtores
+    /**
+     * @param modelo Modelo de preço (é copiado, então pode ser compartilhado)
+     * @param precoInicial Preço do passo 0
+     * @param passos Número de passos após o preço inicial
+     * @param intervaloMillis Duração de cada passo
+     * @param semente Semente da simulação
+     */
+    public CursorModeloPreco(ModeloPreco modelo, double precoInicial, long passos, long intervaloMillis,
+            long semente) {
+        if (modelo == null || precoInicial <= 0 || passos < 0 || intervaloMillis <= 0) {
+            throw new IllegalArgumentException("Parâmetros do cursor inválidos");
+        }
+        this.modelo = modelo.copiar();
+        this.passos = passos;
+        this.intervaloMillis = intervaloMillis;
+        this.dt = intervaloMillis / MILLIS_POR_ANO;
+        this.semente = semente;
+        this.lote = new double[PASSOS_POR_LOTE];
+        this.passo = -1;
+        this.preco = precoInicial;
+    }
+
+    // Métodos
+    @Override
+    public boolean avancar() {
+        if (this.passo >= this.passos) {
+            return false;
+        }
+        this.passo++;
+        if (this.passo == 0) {
+            return true;
+        }
+        if (this.posicaoLote == this.tamanhoLote) {
+            gerarLote((this.passo - 1) / PASSOS_POR_LOTE);
+        }
+        this.preco *= Math.exp(this.lote[this.posicaoLote++]);
+        return true;
+    }
+
+    private void gerarLote(long indiceLote) {
+        SplittableRandom choques = new SplittableRandom(MotorMonteCarlo.sementeTrajetoria(this.semente, indiceLote));
+        this.tamanhoLote = (int) Math.min(PASSOS_POR_LOTE, this.passos - indiceLote * PASSOS_POR_LOTE);
+        for (int i = 0; i < this.tamanhoLote; i++) {
+            this.lote[i] = choques.nextGaussian();
+        }
+        SplittableRandom aleatorio = new SplittableRandom(MotorMonteCarlo.sementeTrajetoria(
+                this.semente ^ SEMENTE_MODELO, indiceLote));
+        this.modelo.gerarRetornos(this.lote, 0, this.tamanhoLote, this.dt, aleatorio);
+        this.posicaoLote = 0;
+    }
+
+    @Override
+    public double getPreco() {
+        if (this.passo < 0) {
+            throw new IllegalStateException("Chame avancar() antes de ler o preço");
+        }
+        return this.preco;
+    }
+
+    @Override
+    public long getInstante() {
+        return this.passo * this.intervaloMillis;
+    }
+
+    // Getters e Setters
+    public long getPasso() {
+        return this.passo;
+    }
+
+    public long getPassos() {
+        return this.passos;
+    }
+}
@@ -0,0 +1,62 @@
+package br.com.tiopatinhasexchange.service;
+
+/**
+ * Cursor sobre uma série de preços de um ativo, lida passo a passo e sob demanda.
+ *
+ * Quem consome a série chama {@link #avancar()} e lê o preço e o instante do passo atual;
+ * a série não precisa existir inteira em memória, então simulações de muitos anos em
+ * minutos usam memória constante.
+ */
+public interface CursorPrecos {
+
+    /**
+     * Avança para o próximo passo
+     * @return false se a série terminou
+     */
+    boolean avancar();
+
+    /**
+     * @return Preço do passo atual
+     */
+    double getPreco();
+
+    /**
+     * @return Instante do passo atual (epoch em milissegundos, ou relativo ao início da simulação)
+     */
+    long getInstante();
+
+    /**
+     * Cria um cursor sobre preços já em memória
+     * @param precos Preços em ordem cronológica
+     * @param inicioMillis Instante do primeiro preço
+     * @param intervaloMillis Intervalo entre preços consecutivos
+     * @return Cursor sobre o vetor (o vetor não é copiado)
+     */
+    static CursorPrecos deVetor(double[] precos, long inicioMillis, long intervaloMillis) {
+        if (precos == null || intervaloMillis <= 0) {
+            throw new IllegalArgumentException("Preços ou intervalo inválidos");
+        }
+        return new CursorPrecos() {
+            private int indice = -1;
+
+            @Override
+            public boolean avancar() {
+                if (this.indice + 1 >= precos.length) {
+                    return false;
+                }
+                this.indice++;
+                return true;
+            }
+
+            @Override
+            public double getPreco() {
+                return precos[this.indice];
+            }
+
+            @Override
+            public long getInstante() {
+                return inicioMillis + this.indice * intervaloMillis;
+            }
+        };
+    }
+}
@@ -0,0 +1,106 @@
+package br.com.tiopatinhasexchange.service;
+
+import br.com.tiopatinhasexchange.model.AcaoEstrategia;
+import br.com.tiopatinhasexchange.model.ExecucaoEstrategia;
+
+/**
+ * Estatísticas acumuladas das execuções de uma estratégia. São atualizadas a cada
+ * execução registrada, então a leitura é O(1) e não percorre o histórico.
+ *
+ * O resultado atribuído à estratégia considera apenas as quantidades e preços das
+ * suas execuções; as taxas não entram porque, com compensação, são cobradas sobre a
+ * ordem líquida de várias estratégias.
+ */
+public class EstatisticasEstrategia {
+
+    // Atributos
+    private final int idEstrategia;
+    private long execucoes;
+    private double somaDerrapagem;
+    private long somaLatenciaNanos;
+    private long latenciaMaximaNanos;
+    private double posicao; // Quantidade líquida comprada pela estratégia
+    private double fluxoCaixa; // Vendas menos compras
+    private double volume; // Nocional executado
+
+    // Construtores
+    public EstatisticasEstrategia(int idEstrategia) {
+        this.idEstrategia = idEstrategia;
+    }
+
+    // Métodos
+    /**
+     * Acumula uma execução nas estatísticas
+     * @param execucao Execução registrada
+     */
+    synchronized void acumular(ExecucaoEstrategia execucao) {
+        double nocional = execucao.getQuantidade() * execucao.getPrecoExecucao();
+        this.execucoes++;
+        this.somaDerrapagem += execucao.calcularDerrapagem();
+        this.somaLatenciaNanos += execucao.getLatenciaNanos();
+        this.latenciaMaximaNanos = Math.max(this.latenciaMaximaNanos, execucao.getLatenciaNanos());
+        this.volume += nocional;
+        if (execucao.getAcao() == AcaoEstrategia.VENDER) {
+            this.posicao -= execucao.getQuantidade();
+            this.fluxoCaixa += nocional;
+        } else {
+            this.posicao += execucao.getQuantidade();
+            this.fluxoCaixa -= nocional;
+        }
+    }
+
+    /**
+     * Calcula o resultado da estratégia marcando a posição a mercado
+     * @param precoAtual Preço atual do ativo da estratégia
+     * @return Resultado (lucro ou prejuízo) em valor
+     */
+    public synchronized double calcularResultado(double precoAtual) {
+        return this.fluxoCaixa + this.posicao * precoAtual;
+    }
+
+    /**
+     * Exibe as estatísticas da estratégia
+     * @param precoAtual Preço atual do ativo, para o resultado a mercado
+     */
+    public synchronized void exibirDetalhes(double precoAtual) {
+        System.out.println("Estratégia " + this.idEstrategia + ": " + this.execucoes + " execução(ões)");
+        System.out.printf("  Derrapagem média: %.4f%%%n", getDerrapagemMedia() * 100);
+        System.out.printf("  Latência média: %.1f µs (máxima %.1f µs)%n",
+                getLatenciaMediaNanos() / 1000.0, this.latenciaMaximaNanos / 1000.0);
+        System.out.printf("  Posição: %.8f | Volume: $%.2f | Resultado: $%.2f%n",
+                this.posicao, this.volume, calcularResultado(precoAtual));
+    }
+
+    // Getters e Setters
+    public int getIdEstrategia() {
+        return this.idEstrategia;
+    }
+
+    public synchronized long getExecucoes() {
+        return this.execucoes;
+    }
+
+    public synchronized double getDerrapagemMedia() {
+        return this.execucoes == 0 ? 0.0 : this.somaDerrapagem / this.execucoes;
+    }
+
+    public synchronized double getLatenciaMediaNanos() {
+        return this.execucoes == 0 ? 0.0 : (double) this.somaLatenciaNanos / this.execucoes;
+    }
+
+    public synchronized long getLatenciaMaximaNanos() {
+        return this.latenciaMaximaNanos;
+    }
+
+    public synchronized double getPosicao() {
+        return this.posicao;
+    }
+
+    public synchronized double getFluxoCaixa() {
+        return this.fluxoCaixa;
+    }
+
+    public synchronized double getVolume() {
+        return this.volume;
+    }
+}
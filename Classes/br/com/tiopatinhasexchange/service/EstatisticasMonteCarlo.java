@@ -0,0 +1,108 @@
+package br.com.tiopatinhasexchange.service;
+
+/**
+ * Estatísticas por trajetória de uma simulação de Monte Carlo, acumuladas sem guardar
+ * as trajetórias. Cada tarefa da simulação preenche a sua instância e as instâncias são
+ * combinadas ao final.
+ */
+public class EstatisticasMonteCarlo {
+
+    // Atributos
+    private final double precoInicial;
+    private final AcumuladorEstatistico precoFinal;
+    private final AcumuladorEstatistico retorno; // Retorno da trajetória (0.1 = 10%)
+    private final AcumuladorEstatistico drawdownMaximo; // Maior queda a partir de um topo (0.2 = 20%)
+    private long trajetoriasComPerda;
+
+    // Construtores
+    public EstatisticasMonteCarlo(double precoInicial) {
+        this.precoInicial = precoInicial;
+        this.precoFinal = new AcumuladorEstatistico();
+        this.retorno = new AcumuladorEstatistico();
+        this.drawdownMaximo = new AcumuladorEstatistico();
+    }
+
+    // Métodos
+    /**
+     * Acumula uma trajetória
+     * @param precos Preços da trajetória (o primeiro é o preço inicial)
+     * @param tamanho Quantidade de preços válidos no vetor
+     */
+    public void adicionarTrajetoria(double[] precos, int tamanho) {
+        double topo = precos[0];
+        double drawdown = 0.0;
+        for (int i = 1; i < tamanho; i++) {
+            double preco = precos[i];
+            if (preco > topo) {
+                topo = preco;
+            } else {
+                double queda = (topo - preco) / topo;
+                if (queda > drawdown) {
+                    drawdown = queda;
+                }
+            }
+        }
+
+        double ultimo = precos[tamanho - 1];
+        this.precoFinal.adicionar(ultimo);
+        this.retorno.adicionar((ultimo - this.precoInicial) / this.precoInicial);
+        this.drawdownMaximo.adicionar(drawdown);
+        if (ultimo < this.precoInicial) {
+            this.trajetoriasComPerda++;
+        }
+    }
+
+    /**
+     * Incorpora as estatísticas de outra parte da simulação
+     * @param outra Estatísticas a serem combinadas
+     */
+    public void combinar(EstatisticasMonteCarlo outra) {
+        this.precoFinal.combinar(outra.precoFinal);
+        this.retorno.combinar(outra.retorno);
+        this.drawdownMaximo.combinar(outra.drawdownMaximo);
+        this.trajetoriasComPerda += outra.trajetoriasComPerda;
+    }
+
+    /**
+     * Exibe o resumo da simulação
+     */
+    public void exibirResumo() {
+        System.out.println("=== Simulação de Monte Carlo ===");
+        System.out.println("Trajetórias: " + getTrajetorias());
+        System.out.printf("Preço final: média %.2f, desvio %.2f, mín %.2f, máx %.2f%n",
+                this.precoFinal.getMedia(), this.precoFinal.getDesvioPadrao(),
+                this.precoFinal.getMinimo(), this.precoFinal.getMaximo());
+        System.out.printf("Retorno médio: %.2f%% (desvio %.2f%%)%n",
+                this.retorno.getMedia() * 100, this.retorno.getDesvioPadrao() * 100);
+        System.out.printf("Drawdown máximo médio: %.2f%% (pior %.2f%%)%n",
+                this.drawdownMaximo.getMedia() * 100, this.drawdownMaximo.getMaximo() * 100);
+        System.out.printf("Probabilidade de perda: %.2f%%%n", getProbabilidadePerda() * 100);
+        System.out.println("================================");
+    }
+
+    // Getters e Setters
+    public long getTrajetorias() {
+        return this.precoFinal.getQuantidade();
+    }
+
+    public double getPrecoInicial() {
+        return this.precoInicial;
+    }
+
+    public AcumuladorEstatistico getPrecoFinal() {
+        return this.precoFinal;
+    }
+
+    public AcumuladorEstatistico getRetorno() {
+        return this.retorno;
+    }
+
+    public AcumuladorEstatistico getDrawdownMaximo() {
+        return this.drawdownMaximo;
+    }
+
+    public double getProbabilidadePerda() {
+        long trajetorias = getTrajetorias();
+        return trajetorias == 0 ? 0.0 : (double) this.trajetoriasComPerda / trajetorias;
+    }
+}
@@ -0,0 +1,128 @@
+package br.com.tiopatinhasexchange.service;
+import java.util.Arrays;
+
+/**
+ * Estimativa de um quantil em fluxo pelo algoritmo P² (Jain e Chlamtac): cinco marcadores
+ * acompanham o mínimo, o máximo, o quantil e dois pontos intermediários, ajustados por
+ * interpolação parabólica a cada valor. A memória é constante e os valores nunca são
+ * guardados nem ordenados.
+ */
+public class EstimadorQuantilP2 {
+
+    // Atributos
+    private final double probabilidade;
+    private final double[] alturas = new double[5]; // Valores dos marcadores
+    private final double[] posicoes = new double[5]; // Posições atuais dos marcadores (a partir de 1)
+    private final double[] desejadas = new double[5]; // Posições desejadas
+    private final double[] incrementos = new double[5]; // Incremento das posições desejadas por valor
+    private long quantidade;
+
+    // Construtores
+    public EstimadorQuantilP2(double probabilidade) {
+        if (!(probabilidade > 0 && probabilidade < 1)) {
+            throw new IllegalArgumentException("A probabilidade deve estar entre 0 e 1");
+        }
+        this.probabilidade = probabilidade;
+        this.incrementos[1] = probabilidade / 2;
+        this.incrementos[2] = probabilidade;
+        this.incrementos[3] = (1 + probabilidade) / 2;
+        this.incrementos[4] = 1;
+    }
+
+    // Métodos
+    /**
+     * Acrescenta um valor à estimativa
+     * @param valor Valor observado
+     */
+    public void adicionar(double valor) {
+        if (this.quantidade < 5) {
+            this.alturas[(int) this.quantidade++] = valor;
+            if (this.quantidade == 5) {
+                Arrays.sort(this.alturas);
+                for (int i = 0; i < 5; i++) {
+                    this.posicoes[i] = i + 1;
+                }
+                double p = this.probabilidade;
+                this.desejadas[0] = 1;
+                this.desejadas[1] = 1 + 2 * p;
+                this.desejadas[2] = 1 + 4 * p;
+                this.desejadas[3] = 3 + 2 * p;
+                this.desejadas[4] = 5;
+            }
+            return;
+        }
+        this.quantidade++;
+
+        // Célula do novo valor, estendendo os extremos se necessário
+        int k;
+        if (valor < this.alturas[0]) {
+            this.alturas[0] = valor;
+            k = 0;
+        } else if (valor >= this.alturas[4]) {
+            this.alturas[4] = valor;
+            k = 3;
+        } else {
+            k = 0;
+            while (valor >= this.alturas[k + 1]) {
+                k++;
+            }
+        }
+        for (int i = k + 1; i < 5; i++) {
+            this.posicoes[i]++;
+        }
+        for (int i = 0; i < 5; i++) {
+            this.desejadas[i] += this.incrementos[i];
+        }
+
+        // Ajusta os marcadores intermediários que se afastaram da posição desejada
+        for (int i = 1; i <= 3; i++) {
+            double d = this.desejadas[i] - this.posicoes[i];
+            if ((d >= 1 && this.posicoes[i + 1] - this.posicoes[i] > 1)
+                    || (d <= -1 && this.posicoes[i - 1] - this.posicoes[i] < -1)) {
+                int sinal = d > 0 ? 1 : -1;
+                double altura = parabolica(i, sinal);
+                if (this.alturas[i - 1] < altura && altura < this.alturas[i + 1]) {
+                    this.alturas[i] = altura;
+                } else {
+                    this.alturas[i] += sinal * (this.alturas[i + sinal] - this.alturas[i])
+                            / (this.posicoes[i + sinal] - this.posicoes[i]);
+                }
+                this.posicoes[i] += sinal;
+            }
+        }
+    }
+
+    private double parabolica(int i, int sinal) {
+        double[] q = this.alturas;
+        double[] n = this.posicoes;
+        return q[i] + sinal / (n[i + 1] - n[i - 1])
+                * ((n[i] - n[i - 1] + sinal) * (q[i + 1] - q[i]) / (n[i + 1] - n[i])
+                        + (n[i + 1] - n[i] - sinal) * (q[i] - q[i - 1]) / (n[i] - n[i - 1]));
+    }
+
+    /**
+     * @return Estimativa atual do quantil (NaN se nenhum valor foi adicionado)
+     */
+    public double getQuantil() {
+        if (this.quantidade == 0) {
+            return Double.NaN;
+        }
+        if (this.quantidade < 5) {
+            // Poucos valores: quantil exato pela posição mais próxima
+            double[] valores = Arrays.copyOf(this.alturas, (int) this.quantidade);
+            Arrays.sort(valores);
+            int indice = (int) Math.ceil(this.probabilidade * valores.length) - 1;
+            return valores[Math.max(0, indice)];
+        }
+        return this.alturas[2];
+    }
+
+    // Getters e Setters
+    public double getProbabilidade() {
+        return this.probabilidade;
+    }
+
+    public long getQuantidade() {
+        return this.quantidade;
+    }
+}
@@ -0,0 +1,241 @@
+package br.com.tiopatinhasexchange.service;
+
+/**
+ * Expressão de condição já compilada pelo {@link CompiladorCondicoes}, por exemplo
+ * {@code preco(BTC) < 300000 AND rsi(BTC,14) < 30 OR variacao(ETH,4h) > 5}.
+ * A expressão é uma árvore de operações primitivas; subexpressões iguais são o mesmo
+ * nó em todas as expressões do mesmo compilador e têm o valor memorizado por tick
+ * no {@link ContextoAvaliacao}.
+ */
+public final class ExpressaoCondicao {
+
+    // Atributos
+    private final String texto;
+    private final NoLogico raiz;
+
+    // Construtores
+    ExpressaoCondicao(String texto, NoLogico raiz) {
+        this.texto = texto;
+        this.raiz = raiz;
+    }
+
+    // Métodos
+    /**
+     * Avalia a expressão no tick atual do contexto
+     * @param contexto Contexto de avaliação
+     * @return true se a condição é atendida
+     */
+    public boolean avaliar(ContextoAvaliacao contexto) {
+        return this.raiz.avaliar(contexto);
+    }
+
+    public String getTexto() {
+        return texto;
+    }
+
+    @Override
+    public String toString() {
+        return texto;
+    }
+
+    /**
+     * Nó que produz um valor numérico (preço, indicador ou constante)
+     */
+    abstract static class NoValor {
+        final int posicao; // Posição de memorização no contexto (-1 = não memoriza)
+
+        NoValor(int posicao) {
+            this.posicao = posicao;
+        }
+
+        final double valor(ContextoAvaliacao contexto) {
+            if (this.posicao < 0) {
+                return calcular(contexto);
+            }
+            if (contexto.calculado(this.posicao)) {
+                return contexto.valor(this.posicao);
+            }
+            double valor = calcular(contexto);
+            contexto.memorizar(this.posicao, valor);
+            return valor;
+        }
+
+        abstract double calcular(ContextoAvaliacao contexto);
+    }
+
+    static final class Constante extends NoValor {
+        private final double valor;
+
+        Constante(double valor) {
+            super(-1);
+            this.valor = valor;
+        }
+
+        @Override
+        double calcular(ContextoAvaliacao contexto) {
+            return this.valor;
+        }
+    }
+
+    static final class Preco extends NoValor {
+        private final int idAtivo;
+
+        Preco(int posicao, int idAtivo) {
+            super(posicao);
+            this.idAtivo = idAtivo;
+        }
+
+        @Override
+        double calcular(ContextoAvaliacao contexto) {
+            double preco = contexto.getMercado().obterPrecoAtual(this.idAtivo);
+            return preco < 0 ? Double.NaN : preco;
+        }
+    }
+
+    static final class Variacao extends NoValor {
+        private final int idAtivo;
+        private final int periodoHoras;
+
+        Variacao(int posicao, int idAtivo, int periodoHoras) {
+            super(posicao);
+            this.idAtivo = idAtivo;
+            this.periodoHoras = periodoHoras;
+        }
+
+        @Override
+        double calcular(ContextoAvaliacao contexto) {
+            return contexto.getMercado().calcularVariacao(this.idAtivo, this.periodoHoras);
+        }
+    }
+
+    static final class Rsi extends NoValor {
+        private final int idAtivo;
+        private final int periodos;
+
+        Rsi(int posicao, int idAtivo, int periodos) {
+            super(posicao);
+            this.idAtivo = idAtivo;
+            this.periodos = periodos;
+        }
+
+        @Override
+        double calcular(ContextoAvaliacao contexto) {
+            return contexto.getMercado().calcularRsi(this.idAtivo, this.periodos);
+        }
+    }
+
+    /**
+     * Nó que produz um valor lógico. O resultado é memorizado como 0 ou 1.
+     */
+    abstract static class NoLogico extends NoValor {
+        NoLogico(int posicao) {
+            super(posicao);
+        }
+
+        final boolean avaliar(ContextoAvaliacao contexto) {
+            return valor(contexto) != 0.0;
+        }
+
+        @Override
+        final double calcular(ContextoAvaliacao contexto) {
+            return testar(contexto) ? 1.0 : 0.0;
+        }
+
+        abstract boolean testar(ContextoAvaliacao contexto);
+    }
+
+    /**
+     * Comparação entre dois valores
+     */
+    static final class Comparacao extends NoLogico {
+        static final int MENOR = 0;
+        static final int MENOR_IGUAL = 1;
+        static final int MAIOR = 2;
+        static final int MAIOR_IGUAL = 3;
+        static final int IGUAL = 4;
+        static final int DIFERENTE = 5;
+
+        private final NoValor esquerda;
+        private final NoValor direita;
+        private final int operador;
+
+        Comparacao(int posicao, NoValor esquerda, int operador, NoValor direita) {
+            super(posicao);
+            this.esquerda = esquerda;
+            this.operador = operador;
+            this.direita = direita;
+        }
+
+        @Override
+        boolean testar(ContextoAvaliacao contexto) {
+            double a = this.esquerda.valor(contexto);
+            double b = this.direita.valor(contexto);
+            switch (this.operador) {
+                case MENOR:
+                    return a < b;
+                case MENOR_IGUAL:
+                    return a <= b;
+                case MAIOR:
+                    return a > b;
+                case MAIOR_IGUAL:
+                    return a >= b;
+                case IGUAL:
+                    return a == b;
+                default:
+                    return a != b;
+            }
+        }
+    }
+
+    static final class E extends NoLogico {
+        private final NoLogico[] termos;
+
+        E(int posicao, NoLogico[] termos) {
+            super(posicao);
+            this.termos = termos;
+        }
+
+        @Override
+        boolean testar(ContextoAvaliacao contexto) {
+            for (NoLogico termo : this.termos) {
+                if (!termo.avaliar(contexto)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    static final class Ou extends NoLogico {
+        private final NoLogico[] termos;
+
+        Ou(int posicao, NoLogico[] termos) {
+            super(posicao);
+            this.termos = termos;
+        }
+
+        @Override
+        boolean testar(ContextoAvaliacao contexto) {
+            for (NoLogico termo : this.termos) {
+                if (termo.avaliar(contexto)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    static final class Nao extends NoLogico {
+        private final NoLogico termo;
+
+        Nao(int posicao, NoLogico termo) {
+            super(posicao);
+            this.termo = termo;
+        }
+
+        @Override
+        boolean testar(ContextoAvaliacao contexto) {
+            return !this.termo.avaliar(contexto);
+        }
+    }
+}
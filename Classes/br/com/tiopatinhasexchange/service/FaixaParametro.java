@@ -0,0 +1,78 @@
+package br.com.tiopatinhasexchange.service;
+import java.util.SplittableRandom;
+
+/**
+ * Faixa de valores de um parâmetro de estratégia, usada nas buscas de parâmetros.
+ * Na busca em grade, a faixa é dividida em {@code passos} valores igualmente espaçados
+ * (incluindo os extremos); na busca aleatória, os valores são sorteados entre os extremos.
+ */
+public class FaixaParametro {
+
+    // Atributos
+    private final String nome;
+    private final double minimo;
+    private final double maximo;
+    private final int passos;
+
+    // Construtores
+    public FaixaParametro(String nome, double minimo, double maximo, int passos) {
+        if (minimo > maximo || passos <= 0 || (passos == 1 && minimo != maximo)) {
+            throw new IllegalArgumentException("Faixa inválida para o parâmetro " + nome);
+        }
+        this.nome = nome;
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.passos = passos;
+    }
+
+    /**
+     * Cria uma faixa de um único valor
+     * @param nome Nome do parâmetro
+     * @param valor Valor fixo
+     */
+    public FaixaParametro(String nome, double valor) {
+        this(nome, valor, valor, 1);
+    }
+
+    // Métodos
+    /**
+     * Obtém o i-ésimo valor da grade
+     * @param i Índice entre 0 e passos - 1
+     * @return Valor do parâmetro
+     */
+    public double valor(int i) {
+        if (this.passos == 1) {
+            return this.minimo;
+        }
+        return this.minimo + (this.maximo - this.minimo) * i / (this.passos - 1);
+    }
+
+    /**
+     * Sorteia um valor entre os extremos da faixa
+     * @param aleatorio Gerador de números aleatórios
+     * @return Valor do parâmetro
+     */
+    public double sortear(SplittableRandom aleatorio) {
+        if (this.minimo == this.maximo) {
+            return this.minimo;
+        }
+        return this.minimo + (this.maximo - this.minimo) * aleatorio.nextDouble();
+    }
+
+    // Getters e Setters
+    public String getNome() {
+        return this.nome;
+    }
+
+    public double getMinimo() {
+        return this.minimo;
+    }
+
+    public double getMaximo() {
+        return this.maximo;
+    }
+
+    public int getPassos() {
+        return this.passos;
+    }
+}
@@ -0,0 +1,240 @@
+package br.com.tiopatinhasexchange.service;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serviço responsável por gerar IDs únicos e crescentes para cada tipo de entidade.
+ * Cada thread reserva um bloco de IDs de um contador atômico compartilhado e passa a
+ * consumir esse bloco localmente, sem nenhuma disputa entre threads. O contador só é
+ * acessado novamente quando o bloco se esgota.
+ *
+ * Threads de vida curta (ex.: uma thread virtual por tarefa) devem chamar
+ * {@link #devolverBlocos()} ao terminar: o restante dos seus blocos volta para uma
+ * reserva compartilhada e é entregue às próximas threads antes de um bloco novo do
+ * contador. Uma thread que termina sem devolver perde apenas o restante do seu bloco.
+ *
+ * Quando configurado com um arquivo, o limite dos IDs reservados (high-water mark) de
+ * cada tipo é gravado antes de qualquer ID abaixo dele ser entregue, garantindo que
+ * nenhum ID se repita após reiniciar a aplicação. O limite avança vários blocos de uma
+ * vez, então o arquivo só é gravado quando esse trecho se esgota. IDs não consumidos
+ * antes de uma parada são descartados.
+ */
+public class GeradorIds {
+
+    // Atributos
+    public static final int TAMANHO_BLOCO_PADRAO = 1024;
+    private static final int BLOCOS_POR_GRAVACAO = 16; // Blocos cobertos por cada avanço do limite gravado
+
+    private static volatile GeradorIds padrao = new GeradorIds();
+
+    private final AtomicInteger[] contadores; // Início do próximo bloco de cada tipo
+    private volatile int[] limites; // High-water mark de cada tipo: IDs abaixo dele podem ser entregues
+    private final int tamanhoBloco;
+    private final Path arquivo; // Arquivo de persistência (null = somente em memória)
+    private final ThreadLocal<int[]> blocos; // Por tipo: [proximo, limite) do bloco da thread
+    private final ConcurrentLinkedQueue<int[]>[] devolvidos; // Por tipo: trechos [inicio, fim) devolvidos
+
+    // Construtores
+    public GeradorIds() {
+        this(null, TAMANHO_BLOCO_PADRAO);
+    }
+
+    public GeradorIds(Path arquivo) {
+        this(arquivo, TAMANHO_BLOCO_PADRAO);
+    }
+
+    public GeradorIds(Path arquivo, int tamanhoBloco) {
+        if (tamanhoBloco <= 0) {
+            throw new IllegalArgumentException("O tamanho do bloco deve ser positivo");
+        }
+
+        int quantidadeTipos = TipoEntidade.values().length;
+        this.arquivo = arquivo;
+        this.tamanhoBloco = tamanhoBloco;
+        this.contadores = new AtomicInteger[quantidadeTipos];
+        this.limites = carregar(arquivo, quantidadeTipos);
+        for (int i = 0; i < quantidadeTipos; i++) {
+            this.contadores[i] = new AtomicInteger(this.limites[i]);
+        }
+        this.blocos = ThreadLocal.withInitial(() -> new int[quantidadeTipos * 2]);
+        @SuppressWarnings("unchecked")
+        ConcurrentLinkedQueue<int[]>[] filas = new ConcurrentLinkedQueue[quantidadeTipos];
+        for (int i = 0; i < quantidadeTipos; i++) {
+            filas[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.devolvidos = filas;
+    }
+
+    // Métodos
+    /**
+     * Obtém o gerador usado pelas entidades do sistema
+     * @return Gerador padrão
+     */
+    public static GeradorIds getPadrao() {
+        return padrao;
+    }
+
+    /**
+     * Define o gerador usado pelas entidades do sistema (ex.: um gerador persistente)
+     * @param gerador Novo gerador padrão
+     */
+    public static void setPadrao(GeradorIds gerador) {
+        if (gerador == null) {
+            throw new IllegalArgumentException("O gerador não pode ser nulo");
+        }
+        padrao = gerador;
+    }
+
+    /**
+     * Gera o próximo ID de um tipo de entidade
+     * @param tipo Tipo da entidade
+     * @return ID único, maior que zero
+     */
+    public int proximoId(TipoEntidade tipo) {
+        int[] bloco = this.blocos.get();
+        int indice = tipo.ordinal() * 2;
+
+        if (bloco[indice] >= bloco[indice + 1]) {
+            reservarBloco(tipo, bloco, indice);
+        }
+
+        return bloco[indice]++;
+    }
+
+    /**
+     * Entrega um novo bloco à thread atual: primeiro um trecho devolvido por outra thread,
+     * senão um bloco novo do contador
+     */
+    private void reservarBloco(TipoEntidade tipo, int[] bloco, int indice) {
+        int ordinal = tipo.ordinal();
+        int[] devolvido = this.devolvidos[ordinal].poll();
+        if (devolvido != null) {
+            bloco[indice] = devolvido[0];
+            bloco[indice + 1] = devolvido[1];
+            return;
+        }
+
+        int inicio = this.contadores[ordinal].getAndAdd(this.tamanhoBloco);
+        if (inicio < 1 || inicio > Integer.MAX_VALUE - this.tamanhoBloco) {
+            throw new IllegalStateException("IDs esgotados para o tipo " + tipo);
+        }
+        int fim = inicio + this.tamanhoBloco;
+        if (fim > this.limites[ordinal]) {
+            reservarAte(tipo, fim);
+        }
+
+        bloco[indice] = inicio;
+        bloco[indice + 1] = fim;
+    }
+
+    /**
+     * Avança o limite do tipo até cobrir os IDs abaixo de {@code fim}, com folga de
+     * {@link #BLOCOS_POR_GRAVACAO} blocos. Sem arquivo, o limite não existe na prática:
+     * cobre todos os IDs restantes.
+     */
+    private synchronized void reservarAte(TipoEntidade tipo, int fim) {
+        int ordinal = tipo.ordinal();
+        if (fim <= this.limites[ordinal]) {
+            return; // Outra thread já avançou o limite
+        }
+
+        int[] novos = this.limites.clone();
+        if (this.arquivo == null) {
+            novos[ordinal] = Integer.MAX_VALUE;
+        } else {
+            long limite = (long) fim + (long) this.tamanhoBloco * (BLOCOS_POR_GRAVACAO - 1);
+            novos[ordinal] = (int) Math.min(Integer.MAX_VALUE, limite);
+            // Os IDs do bloco só são usados depois que o limite estiver gravado
+            persistir(novos);
+        }
+        this.limites = novos;
+    }
+
+    /**
+     * Devolve os IDs ainda não usados dos blocos da thread atual, para que sejam entregues
+     * a outras threads. Deve ser chamado por threads de vida curta antes de terminar; a
+     * thread pode continuar gerando IDs depois, a partir de um novo bloco.
+     */
+    public void devolverBlocos() {
+        int[] bloco = this.blocos.get();
+        for (int ordinal = 0; ordinal < this.devolvidos.length; ordinal++) {
+            int indice = ordinal * 2;
+            if (bloco[indice] < bloco[indice + 1]) {
+                this.devolvidos[ordinal].add(new int[] { bloco[indice], bloco[indice + 1] });
+            }
+        }
+        this.blocos.remove();
+    }
+
+    /**
+     * Grava o high-water mark de todos os tipos
+     */
+    private void persistir(int[] limites) {
+        Properties propriedades = new Properties();
+        for (TipoEntidade tipo : TipoEntidade.values()) {
+            propriedades.setProperty(tipo.name(), Integer.toString(limites[tipo.ordinal()]));
+        }
+
+        try {
+            Path diretorio = this.arquivo.toAbsolutePath().getParent();
+            if (diretorio != null) {
+                Files.createDirectories(diretorio);
+            }
+
+            // Grava em arquivo temporário e substitui de forma atômica
+            Path temporario = this.arquivo.resolveSibling(this.arquivo.getFileName() + ".tmp");
+            try (OutputStream saida = Files.newOutputStream(temporario)) {
+                propriedades.store(saida, "High-water mark dos IDs por entidade");
+            }
+            Files.move(temporario, this.arquivo,
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível gravar os IDs em " + this.arquivo, e);
+        }
+    }
+
+    /**
+     * Lê os high-water marks gravados; tipos sem registro começam em 1
+     */
+    private static int[] carregar(Path arquivo, int quantidadeTipos) {
+        int[] valores = new int[quantidadeTipos];
+        Arrays.fill(valores, 1);
+
+        if (arquivo == null || !Files.exists(arquivo)) {
+            return valores;
+        }
+
+        Properties propriedades = new Properties();
+        try (InputStream entrada = Files.newInputStream(arquivo)) {
+            propriedades.load(entrada);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível ler os IDs de " + arquivo, e);
+        }
+
+        for (TipoEntidade tipo : TipoEntidade.values()) {
+            String valor = propriedades.getProperty(tipo.name());
+            if (valor != null) {
+                valores[tipo.ordinal()] = Math.max(1, Integer.parseInt(valor.trim()));
+            }
+        }
+        return valores;
+    }
+
+    // Getters
+    public int getTamanhoBloco() {
+        return tamanhoBloco;
+    }
+
+    public Path getArquivo() {
+        return arquivo;
+    }
+}
@@ -0,0 +1,305 @@
+package br.com.tiopatinhasexchange.service;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Gerador de mercados simulados com vários ativos correlacionados.
+ *
+ * Cada ativo tem seu {@link ModeloPreco} (browniano, com saltos, GARCH...). A matriz de
+ * correlação é fatorada uma única vez (Cholesky) no construtor; a cada passo, choques
+ * normais independentes são multiplicados pelo fator e entregues aos modelos.
+ *
+ * A série é gerada em blocos de passos, guardados em vetores primitivos por ativo
+ * (os passos de um ativo ficam contíguos). Blocos consecutivos são gerados em paralelo:
+ * primeiro os choques correlacionados de cada bloco, depois cada ativo percorre os blocos
+ * em ordem aplicando o modelo e acumulando o preço. Os blocos são entregues em ordem a um
+ * {@link ConsumidorBloco}, então cenários longos (por exemplo, anos em minutos) não
+ * precisam caber em memória. O resultado é o mesmo para a mesma semente e o mesmo tamanho
+ * de bloco, independentemente do número de threads.
+ */
+public class GeradorMercadoCorrelacionado {
+
+    /** Um minuto, em anos */
+    public static final double DT_MINUTO = 1.0 / (365.0 * 24 * 60);
+    /** Um dia, em anos */
+    public static final double DT_DIA = 1.0 / 365.0;
+
+    private static final int PASSOS_POR_BLOCO = 4096;
+    private static final long SEMENTE_MODELOS = 0x2545F4914F6CDD1DL;
+
+    // Atributos
+    private final ModeloPreco[] modelos;
+    private final double[] precosIniciais;
+    private final double[] fatorCholesky; // Triangular inferior compactado: a linha i começa em i * (i + 1) / 2
+    private final ForkJoinPool pool;
+
+    // Construtores
+    public GeradorMercadoCorrelacionado(ModeloPreco[] modelos, double[] precosIniciais, double[][] correlacao) {
+        this(modelos, precosIniciais, correlacao, ForkJoinPool.commonPool());
+    }
+
+    public GeradorMercadoCorrelacionado(ModeloPreco[] modelos, double[] precosIniciais, double[][] correlacao,
+            ForkJoinPool pool) {
+        if (modelos == null || precosIniciais == null || modelos.length == 0
+                || modelos.length != precosIniciais.length) {
+            throw new IllegalArgumentException("Informe um modelo e um preço inicial por ativo");
+        }
+        if (pool == null) {
+            throw new IllegalArgumentException("O pool não pode ser nulo");
+        }
+        for (int i = 0; i < modelos.length; i++) {
+            if (modelos[i] == null || precosIniciais[i] <= 0) {
+                throw new IllegalArgumentException("Modelo ou preço inicial inválido para o ativo " + i);
+            }
+        }
+        this.modelos = modelos.clone();
+        this.precosIniciais = precosIniciais.clone();
+        this.fatorCholesky = fatorarCholesky(correlacao, modelos.length);
+        this.pool = pool;
+    }
+
+    // Métodos
+    /**
+     * Gera a série completa em memória
+     * @param passos Número de passos simulados
+     * @param dt Duração de um passo, em anos (por exemplo, {@link #DT_DIA})
+     * @param semente Semente da simulação
+     * @return Preços por ativo: [ativo][passo], com o preço inicial na posição 0
+     */
+    public double[][] gerar(int passos, double dt, long semente) {
+        if (passos <= 0) {
+            throw new IllegalArgumentException("O número de passos deve ser positivo");
+        }
+        double[][] precos = new double[this.modelos.length][passos + 1];
+        for (int a = 0; a < precos.length; a++) {
+            precos[a][0] = this.precosIniciais[a];
+        }
+        gerar(passos, dt, Math.min(passos, PASSOS_POR_BLOCO), semente, bloco -> {
+            for (int a = 0; a < precos.length; a++) {
+                bloco.copiarPrecos(a, precos[a], (int) bloco.getPassoInicial() + 1);
+            }
+        });
+        return precos;
+    }
+
+    /**
+     * Gera a série em blocos, entregues em ordem ao consumidor
+     * @param passos Número de passos simulados
+     * @param dt Duração de um passo, em anos (por exemplo, {@link #DT_MINUTO})
+     * @param passosPorBloco Passos por bloco (o último pode ser menor)
+     * @param semente Semente da simulação
+     * @param consumidor Recebe cada bloco; o bloco é reutilizado após o retorno
+     */
+    public void gerar(long passos, double dt, int passosPorBloco, long semente, ConsumidorBloco consumidor) {
+        if (passos <= 0 || dt <= 0 || passosPorBloco <= 0 || consumidor == null) {
+            throw new IllegalArgumentException("Parâmetros de geração inválidos");
+        }
+        int ativos = this.modelos.length;
+        ModeloPreco[] estados = new ModeloPreco[ativos];
+        double[] ultimosPrecos = this.precosIniciais.clone();
+        for (int a = 0; a < ativos; a++) {
+            estados[a] = this.modelos[a].copiar();
+        }
+
+        long totalBlocos = (passos + passosPorBloco - 1) / passosPorBloco;
+        int blocosPorRodada = (int) Math.min(totalBlocos, Math.max(1, this.pool.getParallelism()));
+        BlocoPrecos[] blocos = new BlocoPrecos[blocosPorRodada];
+        for (int g = 0; g < blocosPorRodada; g++) {
+            blocos[g] = new BlocoPrecos(ativos, passosPorBloco);
+        }
+
+        for (long primeiro = 0; primeiro < totalBlocos; primeiro += blocosPorRodada) {
+            int rodada = (int) Math.min(blocosPorRodada, totalBlocos - primeiro);
+            for (int g = 0; g < rodada; g++) {
+                long indice = primeiro + g;
+                long passoInicial = indice * passosPorBloco;
+                blocos[g].preparar(indice, passoInicial, (int) Math.min(passosPorBloco, passos - passoInicial));
+            }
+
+            // Choques correlacionados: blocos independentes entre si
+            executarEmParalelo(rodada, g -> gerarChoques(blocos[g], semente));
+
+            // Modelos: cada ativo percorre os blocos da rodada em ordem, mantendo seu estado
+            executarEmParalelo(ativos, a -> {
+                for (int g = 0; g < rodada; g++) {
+                    BlocoPrecos bloco = blocos[g];
+                    SplittableRandom aleatorio = new SplittableRandom(MotorMonteCarlo.sementeTrajetoria(
+                            semente ^ SEMENTE_MODELOS, bloco.indice * ativos + a));
+                    int inicio = a * bloco.largura;
+                    estados[a].gerarRetornos(bloco.precos, inicio, bloco.passos, dt, aleatorio);
+                    double preco = ultimosPrecos[a];
+                    for (int t = inicio; t < inicio + bloco.passos; t++) {
+                        preco *= Math.exp(bloco.precos[t]);
+                        bloco.precos[t] = preco;
+                    }
+                    ultimosPrecos[a] = preco;
+                }
+            });
+
+            for (int g = 0; g < rodada; g++) {
+                consumidor.consumir(blocos[g]);
+            }
+        }
+    }
+
+    private void gerarChoques(BlocoPrecos bloco, long semente) {
+        SplittableRandom aleatorio = new SplittableRandom(MotorMonteCarlo.sementeTrajetoria(semente, bloco.indice));
+        int ativos = this.modelos.length;
+        double[] fator = this.fatorCholesky;
+        double[] independentes = new double[ativos];
+        double[] precos = bloco.precos;
+        int largura = bloco.largura;
+
+        for (int t = 0; t < bloco.passos; t++) {
+            for (int j = 0; j < ativos; j++) {
+                independentes[j] = aleatorio.nextGaussian();
+            }
+            int linha = 0;
+            for (int i = 0; i < ativos; i++) {
+                double choque = 0;
+                for (int j = 0; j <= i; j++) {
+                    choque += fator[linha + j] * independentes[j];
+                }
+                precos[i * largura + t] = choque;
+                linha += i + 1;
+            }
+        }
+    }
+
+    private void executarEmParalelo(int tarefas, IntConsumer acao) {
+        if (tarefas == 1 || this.pool.getParallelism() == 1) {
+            for (int i = 0; i < tarefas; i++) {
+                acao.accept(i);
+            }
+            return;
+        }
+        this.pool.submit(() -> IntStream.range(0, tarefas).parallel().forEach(acao)).join();
+    }
+
+    /**
+     * Fatora a matriz de correlação (Cholesky)
+     * @param correlacao Matriz simétrica, com diagonal 1 e positiva definida
+     * @param ativos Dimensão esperada
+     * @return Fator triangular inferior compactado por linhas
+     */
+    static double[] fatorarCholesky(double[][] correlacao, int ativos) {
+        if (correlacao == null || correlacao.length != ativos) {
+            throw new IllegalArgumentException("A matriz de correlação deve ser " + ativos + "x" + ativos);
+        }
+        for (int i = 0; i < ativos; i++) {
+            if (correlacao[i] == null || correlacao[i].length != ativos || correlacao[i][i] != 1.0) {
+                throw new IllegalArgumentException("A matriz de correlação deve ser quadrada e ter diagonal 1");
+            }
+            for (int j = 0; j < i; j++) {
+                double rho = correlacao[i][j];
+                if (Math.abs(rho - correlacao[j][i]) > 1e-12 || Math.abs(rho) > 1) {
+                    throw new IllegalArgumentException("Correlação inválida entre os ativos " + j + " e " + i);
+                }
+            }
+        }
+
+        double[] fator = new double[ativos * (ativos + 1) / 2];
+        for (int i = 0; i < ativos; i++) {
+            int linhaI = i * (i + 1) / 2;
+            for (int j = 0; j <= i; j++) {
+                int linhaJ = j * (j + 1) / 2;
+                double soma = correlacao[i][j];
+                for (int k = 0; k < j; k++) {
+                    soma -= fator[linhaI + k] * fator[linhaJ + k];
+                }
+                if (i == j) {
+                    if (soma <= 1e-12) {
+                        throw new IllegalArgumentException("A matriz de correlação não é positiva definida");
+                    }
+                    fator[linhaI + i] = Math.sqrt(soma);
+                } else {
+                    fator[linhaI + j] = soma / fator[linhaJ + j];
+                }
+            }
+        }
+        return fator;
+    }
+
+    // Getters e Setters
+    public int getQuantidadeAtivos() {
+        return this.modelos.length;
+    }
+
+    public double getPrecoInicial(int ativo) {
+        return this.precosIniciais[ativo];
+    }
+
+    public ForkJoinPool getPool() {
+        return this.pool;
+    }
+
+    /**
+     * Recebe os blocos gerados, em ordem cronológica
+     */
+    @FunctionalInterface
+    public interface ConsumidorBloco {
+        void consumir(BlocoPrecos bloco);
+    }
+
+    /**
+     * Bloco de passos consecutivos de todos os ativos. Os preços de um ativo ficam
+     * contíguos no vetor, a partir de {@code ativo * largura}.
+     */
+    public static class BlocoPrecos {
+        private final double[] precos;
+        private final int largura;
+        private long indice;
+        private long passoInicial;
+        private int passos;
+
+        BlocoPrecos(int ativos, int largura) {
+            this.precos = new double[Math.multiplyExact(ativos, largura)];
+            this.largura = largura;
+        }
+
+        void preparar(long indice, long passoInicial, int passos) {
+            this.indice = indice;
+            this.passoInicial = passoInicial;
+            this.passos = passos;
+        }
+
+        /**
+         * Copia os preços de um ativo neste bloco
+         * @param ativo Índice do ativo
+         * @param destino Vetor de destino
+         * @param posicao Posição do primeiro preço no destino
+         */
+        public void copiarPrecos(int ativo, double[] destino, int posicao) {
+            System.arraycopy(this.precos, ativo * this.largura, destino, posicao, this.passos);
+        }
+
+        /**
+         * @param ativo Índice do ativo
+         * @param passo Passo dentro do bloco (0 a passos - 1)
+         * @return Preço do ativo ao fim do passo
+         */
+        public double getPreco(int ativo, int passo) {
+            if (passo < 0 || passo >= this.passos) {
+                throw new IndexOutOfBoundsException("Passo " + passo + " fora do bloco (" + this.passos + ")");
+            }
+            return this.precos[ativo * this.largura + passo];
+        }
+
+        /**
+         * @return Passo da simulação correspondente ao primeiro passo do bloco (a partir de 0)
+         */
+        public long getPassoInicial() {
+            return this.passoInicial;
+        }
+
+        public int getPassos() {
+            return this.passos;
+        }
+
+        public int getQuantidadeAtivos() {
+            return this.precos.length / this.largura;
+        }
+    }
+}
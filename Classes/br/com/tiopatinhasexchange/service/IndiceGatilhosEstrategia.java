@@ -0,0 +1,299 @@
+package br.com.tiopatinhasexchange.service;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import br.com.tiopatinhasexchange.model.CondicaoEstrategia;
+import br.com.tiopatinhasexchange.model.EstrategiaAutomatica;
+
+/**
+ * Índice de gatilhos das estratégias de preço (PRECO_ACIMA e PRECO_ABAIXO), por ativo.
+ * Os valores de referência ficam em vetores primitivos ordenados, então uma variação de
+ * preço de p0 para p1 encontra, por busca binária, exatamente as estratégias cujo limiar
+ * foi cruzado, em O(log n + k), sem avaliar as demais.
+ *
+ * Estratégias de variação não são indexadas e continuam sendo avaliadas por
+ * {@link EstrategiaAutomatica#verificarCondicao}. Estratégias com expressão composta
+ * também não entram nos limiares, pois a expressão substitui a condição simples: ficam
+ * numa lista de avaliação completa, percorrida a cada atualização quando há um
+ * {@link ContextoAvaliacao}. Se o valor de referência ou a expressão de uma estratégia
+ * mudar, ela deve ser removida e registrada novamente.
+ */
+public class IndiceGatilhosEstrategia {
+
+    // Atributos
+    private final ConcurrentHashMap<Integer, IndiceAtivo> indices; // Índice por ID do ativo
+    private final List<EstrategiaAutomatica> compostas; // Avaliação completa a cada atualização
+
+    // Construtores
+    public IndiceGatilhosEstrategia() {
+        this.indices = new ConcurrentHashMap<>();
+        this.compostas = new CopyOnWriteArrayList<>();
+    }
+
+    // Métodos
+    /**
+     * Registra uma estratégia no índice do seu ativo, ou na lista de avaliação completa
+     * se ela tiver expressão composta
+     * @param estrategia Estratégia a ser registrada
+     * @return true se a estratégia foi registrada; false se a condição simples não é de preço
+     */
+    public boolean registrar(EstrategiaAutomatica estrategia) {
+        if (estrategia.getExpressao() != null) {
+            this.compostas.add(estrategia);
+            return true;
+        }
+        Lado lado = lado(estrategia);
+        if (lado == null) {
+            return false;
+        }
+        IndiceAtivo indice = this.indices.computeIfAbsent(estrategia.getIdCriptoativo(), id -> new IndiceAtivo());
+        indice.adicionar(lado, estrategia);
+        return true;
+    }
+
+    /**
+     * Remove uma estratégia do índice
+     * @param estrategia Estratégia a ser removida
+     * @return true se a estratégia estava registrada
+     */
+    public boolean remover(EstrategiaAutomatica estrategia) {
+        if (this.compostas.remove(estrategia)) {
+            return true;
+        }
+        Lado lado = lado(estrategia);
+        IndiceAtivo indice = this.indices.get(estrategia.getIdCriptoativo());
+        if (lado == null || indice == null) {
+            return false;
+        }
+        return indice.remover(lado, estrategia);
+    }
+
+    /**
+     * Encontra as estratégias ativas cujo limiar foi cruzado por uma variação de preço.
+     * PRECO_ACIMA dispara quando p0 &lt; referência &lt;= p1; PRECO_ABAIXO quando
+     * p1 &lt;= referência &lt; p0. Sem preço anterior (p0 &lt; 0), retorna todas as
+     * estratégias cuja condição vale em p1.
+     * @param idAtivo ID do criptoativo
+     * @param precoAnterior Preço anterior (p0), ou negativo se desconhecido
+     * @param precoAtual Novo preço (p1)
+     * @param destino Lista que recebe as estratégias disparadas
+     * @return Quantidade de estratégias adicionadas ao destino
+     */
+    public int encontrarDisparadas(int idAtivo, double precoAnterior, double precoAtual,
+            List<EstrategiaAutomatica> destino) {
+        IndiceAtivo indice = this.indices.get(idAtivo);
+        if (indice == null || precoAtual < 0) {
+            return 0;
+        }
+
+        int encontradas = 0;
+        if (precoAnterior < 0) {
+            encontradas += indice.obter(Lado.ACIMA).coletar(Double.NEGATIVE_INFINITY, true, precoAtual, true, destino);
+            encontradas += indice.obter(Lado.ABAIXO).coletar(precoAtual, true, Double.POSITIVE_INFINITY, true, destino);
+        } else if (precoAtual > precoAnterior) {
+            encontradas += indice.obter(Lado.ACIMA).coletar(precoAnterior, false, precoAtual, true, destino);
+        } else if (precoAtual < precoAnterior) {
+            encontradas += indice.obter(Lado.ABAIXO).coletar(precoAtual, true, precoAnterior, false, destino);
+        }
+        return encontradas;
+    }
+
+    /**
+     * Processa uma atualização de preços de vários ativos, apenas nos limiares de preço
+     * (as estratégias compostas precisam de um contexto; ver a sobrecarga seguinte)
+     * @param precosAnteriores Preços antes da atualização
+     * @param precosNovos Preços atualizados
+     * @param destino Lista que recebe as estratégias disparadas
+     * @return Quantidade de estratégias adicionadas ao destino
+     */
+    public int processarAtualizacao(Map<Integer, Double> precosAnteriores, Map<Integer, Double> precosNovos,
+            List<EstrategiaAutomatica> destino) {
+        int encontradas = 0;
+        for (Map.Entry<Integer, Double> preco : precosNovos.entrySet()) {
+            double anterior = precosAnteriores.getOrDefault(preco.getKey(), -1.0);
+            encontradas += encontrarDisparadas(preco.getKey(), anterior, preco.getValue(), destino);
+        }
+        return encontradas;
+    }
+
+    /**
+     * Processa uma atualização de preços de vários ativos, incluindo a avaliação completa
+     * das estratégias compostas
+     * @param precosAnteriores Preços antes da atualização
+     * @param precosNovos Preços atualizados
+     * @param contexto Contexto do tick, já com o mercado atualizado
+     * @param destino Lista que recebe as estratégias disparadas
+     * @return Quantidade de estratégias adicionadas ao destino
+     */
+    public int processarAtualizacao(Map<Integer, Double> precosAnteriores, Map<Integer, Double> precosNovos,
+            ContextoAvaliacao contexto, List<EstrategiaAutomatica> destino) {
+        return processarAtualizacao(precosAnteriores, precosNovos, destino) + avaliarCompostas(contexto, destino);
+    }
+
+    /**
+     * Avalia a expressão de todas as estratégias compostas ativas no tick do contexto
+     * @param contexto Contexto do tick
+     * @param destino Lista que recebe as estratégias cuja expressão é verdadeira
+     * @return Quantidade de estratégias adicionadas ao destino
+     */
+    public int avaliarCompostas(ContextoAvaliacao contexto, List<EstrategiaAutomatica> destino) {
+        int encontradas = 0;
+        for (EstrategiaAutomatica estrategia : this.compostas) {
+            if (estrategia.verificarCondicao(contexto)) {
+                destino.add(estrategia);
+                encontradas++;
+            }
+        }
+        return encontradas;
+    }
+
+    /**
+     * Obtém as estratégias compostas registradas
+     * @return Lista somente leitura
+     */
+    public List<EstrategiaAutomatica> obterCompostas() {
+        return Collections.unmodifiableList(this.compostas);
+    }
+
+    /**
+     * Obtém a quantidade de estratégias indexadas para um ativo
+     * @param idAtivo ID do criptoativo
+     * @return Quantidade de estratégias
+     */
+    public int obterQuantidade(int idAtivo) {
+        IndiceAtivo indice = this.indices.get(idAtivo);
+        if (indice == null) {
+            return 0;
+        }
+        return indice.obter(Lado.ACIMA).referencias.length + indice.obter(Lado.ABAIXO).referencias.length;
+    }
+
+    private static Lado lado(EstrategiaAutomatica estrategia) {
+        if (estrategia.getCondicao() == CondicaoEstrategia.PRECO_ACIMA) {
+            return Lado.ACIMA;
+        }
+        if (estrategia.getCondicao() == CondicaoEstrategia.PRECO_ABAIXO) {
+            return Lado.ABAIXO;
+        }
+        return null;
+    }
+
+    private enum Lado {
+        ACIMA,
+        ABAIXO
+    }
+
+    /**
+     * Estratégias de um ativo. Alterações ficam pendentes e os vetores ordenados são
+     * reconstruídos na próxima consulta; as consultas leem vetores imutáveis.
+     */
+    private static final class IndiceAtivo {
+        private final List<List<EstrategiaAutomatica>> membros = new ArrayList<>();
+        private final Limiares[] limiares = new Limiares[Lado.values().length];
+        private final boolean[] alterado = new boolean[Lado.values().length];
+
+        IndiceAtivo() {
+            for (int i = 0; i < Lado.values().length; i++) {
+                this.membros.add(new ArrayList<>());
+                this.limiares[i] = Limiares.VAZIO;
+            }
+        }
+
+        synchronized void adicionar(Lado lado, EstrategiaAutomatica estrategia) {
+            this.membros.get(lado.ordinal()).add(estrategia);
+            this.alterado[lado.ordinal()] = true;
+        }
+
+        synchronized boolean remover(Lado lado, EstrategiaAutomatica estrategia) {
+            boolean removida = this.membros.get(lado.ordinal()).remove(estrategia);
+            this.alterado[lado.ordinal()] |= removida;
+            return removida;
+        }
+
+        synchronized Limiares obter(Lado lado) {
+            int i = lado.ordinal();
+            if (this.alterado[i]) {
+                this.limiares[i] = Limiares.construir(this.membros.get(i));
+                this.alterado[i] = false;
+            }
+            return this.limiares[i];
+        }
+    }
+
+    /**
+     * Valores de referência ordenados e as estratégias correspondentes, na mesma ordem
+     */
+    private static final class Limiares {
+        static final Limiares VAZIO = new Limiares(new double[0], new EstrategiaAutomatica[0]);
+
+        private final double[] referencias;
+        private final EstrategiaAutomatica[] estrategias;
+
+        private Limiares(double[] referencias, EstrategiaAutomatica[] estrategias) {
+            this.referencias = referencias;
+            this.estrategias = estrategias;
+        }
+
+        static Limiares construir(List<EstrategiaAutomatica> membros) {
+            EstrategiaAutomatica[] ordenadas = membros.toArray(new EstrategiaAutomatica[0]);
+            Arrays.sort(ordenadas, (a, b) -> Double.compare(a.getValorReferencia(), b.getValorReferencia()));
+
+            double[] referencias = new double[ordenadas.length];
+            for (int i = 0; i < ordenadas.length; i++) {
+                referencias[i] = ordenadas[i].getValorReferencia();
+            }
+            return new Limiares(referencias, ordenadas);
+        }
+
+        /**
+         * Coleta as estratégias ativas com referência no intervalo informado
+         */
+        int coletar(double minimo, boolean incluiMinimo, double maximo, boolean incluiMaximo,
+                List<EstrategiaAutomatica> destino) {
+            int inicio = incluiMinimo ? primeiroMaiorOuIgual(minimo) : primeiroMaior(minimo);
+            int fim = incluiMaximo ? primeiroMaior(maximo) : primeiroMaiorOuIgual(maximo);
+
+            int encontradas = 0;
+            for (int i = inicio; i < fim; i++) {
+                if (this.estrategias[i].isAtiva()) {
+                    destino.add(this.estrategias[i]);
+                    encontradas++;
+                }
+            }
+            return encontradas;
+        }
+
+        private int primeiroMaiorOuIgual(double valor) {
+            int baixo = 0;
+            int alto = this.referencias.length;
+            while (baixo < alto) {
+                int meio = (baixo + alto) >>> 1;
+                if (this.referencias[meio] < valor) {
+                    baixo = meio + 1;
+                } else {
+                    alto = meio;
+                }
+            }
+            return baixo;
+        }
+
+        private int primeiroMaior(double valor) {
+            int baixo = 0;
+            int alto = this.referencias.length;
+            while (baixo < alto) {
+                int meio = (baixo + alto) >>> 1;
+                if (this.referencias[meio] <= valor) {
+                    baixo = meio + 1;
+                } else {
+                    alto = meio;
+                }
+            }
+            return baixo;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package br.com.tiopatinhasexchange.service;
+
+/**
+ * Janela deslizante de preços para calcular a variação percentual de um período
+ * (por padrão, as 24 horas das condições de variação das estratégias).
+ *
+ * Os preços entram em ordem cronológica num buffer circular; os que saem da janela são
+ * descartados do início, então cada passo custa O(1) amortizado. A referência é o
+ * primeiro preço estritamente depois do limite do período, a mesma regra de
+ * {@link br.com.tiopatinhasexchange.model.Mercado#calcularVariacao(Integer, int)}.
+ *
+ * Séries com um preço por período (ex.: a série diária do simulador) podem incluir o
+ * preço que está exatamente no limite, para que a referência de cada dia seja o dia
+ * anterior e não o próprio preço.
+ */
+public class JanelaVariacao {
+
+    // Atributos
+    private final long periodoMillis;
+    private final boolean incluirLimite; // O preço exatamente no limite do período ainda é referência
+    private long[] instantes;
+    private double[] precos;
+    private int inicio; // Posição do preço mais antigo
+    private int tamanho;
+
+    // Construtores
+    public JanelaVariacao(long periodoMillis) {
+        this(periodoMillis, 16, false);
+    }
+
+    public JanelaVariacao(long periodoMillis, boolean incluirLimite) {
+        this(periodoMillis, 16, incluirLimite);
+    }
+
+    public JanelaVariacao(long periodoMillis, int capacidadeInicial) {
+        this(periodoMillis, capacidadeInicial, false);
+    }
+
+    public JanelaVariacao(long periodoMillis, int capacidadeInicial, boolean incluirLimite) {
+        if (periodoMillis <= 0) {
+            throw new IllegalArgumentException("O período deve ser positivo");
+        }
+        this.periodoMillis = periodoMillis;
+        this.incluirLimite = incluirLimite;
+        this.instantes = new long[Math.max(2, capacidadeInicial)];
+        this.precos = new double[this.instantes.length];
+    }
+
+    // Métodos
+    /**
+     * Acrescenta um preço e calcula a variação em relação ao início da janela
+     * @param instanteMillis Instante do preço (não decrescente)
+     * @param preco Preço observado
+     * @return Variação percentual no período (0 se a referência for zero)
+     */
+    public double adicionar(long instanteMillis, double preco) {
+        // Primeiro instante que ainda serve de referência
+        long limite = instanteMillis - this.periodoMillis + (this.incluirLimite ? 0 : 1);
+        while (this.tamanho > 0 && this.instantes[this.inicio] < limite) {
+            this.inicio = (this.inicio + 1) % this.instantes.length;
+            this.tamanho--;
+        }
+
+        if (this.tamanho == this.instantes.length) {
+            crescer();
+        }
+        int fim = (this.inicio + this.tamanho) % this.instantes.length;
+        this.instantes[fim] = instanteMillis;
+        this.precos[fim] = preco;
+        this.tamanho++;
+
+        double referencia = this.precos[this.inicio];
+        return referencia == 0 ? 0.0 : (preco - referencia) / referencia * 100;
+    }
+
+    /**
+     * Esvazia a janela
+     */
+    public void limpar() {
+        this.inicio = 0;
+        this.tamanho = 0;
+    }
+
+    private void crescer() {
+        int capacidade = this.instantes.length * 2;
+        long[] novosInstantes = new long[capacidade];
+        double[] novosPrecos = new double[capacidade];
+        for (int i = 0; i < this.tamanho; i++) {
+            int origem = (this.inicio + i) % this.instantes.length;
+            novosInstantes[i] = this.instantes[origem];
+            novosPrecos[i] = this.precos[origem];
+        }
+        this.instantes = novosInstantes;
+        this.precos = novosPrecos;
+        this.inicio = 0;
+    }
+
+    // Getters e Setters
+    public long getPeriodoMillis() {
+        return this.periodoMillis;
+    }
+
+    public boolean isIncluirLimite() {
+        return this.incluirLimite;
+    }
+
+    public int getTamanho() {
+        return this.tamanho;
+    }
+}
@@ -0,0 +1,46 @@
+package br.com.tiopatinhasexchange.service;
+import java.util.SplittableRandom;
+
+/**
+ * Movimento browniano geométrico: retorno logarítmico por passo
+ * (tendência - volatilidade² / 2) * dt + volatilidade * raiz(dt) * choque.
+ */
+public class ModeloBrowniano implements ModeloPreco {
+
+    // Atributos
+    private final double tendencia; // Retorno esperado anual
+    private final double volatilidade; // Volatilidade anual
+
+    // Construtores
+    public ModeloBrowniano(double tendencia, double volatilidade) {
+        if (volatilidade < 0) {
+            throw new IllegalArgumentException("A volatilidade não pode ser negativa");
+        }
+        this.tendencia = tendencia;
+        this.volatilidade = volatilidade;
+    }
+
+    // Métodos
+    @Override
+    public ModeloPreco copiar() {
+        return this;
+    }
+
+    @Override
+    public void gerarRetornos(double[] valores, int inicio, int quantidade, double dt, SplittableRandom aleatorio) {
+        double deriva = (this.tendencia - 0.5 * this.volatilidade * this.volatilidade) * dt;
+        double escala = this.volatilidade * Math.sqrt(dt);
+        for (int i = inicio; i < inicio + quantidade; i++) {
+            valores[i] = deriva + escala * valores[i];
+        }
+    }
+
+    // Getters e Setters
+    public double getTendencia() {
+        return this.tendencia;
+    }
+
+    public double getVolatilidade() {
+        return this.volatilidade;
+    }
+}
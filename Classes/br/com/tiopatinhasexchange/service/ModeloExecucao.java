@@ -0,0 +1,33 @@
+package br.com.tiopatinhasexchange.service;
+
+/**
+ * Modelo de execução das ordens simuladas: decide quanto de cada ordem é executado e a
+ * que preço, a partir do preço de referência e do volume do candle.
+ *
+ * As ordens de um mesmo candle são calculadas juntas, numa única chamada, para que o
+ * modelo possa dividir a liquidez do candle entre elas e para que o custo fique em uma
+ * passada por candle, não uma chamada por ordem.
+ */
+public interface ModeloExecucao {
+
+    /** Executa tudo ao preço de referência (comportamento sem custos de execução) */
+    ModeloExecucao IDEAL = (ordens, compras, quantidades, preco, volume, quantidadesExecutadas, precosExecucao) -> {
+        for (int i = 0; i < ordens; i++) {
+            quantidadesExecutadas[i] = quantidades[i];
+            precosExecucao[i] = preco;
+        }
+    };
+
+    /**
+     * Calcula a execução das ordens de um candle
+     * @param ordens Quantidade de ordens (posições usadas dos vetores)
+     * @param compras true para compra, false para venda, por ordem
+     * @param quantidades Quantidade pedida por ordem
+     * @param preco Preço de referência do candle
+     * @param volume Volume negociado no candle, em quantidade do ativo (0 se desconhecido)
+     * @param quantidadesExecutadas Recebe a quantidade executada por ordem (0 a quantidade pedida)
+     * @param precosExecucao Recebe o preço médio de execução por ordem
+     */
+    void executar(int ordens, boolean[] compras, double[] quantidades, double preco, double volume,
+            double[] quantidadesExecutadas, double[] precosExecucao);
+}
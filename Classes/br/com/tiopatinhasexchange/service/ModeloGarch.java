@@ -0,0 +1,76 @@
+package br.com.tiopatinhasexchange.service;
+import java.util.SplittableRandom;
+
+/**
+ * Volatilidade GARCH(1,1): a variância de cada passo é
+ * omega + alfa * choque anterior² + beta * variância anterior, o que produz períodos
+ * de alta e baixa volatilidade. Os parâmetros são por passo (não anualizados), e a
+ * trajetória começa na variância de longo prazo omega / (1 - alfa - beta).
+ *
+ * Guarda a variância entre blocos; cada trajetória usa sua própria cópia ({@link #copiar()}).
+ */
+public class ModeloGarch implements ModeloPreco {
+
+    // Atributos
+    private final double tendencia; // Retorno logarítmico médio por passo
+    private final double omega;
+    private final double alfa;
+    private final double beta;
+    private double variancia; // Variância do próximo passo
+
+    // Construtores
+    public ModeloGarch(double tendencia, double omega, double alfa, double beta) {
+        if (omega <= 0 || alfa < 0 || beta < 0 || alfa + beta >= 1) {
+            throw new IllegalArgumentException("Parâmetros GARCH inválidos (omega > 0, alfa + beta < 1)");
+        }
+        this.tendencia = tendencia;
+        this.omega = omega;
+        this.alfa = alfa;
+        this.beta = beta;
+        this.variancia = calcularVarianciaLongoPrazo();
+    }
+
+    // Métodos
+    @Override
+    public ModeloPreco copiar() {
+        return new ModeloGarch(this.tendencia, this.omega, this.alfa, this.beta);
+    }
+
+    /**
+     * Os parâmetros já são por passo, então {@code dt} não é usado
+     */
+    @Override
+    public void gerarRetornos(double[] valores, int inicio, int quantidade, double dt, SplittableRandom aleatorio) {
+        double variancia = this.variancia;
+        for (int i = inicio; i < inicio + quantidade; i++) {
+            double inovacao = Math.sqrt(variancia) * valores[i];
+            valores[i] = this.tendencia + inovacao;
+            variancia = this.omega + this.alfa * inovacao * inovacao + this.beta * variancia;
+        }
+        this.variancia = variancia;
+    }
+
+    /**
+     * @return Variância por passo para a qual o modelo converge
+     */
+    public double calcularVarianciaLongoPrazo() {
+        return this.omega / (1 - this.alfa - this.beta);
+    }
+
+    // Getters e Setters
+    public double getTendencia() {
+        return this.tendencia;
+    }
+
+    public double getOmega() {
+        return this.omega;
+    }
+
+    public double getAlfa() {
+        return this.alfa;
+    }
+
+    public double getBeta() {
+        return this.beta;
+    }
+}
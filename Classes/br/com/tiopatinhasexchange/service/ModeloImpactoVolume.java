@@ -0,0 +1,79 @@
+package br.com.tiopatinhasexchange.service;
+
+/**
+ * Execução com spread, limite de participação no volume e impacto de mercado.
+ *
+ * Compras pagam meio spread acima do preço de referência e vendas recebem meio spread
+ * abaixo. As ordens do candle juntas não passam de {@code participacaoMaxima} do volume;
+ * acima disso, todas são executadas parcialmente na mesma proporção. O impacto segue a
+ * lei da raiz quadrada: cada lado (compras ou vendas) move o preço em
+ * {@code coeficienteImpacto * raiz(quantidade executada do lado / volume)}.
+ * Sem volume conhecido, só o spread é aplicado.
+ */
+public class ModeloImpactoVolume implements ModeloExecucao {
+
+    // Atributos
+    private final double spread; // Fração do preço entre compra e venda
+    private final double participacaoMaxima; // Fração do volume do candle
+    private final double coeficienteImpacto;
+
+    // Construtores
+    public ModeloImpactoVolume(double spread, double participacaoMaxima, double coeficienteImpacto) {
+        if (spread < 0 || spread >= 1 || participacaoMaxima <= 0 || participacaoMaxima > 1
+                || coeficienteImpacto < 0) {
+            throw new IllegalArgumentException("Parâmetros do modelo de execução inválidos");
+        }
+        this.spread = spread;
+        this.participacaoMaxima = participacaoMaxima;
+        this.coeficienteImpacto = coeficienteImpacto;
+    }
+
+    // Métodos
+    @Override
+    public void executar(int ordens, boolean[] compras, double[] quantidades, double preco, double volume,
+            double[] quantidadesExecutadas, double[] precosExecucao) {
+        double meioSpread = this.spread / 2;
+        double totalCompras = 0;
+        double totalVendas = 0;
+        for (int i = 0; i < ordens; i++) {
+            if (compras[i]) {
+                totalCompras += quantidades[i];
+            } else {
+                totalVendas += quantidades[i];
+            }
+        }
+
+        double proporcao = 1.0;
+        double impactoCompras = 0;
+        double impactoVendas = 0;
+        if (volume > 0) {
+            double limite = this.participacaoMaxima * volume;
+            double total = totalCompras + totalVendas;
+            if (total > limite) {
+                proporcao = limite / total;
+            }
+            impactoCompras = this.coeficienteImpacto * Math.sqrt(totalCompras * proporcao / volume);
+            impactoVendas = this.coeficienteImpacto * Math.sqrt(totalVendas * proporcao / volume);
+        }
+
+        double precoCompra = preco * (1 + meioSpread + impactoCompras);
+        double precoVenda = preco * Math.max(0.0, 1 - meioSpread - impactoVendas);
+        for (int i = 0; i < ordens; i++) {
+            quantidadesExecutadas[i] = quantidades[i] * proporcao;
+            precosExecucao[i] = compras[i] ? precoCompra : precoVenda;
+        }
+    }
+
+    // Getters e Setters
+    public double getSpread() {
+        return this.spread;
+    }
+
+    public double getParticipacaoMaxima() {
+        return this.participacaoMaxima;
+    }
+
+    public double getCoeficienteImpacto() {
+        return this.coeficienteImpacto;
+    }
+}
@@ -0,0 +1,30 @@
+package br.com.tiopatinhasexchange.service;
+import java.util.SplittableRandom;
+
+/**
+ * Modelo estocástico de preço de um ativo, usado pelo {@link GeradorMercadoCorrelacionado}.
+ *
+ * O gerador entrega ao modelo choques normais padrão já correlacionados entre os ativos;
+ * o modelo os transforma, no próprio vetor, em retornos logarítmicos por passo. O trabalho
+ * é feito em blocos de passos consecutivos de um mesmo ativo, então o estado do modelo
+ * (por exemplo, a variância do GARCH) continua de um bloco para o seguinte.
+ */
+public interface ModeloPreco {
+
+    /**
+     * Cria uma cópia do modelo com o estado inicial, para uma nova trajetória.
+     * Modelos sem estado podem retornar a própria instância.
+     * @return Modelo pronto para gerar uma trajetória
+     */
+    ModeloPreco copiar();
+
+    /**
+     * Transforma choques normais padrão em retornos logarítmicos
+     * @param valores Vetor com os choques; recebe os retornos nas mesmas posições
+     * @param inicio Posição do primeiro passo
+     * @param quantidade Quantidade de passos
+     * @param dt Duração de um passo, em anos
+     * @param aleatorio Gerador para sorteios próprios do modelo (por exemplo, saltos)
+     */
+    void gerarRetornos(double[] valores, int inicio, int quantidade, double dt, SplittableRandom aleatorio);
+}
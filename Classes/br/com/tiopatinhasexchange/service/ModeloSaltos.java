@@ -0,0 +1,77 @@
+package br.com.tiopatinhasexchange.service;
+import java.util.SplittableRandom;
+
+/**
+ * Difusão com saltos (Merton): movimento browniano geométrico somado a saltos que chegam
+ * por um processo de Poisson, com tamanho logarítmico normal. A tendência é compensada
+ * pelo salto médio, então o retorno esperado anual continua sendo {@code tendencia}.
+ */
+public class ModeloSaltos implements ModeloPreco {
+
+    // Atributos
+    private final double tendencia; // Retorno esperado anual
+    private final double volatilidade; // Volatilidade anual da parte contínua
+    private final double intensidadeSaltos; // Saltos esperados por ano
+    private final double mediaSalto; // Média do logaritmo do salto
+    private final double volatilidadeSalto; // Desvio padrão do logaritmo do salto
+
+    // Construtores
+    public ModeloSaltos(double tendencia, double volatilidade, double intensidadeSaltos, double mediaSalto,
+            double volatilidadeSalto) {
+        if (volatilidade < 0 || intensidadeSaltos < 0 || volatilidadeSalto < 0) {
+            throw new IllegalArgumentException("Parâmetros inválidos para o modelo com saltos");
+        }
+        this.tendencia = tendencia;
+        this.volatilidade = volatilidade;
+        this.intensidadeSaltos = intensidadeSaltos;
+        this.mediaSalto = mediaSalto;
+        this.volatilidadeSalto = volatilidadeSalto;
+    }
+
+    // Métodos
+    @Override
+    public ModeloPreco copiar() {
+        return this;
+    }
+
+    @Override
+    public void gerarRetornos(double[] valores, int inicio, int quantidade, double dt, SplittableRandom aleatorio) {
+        double saltoMedio = Math.exp(this.mediaSalto + 0.5 * this.volatilidadeSalto * this.volatilidadeSalto) - 1;
+        double deriva = (this.tendencia - this.intensidadeSaltos * saltoMedio
+                - 0.5 * this.volatilidade * this.volatilidade) * dt;
+        double escala = this.volatilidade * Math.sqrt(dt);
+        // Limite do algoritmo de Knuth para sortear a quantidade de saltos no passo
+        double limitePoisson = Math.exp(-this.intensidadeSaltos * dt);
+
+        for (int i = inicio; i < inicio + quantidade; i++) {
+            double retorno = deriva + escala * valores[i];
+            double produto = aleatorio.nextDouble();
+            while (produto > limitePoisson) {
+                retorno += this.mediaSalto + this.volatilidadeSalto * aleatorio.nextGaussian();
+                produto *= aleatorio.nextDouble();
+            }
+            valores[i] = retorno;
+        }
+    }
+
+    // Getters e Setters
+    public double getTendencia() {
+        return this.tendencia;
+    }
+
+    public double getVolatilidade() {
+        return this.volatilidade;
+    }
+
+    public double getIntensidadeSaltos() {
+        return this.intensidadeSaltos;
+    }
+
+    public double getMediaSalto() {
+        return this.mediaSalto;
+    }
+
+    public double getVolatilidadeSalto() {
+        return this.volatilidadeSalto;
+    }
+}
@@ -0,0 +1,278 @@
+package br.com.tiopatinhasexchange.service;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import br.com.tiopatinhasexchange.model.AcaoEstrategia;
+import br.com.tiopatinhasexchange.model.EstrategiaAutomatica;
+
+/**
+ * Execução em modo sombra: uma nova versão de uma estratégia é avaliada nos mesmos
+ * ticks que a versão em produção, sem nunca enviar ordens à carteira.
+ *
+ * O tick é dividido em duas fases. {@link #avaliarVivas} avalia apenas as estratégias
+ * em produção e devolve as disparadas; o custo extra é uma medição de tempo por
+ * estratégia. Depois que as ordens reais foram encaminhadas, {@link #avaliarSombras}
+ * avalia as cópias, compara as decisões e acumula o que a sombra teria executado ao
+ * preço do tick. As divergências mais recentes ficam num buffer circular.
+ */
+public class ModoSombraEstrategias {
+
+    public static final int APENAS_VIVA = 1;
+    public static final int APENAS_SOMBRA = 2;
+
+    // Atributos
+    private final List<ParSombra> pares;
+    private final LongAdder ticks;
+    private final LongAdder divergencias;
+    private final LongAdder nanosVivas;
+    private final LongAdder nanosSombras;
+
+    // Divergências recentes (buffer circular em vetores paralelos)
+    private final long[] ticksDivergencia;
+    private final int[] estrategiasDivergencia;
+    private final int[] tiposDivergencia;
+    private final double[] precosDivergencia;
+    private long totalDivergencias;
+
+    // Construtores
+    public ModoSombraEstrategias(int capacidadeDivergencias) {
+        if (capacidadeDivergencias <= 0) {
+            throw new IllegalArgumentException("A capacidade deve ser positiva");
+        }
+        this.pares = new ArrayList<>();
+        this.ticks = new LongAdder();
+        this.divergencias = new LongAdder();
+        this.nanosVivas = new LongAdder();
+        this.nanosSombras = new LongAdder();
+        this.ticksDivergencia = new long[capacidadeDivergencias];
+        this.estrategiasDivergencia = new int[capacidadeDivergencias];
+        this.tiposDivergencia = new int[capacidadeDivergencias];
+        this.precosDivergencia = new double[capacidadeDivergencias];
+    }
+
+    // Métodos
+    /**
+     * Coloca uma nova versão de uma estratégia em modo sombra
+     * @param viva Estratégia em produção
+     * @param sombra Nova versão, que nunca é executada
+     */
+    public synchronized void adicionarPar(EstrategiaAutomatica viva, EstrategiaAutomatica sombra) {
+        if (viva == null || sombra == null || viva == sombra) {
+            throw new IllegalArgumentException("A estratégia em produção e a sombra devem ser instâncias distintas");
+        }
+        this.pares.add(new ParSombra(viva, sombra));
+    }
+
+    /**
+     * Remove o par de uma estratégia em produção
+     * @param viva Estratégia em produção
+     * @return true se havia um par para a estratégia
+     */
+    public synchronized boolean removerPar(EstrategiaAutomatica viva) {
+        return this.pares.removeIf(par -> par.viva == viva);
+    }
+
+    /**
+     * Primeira fase do tick: avalia as estratégias em produção
+     * @param contexto Contexto de avaliação do tick
+     * @param disparadas Lista que recebe as estratégias em produção disparadas
+     * @return Quantidade de estratégias disparadas
+     */
+    public synchronized int avaliarVivas(ContextoAvaliacao contexto, List<EstrategiaAutomatica> disparadas) {
+        int quantidade = 0;
+        long total = 0;
+        for (int i = 0; i < this.pares.size(); i++) {
+            ParSombra par = this.pares.get(i);
+            long inicio = System.nanoTime();
+            boolean disparou = par.viva.verificarCondicao(contexto);
+            long duracao = System.nanoTime() - inicio;
+            total += duracao;
+            par.nanosViva += duracao;
+            par.decisaoViva = disparou;
+            if (disparou) {
+                disparadas.add(par.viva);
+                quantidade++;
+            }
+        }
+        this.nanosVivas.add(total);
+        return quantidade;
+    }
+
+    /**
+     * Segunda fase do tick: avalia as sombras e compara com as decisões da primeira fase
+     * @param contexto Contexto de avaliação do tick (o mesmo da primeira fase)
+     * @return Quantidade de divergências no tick
+     */
+    public synchronized int avaliarSombras(ContextoAvaliacao contexto) {
+        long tick = contexto.getTick();
+        int divergentes = 0;
+        long total = 0;
+        for (int i = 0; i < this.pares.size(); i++) {
+            ParSombra par = this.pares.get(i);
+            long inicio = System.nanoTime();
+            boolean disparou = par.sombra.verificarCondicao(contexto);
+            long duracao = System.nanoTime() - inicio;
+            total += duracao;
+            par.nanosSombra += duracao;
+            par.avaliacoes++;
+
+            if (!par.decisaoViva && !disparou) {
+                continue;
+            }
+            // A sombra pode negociar outro ativo: cada versão usa o preço do seu ativo
+            double precoViva = contexto.getMercado().obterPrecoAtual(par.viva.getIdCriptoativo());
+            double preco = contexto.getMercado().obterPrecoAtual(par.sombra.getIdCriptoativo());
+            if (par.decisaoViva) {
+                par.resultadoViva.acumular(par.viva, precoViva);
+            }
+            if (disparou) {
+                par.resultadoSombra.acumular(par.sombra, preco);
+            }
+            if (par.decisaoViva != disparou) {
+                int tipo = par.decisaoViva ? APENAS_VIVA : APENAS_SOMBRA;
+                if (tipo == APENAS_VIVA) {
+                    par.apenasViva++;
+                } else {
+                    par.apenasSombra++;
+                }
+                registrarDivergencia(tick, par.viva.getId(), tipo, tipo == APENAS_VIVA ? precoViva : preco);
+                divergentes++;
+            } else {
+                par.ambas++;
+            }
+        }
+        this.nanosSombras.add(total);
+        this.divergencias.add(divergentes);
+        this.ticks.increment();
+        return divergentes;
+    }
+
+    private void registrarDivergencia(long tick, int idEstrategia, int tipo, double preco) {
+        int posicao = (int) (this.totalDivergencias % this.ticksDivergencia.length);
+        this.ticksDivergencia[posicao] = tick;
+        this.estrategiasDivergencia[posicao] = idEstrategia;
+        this.tiposDivergencia[posicao] = tipo;
+        this.precosDivergencia[posicao] = preco;
+        this.totalDivergencias++;
+    }
+
+    /**
+     * Exibe, para cada par, as decisões coincidentes e divergentes, o tempo médio de
+     * avaliação e o volume que cada versão teria executado, seguidos das divergências
+     * mais recentes
+     */
+    public synchronized void exibirRelatorio() {
+        System.out.println("===== MODO SOMBRA =====");
+        System.out.println("Ticks: " + getTicks() + " | Divergências: " + getDivergencias());
+        for (ParSombra par : this.pares) {
+            System.out.println("Estratégia " + par.viva.getId() + ": ambas " + par.ambas
+                    + ", só produção " + par.apenasViva + ", só sombra " + par.apenasSombra);
+            if (par.avaliacoes > 0) {
+                System.out.printf("  Avaliação média: produção %.0f ns, sombra %.0f ns%n",
+                        (double) par.nanosViva / par.avaliacoes, (double) par.nanosSombra / par.avaliacoes);
+            }
+            System.out.printf("  Volume: produção $%.2f, sombra $%.2f%n",
+                    par.resultadoViva.volume, par.resultadoSombra.volume);
+        }
+
+        long guardadas = Math.min(this.totalDivergencias, this.ticksDivergencia.length);
+        if (guardadas > 0) {
+            System.out.println("Divergências recentes:");
+            for (long i = this.totalDivergencias - guardadas; i < this.totalDivergencias; i++) {
+                int posicao = (int) (i % this.ticksDivergencia.length);
+                System.out.printf("  tick %d, estratégia %d: %s (preço %.2f)%n",
+                        this.ticksDivergencia[posicao], this.estrategiasDivergencia[posicao],
+                        this.tiposDivergencia[posicao] == APENAS_VIVA ? "só produção" : "só sombra",
+                        this.precosDivergencia[posicao]);
+            }
+        }
+        System.out.println("=======================");
+    }
+
+    /**
+     * Resultado a mercado do que a versão teria executado
+     * @param viva Estratégia em produção
+     * @param sombra true para a sombra, false para a produção
+     * @param precoAtual Preço atual do ativo
+     * @return Resultado hipotético, ou NaN se não houver par
+     */
+    public synchronized double calcularResultado(EstrategiaAutomatica viva, boolean sombra, double precoAtual) {
+        for (ParSombra par : this.pares) {
+            if (par.viva == viva) {
+                ResultadoHipotetico resultado = sombra ? par.resultadoSombra : par.resultadoViva;
+                return resultado.fluxoCaixa + resultado.posicao * precoAtual;
+            }
+        }
+        return Double.NaN;
+    }
+
+    // Getters e Setters
+    public long getTicks() {
+        return this.ticks.sum();
+    }
+
+    public long getDivergencias() {
+        return this.divergencias.sum();
+    }
+
+    public double getNanosMedioVivas() {
+        long ticks = getTicks();
+        return ticks == 0 ? 0.0 : (double) this.nanosVivas.sum() / ticks;
+    }
+
+    public double getNanosMedioSombras() {
+        long ticks = getTicks();
+        return ticks == 0 ? 0.0 : (double) this.nanosSombras.sum() / ticks;
+    }
+
+    public synchronized int getQuantidadePares() {
+        return this.pares.size();
+    }
+
+    /**
+     * Estratégia em produção, sua sombra e as métricas do par
+     */
+    private static final class ParSombra {
+        final EstrategiaAutomatica viva;
+        final EstrategiaAutomatica sombra;
+        final ResultadoHipotetico resultadoViva = new ResultadoHipotetico();
+        final ResultadoHipotetico resultadoSombra = new ResultadoHipotetico();
+        boolean decisaoViva; // Decisão da produção no tick atual
+        long avaliacoes;
+        long ambas;
+        long apenasViva;
+        long apenasSombra;
+        long nanosViva;
+        long nanosSombra;
+
+        ParSombra(EstrategiaAutomatica viva, EstrategiaAutomatica sombra) {
+            this.viva = viva;
+            this.sombra = sombra;
+        }
+    }
+
+    /**
+     * Posição e fluxo de caixa das execuções hipotéticas de uma versão
+     */
+    private static final class ResultadoHipotetico {
+        double posicao;
+        double fluxoCaixa;
+        double volume;
+
+        void acumular(EstrategiaAutomatica estrategia, double preco) {
+            if (preco < 0) {
+                return;
+            }
+            double nocional = estrategia.getQuantidade() * preco;
+            this.volume += nocional;
+            if (estrategia.getAcao() == AcaoEstrategia.VENDER) {
+                this.posicao -= estrategia.getQuantidade();
+                this.fluxoCaixa += nocional;
+            } else {
+                this.posicao += estrategia.getQuantidade();
+                this.fluxoCaixa -= nocional;
+            }
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package br.com.tiopatinhasexchange.service;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import br.com.tiopatinhasexchange.model.AcaoEstrategia;
+import br.com.tiopatinhasexchange.model.CondicaoCompilada;
+import br.com.tiopatinhasexchange.model.CondicaoEstrategia;
+import br.com.tiopatinhasexchange.model.EstrategiaAutomatica;
+
+/**
+ * Backtest de estratégias automáticas sobre candles históricos.
+ *
+ * As estratégias de um mesmo ativo são avaliadas juntas, numa única passada pela série:
+ * a cada candle, o preço de fechamento e a variação da janela de 24 horas são calculados
+ * uma vez e passados à {@link CondicaoCompilada} de cada estratégia, o mesmo código usado
+ * na execução real. Cada estratégia tem uma conta própria (saldo e posição) e executa no
+ * candle em que a condição foi atendida.
+ *
+ * As ordens disparadas num candle passam juntas pelo {@link ModeloExecucao}, que define a
+ * quantidade executada e o preço de cada uma (por padrão, tudo ao preço de fechamento).
+ *
+ * Os limites de frequência de cada estratégia (intervalo de recarga, máximo de execuções
+ * por janela e execução única) valem como no {@link ControleRecargaEstrategias}, medidos
+ * pelos instantes dos candles: só a operação efetivamente registrada inicia a recarga,
+ * conta na janela e encerra a estratégia de execução única.
+ *
+ * Só estratégias de condição simples são suportadas; expressões compostas podem depender
+ * de outros ativos e de indicadores fora da série, e são recusadas com
+ * {@link IllegalArgumentException}.
+ *
+ * Ativos diferentes, e grupos grandes de estratégias do mesmo ativo, são processados em
+ * paralelo; as séries, e as variações de 24 horas calculadas uma vez por série, são
+ * somente leitura e compartilhadas entre as tarefas.
+ */
+public class MotorBacktest {
+
+    private static final int ESTRATEGIAS_POR_TAREFA = 64;
+    private static final long PERIODO_VARIACAO_MILLIS = CondicaoEstrategia.PERIODO_VARIACAO_HORAS * 3_600_000L;
+
+    // Atributos
+    private final double saldoInicial;
+    private double taxa; // Fração do valor da operação cobrada como taxa
+    private int amostragemCurva; // Um ponto da curva de patrimônio a cada N candles
+    private ModeloExecucao modeloExecucao; // Quantidade e preço executados de cada ordem
+
+    // Construtores
+    public MotorBacktest(double saldoInicial) {
+        if (saldoInicial <= 0) {
+            throw new IllegalArgumentException("O saldo inicial deve ser positivo");
+        }
+        this.saldoInicial = saldoInicial;
+        this.taxa = 0.0;
+        this.amostragemCurva = 1;
+        this.modeloExecucao = ModeloExecucao.IDEAL;
+    }
+
+    // Métodos
+    /**
+     * Executa o backtest de várias estratégias
+     * @param series Séries de candles por ID do criptoativo
+     * @param estrategias Estratégias a testar
+     * @return Um resultado por estratégia, na mesma ordem da lista
+     */
+    public List<ResultadoBacktest> executar(Map<Integer, SerieCandles> series, List<EstrategiaAutomatica> estrategias) {
+        ResultadoBacktest[] resultados = new ResultadoBacktest[estrategias.size()];
+        List<Runnable> tarefas = new ArrayList<>();
+
+        for (Map.Entry<Integer, SerieCandles> entrada : series.entrySet()) {
+            SerieCandles serie = entrada.getValue();
+            List<Integer> indices = filtrarPorAtivo(estrategias, entrada.getKey());
+            double[] variacoes = usaVariacao(estrategias, indices) ? calcularVariacoes(serie) : null;
+            dividirEmTarefas(serie, 0, serie.getTamanho(), variacoes, estrategias, indices, resultados, tarefas);
+        }
+        tarefas.parallelStream().forEach(Runnable::run);
+        return completarResultados(estrategias, resultados);
+    }
+
+    /**
+     * Executa o backtest de estratégias de um único ativo
+     * @param serie Série de candles do ativo
+     * @param estrategias Estratégias a testar
+     * @return Um resultado por estratégia, na mesma ordem da lista
+     */
+    public List<ResultadoBacktest> executar(SerieCandles serie, List<EstrategiaAutomatica> estrategias) {
+        return executar(Map.of(serie.getIdCriptoativo(), serie), estrategias);
+    }
+
+    /**
+     * Executa o backtest de estratégias de um único ativo num trecho da série, como se a
+     * série começasse em {@code inicio}: cada estratégia parte do saldo inicial, sem
+     * posição. A variação de 24 horas do início do trecho considera os candles anteriores,
+     * então o mesmo vetor de variações pode ser compartilhado por vários trechos.
+     * @param serie Série de candles do ativo
+     * @param inicio Primeiro candle do trecho
+     * @param fim Candle seguinte ao último do trecho
+     * @param variacoes Variações calculadas por {@link #calcularVariacoes(SerieCandles)}, ou null
+     *                  para calculá-las quando alguma estratégia usar variação
+     * @param estrategias Estratégias a testar
+     * @return Um resultado por estratégia, na mesma ordem da lista
+     */
+    public List<ResultadoBacktest> executar(SerieCandles serie, int inicio, int fim, double[] variacoes,
+            List<EstrategiaAutomatica> estrategias) {
+        if (inicio < 0 || fim > serie.getTamanho() || inicio >= fim) {
+            throw new IllegalArgumentException("Trecho inválido da série: " + inicio + " a " + fim);
+        }
+        if (variacoes != null && variacoes.length != serie.getTamanho()) {
+            throw new IllegalArgumentException("As variações devem ter um valor por candle da série");
+        }
+        ResultadoBacktest[] resultados = new ResultadoBacktest[estrategias.size()];
+        List<Runnable> tarefas = new ArrayList<>();
+        List<Integer> indices = filtrarPorAtivo(estrategias, serie.getIdCriptoativo());
+        if (variacoes == null && usaVariacao(estrategias, indices)) {
+            variacoes = calcularVariacoes(serie);
+        }
+        dividirEmTarefas(serie, inicio, fim, variacoes, estrategias, indices, resultados, tarefas);
+        tarefas.parallelStream().forEach(Runnable::run);
+        return completarResultados(estrategias, resultados);
+    }
+
+    /**
+     * Calcula a variação percentual de 24 horas de cada candle da série, o indicador das
+     * condições de variação. O cálculo é feito uma vez e compartilhado, somente leitura,
+     * por todas as estratégias e trechos da série.
+     * @param serie Série de candles
+     * @return Variação por candle, na mesma posição da série
+     */
+    public static double[] calcularVariacoes(SerieCandles serie) {
+        JanelaVariacao janela = new JanelaVariacao(PERIODO_VARIACAO_MILLIS);
+        double[] variacoes = new double[serie.getTamanho()];
+        for (int i = 0; i < variacoes.length; i++) {
+            variacoes[i] = janela.adicionar(serie.getInstante(i), serie.getFechamento(i));
+        }
+        return variacoes;
+    }
+
+    private static List<Integer> filtrarPorAtivo(List<EstrategiaAutomatica> estrategias, int idCriptoativo) {
+        List<Integer> indices = new ArrayList<>();
+        for (int i = 0; i < estrategias.size(); i++) {
+            if (estrategias.get(i).getIdCriptoativo() == idCriptoativo) {
+                indices.add(i);
+            }
+        }
+        return indices;
+    }
+
+    private static boolean usaVariacao(List<EstrategiaAutomatica> estrategias, List<Integer> indices) {
+        for (int i : indices) {
+            CondicaoCompilada condicao = estrategias.get(i).getCondicaoCompilada();
+            if (condicao != null && condicao.getCondicao().isUsaVariacao()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void dividirEmTarefas(SerieCandles serie, int inicio, int fim, double[] variacoes,
+            List<EstrategiaAutomatica> estrategias, List<Integer> indices, ResultadoBacktest[] resultados,
+            List<Runnable> tarefas) {
+        for (int primeira = 0; primeira < indices.size(); primeira += ESTRATEGIAS_POR_TAREFA) {
+            List<Integer> grupo = indices.subList(primeira, Math.min(indices.size(), primeira + ESTRATEGIAS_POR_TAREFA));
+            tarefas.add(() -> executarGrupo(serie, inicio, fim, variacoes, estrategias, grupo, resultados));
+        }
+    }
+
+    /**
+     * Estratégias sem série do ativo ficam com o saldo inicial e sem operações
+     */
+    private List<ResultadoBacktest> completarResultados(List<EstrategiaAutomatica> estrategias,
+            ResultadoBacktest[] resultados) {
+        for (int i = 0; i < resultados.length; i++) {
+            if (resultados[i] == null) {
+                resultados[i] = new ResultadoBacktest(estrategias.get(i).getId(), this.saldoInicial,
+                        this.amostragemCurva, 0);
+            }
+        }
+        return Arrays.asList(resultados);
+    }
+
+    /**
+     * Uma passada por um trecho da série avaliando um grupo de estratégias do mesmo ativo
+     */
+    private void executarGrupo(SerieCandles serie, int inicio, int fim, double[] variacoes,
+            List<EstrategiaAutomatica> estrategias, List<Integer> grupo, ResultadoBacktest[] resultados) {
+        int n = grupo.size();
+        CondicaoCompilada[] condicoes = new CondicaoCompilada[n];
+        boolean[] compra = new boolean[n];
+        double[] quantidade = new double[n];
+        double[] saldo = new double[n];
+        double[] posicao = new double[n];
+        double[] pico = new double[n];
+        double[] drawdown = new double[n];
+        double[] taxas = new double[n];
+        ResultadoBacktest[] parciais = new ResultadoBacktest[n];
+
+        // Limites de frequência e estado de cada estratégia
+        long[] recargaMillis = new long[n];
+        int[] maxExecucoesJanela = new int[n];
+        long[] janelaMillis = new long[n];
+        boolean[] execucaoUnica = new boolean[n];
+        long[] liberadaEm = new long[n]; // Fim da recarga em andamento
+        long[] fimJanela = new long[n]; // Fim da janela de execuções em andamento
+        int[] execucoesJanela = new int[n];
+        boolean[] encerrada = new boolean[n]; // Execução única já executada
+
+        for (int s = 0; s < n; s++) {
+            EstrategiaAutomatica estrategia = estrategias.get(grupo.get(s));
+            if (estrategia.getExpressao() != null) {
+                throw new IllegalArgumentException("O backtest não suporta expressões compostas (estratégia "
+                        + estrategia.getId() + ")");
+            }
+            condicoes[s] = estrategia.getCondicaoCompilada();
+            compra[s] = estrategia.getAcao() == AcaoEstrategia.COMPRAR;
+            quantidade[s] = estrategia.getQuantidade();
+            recargaMillis[s] = estrategia.getIntervaloRecargaSegundos() * 1000;
+            maxExecucoesJanela[s] = estrategia.getMaxExecucoesPorJanela();
+            janelaMillis[s] = estrategia.getJanelaExecucoesSegundos() * 1000;
+            execucaoUnica[s] = estrategia.isExecucaoUnica();
+            liberadaEm[s] = Long.MIN_VALUE;
+            fimJanela[s] = Long.MIN_VALUE;
+            saldo[s] = this.saldoInicial;
+            pico[s] = this.saldoInicial;
+            parciais[s] = new ResultadoBacktest(estrategia.getId(), this.saldoInicial, this.amostragemCurva,
+                    fim - inicio);
+        }
+
+        ModeloExecucao modelo = this.modeloExecucao;
+        double taxa = this.taxa;
+        int amostragem = this.amostragemCurva;
+        double preco = 0;
+
+        // Ordens do candle atual, executadas juntas pelo modelo de execução
+        int[] ordens = new int[n];
+        boolean[] comprasOrdens = new boolean[n];
+        double[] quantidadesOrdens = new double[n];
+        double[] quantidadesExecutadas = new double[n];
+        double[] precosExecucao = new double[n];
+
+        for (int i = inicio; i < fim; i++) {
+            preco = serie.getFechamento(i);
+            long instante = serie.getInstante(i);
+            double variacao = variacoes == null ? Double.NaN : variacoes[i];
+            boolean amostrar = (i - inicio) % amostragem == 0;
+
+            int quantidadeOrdens = 0;
+            for (int s = 0; s < n; s++) {
+                if (encerrada[s] || instante < liberadaEm[s] || (maxExecucoesJanela[s] > 0
+                        && instante < fimJanela[s] && execucoesJanela[s] >= maxExecucoesJanela[s])) {
+                    continue;
+                }
+                if (condicoes[s] != null && condicoes[s].avaliar(preco, variacao)) {
+                    boolean possivel = compra[s] ? quantidade[s] * preco * (1 + taxa) <= saldo[s]
+                            : posicao[s] >= quantidade[s];
+                    if (possivel) {
+                        ordens[quantidadeOrdens] = s;
+                        comprasOrdens[quantidadeOrdens] = compra[s];
+                        quantidadesOrdens[quantidadeOrdens] = quantidade[s];
+                        quantidadeOrdens++;
+                    }
+                }
+            }
+
+            if (quantidadeOrdens > 0) {
+                modelo.executar(quantidadeOrdens, comprasOrdens, quantidadesOrdens, preco, serie.getVolume(i),
+                        quantidadesExecutadas, precosExecucao);
+                for (int o = 0; o < quantidadeOrdens; o++) {
+                    int s = ordens[o];
+                    double executada = quantidadesExecutadas[o];
+                    if (executada <= 0) {
+                        continue;
+                    }
+                    double valor = executada * precosExecucao[o];
+                    double custo = valor * taxa;
+                    if (compra[s]) {
+                        // O preço de execução pode ficar acima do de referência
+                        if (valor + custo > saldo[s]) {
+                            continue;
+                        }
+                        saldo[s] -= valor + custo;
+                        posicao[s] += executada;
+                        taxas[s] += custo;
+                        parciais[s].registrarOperacao(i, instante, true, executada, precosExecucao[o]);
+                    } else {
+                        saldo[s] += valor - custo;
+                        posicao[s] -= executada;
+                        taxas[s] += custo;
+                        parciais[s].registrarOperacao(i, instante, false, executada, precosExecucao[o]);
+                    }
+
+                    liberadaEm[s] = instante + recargaMillis[s];
+                    if (maxExecucoesJanela[s] > 0) {
+                        if (instante >= fimJanela[s]) {
+                            // A janela começa na primeira execução depois da anterior expirar
+                            fimJanela[s] = instante + janelaMillis[s];
+                            execucoesJanela[s] = 0;
+                        }
+                        execucoesJanela[s]++;
+                    }
+                    encerrada[s] = execucaoUnica[s];
+                }
+            }
+
+            for (int s = 0; s < n; s++) {
+                double patrimonio = saldo[s] + posicao[s] * preco;
+                if (patrimonio > pico[s]) {
+                    pico[s] = patrimonio;
+                } else {
+                    double queda = (pico[s] - patrimonio) / pico[s];
+                    if (queda > drawdown[s]) {
+                        drawdown[s] = queda;
+                    }
+                }
+                if (amostrar) {
+                    parciais[s].registrarPontoCurva(patrimonio);
+                }
+            }
+        }
+
+        for (int s = 0; s < n; s++) {
+            parciais[s].finalizar(saldo[s], posicao[s], saldo[s] + posicao[s] * preco, drawdown[s], taxas[s]);
+            resultados[grupo.get(s)] = parciais[s];
+        }
+    }
+
+    // Getters e Setters
+    public double getSaldoInicial() {
+        return this.saldoInicial;
+    }
+
+    public double getTaxa() {
+        return this.taxa;
+    }
+
+    public void setTaxa(double taxa) {
+        if (taxa < 0 || taxa >= 1) {
+            throw new IllegalArgumentException("A taxa deve estar entre 0 e 1");
+        }
+        this.taxa = taxa;
+    }
+
+    public int getAmostragemCurva() {
+        return this.amostragemCurva;
+    }
+
+    public void setAmostragemCurva(int amostragemCurva) {
+        if (amostragemCurva <= 0) {
+            throw new IllegalArgumentException("A amostragem da curva deve ser positiva");
+        }
+        this.amostragemCurva = amostragemCurva;
+    }
+
+    public ModeloExecucao getModeloExecucao() {
+        return this.modeloExecucao;
+    }
+
+    public void setModeloExecucao(ModeloExecucao modeloExecucao) {
+        if (modeloExecucao == null) {
+            throw new IllegalArgumentException("O modelo de execução não pode ser nulo");
+        }
+        this.modeloExecucao = modeloExecucao;
+    }
+}
@@ -0,0 +1,172 @@
+package br.com.tiopatinhasexchange.service;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Gerador paralelo de trajetórias de preço por Monte Carlo.
+ *
+ * As trajetórias são divididas em faixas processadas por fork-join. Cada trajetória usa
+ * um {@link SplittableRandom} cuja semente é derivada da semente da simulação e do
+ * índice da trajetória, então o resultado é o mesmo para uma mesma semente,
+ * independentemente do número de threads ou da divisão das faixas. Cada tarefa reutiliza
+ * um único vetor de preços e só acumula estatísticas ({@link EstatisticasMonteCarlo}).
+ *
+ * O passo de preço é o mesmo de {@code Simulador.simularVariacaoPreco}: variação
+ * uniforme em [-volatilidade, volatilidade] e preço mínimo de 0,01.
+ */
+public class MotorMonteCarlo {
+
+    public static final double PRECO_MINIMO = 0.01;
+    private static final int TRAJETORIAS_POR_TAREFA = 256;
+
+    // Atributos
+    private final ForkJoinPool pool;
+
+    // Construtores
+    public MotorMonteCarlo() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public MotorMonteCarlo(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("O pool não pode ser nulo");
+        }
+        this.pool = pool;
+    }
+
+    // Métodos
+    /**
+     * Simula trajetórias de preço e acumula as estatísticas por trajetória
+     * @param precoInicial Preço inicial do ativo
+     * @param volatilidade Variação máxima por dia (0.0 a 1.0)
+     * @param dias Número de dias de cada trajetória
+     * @param trajetorias Número de trajetórias
+     * @param semente Semente da simulação
+     * @return Estatísticas das trajetórias
+     */
+    public EstatisticasMonteCarlo simular(double precoInicial, double volatilidade, int dias,
+            long trajetorias, long semente) {
+        return simular(precoInicial, volatilidade, dias, trajetorias, semente, null);
+    }
+
+    /**
+     * Simula trajetórias de preço, entregando cada uma a um observador
+     * @param precoInicial Preço inicial do ativo
+     * @param volatilidade Variação máxima por dia (0.0 a 1.0)
+     * @param dias Número de dias de cada trajetória
+     * @param trajetorias Número de trajetórias
+     * @param semente Semente da simulação
+     * @param observador Recebe cada trajetória (null = nenhum); chamado de várias threads
+     * @return Estatísticas das trajetórias
+     */
+    public EstatisticasMonteCarlo simular(double precoInicial, double volatilidade, int dias,
+            long trajetorias, long semente, ObservadorTrajetoria observador) {
+        if (precoInicial <= 0 || volatilidade < 0 || dias <= 0 || trajetorias <= 0) {
+            throw new IllegalArgumentException("Parâmetros de simulação inválidos");
+        }
+        return this.pool.invoke(new TarefaTrajetorias(precoInicial, volatilidade, dias, semente,
+                observador, 0, trajetorias));
+    }
+
+    /**
+     * Gera uma única trajetória determinística
+     * @param precoInicial Preço inicial do ativo
+     * @param volatilidade Variação máxima por dia (0.0 a 1.0)
+     * @param semente Semente da simulação
+     * @param indice Índice da trajetória na simulação
+     * @param precos Vetor que recebe os preços; o tamanho define os dias simulados + 1
+     */
+    public static void gerarTrajetoria(double precoInicial, double volatilidade, long semente, long indice,
+            double[] precos) {
+        SplittableRandom aleatorio = new SplittableRandom(sementeTrajetoria(semente, indice));
+        double preco = precoInicial;
+        precos[0] = preco;
+        for (int i = 1; i < precos.length; i++) {
+            preco *= 1 + (aleatorio.nextDouble() * 2 - 1) * volatilidade;
+            if (preco < PRECO_MINIMO) {
+                preco = PRECO_MINIMO;
+            }
+            precos[i] = preco;
+        }
+    }
+
+    /**
+     * Deriva a semente de uma trajetória (finalizador do SplitMix64), para que
+     * trajetórias vizinhas não tenham sequências correlacionadas
+     */
+    static long sementeTrajetoria(long semente, long indice) {
+        long z = semente + (indice + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // Getters e Setters
+    public ForkJoinPool getPool() {
+        return this.pool;
+    }
+
+    /**
+     * Recebe as trajetórias geradas. O vetor é reutilizado após o retorno, então deve ser
+     * copiado se precisar ser guardado.
+     */
+    @FunctionalInterface
+    public interface ObservadorTrajetoria {
+        void observar(long indice, double[] precos);
+    }
+
+    /**
+     * Faixa [inicio, fim) de trajetórias, dividida ao meio até o tamanho mínimo
+     */
+    private static final class TarefaTrajetorias extends RecursiveTask<EstatisticasMonteCarlo> {
+        private static final long serialVersionUID = 1L;
+
+        private final double precoInicial;
+        private final double volatilidade;
+        private final int dias;
+        private final long semente;
+        private final ObservadorTrajetoria observador;
+        private final long inicio;
+        private final long fim;
+
+        TarefaTrajetorias(double precoInicial, double volatilidade, int dias, long semente,
+                ObservadorTrajetoria observador, long inicio, long fim) {
+            this.precoInicial = precoInicial;
+            this.volatilidade = volatilidade;
+            this.dias = dias;
+            this.semente = semente;
+            this.observador = observador;
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+
+        @Override
+        protected EstatisticasMonteCarlo compute() {
+            if (this.fim - this.inicio > TRAJETORIAS_POR_TAREFA) {
+                long meio = (this.inicio + this.fim) >>> 1;
+                TarefaTrajetorias esquerda = new TarefaTrajetorias(this.precoInicial, this.volatilidade,
+                        this.dias, this.semente, this.observador, this.inicio, meio);
+                TarefaTrajetorias direita = new TarefaTrajetorias(this.precoInicial, this.volatilidade,
+                        this.dias, this.semente, this.observador, meio, this.fim);
+                esquerda.fork();
+                EstatisticasMonteCarlo resultado = direita.compute();
+                EstatisticasMonteCarlo parcial = esquerda.join();
+                // Combina sempre na mesma ordem para que o resultado não dependa do escalonamento
+                parcial.combinar(resultado);
+                return parcial;
+            }
+
+            EstatisticasMonteCarlo estatisticas = new EstatisticasMonteCarlo(this.precoInicial);
+            double[] precos = new double[this.dias + 1];
+            for (long indice = this.inicio; indice < this.fim; indice++) {
+                gerarTrajetoria(this.precoInicial, this.volatilidade, this.semente, indice, precos);
+                estatisticas.adicionarTrajetoria(precos, precos.length);
+                if (this.observador != null) {
+                    this.observador.observar(indice, precos);
+                }
+            }
+            return estatisticas;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package br.com.tiopatinhasexchange.service;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import br.com.tiopatinhasexchange.model.AlertaSeguranca;
+import br.com.tiopatinhasexchange.model.Mercado;
+
+/**
+ * Serviço de verificação de risco pré-negociação. Antes de uma ordem ser executada,
+ * verifica o tamanho máximo da ordem, o colar de preço em relação ao mercado, a taxa de
+ * ordens por usuário e os limites de exposição (nocional) por usuário e por ativo.
+ *
+ * As exposições ficam em memória e são atualizadas a cada ordem aprovada, então a
+ * verificação não percorre posições nem histórico. Quando um usuário acumula muitas
+ * rejeições em pouco tempo, um {@link AlertaSeguranca} é emitido. A taxa de ordens e a
+ * janela de rejeições seguem o relógio padrão ({@link Relogio#getPadrao()}), então uma
+ * reprodução acelerada vê o mesmo ritmo de ordens que a produção.
+ */
+public class MotorRisco {
+
+    // Atributos
+    private final Mercado mercado;
+    private final ConcurrentHashMap<Integer, EstadoUsuario> usuarios;
+    private final ConcurrentHashMap<Integer, Double> limitesPorAtivo;
+
+    private volatile double valorMaximoOrdem = Double.MAX_VALUE;
+    private volatile double limiteNocionalUsuario = Double.MAX_VALUE;
+    private volatile double limiteNocionalAtivoPadrao = Double.MAX_VALUE;
+    private volatile double colarPreco = 0.05; // Desvio máximo em relação ao preço de mercado (5%)
+    private volatile int maxOrdensPorSegundo = 10;
+    private volatile int limiteRejeicoes = 5; // Rejeições na janela que caracterizam padrão suspeito
+    private volatile long janelaRejeicoesMillis = 60_000L;
+    private volatile Consumer<AlertaSeguranca> notificador; // Destino dos alertas de segurança
+
+    // Construtores
+    public MotorRisco(Mercado mercado) {
+        if (mercado == null) {
+            throw new IllegalArgumentException("O mercado não pode ser nulo");
+        }
+        this.mercado = mercado;
+        this.usuarios = new ConcurrentHashMap<>();
+        this.limitesPorAtivo = new ConcurrentHashMap<>();
+    }
+
+    // Métodos
+    /**
+     * Verifica uma ordem e, se aprovada, já reserva a exposição correspondente.
+     * Deve ser chamada imediatamente antes da execução da ordem.
+     * @param idUsuario ID do usuário
+     * @param idAtivo ID do criptoativo
+     * @param quantidade Quantidade da ordem
+     * @param preco Preço unitário da ordem
+     * @param compra true para compra, false para venda
+     * @return Resultado da verificação
+     */
+    public ResultadoRisco avaliarOrdem(int idUsuario, int idAtivo, double quantidade, double preco, boolean compra) {
+        EstadoUsuario estado = this.usuarios.computeIfAbsent(idUsuario, id -> new EstadoUsuario());
+        long agora = Relogio.getPadrao().agoraMillis();
+        ResultadoRisco resultado;
+
+        synchronized (estado) {
+            resultado = verificar(estado, idAtivo, quantidade, preco, compra, agora);
+            if (resultado.isAprovada()) {
+                estado.aplicar(idAtivo, compra ? quantidade * preco : -quantidade * preco);
+                return resultado;
+            }
+            if (!estado.registrarRejeicao(agora, this.limiteRejeicoes, this.janelaRejeicoesMillis)) {
+                return resultado;
+            }
+        }
+
+        // Fora do bloqueio: o notificador pode ser lento
+        Consumer<AlertaSeguranca> destino = this.notificador;
+        if (destino != null) {
+            destino.accept(AlertaSeguranca.criarAlertaSeguranca(idUsuario,
+                    "Várias ordens rejeitadas em sequência pela verificação de risco (última: "
+                            + resultado + ", ativo ID " + idAtivo + ")."));
+        }
+        return resultado;
+    }
+
+    private ResultadoRisco verificar(EstadoUsuario estado, int idAtivo, double quantidade, double preco,
+            boolean compra, long agora) {
+        double valor = quantidade * preco;
+        if (quantidade <= 0 || valor > this.valorMaximoOrdem) {
+            return ResultadoRisco.REJEITADA_TAMANHO_ORDEM;
+        }
+
+        double precoMercado = this.mercado.obterPrecoAtual(idAtivo);
+        if (precoMercado <= 0) {
+            return ResultadoRisco.REJEITADA_PRECO_INDISPONIVEL;
+        }
+        if (Math.abs(preco - precoMercado) > precoMercado * this.colarPreco) {
+            return ResultadoRisco.REJEITADA_COLAR_PRECO;
+        }
+
+        // Vendas só reduzem a exposição
+        if (compra) {
+            if (estado.exposicaoTotal + valor > this.limiteNocionalUsuario) {
+                return ResultadoRisco.REJEITADA_LIMITE_USUARIO;
+            }
+            Double limiteAtivo = this.limitesPorAtivo.get(idAtivo);
+            double limite = limiteAtivo != null ? limiteAtivo : this.limiteNocionalAtivoPadrao;
+            if (estado.exposicao(idAtivo) + valor > limite) {
+                return ResultadoRisco.REJEITADA_LIMITE_ATIVO;
+            }
+        }
+
+        // Por último: só a ordem que seria aprovada consome a taxa do usuário
+        if (!estado.consumirToken(agora, this.maxOrdensPorSegundo)) {
+            return ResultadoRisco.REJEITADA_TAXA_ORDENS;
+        }
+        return ResultadoRisco.APROVADA;
+    }
+
+    /**
+     * Define o limite de exposição de cada usuário em um ativo específico
+     * @param idAtivo ID do criptoativo
+     * @param limite Valor nocional máximo
+     */
+    public void definirLimiteAtivo(int idAtivo, double limite) {
+        this.limitesPorAtivo.put(idAtivo, limite);
+    }
+
+    /**
+     * Obtém a exposição atual de um usuário
+     * @param idUsuario ID do usuário
+     * @return Exposição nocional total
+     */
+    public double obterExposicao(int idUsuario) {
+        EstadoUsuario estado = this.usuarios.get(idUsuario);
+        if (estado == null) {
+            return 0.0;
+        }
+        synchronized (estado) {
+            return estado.exposicaoTotal;
+        }
+    }
+
+    /**
+     * Obtém a exposição atual de um usuário em um ativo
+     * @param idUsuario ID do usuário
+     * @param idAtivo ID do criptoativo
+     * @return Exposição nocional no ativo
+     */
+    public double obterExposicao(int idUsuario, int idAtivo) {
+        EstadoUsuario estado = this.usuarios.get(idUsuario);
+        if (estado == null) {
+            return 0.0;
+        }
+        synchronized (estado) {
+            return estado.exposicao(idAtivo);
+        }
+    }
+
+    // Getters e Setters
+    public Mercado getMercado() {
+        return mercado;
+    }
+
+    public double getValorMaximoOrdem() {
+        return valorMaximoOrdem;
+    }
+
+    public void setValorMaximoOrdem(double valorMaximoOrdem) {
+        this.valorMaximoOrdem = valorMaximoOrdem;
+    }
+
+    public double getLimiteNocionalUsuario() {
+        return limiteNocionalUsuario;
+    }
+
+    public void setLimiteNocionalUsuario(double limiteNocionalUsuario) {
+        this.limiteNocionalUsuario = limiteNocionalUsuario;
+    }
+
+    public double getLimiteNocionalAtivoPadrao() {
+        return limiteNocionalAtivoPadrao;
+    }
+
+    public void setLimiteNocionalAtivoPadrao(double limiteNocionalAtivoPadrao) {
+        this.limiteNocionalAtivoPadrao = limiteNocionalAtivoPadrao;
+    }
+
+    public double getColarPreco() {
+        return colarPreco;
+    }
+
+    public void setColarPreco(double colarPreco) {
+        this.colarPreco = colarPreco;
+    }
+
+    public int getMaxOrdensPorSegundo() {
+        return maxOrdensPorSegundo;
+    }
+
+    public void setMaxOrdensPorSegundo(int maxOrdensPorSegundo) {
+        this.maxOrdensPorSegundo = maxOrdensPorSegundo;
+    }
+
+    public int getLimiteRejeicoes() {
+        return limiteRejeicoes;
+    }
+
+    public void setLimiteRejeicoes(int limiteRejeicoes) {
+        this.limiteRejeicoes = limiteRejeicoes;
+    }
+
+    public long getJanelaRejeicoesSegundos() {
+        return janelaRejeicoesMillis / 1000L;
+    }
+
+    public void setJanelaRejeicoesSegundos(long segundos) {
+        this.janelaRejeicoesMillis = segundos * 1000L;
+    }
+
+    public Consumer<AlertaSeguranca> getNotificador() {
+        return notificador;
+    }
+
+    public void setNotificador(Consumer<AlertaSeguranca> notificador) {
+        this.notificador = notificador;
+    }
+
+    /**
+     * Estado de risco de um usuário: exposições, balde de ordens e rejeições recentes.
+     * Acessado sempre sob o bloqueio do próprio objeto.
+     */
+    private static final class EstadoUsuario {
+        private double exposicaoTotal;
+        private final Map<Integer, double[]> exposicaoPorAtivo = new HashMap<>();
+
+        // Balde de tokens para a taxa de ordens
+        private double tokens = -1;
+        private long ultimaRecarga; // Instante em milissegundos
+
+        // Rejeições recentes, em buffer circular
+        private long[] rejeicoes = new long[0];
+        private int proximaRejeicao;
+
+        double exposicao(int idAtivo) {
+            double[] valor = this.exposicaoPorAtivo.get(idAtivo);
+            return valor == null ? 0.0 : valor[0];
+        }
+
+        void aplicar(int idAtivo, double delta) {
+            double[] valor = this.exposicaoPorAtivo.computeIfAbsent(idAtivo, id -> new double[1]);
+            double anterior = valor[0];
+            valor[0] = Math.max(0.0, anterior + delta);
+            this.exposicaoTotal = Math.max(0.0, this.exposicaoTotal + (valor[0] - anterior));
+        }
+
+        boolean consumirToken(long agora, int maxPorSegundo) {
+            if (this.tokens < 0) {
+                this.tokens = maxPorSegundo;
+                this.ultimaRecarga = agora;
+            } else {
+                double recarga = Math.max(0, agora - this.ultimaRecarga) * maxPorSegundo / 1000.0;
+                this.tokens = Math.min(maxPorSegundo, this.tokens + recarga);
+                this.ultimaRecarga = agora;
+            }
+
+            if (this.tokens < 1.0) {
+                return false;
+            }
+            this.tokens -= 1.0;
+            return true;
+        }
+
+        /**
+         * @return true se a rejeição completou um padrão suspeito
+         */
+        boolean registrarRejeicao(long agora, int limite, long janelaMillis) {
+            if (limite <= 0) {
+                return false;
+            }
+            if (this.rejeicoes.length != limite) {
+                this.rejeicoes = new long[limite];
+                Arrays.fill(this.rejeicoes, Long.MIN_VALUE);
+                this.proximaRejeicao = 0;
+            }
+
+            this.rejeicoes[this.proximaRejeicao] = agora;
+            this.proximaRejeicao = (this.proximaRejeicao + 1) % limite;
+
+            // A próxima posição guarda a mais antiga entre as últimas "limite" rejeições
+            long maisAntiga = this.rejeicoes[this.proximaRejeicao];
+
+            if (maisAntiga != Long.MIN_VALUE && agora - maisAntiga <= janelaMillis) {
+                // Zera o histórico para não alertar de novo a cada rejeição seguinte
+                Arrays.fill(this.rejeicoes, Long.MIN_VALUE);
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package br.com.tiopatinhasexchange.service;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Análise de risco de um conjunto de posições (de uma {@code Carteira} ou do
+ * {@code Simulador}) por simulação de cenários.
+ *
+ * Cada cenário é uma trajetória diária correlacionada de todos os ativos, gerada pelos
+ * {@link ModeloPreco} e pelo fator de Cholesky da matriz de correlação; dela saem a perda
+ * no horizonte e o drawdown máximo do patrimônio. Os quantis (VaR e drawdown) são
+ * estimados em fluxo por {@link EstimadorQuantilP2}, sem guardar nem ordenar os cenários.
+ * O CVaR é calculado numa segunda passada, que regera os mesmos cenários (as sementes
+ * vêm do índice do cenário) e soma as perdas a partir do VaR.
+ *
+ * Os cenários são calculados em blocos paralelos e entregues aos estimadores sempre na
+ * mesma ordem, então o relatório é o mesmo para a mesma semente em qualquer pool.
+ */
+public class MotorRiscoCenarios {
+
+    private static final int CENARIOS_POR_BLOCO = 4096;
+    private static final long SEMENTE_MODELOS = 0x2545F4914F6CDD1DL;
+
+    // Atributos
+    private final ForkJoinPool pool;
+    private double[] niveisConfianca;
+
+    // Construtores
+    public MotorRiscoCenarios() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public MotorRiscoCenarios(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("O pool não pode ser nulo");
+        }
+        this.pool = pool;
+        this.niveisConfianca = new double[] { 0.95, 0.99, 0.999 };
+    }
+
+    // Métodos
+    /**
+     * Avalia posições com o mesmo modelo browniano (sem tendência) e a mesma correlação
+     * entre todos os pares de ativos
+     * @param posicoes Quantidade por ID do criptoativo
+     * @param caixa Saldo em dinheiro
+     * @param precos Preço atual por ID do criptoativo
+     * @param volatilidade Volatilidade anual de cada ativo
+     * @param correlacao Correlação entre quaisquer dois ativos
+     * @param dias Horizonte em dias
+     * @param cenarios Número de cenários
+     * @param semente Semente da simulação
+     * @return Relatório de risco
+     */
+    public RelatorioRiscoCenarios avaliar(Map<Integer, Double> posicoes, double caixa, Map<Integer, Double> precos,
+            double volatilidade, double correlacao, int dias, long cenarios, long semente) {
+        // Ordem fixa dos ativos, para que o resultado não dependa da ordem do mapa
+        Map<Integer, Double> ordenadas = new TreeMap<>();
+        for (Map.Entry<Integer, Double> posicao : posicoes.entrySet()) {
+            if (posicao.getValue() != 0) {
+                ordenadas.put(posicao.getKey(), posicao.getValue());
+            }
+        }
+        int n = ordenadas.size();
+        if (n == 0) {
+            throw new IllegalArgumentException("Não há posições para avaliar");
+        }
+
+        double[] quantidades = new double[n];
+        double[] precosAtuais = new double[n];
+        ModeloPreco[] modelos = new ModeloPreco[n];
+        double[][] matriz = new double[n][n];
+        ModeloPreco modelo = new ModeloBrowniano(0.0, volatilidade);
+        int i = 0;
+        for (Map.Entry<Integer, Double> posicao : ordenadas.entrySet()) {
+            Double preco = precos.get(posicao.getKey());
+            if (preco == null || preco <= 0) {
+                throw new IllegalArgumentException("Preço indisponível para o ativo " + posicao.getKey());
+            }
+            quantidades[i] = posicao.getValue();
+            precosAtuais[i] = preco;
+            modelos[i] = modelo;
+            for (int j = 0; j < n; j++) {
+                matriz[i][j] = i == j ? 1.0 : correlacao;
+            }
+            i++;
+        }
+        return avaliar(quantidades, precosAtuais, caixa, modelos, matriz, dias, cenarios, semente);
+    }
+
+    /**
+     * Avalia posições com um modelo de preço por ativo
+     * @param quantidades Quantidade de cada ativo
+     * @param precos Preço atual de cada ativo
+     * @param caixa Saldo em dinheiro
+     * @param modelos Modelo de preço de cada ativo
+     * @param correlacao Matriz de correlação entre os ativos
+     * @param dias Horizonte em dias
+     * @param cenarios Número de cenários
+     * @param semente Semente da simulação
+     * @return Relatório de risco
+     */
+    public RelatorioRiscoCenarios avaliar(double[] quantidades, double[] precos, double caixa, ModeloPreco[] modelos,
+            double[][] correlacao, int dias, long cenarios, long semente) {
+        if (dias <= 0 || cenarios <= 0 || quantidades.length != precos.length
+                || quantidades.length != modelos.length) {
+            throw new IllegalArgumentException("Parâmetros da análise de risco inválidos");
+        }
+        double valorInicial = caixa;
+        for (int a = 0; a < quantidades.length; a++) {
+            valorInicial += quantidades[a] * precos[a];
+        }
+        if (valorInicial <= 0) {
+            throw new IllegalArgumentException("O patrimônio inicial deve ser positivo");
+        }
+
+        Cenarios contexto = new Cenarios(quantidades.clone(), precos.clone(), caixa, valorInicial, modelos.clone(),
+                GeradorMercadoCorrelacionado.fatorarCholesky(correlacao, quantidades.length), dias, cenarios, semente);
+        double[] niveis = this.niveisConfianca.clone();
+        int totalBlocos = (int) ((cenarios + CENARIOS_POR_BLOCO - 1) / CENARIOS_POR_BLOCO);
+
+        // Primeira passada: quantis em fluxo, na ordem dos cenários
+        EstimadorQuantilP2[] estimadoresPerda = new EstimadorQuantilP2[niveis.length];
+        EstimadorQuantilP2[] estimadoresDrawdown = new EstimadorQuantilP2[niveis.length];
+        for (int k = 0; k < niveis.length; k++) {
+            estimadoresPerda[k] = new EstimadorQuantilP2(niveis[k]);
+            estimadoresDrawdown[k] = new EstimadorQuantilP2(niveis[k]);
+        }
+        AcumuladorEstatistico perda = new AcumuladorEstatistico();
+        AcumuladorEstatistico drawdown = new AcumuladorEstatistico();
+
+        int blocosPorRodada = Math.max(1, Math.min(totalBlocos, this.pool.getParallelism()));
+        double[][] perdas = new double[blocosPorRodada][CENARIOS_POR_BLOCO];
+        double[][] drawdowns = new double[blocosPorRodada][CENARIOS_POR_BLOCO];
+        for (int primeiro = 0; primeiro < totalBlocos; primeiro += blocosPorRodada) {
+            int inicio = primeiro;
+            int rodada = Math.min(blocosPorRodada, totalBlocos - primeiro);
+            executar(() -> IntStream.range(0, rodada).parallel()
+                    .forEach(g -> contexto.calcularBloco(inicio + g, perdas[g], drawdowns[g])));
+
+            for (int g = 0; g < rodada; g++) {
+                int tamanho = contexto.tamanhoBloco(inicio + g);
+                for (int c = 0; c < tamanho; c++) {
+                    for (int k = 0; k < niveis.length; k++) {
+                        estimadoresPerda[k].adicionar(perdas[g][c]);
+                        estimadoresDrawdown[k].adicionar(drawdowns[g][c]);
+                    }
+                    perda.adicionar(perdas[g][c]);
+                    drawdown.adicionar(drawdowns[g][c]);
+                }
+            }
+        }
+
+        double[] valorEmRisco = new double[niveis.length];
+        double[] drawdownQuantil = new double[niveis.length];
+        for (int k = 0; k < niveis.length; k++) {
+            valorEmRisco[k] = estimadoresPerda[k].getQuantil();
+            drawdownQuantil[k] = estimadoresDrawdown[k].getQuantil();
+        }
+
+        // Segunda passada: média das perdas na cauda, somada bloco a bloco na mesma ordem
+        double[][] somas = new double[totalBlocos][];
+        long[][] contagens = new long[totalBlocos][];
+        executar(() -> IntStream.range(0, totalBlocos).parallel().forEach(b -> {
+            double[] perdasBloco = new double[CENARIOS_POR_BLOCO];
+            contexto.calcularBloco(b, perdasBloco, new double[CENARIOS_POR_BLOCO]);
+            somas[b] = new double[niveis.length];
+            contagens[b] = new long[niveis.length];
+            for (int c = 0; c < contexto.tamanhoBloco(b); c++) {
+                for (int k = 0; k < niveis.length; k++) {
+                    if (perdasBloco[c] >= valorEmRisco[k]) {
+                        somas[b][k] += perdasBloco[c];
+                        contagens[b][k]++;
+                    }
+                }
+            }
+        }));
+        double[] perdaEsperadaCauda = new double[niveis.length];
+        for (int k = 0; k < niveis.length; k++) {
+            double soma = 0;
+            long contagem = 0;
+            for (int b = 0; b < totalBlocos; b++) {
+                soma += somas[b][k];
+                contagem += contagens[b][k];
+            }
+            perdaEsperadaCauda[k] = contagem == 0 ? valorEmRisco[k] : soma / contagem;
+        }
+
+        return new RelatorioRiscoCenarios(valorInicial, dias, cenarios, niveis, valorEmRisco, perdaEsperadaCauda,
+                drawdownQuantil, perda, drawdown);
+    }
+
+    private void executar(Runnable tarefa) {
+        if (this.pool.getParallelism() == 1) {
+            tarefa.run();
+            return;
+        }
+        this.pool.submit(tarefa).join();
+    }
+
+    // Getters e Setters
+    public ForkJoinPool getPool() {
+        return this.pool;
+    }
+
+    public double[] getNiveisConfianca() {
+        return this.niveisConfianca.clone();
+    }
+
+    public void setNiveisConfianca(double[] niveisConfianca) {
+        if (niveisConfianca == null || niveisConfianca.length == 0) {
+            throw new IllegalArgumentException("Informe ao menos um nível de confiança");
+        }
+        for (double nivel : niveisConfianca) {
+            if (!(nivel > 0 && nivel < 1)) {
+                throw new IllegalArgumentException("Os níveis de confiança devem estar entre 0 e 1");
+            }
+        }
+        this.niveisConfianca = niveisConfianca.clone();
+    }
+
+    /**
+     * Parâmetros de uma análise e geração dos cenários de um bloco
+     */
+    private static final class Cenarios {
+        private final double[] quantidades;
+        private final double[] precos;
+        private final double caixa;
+        private final double valorInicial;
+        private final ModeloPreco[] modelos;
+        private final double[] fatorCholesky;
+        private final int dias;
+        private final long cenarios;
+        private final long semente;
+
+        Cenarios(double[] quantidades, double[] precos, double caixa, double valorInicial, ModeloPreco[] modelos,
+                double[] fatorCholesky, int dias, long cenarios, long semente) {
+            this.quantidades = quantidades;
+            this.precos = precos;
+            this.caixa = caixa;
+            this.valorInicial = valorInicial;
+            this.modelos = modelos;
+            this.fatorCholesky = fatorCholesky;
+            this.dias = dias;
+            this.cenarios = cenarios;
+            this.semente = semente;
+        }
+
+        int tamanhoBloco(int bloco) {
+            return (int) Math.min(CENARIOS_POR_BLOCO, this.cenarios - (long) bloco * CENARIOS_POR_BLOCO);
+        }
+
+        /**
+         * Calcula perda e drawdown máximo de cada cenário do bloco
+         */
+        void calcularBloco(int bloco, double[] perdas, double[] drawdowns) {
+            int ativos = this.quantidades.length;
+            int dias = this.dias;
+            double[] retornos = new double[ativos * dias];
+            double[] independentes = new double[ativos];
+            double[] valores = new double[dias];
+            long primeiro = (long) bloco * CENARIOS_POR_BLOCO;
+
+            for (int c = 0; c < tamanhoBloco(bloco); c++) {
+                long cenario = primeiro + c;
+
+                // Choques correlacionados, [ativo * dias + dia]
+                SplittableRandom choques = new SplittableRandom(MotorMonteCarlo.sementeTrajetoria(this.semente, cenario));
+                for (int t = 0; t < dias; t++) {
+                    for (int j = 0; j < ativos; j++) {
+                        independentes[j] = choques.nextGaussian();
+                    }
+                    int linha = 0;
+                    for (int i = 0; i < ativos; i++) {
+                        double choque = 0;
+                        for (int j = 0; j <= i; j++) {
+                            choque += this.fatorCholesky[linha + j] * independentes[j];
+                        }
+                        retornos[i * dias + t] = choque;
+                        linha += i + 1;
+                    }
+                }
+
+                // Patrimônio diário
+                SplittableRandom aleatorio = new SplittableRandom(MotorMonteCarlo.sementeTrajetoria(
+                        this.semente ^ SEMENTE_MODELOS, cenario));
+                Arrays.fill(valores, this.caixa);
+                for (int a = 0; a < ativos; a++) {
+                    int inicio = a * dias;
+                    this.modelos[a].copiar().gerarRetornos(retornos, inicio, dias, GeradorMercadoCorrelacionado.DT_DIA,
+                            aleatorio);
+                    double preco = this.precos[a];
+                    double quantidade = this.quantidades[a];
+                    for (int t = 0; t < dias; t++) {
+                        preco *= Math.exp(retornos[inicio + t]);
+                        valores[t] += quantidade * preco;
+                    }
+                }
+
+                double pico = this.valorInicial;
+                double maiorQueda = 0;
+                for (int t = 0; t < dias; t++) {
+                    if (valores[t] > pico) {
+                        pico = valores[t];
+                    } else if (pico > 0) {
+                        maiorQueda = Math.max(maiorQueda, (pico - valores[t]) / pico);
+                    }
+                }
+                perdas[c] = this.valorInicial - valores[dias - 1];
+                drawdowns[c] = maiorQueda;
+            }
+        }
+    }
+}
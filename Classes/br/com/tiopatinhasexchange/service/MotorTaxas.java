@@ -0,0 +1,267 @@
+package br.com.tiopatinhasexchange.service;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serviço que calcula as taxas de compra e venda das ordens.
+ * As taxas dependem do papel da ordem (maker ou taker), da faixa de volume negociado
+ * pelo usuário nos últimos 30 dias e, opcionalmente, de taxas específicas por ativo.
+ *
+ * A faixa de cada usuário é recalculada somente quando o seu volume muda (ou quando
+ * um dia expira da janela), então o cálculo da taxa de uma ordem é apenas uma consulta
+ * em tabela.
+ */
+public class MotorTaxas {
+
+    // Atributos
+    public static final int DIAS_JANELA = 30;
+    private static final long MILIS_POR_DIA = 86_400_000L;
+    private static final int MAKER = 0;
+    private static final int TAKER = 1;
+
+    // Tabelas imutáveis, substituídas por inteiro a cada alteração de configuração
+    private volatile double[] limitesFaixas; // Volume mínimo (30 dias) de cada faixa, em ordem crescente
+    private volatile double[][] taxasPadrao; // [faixa][MAKER/TAKER]
+    private volatile Map<Integer, double[][]> taxasPorAtivo; // Tabelas específicas por ativo
+
+    private final ConcurrentHashMap<Integer, VolumeUsuario> volumes; // Volume móvel por usuário
+
+    // Construtores
+    public MotorTaxas() {
+        this(0.001, 0.001);
+    }
+
+    /**
+     * @param taxaMakerBase Taxa maker da faixa inicial (ex.: 0.001 = 0,1%)
+     * @param taxaTakerBase Taxa taker da faixa inicial
+     */
+    public MotorTaxas(double taxaMakerBase, double taxaTakerBase) {
+        validarTaxa(taxaMakerBase);
+        validarTaxa(taxaTakerBase);
+        this.limitesFaixas = new double[] { 0.0 };
+        this.taxasPadrao = new double[][] { { taxaMakerBase, taxaTakerBase } };
+        this.taxasPorAtivo = new HashMap<>();
+        this.volumes = new ConcurrentHashMap<>();
+    }
+
+    // Métodos
+    /**
+     * Adiciona (ou substitui) uma faixa de taxas a partir de um volume de 30 dias
+     * @param volumeMinimo Volume financeiro mínimo para a faixa
+     * @param taxaMaker Taxa maker da faixa
+     * @param taxaTaker Taxa taker da faixa
+     */
+    public synchronized void adicionarFaixa(double volumeMinimo, double taxaMaker, double taxaTaker) {
+        if (volumeMinimo < 0) {
+            throw new IllegalArgumentException("O volume mínimo da faixa não pode ser negativo");
+        }
+        validarTaxa(taxaMaker);
+        validarTaxa(taxaTaker);
+
+        double[] limites = this.limitesFaixas;
+        double[][] taxas = this.taxasPadrao;
+        int posicao = Arrays.binarySearch(limites, volumeMinimo);
+
+        double[] novosLimites;
+        double[][] novasTaxas;
+        if (posicao >= 0) {
+            novosLimites = limites;
+            novasTaxas = taxas.clone();
+            novasTaxas[posicao] = new double[] { taxaMaker, taxaTaker };
+        } else {
+            posicao = -posicao - 1;
+            novosLimites = inserir(limites, posicao, volumeMinimo);
+            novasTaxas = new double[taxas.length + 1][];
+            System.arraycopy(taxas, 0, novasTaxas, 0, posicao);
+            novasTaxas[posicao] = new double[] { taxaMaker, taxaTaker };
+            System.arraycopy(taxas, posicao, novasTaxas, posicao + 1, taxas.length - posicao);
+        }
+
+        // Tabelas por ativo seguem o número de faixas da tabela padrão
+        Map<Integer, double[][]> porAtivo = new HashMap<>();
+        for (Map.Entry<Integer, double[][]> entrada : this.taxasPorAtivo.entrySet()) {
+            double[] taxasAtivo = entrada.getValue()[0];
+            porAtivo.put(entrada.getKey(), tabelaFixa(novasTaxas.length, taxasAtivo[MAKER], taxasAtivo[TAKER]));
+        }
+
+        this.taxasPadrao = novasTaxas;
+        this.taxasPorAtivo = porAtivo;
+        this.limitesFaixas = novosLimites;
+
+        // Faixas mudaram: reclassifica os usuários já conhecidos
+        for (VolumeUsuario volume : this.volumes.values()) {
+            volume.reclassificar(novosLimites);
+        }
+    }
+
+    /**
+     * Define taxas específicas para um ativo, aplicadas em todas as faixas
+     * @param idAtivo ID do criptoativo
+     * @param taxaMaker Taxa maker do ativo
+     * @param taxaTaker Taxa taker do ativo
+     */
+    public synchronized void definirTaxasAtivo(int idAtivo, double taxaMaker, double taxaTaker) {
+        validarTaxa(taxaMaker);
+        validarTaxa(taxaTaker);
+        Map<Integer, double[][]> porAtivo = new HashMap<>(this.taxasPorAtivo);
+        porAtivo.put(idAtivo, tabelaFixa(this.taxasPadrao.length, taxaMaker, taxaTaker));
+        this.taxasPorAtivo = porAtivo;
+    }
+
+    /**
+     * Remove as taxas específicas de um ativo, voltando à tabela padrão
+     * @param idAtivo ID do criptoativo
+     */
+    public synchronized void removerTaxasAtivo(int idAtivo) {
+        Map<Integer, double[][]> porAtivo = new HashMap<>(this.taxasPorAtivo);
+        porAtivo.remove(idAtivo);
+        this.taxasPorAtivo = porAtivo;
+    }
+
+    /**
+     * Calcula a taxa de uma ordem
+     * @param idUsuario ID do usuário
+     * @param idAtivo ID do criptoativo
+     * @param valorOrdem Valor financeiro da ordem
+     * @param maker true se a ordem adiciona liquidez (maker), false se consome (taker)
+     * @return Valor da taxa
+     */
+    public double calcularTaxa(int idUsuario, int idAtivo, double valorOrdem, boolean maker) {
+        double[][] tabela = this.taxasPorAtivo.get(idAtivo);
+        if (tabela == null) {
+            tabela = this.taxasPadrao;
+        }
+
+        int faixa = obterFaixa(idUsuario);
+        if (faixa >= tabela.length) {
+            faixa = tabela.length - 1;
+        }
+
+        return valorOrdem * tabela[faixa][maker ? MAKER : TAKER];
+    }
+
+    /**
+     * Registra o volume de uma ordem executada, atualizando a faixa do usuário
+     * @param idUsuario ID do usuário
+     * @param valorOrdem Valor financeiro executado
+     */
+    public void registrarVolume(int idUsuario, double valorOrdem) {
+        if (valorOrdem <= 0) {
+            return;
+        }
+        VolumeUsuario volume = this.volumes.computeIfAbsent(idUsuario, id -> new VolumeUsuario());
+        volume.adicionar(diaAtual(), valorOrdem, this.limitesFaixas);
+    }
+
+    /**
+     * Obtém a faixa atual do usuário (0 = faixa inicial)
+     * @param idUsuario ID do usuário
+     * @return Índice da faixa
+     */
+    public int obterFaixa(int idUsuario) {
+        VolumeUsuario volume = this.volumes.get(idUsuario);
+        if (volume == null) {
+            return 0;
+        }
+
+        long hoje = diaAtual();
+        if (volume.diaClassificacao != hoje) {
+            // Primeiro acesso do dia: dias antigos podem ter saído da janela
+            volume.adicionar(hoje, 0.0, this.limitesFaixas);
+        }
+        return volume.faixa;
+    }
+
+    /**
+     * Obtém o volume negociado pelo usuário nos últimos 30 dias
+     * @param idUsuario ID do usuário
+     * @return Volume financeiro acumulado na janela
+     */
+    public double obterVolume30Dias(int idUsuario) {
+        VolumeUsuario volume = this.volumes.get(idUsuario);
+        if (volume == null) {
+            return 0.0;
+        }
+        volume.adicionar(diaAtual(), 0.0, this.limitesFaixas);
+        return volume.getSoma();
+    }
+
+    private static long diaAtual() {
+        return Relogio.getPadrao().agoraMillis() / MILIS_POR_DIA;
+    }
+
+    private static void validarTaxa(double taxa) {
+        if (taxa < 0 || taxa >= 1) {
+            throw new IllegalArgumentException("Taxa inválida: " + taxa);
+        }
+    }
+
+    private static double[] inserir(double[] origem, int posicao, double valor) {
+        double[] destino = new double[origem.length + 1];
+        System.arraycopy(origem, 0, destino, 0, posicao);
+        destino[posicao] = valor;
+        System.arraycopy(origem, posicao, destino, posicao + 1, origem.length - posicao);
+        return destino;
+    }
+
+    private static double[][] tabelaFixa(int faixas, double taxaMaker, double taxaTaker) {
+        double[][] tabela = new double[faixas][];
+        double[] taxas = { taxaMaker, taxaTaker };
+        Arrays.fill(tabela, taxas);
+        return tabela;
+    }
+
+    /**
+     * Volume móvel de 30 dias de um usuário, em baldes diários circulares
+     */
+    private static final class VolumeUsuario {
+        private final double[] baldes = new double[DIAS_JANELA];
+        private final long[] diaBalde = new long[DIAS_JANELA];
+        private double soma;
+        private volatile int faixa;
+        private volatile long diaClassificacao = Long.MIN_VALUE;
+
+        synchronized void adicionar(long dia, double valor, double[] limites) {
+            int indice = (int) Math.floorMod(dia, (long) DIAS_JANELA);
+
+            // Expira os baldes que saíram da janela
+            if (this.diaClassificacao != dia) {
+                for (int i = 0; i < DIAS_JANELA; i++) {
+                    if (this.diaBalde[i] <= dia - DIAS_JANELA && this.baldes[i] != 0.0) {
+                        this.soma -= this.baldes[i];
+                        this.baldes[i] = 0.0;
+                    }
+                }
+            }
+            if (this.diaBalde[indice] != dia) {
+                this.soma -= this.baldes[indice];
+                this.baldes[indice] = 0.0;
+                this.diaBalde[indice] = dia;
+            }
+
+            this.baldes[indice] += valor;
+            this.soma += valor;
+            if (this.soma < 0) {
+                this.soma = 0.0; // Resíduo de ponto flutuante
+            }
+
+            this.faixa = classificar(this.soma, limites);
+            this.diaClassificacao = dia;
+        }
+
+        synchronized void reclassificar(double[] limites) {
+            this.faixa = classificar(this.soma, limites);
+        }
+
+        synchronized double getSoma() {
+            return this.soma;
+        }
+
+        private static int classificar(double volume, double[] limites) {
+            int posicao = Arrays.binarySearch(limites, volume);
+            return posicao >= 0 ? posicao : Math.max(0, -posicao - 2);
+        }
+    }
+}
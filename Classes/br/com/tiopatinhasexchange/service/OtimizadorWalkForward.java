@@ -0,0 +1,176 @@
+package br.com.tiopatinhasexchange.service;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import br.com.tiopatinhasexchange.model.CondicaoCompilada;
+import br.com.tiopatinhasexchange.model.EstrategiaAutomatica;
+import br.com.tiopatinhasexchange.service.VarreduraParametros.ResultadoVarredura;
+
+/**
+ * Otimização walk-forward dos parâmetros (valor de referência e quantidade) de uma
+ * estratégia sobre uma série histórica.
+ *
+ * A série é dividida em janelas deslizantes: em cada uma, as combinações são testadas
+ * num trecho de otimização ({@code candlesOtimizacao} candles) e a melhor, segundo o
+ * critério, é validada no trecho seguinte ({@code candlesValidacao} candles), que ela
+ * não viu. A janela seguinte avança {@code candlesValidacao} candles, de modo que os
+ * trechos de validação cobrem a série sem sobreposição. No modo ancorado, o trecho de
+ * otimização sempre começa no primeiro candle e apenas cresce.
+ *
+ * As janelas rodam em paralelo. A variação de 24 horas é calculada uma única vez para a
+ * série inteira e compartilhada, somente leitura, por todas as janelas e combinações; o
+ * valor no início de cada trecho já considera os candles anteriores. As combinações são
+ * montadas uma vez e reaproveitadas em todas as janelas.
+ */
+public class OtimizadorWalkForward {
+
+    // Atributos
+    private final MotorBacktest motor;
+    private Comparator<ResultadoVarredura> criterio; // Escolha da melhor combinação de cada janela
+    private boolean ancorado; // true = otimização sempre a partir do primeiro candle
+
+    // Construtores
+    public OtimizadorWalkForward(MotorBacktest motor) {
+        if (motor == null) {
+            throw new IllegalArgumentException("O motor de backtest não pode ser nulo");
+        }
+        this.motor = motor;
+        this.criterio = VarreduraParametros.POR_RETORNO_AJUSTADO;
+        this.ancorado = false;
+    }
+
+    // Métodos
+    /**
+     * Otimiza testando todas as combinações da grade em cada janela
+     * @param modelo Estratégia cujos demais parâmetros são mantidos
+     * @param referencias Faixa do valor de referência
+     * @param quantidades Faixa da quantidade
+     * @param serie Série de candles do ativo da estratégia
+     * @param candlesOtimizacao Tamanho do trecho de otimização
+     * @param candlesValidacao Tamanho do trecho de validação (e avanço entre janelas)
+     * @return Resultado por janela
+     */
+    public ResultadoWalkForward otimizarEmGrade(EstrategiaAutomatica modelo, FaixaParametro referencias,
+            FaixaParametro quantidades, SerieCandles serie, int candlesOtimizacao, int candlesValidacao) {
+        VarreduraParametros.validarModelo(modelo);
+        List<EstrategiaAutomatica> candidatas = new ArrayList<>(referencias.getPassos() * quantidades.getPassos());
+        for (int i = 0; i < referencias.getPassos(); i++) {
+            for (int j = 0; j < quantidades.getPassos(); j++) {
+                candidatas.add(VarreduraParametros.criarCandidata(modelo, referencias.valor(i), quantidades.valor(j),
+                        candidatas.size()));
+            }
+        }
+        return executar(modelo, candidatas, serie, candlesOtimizacao, candlesValidacao);
+    }
+
+    /**
+     * Otimiza testando as mesmas combinações sorteadas em todas as janelas; o sorteio é
+     * o mesmo para a mesma semente
+     * @param modelo Estratégia cujos demais parâmetros são mantidos
+     * @param referencias Faixa do valor de referência
+     * @param quantidades Faixa da quantidade
+     * @param serie Série de candles do ativo da estratégia
+     * @param candlesOtimizacao Tamanho do trecho de otimização
+     * @param candlesValidacao Tamanho do trecho de validação (e avanço entre janelas)
+     * @param amostras Quantidade de combinações
+     * @param semente Semente do sorteio
+     * @return Resultado por janela
+     */
+    public ResultadoWalkForward otimizarAleatorio(EstrategiaAutomatica modelo, FaixaParametro referencias,
+            FaixaParametro quantidades, SerieCandles serie, int candlesOtimizacao, int candlesValidacao,
+            int amostras, long semente) {
+        VarreduraParametros.validarModelo(modelo);
+        if (amostras <= 0) {
+            throw new IllegalArgumentException("A quantidade de amostras deve ser positiva");
+        }
+        SplittableRandom aleatorio = new SplittableRandom(semente);
+        List<EstrategiaAutomatica> candidatas = new ArrayList<>(amostras);
+        for (int i = 0; i < amostras; i++) {
+            candidatas.add(VarreduraParametros.criarCandidata(modelo, referencias.sortear(aleatorio),
+                    quantidades.sortear(aleatorio), i));
+        }
+        return executar(modelo, candidatas, serie, candlesOtimizacao, candlesValidacao);
+    }
+
+    private ResultadoWalkForward executar(EstrategiaAutomatica modelo, List<EstrategiaAutomatica> candidatas,
+            SerieCandles serie, int candlesOtimizacao, int candlesValidacao) {
+        if (modelo.getIdCriptoativo() != serie.getIdCriptoativo()) {
+            throw new IllegalArgumentException("A série não é do ativo da estratégia");
+        }
+        if (candlesOtimizacao <= 0 || candlesValidacao <= 0) {
+            throw new IllegalArgumentException("Os trechos de otimização e validação devem ser positivos");
+        }
+        int tamanho = serie.getTamanho();
+        if (candlesOtimizacao >= tamanho) {
+            throw new IllegalArgumentException("A série não tem candles suficientes para uma janela");
+        }
+
+        CondicaoCompilada condicao = modelo.getCondicaoCompilada();
+        double[] variacoes = condicao != null && condicao.getCondicao().isUsaVariacao()
+                ? MotorBacktest.calcularVariacoes(serie) : null;
+        int quantidadeJanelas = (tamanho - candlesOtimizacao + candlesValidacao - 1) / candlesValidacao;
+        Comparator<ResultadoVarredura> criterioJanela = this.criterio;
+        boolean ancoradoJanela = this.ancorado;
+
+        ResultadoWalkForward.JanelaWalkForward[] janelas = new ResultadoWalkForward.JanelaWalkForward[quantidadeJanelas];
+        IntStream.range(0, quantidadeJanelas).parallel().forEach(k -> {
+            int fimOtimizacao = k * candlesValidacao + candlesOtimizacao;
+            int inicioOtimizacao = ancoradoJanela ? 0 : fimOtimizacao - candlesOtimizacao;
+            int fimValidacao = Math.min(tamanho, fimOtimizacao + candlesValidacao);
+            janelas[k] = executarJanela(k, modelo, candidatas, serie, variacoes, inicioOtimizacao, fimOtimizacao,
+                    fimValidacao, criterioJanela);
+        });
+        return new ResultadoWalkForward(this.motor.getSaldoInicial(), Arrays.asList(janelas));
+    }
+
+    private ResultadoWalkForward.JanelaWalkForward executarJanela(int indice, EstrategiaAutomatica modelo,
+            List<EstrategiaAutomatica> candidatas, SerieCandles serie, double[] variacoes, int inicioOtimizacao,
+            int fimOtimizacao, int fimValidacao, Comparator<ResultadoVarredura> criterio) {
+        List<ResultadoBacktest> resultados = this.motor.executar(serie, inicioOtimizacao, fimOtimizacao, variacoes,
+                candidatas);
+        List<ResultadoVarredura> tabela = new ArrayList<>(candidatas.size());
+        for (int i = 0; i < candidatas.size(); i++) {
+            EstrategiaAutomatica candidata = candidatas.get(i);
+            tabela.add(new ResultadoVarredura(candidata.getValorReferencia(), candidata.getQuantidade(),
+                    resultados.get(i)));
+        }
+        ResultadoVarredura melhor = Collections.min(tabela, criterio);
+
+        EstrategiaAutomatica escolhida = VarreduraParametros.criarCandidata(modelo, melhor.getValorReferencia(),
+                melhor.getQuantidade(), indice);
+        ResultadoBacktest validacao = this.motor.executar(serie, fimOtimizacao, fimValidacao, variacoes,
+                Collections.singletonList(escolhida)).get(0);
+        return new ResultadoWalkForward.JanelaWalkForward(indice, serie.getInstante(inicioOtimizacao),
+                serie.getInstante(fimOtimizacao), serie.getInstante(fimValidacao - 1),
+                fimOtimizacao - inicioOtimizacao, fimValidacao - fimOtimizacao, melhor, validacao);
+    }
+
+    // Getters e Setters
+    public MotorBacktest getMotor() {
+        return this.motor;
+    }
+
+    public Comparator<ResultadoVarredura> getCriterio() {
+        return this.criterio;
+    }
+
+    public void setCriterio(Comparator<ResultadoVarredura> criterio) {
+        if (criterio == null) {
+            throw new IllegalArgumentException("O critério não pode ser nulo");
+        }
+        this.criterio = criterio;
+    }
+
+    public boolean isAncorado() {
+        return this.ancorado;
+    }
+
+    public void setAncorado(boolean ancorado) {
+        this.ancorado = ancorado;
+    }
+}
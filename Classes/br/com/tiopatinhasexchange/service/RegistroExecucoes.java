@@ -0,0 +1,200 @@
+package br.com.tiopatinhasexchange.service;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import br.com.tiopatinhasexchange.model.AcaoEstrategia;
+import br.com.tiopatinhasexchange.model.ExecucaoEstrategia;
+
+/**
+ * Registro somente de acréscimo das execuções de estratégias.
+ *
+ * Cada execução é guardada em memória e, se houver arquivo, acrescentada a ele como
+ * uma linha de texto separada por ponto e vírgula. Ao abrir um arquivo existente, as
+ * execuções anteriores são recarregadas. As estatísticas por estratégia
+ * ({@link EstatisticasEstrategia}) são atualizadas no registro de cada execução.
+ */
+public class RegistroExecucoes implements AutoCloseable {
+
+    private static final String SEPARADOR = ";";
+
+    // Atributos
+    private final Path arquivo; // null = apenas em memória
+    private final List<ExecucaoEstrategia> execucoes;
+    private final ConcurrentHashMap<Integer, EstatisticasEstrategia> estatisticas;
+    private BufferedWriter escritor;
+
+    // Construtores
+    public RegistroExecucoes() {
+        this(null);
+    }
+
+    public RegistroExecucoes(Path arquivo) {
+        this.arquivo = arquivo;
+        this.execucoes = new ArrayList<>();
+        this.estatisticas = new ConcurrentHashMap<>();
+        if (arquivo != null && Files.exists(arquivo)) {
+            carregar();
+        }
+    }
+
+    // Métodos
+    /**
+     * Registra uma execução
+     * @param execucao Execução a ser registrada
+     */
+    public void registrar(ExecucaoEstrategia execucao) {
+        registrarTodas(Collections.singletonList(execucao));
+    }
+
+    /**
+     * Registra um lote de execuções com uma única gravação no arquivo
+     * @param lote Execuções a serem registradas
+     */
+    public synchronized void registrarTodas(List<ExecucaoEstrategia> lote) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        if (this.arquivo != null) {
+            gravar(lote);
+        }
+        for (ExecucaoEstrategia execucao : lote) {
+            this.execucoes.add(execucao);
+            acumular(execucao);
+        }
+    }
+
+    private void acumular(ExecucaoEstrategia execucao) {
+        this.estatisticas.computeIfAbsent(execucao.getIdEstrategiaAutomatica(), EstatisticasEstrategia::new)
+                .acumular(execucao);
+    }
+
+    private void gravar(List<ExecucaoEstrategia> lote) {
+        try {
+            if (this.escritor == null) {
+                Path pasta = this.arquivo.toAbsolutePath().getParent();
+                if (pasta != null) {
+                    Files.createDirectories(pasta);
+                }
+                this.escritor = Files.newBufferedWriter(this.arquivo, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            for (ExecucaoEstrategia execucao : lote) {
+                this.escritor.write(formatar(execucao));
+                this.escritor.newLine();
+            }
+            this.escritor.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível gravar as execuções em " + this.arquivo, e);
+        }
+    }
+
+    private void carregar() {
+        try (BufferedReader leitor = Files.newBufferedReader(this.arquivo, StandardCharsets.UTF_8)) {
+            String linha;
+            while ((linha = leitor.readLine()) != null) {
+                if (!linha.isBlank()) {
+                    ExecucaoEstrategia execucao = interpretar(linha);
+                    this.execucoes.add(execucao);
+                    acumular(execucao);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível ler as execuções de " + this.arquivo, e);
+        }
+    }
+
+    private static String formatar(ExecucaoEstrategia execucao) {
+        return execucao.getId() + SEPARADOR
+                + execucao.getIdEstrategiaAutomatica() + SEPARADOR
+                + execucao.getIdCarteira() + SEPARADOR
+                + execucao.getIdCriptoativo() + SEPARADOR
+                + execucao.getAcao() + SEPARADOR
+                + execucao.getQuantidade() + SEPARADOR
+                + execucao.getPrecoExecucao() + SEPARADOR
+                + execucao.getPrecoDisparo() + SEPARADOR
+                + execucao.getLatenciaNanos() + SEPARADOR
+                + execucao.getIdTransacao() + SEPARADOR
+                + execucao.getDataHoraExecucao();
+    }
+
+    private static ExecucaoEstrategia interpretar(String linha) {
+        String[] campos = linha.split(SEPARADOR);
+        if (campos.length != 11) {
+            throw new IllegalArgumentException("Linha de execução inválida: " + linha);
+        }
+        ExecucaoEstrategia execucao = new ExecucaoEstrategia(
+                Integer.parseInt(campos[0]),
+                Integer.parseInt(campos[1]),
+                Integer.parseInt(campos[2]),
+                Integer.parseInt(campos[3]),
+                "null".equals(campos[4]) ? null : AcaoEstrategia.valueOf(campos[4]),
+                Double.parseDouble(campos[5]),
+                Double.parseDouble(campos[6]),
+                Integer.parseInt(campos[9]),
+                LocalDateTime.parse(campos[10]));
+        execucao.setPrecoDisparo(Double.parseDouble(campos[7]));
+        execucao.setLatenciaNanos(Long.parseLong(campos[8]));
+        return execucao;
+    }
+
+    /**
+     * Obtém as execuções de uma estratégia, na ordem em que foram registradas
+     * @param idEstrategia ID da estratégia
+     * @return Execuções da estratégia
+     */
+    public synchronized List<ExecucaoEstrategia> obterExecucoes(int idEstrategia) {
+        List<ExecucaoEstrategia> resultado = new ArrayList<>();
+        for (ExecucaoEstrategia execucao : this.execucoes) {
+            if (execucao.getIdEstrategiaAutomatica() == idEstrategia) {
+                resultado.add(execucao);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Obtém as estatísticas de uma estratégia
+     * @param idEstrategia ID da estratégia
+     * @return Estatísticas, ou null se a estratégia nunca executou
+     */
+    public EstatisticasEstrategia obterEstatisticas(int idEstrategia) {
+        return this.estatisticas.get(idEstrategia);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (this.escritor != null) {
+            try {
+                this.escritor.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Não foi possível fechar " + this.arquivo, e);
+            } finally {
+                this.escritor = null;
+            }
+        }
+    }
+
+    // Getters e Setters
+    public synchronized List<ExecucaoEstrategia> getExecucoes() {
+        return new ArrayList<>(this.execucoes);
+    }
+
+    public synchronized int getQuantidade() {
+        return this.execucoes.size();
+    }
+
+    public Path getArquivo() {
+        return this.arquivo;
+    }
+}
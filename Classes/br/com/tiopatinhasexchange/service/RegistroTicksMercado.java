@@ -0,0 +1,141 @@
+package br.com.tiopatinhasexchange.service;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registro somente de acréscimo dos ticks de preço recebidos pelo mercado, para serem
+ * reproduzidos depois pelo {@link ReprodutorMercado}.
+ *
+ * Cada tick vira uma linha de texto: o instante em milissegundos seguido dos pares
+ * {@code idAtivo:preco}, separados por ponto e vírgula. A leitura é feita linha a linha,
+ * sem carregar o arquivo inteiro em memória.
+ */
+public class RegistroTicksMercado implements AutoCloseable {
+
+    private static final String SEPARADOR = ";";
+    private static final char SEPARADOR_PRECO = ':';
+
+    /**
+     * Recebe os ticks lidos de um registro
+     */
+    @FunctionalInterface
+    public interface ConsumidorTick {
+        /**
+         * @param instanteMillis Instante do tick (milissegundos desde a época Unix)
+         * @param precos Preços atualizados no tick
+         * @return true para continuar a leitura, false para interrompê-la
+         */
+        boolean aceitar(long instanteMillis, Map<Integer, Double> precos);
+    }
+
+    // Atributos
+    private final Path arquivo;
+    private final StringBuilder linha;
+    private BufferedWriter escritor;
+    private long ticksGravados;
+
+    // Construtores
+    public RegistroTicksMercado(Path arquivo) {
+        if (arquivo == null) {
+            throw new IllegalArgumentException("O arquivo não pode ser nulo");
+        }
+        this.arquivo = arquivo;
+        this.linha = new StringBuilder();
+    }
+
+    // Métodos
+    /**
+     * Acrescenta um tick ao registro
+     * @param instanteMillis Instante do tick
+     * @param precos Preços atualizados no tick
+     */
+    public synchronized void registrar(long instanteMillis, Map<Integer, Double> precos) {
+        this.linha.setLength(0);
+        this.linha.append(instanteMillis);
+        for (Map.Entry<Integer, Double> preco : precos.entrySet()) {
+            this.linha.append(SEPARADOR).append(preco.getKey().intValue())
+                    .append(SEPARADOR_PRECO).append(preco.getValue().doubleValue());
+        }
+        try {
+            if (this.escritor == null) {
+                Path pasta = this.arquivo.toAbsolutePath().getParent();
+                if (pasta != null) {
+                    Files.createDirectories(pasta);
+                }
+                this.escritor = Files.newBufferedWriter(this.arquivo, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            this.escritor.append(this.linha);
+            this.escritor.newLine();
+            this.escritor.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível gravar o tick em " + this.arquivo, e);
+        }
+        this.ticksGravados++;
+    }
+
+    /**
+     * Lê os ticks de um registro, na ordem em que foram gravados, até o fim do arquivo
+     * ou até o consumidor pedir a interrupção
+     * @param arquivo Arquivo do registro
+     * @param consumidor Recebe cada tick lido
+     * @return Quantidade de ticks entregues ao consumidor
+     */
+    public static long ler(Path arquivo, ConsumidorTick consumidor) {
+        long ticks = 0;
+        try (BufferedReader leitor = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+            String linha;
+            while ((linha = leitor.readLine()) != null) {
+                if (!linha.isBlank()) {
+                    String[] campos = linha.split(SEPARADOR);
+                    Map<Integer, Double> precos = new HashMap<>();
+                    for (int i = 1; i < campos.length; i++) {
+                        int separador = campos[i].indexOf(SEPARADOR_PRECO);
+                        if (separador <= 0) {
+                            throw new IllegalArgumentException("Linha de tick inválida: " + linha);
+                        }
+                        precos.put(Integer.parseInt(campos[i].substring(0, separador)),
+                                Double.parseDouble(campos[i].substring(separador + 1)));
+                    }
+                    ticks++;
+                    if (!consumidor.aceitar(Long.parseLong(campos[0]), precos)) {
+                        break;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível ler os ticks de " + arquivo, e);
+        }
+        return ticks;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (this.escritor != null) {
+            try {
+                this.escritor.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Não foi possível fechar " + this.arquivo, e);
+            } finally {
+                this.escritor = null;
+            }
+        }
+    }
+
+    // Getters e Setters
+    public Path getArquivo() {
+        return this.arquivo;
+    }
+
+    public synchronized long getTicksGravados() {
+        return this.ticksGravados;
+    }
+}
@@ -0,0 +1,105 @@
+package br.com.tiopatinhasexchange.service;
+
+/**
+ * Resultado da análise de risco por cenários ({@link MotorRiscoCenarios}): VaR, CVaR e
+ * quantis do drawdown máximo por nível de confiança, além de médias das perdas e dos
+ * drawdowns. Perdas são em valor (positivas quando o patrimônio cai).
+ */
+public class RelatorioRiscoCenarios {
+
+    // Atributos
+    private final double valorInicial;
+    private final int dias;
+    private final long cenarios;
+    private final double[] niveisConfianca;
+    private final double[] valorEmRisco; // VaR por nível
+    private final double[] perdaEsperadaCauda; // CVaR por nível
+    private final double[] drawdownQuantil; // Quantil do drawdown máximo por nível
+    private final AcumuladorEstatistico perda;
+    private final AcumuladorEstatistico drawdownMaximo;
+
+    // Construtores
+    RelatorioRiscoCenarios(double valorInicial, int dias, long cenarios, double[] niveisConfianca,
+            double[] valorEmRisco, double[] perdaEsperadaCauda, double[] drawdownQuantil,
+            AcumuladorEstatistico perda, AcumuladorEstatistico drawdownMaximo) {
+        this.valorInicial = valorInicial;
+        this.dias = dias;
+        this.cenarios = cenarios;
+        this.niveisConfianca = niveisConfianca;
+        this.valorEmRisco = valorEmRisco;
+        this.perdaEsperadaCauda = perdaEsperadaCauda;
+        this.drawdownQuantil = drawdownQuantil;
+        this.perda = perda;
+        this.drawdownMaximo = drawdownMaximo;
+    }
+
+    // Métodos
+    /**
+     * Exibe o relatório de risco
+     */
+    public void exibirRelatorio() {
+        System.out.println("=== Risco por Cenários ===");
+        System.out.printf("Patrimônio inicial: $%.2f | Horizonte: %d dias | Cenários: %d%n",
+                this.valorInicial, this.dias, this.cenarios);
+        System.out.println("Confiança | VaR                  | CVaR                 | Drawdown máx.");
+        for (int i = 0; i < this.niveisConfianca.length; i++) {
+            System.out.printf("%8.1f%% | $%10.2f (%5.2f%%) | $%10.2f (%5.2f%%) | %6.2f%%%n",
+                    this.niveisConfianca[i] * 100,
+                    this.valorEmRisco[i], this.valorEmRisco[i] / this.valorInicial * 100,
+                    this.perdaEsperadaCauda[i], this.perdaEsperadaCauda[i] / this.valorInicial * 100,
+                    this.drawdownQuantil[i] * 100);
+        }
+        System.out.printf("Perda média: $%.2f | Drawdown médio: %.2f%% | Pior drawdown: %.2f%%%n",
+                this.perda.getMedia(), this.drawdownMaximo.getMedia() * 100, this.drawdownMaximo.getMaximo() * 100);
+        System.out.println("==========================");
+    }
+
+    // Getters e Setters
+    public double getValorInicial() {
+        return this.valorInicial;
+    }
+
+    public int getDias() {
+        return this.dias;
+    }
+
+    public long getCenarios() {
+        return this.cenarios;
+    }
+
+    public double[] getNiveisConfianca() {
+        return this.niveisConfianca.clone();
+    }
+
+    /**
+     * @param i Índice do nível de confiança
+     * @return Perda que só é superada com probabilidade 1 - nível
+     */
+    public double getValorEmRisco(int i) {
+        return this.valorEmRisco[i];
+    }
+
+    /**
+     * @param i Índice do nível de confiança
+     * @return Perda média nos cenários em que a perda atinge o VaR
+     */
+    public double getPerdaEsperadaCauda(int i) {
+        return this.perdaEsperadaCauda[i];
+    }
+
+    /**
+     * @param i Índice do nível de confiança
+     * @return Drawdown máximo (relativo) que só é superado com probabilidade 1 - nível
+     */
+    public double getDrawdownQuantil(int i) {
+        return this.drawdownQuantil[i];
+    }
+
+    public AcumuladorEstatistico getPerda() {
+        return this.perda;
+    }
+
+    public AcumuladorEstatistico getDrawdownMaximo() {
+        return this.drawdownMaximo;
+    }
+}
@@ -0,0 +1,85 @@
+package br.com.tiopatinhasexchange.service;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Fonte da data e hora "atuais" do sistema. Todas as entidades e serviços consultam o
+ * relógio padrão em vez de {@code LocalDateTime.now()} ou {@code System.currentTimeMillis()},
+ * o que permite trocar o tempo real por um relógio controlado (ex.: {@link RelogioReplay}
+ * durante a reprodução de um registro de mercado).
+ *
+ * Medições de latência continuam usando {@code System.nanoTime()}, pois medem o custo
+ * real do processamento e não o instante de negócio.
+ */
+public abstract class Relogio {
+
+    // Atributos
+    /** Relógio do sistema operacional */
+    public static final Relogio SISTEMA = new Relogio() {
+        @Override
+        public long agoraMillis() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public LocalDateTime agora() {
+            return LocalDateTime.now();
+        }
+    };
+
+    private static volatile Relogio padrao = SISTEMA;
+
+    // Métodos
+    /**
+     * Obtém o instante atual
+     * @return Milissegundos desde a época Unix (1970-01-01T00:00Z)
+     */
+    public abstract long agoraMillis();
+
+    /**
+     * Obtém a data e hora atuais no fuso horário padrão da JVM
+     * @return Data e hora atuais
+     */
+    public LocalDateTime agora() {
+        return paraDataHora(agoraMillis());
+    }
+
+    /**
+     * Converte um instante em data e hora no fuso horário padrão da JVM
+     * @param instanteMillis Milissegundos desde a época Unix
+     * @return Data e hora correspondentes
+     */
+    public static LocalDateTime paraDataHora(long instanteMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(instanteMillis), ZoneId.systemDefault());
+    }
+
+    /**
+     * Converte uma data e hora no fuso horário padrão da JVM em instante
+     * @param dataHora Data e hora
+     * @return Milissegundos desde a época Unix
+     */
+    public static long paraMillis(LocalDateTime dataHora) {
+        return dataHora.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // Getters e Setters
+    /**
+     * Obtém o relógio usado pelas entidades do sistema
+     * @return Relógio padrão
+     */
+    public static Relogio getPadrao() {
+        return padrao;
+    }
+
+    /**
+     * Define o relógio usado pelas entidades do sistema (ex.: um relógio de reprodução)
+     * @param relogio Novo relógio padrão
+     */
+    public static void setPadrao(Relogio relogio) {
+        if (relogio == null) {
+            throw new IllegalArgumentException("O relógio não pode ser nulo");
+        }
+        padrao = relogio;
+    }
+}
@@ -0,0 +1,42 @@
+package br.com.tiopatinhasexchange.service;
+
+/**
+ * Relógio controlado manualmente: o instante só muda quando é ajustado. Usado pelo
+ * {@link ReprodutorMercado} para que as entidades criadas durante a reprodução recebam o
+ * instante do tick reproduzido, e não o da máquina.
+ */
+public class RelogioReplay extends Relogio {
+
+    // Atributos
+    private volatile long instanteMillis;
+
+    // Construtores
+    public RelogioReplay(long instanteMillis) {
+        this.instanteMillis = instanteMillis;
+    }
+
+    // Métodos
+    @Override
+    public long agoraMillis() {
+        return this.instanteMillis;
+    }
+
+    /**
+     * Ajusta o relógio para um instante
+     * @param instanteMillis Milissegundos desde a época Unix
+     */
+    public void ajustar(long instanteMillis) {
+        this.instanteMillis = instanteMillis;
+    }
+
+    /**
+     * Avança o relógio
+     * @param millis Milissegundos a avançar (não negativo)
+     */
+    public void avancar(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("O relógio não pode voltar no tempo");
+        }
+        this.instanteMillis += millis;
+    }
+}
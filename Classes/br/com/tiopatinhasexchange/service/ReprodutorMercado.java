@@ -0,0 +1,274 @@
+package br.com.tiopatinhasexchange.service;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import br.com.tiopatinhasexchange.model.Mercado;
+
+/**
+ * Reprodução de um registro de ticks ({@link RegistroTicksMercado}) no mercado, em tempo
+ * real, N vezes mais rápido ou na velocidade máxima.
+ *
+ * Durante a reprodução, o relógio padrão ({@link Relogio#getPadrao()}) é substituído por
+ * um {@link RelogioReplay} ajustado para o instante de cada tick antes de o mercado ser
+ * atualizado, de modo que cotações, transações, execuções e alertas criados pelo resto do
+ * sistema recebam o instante gravado. O relógio anterior é restaurado ao final. Como o
+ * relógio padrão é global, a reprodução deve rodar numa instância isolada da aplicação.
+ *
+ * Após cada atualização do mercado, os ouvintes recebem os preços anteriores e novos dos
+ * ativos do tick, o mesmo formato de
+ * {@link IndiceGatilhosEstrategia#processarAtualizacao(Map, Map, List)}, para acionar
+ * estratégias, alertas e carteiras ({@link SandboxReproducao} faz essa ligação completa).
+ * O tick seguinte só é aplicado quando todos os ouvintes retornam; um ouvinte que aguarda
+ * as execuções agendadas faz a reprodução acompanhar a capacidade real do motor, e o
+ * atraso em relação ao horário programado fica registrado nas métricas.
+ */
+public class ReprodutorMercado {
+
+    /** Reproduz os ticks sem esperar entre eles */
+    public static final double VELOCIDADE_MAXIMA = Double.POSITIVE_INFINITY;
+
+    private static final long ESPERA_MAXIMA_NANOS = TimeUnit.MILLISECONDS.toNanos(100); // Para atender a parar()
+
+    /**
+     * Recebe cada tick reproduzido, depois de o mercado ser atualizado
+     */
+    @FunctionalInterface
+    public interface OuvinteTick {
+        /**
+         * @param instanteMillis Instante do tick
+         * @param precosAnteriores Preços dos ativos do tick antes da atualização (-1 se o ativo não tinha preço)
+         * @param precosNovos Preços atualizados no tick
+         */
+        void aoAtualizar(long instanteMillis, Map<Integer, Double> precosAnteriores, Map<Integer, Double> precosNovos);
+    }
+
+    // Atributos
+    private final Mercado mercado;
+    private final RelogioReplay relogio;
+    private final List<OuvinteTick> ouvintes;
+    private volatile double velocidade;
+    private volatile boolean interrompido;
+
+    // Métricas da última reprodução
+    private volatile long ticksReproduzidos;
+    private long instanteInicial;
+    private long instanteFinal;
+    private long duracaoNanos;
+    private long processamentoTotalNanos; // Atualização do mercado + ouvintes
+    private long processamentoMaximoNanos;
+    private long atrasoMaximoNanos; // Maior atraso de um tick em relação ao horário programado
+
+    // Estado do ritmo da reprodução
+    private double velocidadeBase;
+    private long instanteBase;
+    private long nanosBase;
+
+    // Construtores
+    public ReprodutorMercado(Mercado mercado) {
+        this(mercado, 1.0);
+    }
+
+    public ReprodutorMercado(Mercado mercado, double velocidade) {
+        if (mercado == null) {
+            throw new IllegalArgumentException("O mercado não pode ser nulo");
+        }
+        this.mercado = mercado;
+        this.relogio = new RelogioReplay(Relogio.getPadrao().agoraMillis());
+        this.ouvintes = new CopyOnWriteArrayList<>();
+        setVelocidade(velocidade);
+    }
+
+    // Métodos
+    /**
+     * Adiciona um ouvinte chamado a cada tick reproduzido
+     * @param ouvinte Ouvinte
+     */
+    public void adicionarOuvinte(OuvinteTick ouvinte) {
+        if (ouvinte == null) {
+            throw new IllegalArgumentException("O ouvinte não pode ser nulo");
+        }
+        this.ouvintes.add(ouvinte);
+    }
+
+    public boolean removerOuvinte(OuvinteTick ouvinte) {
+        return this.ouvintes.remove(ouvinte);
+    }
+
+    /**
+     * Reproduz um registro de ticks. Bloqueia até o fim do registro ou até {@link #parar()}.
+     * O mercado não deve estar gravando ticks no mesmo arquivo durante a reprodução.
+     * @param arquivo Arquivo gravado por {@link RegistroTicksMercado}
+     * @return Quantidade de ticks reproduzidos
+     */
+    public synchronized long reproduzir(Path arquivo) {
+        if (arquivo == null) {
+            throw new IllegalArgumentException("O arquivo não pode ser nulo");
+        }
+        this.interrompido = false;
+        this.ticksReproduzidos = 0;
+        this.processamentoTotalNanos = 0;
+        this.processamentoMaximoNanos = 0;
+        this.atrasoMaximoNanos = 0;
+        this.velocidadeBase = Double.NaN; // Força o primeiro tick a definir a base
+
+        Relogio anterior = Relogio.getPadrao();
+        Relogio.setPadrao(this.relogio);
+        long inicio = System.nanoTime();
+        try {
+            RegistroTicksMercado.ler(arquivo, (instante, precos) -> {
+                if (this.interrompido) {
+                    return false;
+                }
+                aguardar(instante);
+                aplicar(instante, precos);
+                return !this.interrompido;
+            });
+        } finally {
+            this.duracaoNanos = System.nanoTime() - inicio;
+            Relogio.setPadrao(anterior);
+        }
+        return this.ticksReproduzidos;
+    }
+
+    /**
+     * Espera até o horário programado do tick. Uma mudança de velocidade passa a valer a
+     * partir do tick seguinte, sem recalcular o ritmo dos ticks anteriores.
+     */
+    private void aguardar(long instante) {
+        double velocidadeAtual = this.velocidade;
+        if (velocidadeAtual != this.velocidadeBase) {
+            if (this.ticksReproduzidos == 0 || this.velocidadeBase == VELOCIDADE_MAXIMA) {
+                this.nanosBase = System.nanoTime();
+            } else {
+                this.nanosBase = programado(this.instanteFinal);
+            }
+            this.instanteBase = this.ticksReproduzidos == 0 ? instante : this.instanteFinal;
+            this.velocidadeBase = velocidadeAtual;
+        }
+        if (velocidadeAtual == VELOCIDADE_MAXIMA) {
+            return;
+        }
+
+        long alvo = programado(instante);
+        long restante;
+        while ((restante = alvo - System.nanoTime()) > 0 && !this.interrompido) {
+            LockSupport.parkNanos(Math.min(restante, ESPERA_MAXIMA_NANOS));
+        }
+        long atraso = System.nanoTime() - alvo;
+        if (atraso > this.atrasoMaximoNanos) {
+            this.atrasoMaximoNanos = atraso;
+        }
+    }
+
+    /** Horário (System.nanoTime) em que um instante do registro deve ser aplicado */
+    private long programado(long instante) {
+        return this.nanosBase + (long) ((instante - this.instanteBase) * 1_000_000.0 / this.velocidadeBase);
+    }
+
+    private void aplicar(long instante, Map<Integer, Double> precos) {
+        long inicio = System.nanoTime();
+        Map<Integer, Double> anteriores = null;
+        if (!this.ouvintes.isEmpty()) {
+            anteriores = new HashMap<>(precos.size() * 2);
+            for (Integer idAtivo : precos.keySet()) {
+                anteriores.put(idAtivo, this.mercado.obterPrecoAtual(idAtivo));
+            }
+        }
+
+        this.relogio.ajustar(instante);
+        this.mercado.atualizarPrecos(precos);
+        for (OuvinteTick ouvinte : this.ouvintes) {
+            ouvinte.aoAtualizar(instante, anteriores, precos);
+        }
+
+        long processamento = System.nanoTime() - inicio;
+        this.processamentoTotalNanos += processamento;
+        if (processamento > this.processamentoMaximoNanos) {
+            this.processamentoMaximoNanos = processamento;
+        }
+        if (this.ticksReproduzidos == 0) {
+            this.instanteInicial = instante;
+        }
+        this.instanteFinal = instante;
+        this.ticksReproduzidos++;
+    }
+
+    /**
+     * Interrompe a reprodução em andamento depois do tick atual
+     */
+    public void parar() {
+        this.interrompido = true;
+    }
+
+    /**
+     * Exibe as métricas da última reprodução
+     */
+    public void exibirMetricas() {
+        double duracaoSegundos = this.duracaoNanos / 1e9;
+        double periodoSegundos = (this.instanteFinal - this.instanteInicial) / 1000.0;
+        System.out.printf("Ticks reproduzidos: %d | Período do registro: %.1f s | Duração: %.3f s%n",
+                this.ticksReproduzidos, periodoSegundos, duracaoSegundos);
+        System.out.printf("Velocidade efetiva: %.1fx | Taxa: %.0f ticks/s%n",
+                duracaoSegundos > 0 ? periodoSegundos / duracaoSegundos : 0.0,
+                duracaoSegundos > 0 ? this.ticksReproduzidos / duracaoSegundos : 0.0);
+        System.out.printf("Processamento por tick: médio %.1f µs, máximo %.1f µs | Atraso máximo: %.3f ms%n",
+                getProcessamentoMedioMicros(), this.processamentoMaximoNanos / 1e3, this.atrasoMaximoNanos / 1e6);
+    }
+
+    // Getters e Setters
+    public Mercado getMercado() {
+        return this.mercado;
+    }
+
+    public RelogioReplay getRelogio() {
+        return this.relogio;
+    }
+
+    public double getVelocidade() {
+        return this.velocidade;
+    }
+
+    /**
+     * Define a velocidade da reprodução; pode ser alterada durante a reprodução
+     * @param velocidade 1 para tempo real, N para N vezes mais rápido ou {@link #VELOCIDADE_MAXIMA}
+     */
+    public void setVelocidade(double velocidade) {
+        if (!(velocidade > 0)) {
+            throw new IllegalArgumentException("A velocidade deve ser positiva");
+        }
+        this.velocidade = velocidade;
+    }
+
+    public long getTicksReproduzidos() {
+        return this.ticksReproduzidos;
+    }
+
+    public long getInstanteInicial() {
+        return this.instanteInicial;
+    }
+
+    public long getInstanteFinal() {
+        return this.instanteFinal;
+    }
+
+    public long getDuracaoNanos() {
+        return this.duracaoNanos;
+    }
+
+    public double getProcessamentoMedioMicros() {
+        return this.ticksReproduzidos == 0 ? 0.0 : this.processamentoTotalNanos / 1e3 / this.ticksReproduzidos;
+    }
+
+    public double getProcessamentoMaximoMicros() {
+        return this.processamentoMaximoNanos / 1e3;
+    }
+
+    public double getAtrasoMaximoMillis() {
+        return this.atrasoMaximoNanos / 1e6;
+    }
+}
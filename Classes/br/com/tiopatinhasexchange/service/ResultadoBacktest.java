@@ -0,0 +1,166 @@
+package br.com.tiopatinhasexchange.service;
+import java.util.Arrays;
+
+/**
+ * Resultado do backtest de uma estratégia: curva de patrimônio, drawdown máximo e lista
+ * de operações. As operações e a curva ficam em vetores primitivos.
+ *
+ * As operações já respeitam os limites de frequência da estratégia (recarga, janela de
+ * execuções e execução única). Estratégias de expressão composta não têm resultado: o
+ * {@link MotorBacktest} as recusa.
+ */
+public class ResultadoBacktest {
+
+    // Atributos
+    private final int idEstrategia;
+    private final double saldoInicial;
+    private final int amostragemCurva; // Um ponto da curva a cada N candles
+    private double[] curvaPatrimonio;
+    private int pontosCurva;
+    private double drawdownMaximo;
+    private double saldoFinal;
+    private double posicaoFinal;
+    private double patrimonioFinal;
+    private double taxasPagas;
+
+    // Operações (vetores paralelos)
+    private int quantidadeOperacoes;
+    private int[] barras;
+    private long[] instantes;
+    private boolean[] compras;
+    private double[] quantidades;
+    private double[] precos;
+
+    // Construtores
+    public ResultadoBacktest(int idEstrategia, double saldoInicial, int amostragemCurva, int candles) {
+        this.idEstrategia = idEstrategia;
+        this.saldoInicial = saldoInicial;
+        this.amostragemCurva = amostragemCurva;
+        this.curvaPatrimonio = new double[(candles + amostragemCurva - 1) / amostragemCurva];
+        this.barras = new int[16];
+        this.instantes = new long[16];
+        this.compras = new boolean[16];
+        this.quantidades = new double[16];
+        this.precos = new double[16];
+        this.saldoFinal = saldoInicial;
+        this.patrimonioFinal = saldoInicial;
+    }
+
+    // Métodos
+    void registrarOperacao(int barra, long instante, boolean compra, double quantidade, double preco) {
+        if (this.quantidadeOperacoes == this.barras.length) {
+            int capacidade = this.barras.length * 2;
+            this.barras = Arrays.copyOf(this.barras, capacidade);
+            this.instantes = Arrays.copyOf(this.instantes, capacidade);
+            this.compras = Arrays.copyOf(this.compras, capacidade);
+            this.quantidades = Arrays.copyOf(this.quantidades, capacidade);
+            this.precos = Arrays.copyOf(this.precos, capacidade);
+        }
+        int i = this.quantidadeOperacoes++;
+        this.barras[i] = barra;
+        this.instantes[i] = instante;
+        this.compras[i] = compra;
+        this.quantidades[i] = quantidade;
+        this.precos[i] = preco;
+    }
+
+    void registrarPontoCurva(double patrimonio) {
+        this.curvaPatrimonio[this.pontosCurva++] = patrimonio;
+    }
+
+    void finalizar(double saldo, double posicao, double patrimonio, double drawdownMaximo, double taxasPagas) {
+        this.saldoFinal = saldo;
+        this.posicaoFinal = posicao;
+        this.patrimonioFinal = patrimonio;
+        this.drawdownMaximo = drawdownMaximo;
+        this.taxasPagas = taxasPagas;
+        if (this.pontosCurva < this.curvaPatrimonio.length) {
+            this.curvaPatrimonio = Arrays.copyOf(this.curvaPatrimonio, this.pontosCurva);
+        }
+    }
+
+    /**
+     * Calcula o retorno da estratégia no período
+     * @return Retorno relativo (0.1 = 10%)
+     */
+    public double calcularRetorno() {
+        return (this.patrimonioFinal - this.saldoInicial) / this.saldoInicial;
+    }
+
+    /**
+     * Exibe o resumo do backtest
+     */
+    public void exibirResumo() {
+        System.out.println("=== Backtest da Estratégia " + this.idEstrategia + " ===");
+        System.out.printf("Patrimônio: $%.2f -> $%.2f (%.2f%%)%n", this.saldoInicial, this.patrimonioFinal,
+                calcularRetorno() * 100);
+        System.out.printf("Drawdown máximo: %.2f%%%n", this.drawdownMaximo * 100);
+        System.out.println("Operações: " + this.quantidadeOperacoes);
+        System.out.printf("Taxas pagas: $%.2f%n", this.taxasPagas);
+        System.out.println("=================================");
+    }
+
+    // Getters e Setters
+    public int getIdEstrategia() {
+        return this.idEstrategia;
+    }
+
+    public double getSaldoInicial() {
+        return this.saldoInicial;
+    }
+
+    public int getAmostragemCurva() {
+        return this.amostragemCurva;
+    }
+
+    /**
+     * @return Curva de patrimônio: o ponto i corresponde ao candle i * amostragem
+     */
+    public double[] getCurvaPatrimonio() {
+        return this.curvaPatrimonio.clone();
+    }
+
+    public double getDrawdownMaximo() {
+        return this.drawdownMaximo;
+    }
+
+    public double getSaldoFinal() {
+        return this.saldoFinal;
+    }
+
+    public double getPosicaoFinal() {
+        return this.posicaoFinal;
+    }
+
+    public double getPatrimonioFinal() {
+        return this.patrimonioFinal;
+    }
+
+    public double getTaxasPagas() {
+        return this.taxasPagas;
+    }
+
+    public int getQuantidadeOperacoes() {
+        return this.quantidadeOperacoes;
+    }
+
+    public int getBarraOperacao(int i) {
+        return this.barras[i];
+    }
+
+    public long getInstanteOperacao(int i) {
+        return this.instantes[i];
+    }
+
+    public boolean isCompra(int i) {
+        return this.compras[i];
+    }
+
+    public double getQuantidadeOperacao(int i) {
+        return this.quantidades[i];
+    }
+
+    public double getPrecoOperacao(int i) {
+        return this.precos[i];
+    }
+}
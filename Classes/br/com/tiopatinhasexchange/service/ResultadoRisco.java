@@ -0,0 +1,18 @@
+package br.com.tiopatinhasexchange.service;
+
+/**
+ * Resultado da verificação pré-negociação de uma ordem pelo {@link MotorRisco}.
+ */
+public enum ResultadoRisco {
+    APROVADA,
+    REJEITADA_TAMANHO_ORDEM,
+    REJEITADA_LIMITE_USUARIO,
+    REJEITADA_LIMITE_ATIVO,
+    REJEITADA_COLAR_PRECO,
+    REJEITADA_PRECO_INDISPONIVEL,
+    REJEITADA_TAXA_ORDENS;
+
+    public boolean isAprovada() {
+        return this == APROVADA;
+    }
+}
@@ -0,0 +1,176 @@
+package br.com.tiopatinhasexchange.service;
+import java.util.List;
+
+import br.com.tiopatinhasexchange.service.VarreduraParametros.ResultadoVarredura;
+
+/**
+ * Resultado da otimização walk-forward ({@link OtimizadorWalkForward}): por janela, os
+ * parâmetros escolhidos no trecho de otimização e o backtest deles no trecho de validação.
+ * Cada trecho de validação começa com o saldo inicial, sem posição.
+ */
+public class ResultadoWalkForward {
+
+    // Atributos
+    private final double saldoInicial;
+    private final List<JanelaWalkForward> janelas;
+
+    // Construtores
+    ResultadoWalkForward(double saldoInicial, List<JanelaWalkForward> janelas) {
+        this.saldoInicial = saldoInicial;
+        this.janelas = janelas;
+    }
+
+    // Métodos
+    /**
+     * Calcula o retorno de aplicar os trechos de validação em sequência, reinvestindo o
+     * resultado de cada um no seguinte
+     * @return Retorno relativo (0.1 = 10%)
+     */
+    public double calcularRetornoComposto() {
+        double fator = 1.0;
+        for (JanelaWalkForward janela : this.janelas) {
+            fator *= 1 + janela.getValidacao().calcularRetorno();
+        }
+        return fator - 1;
+    }
+
+    /**
+     * Calcula a eficiência walk-forward: retorno por candle na validação dividido pelo
+     * retorno por candle na otimização. Perto de 1, os parâmetros mantêm fora da amostra o
+     * desempenho obtido na otimização; perto de 0 ou negativa, indica sobreajuste.
+     * @return Eficiência, ou 0 se a otimização não teve retorno positivo
+     */
+    public double calcularEficiencia() {
+        double retornoOtimizacao = 0;
+        double retornoValidacao = 0;
+        long candlesOtimizacao = 0;
+        long candlesValidacao = 0;
+        for (JanelaWalkForward janela : this.janelas) {
+            retornoOtimizacao += janela.getMelhor().getResultado().calcularRetorno();
+            retornoValidacao += janela.getValidacao().calcularRetorno();
+            candlesOtimizacao += janela.getCandlesOtimizacao();
+            candlesValidacao += janela.getCandlesValidacao();
+        }
+        if (retornoOtimizacao <= 0) {
+            return 0.0;
+        }
+        return (retornoValidacao / candlesValidacao) / (retornoOtimizacao / candlesOtimizacao);
+    }
+
+    /**
+     * Calcula o drawdown máximo da curva de patrimônio dos trechos de validação aplicados
+     * em sequência, reinvestindo o resultado de cada um no seguinte (a mesma composição de
+     * {@link #calcularRetornoComposto()}), então uma queda que atravessa várias janelas é
+     * medida desde o pico anterior. Dentro de cada janela vale o drawdown medido pelo
+     * backtest a cada candle; entre janelas, os pontos da curva amostrada e o patrimônio final.
+     * @return Drawdown máximo relativo
+     */
+    public double calcularDrawdownMaximo() {
+        double fator = 1.0; // Patrimônio no início da janela, relativo ao saldo inicial
+        double pico = 1.0;
+        double maximo = 0;
+        for (JanelaWalkForward janela : this.janelas) {
+            ResultadoBacktest validacao = janela.getValidacao();
+            maximo = Math.max(maximo, validacao.getDrawdownMaximo());
+
+            double escala = fator / validacao.getSaldoInicial();
+            double[] curva = validacao.getCurvaPatrimonio();
+            for (int i = 0; i <= curva.length; i++) {
+                double patrimonio = (i < curva.length ? curva[i] : validacao.getPatrimonioFinal()) * escala;
+                if (patrimonio > pico) {
+                    pico = patrimonio;
+                } else {
+                    maximo = Math.max(maximo, (pico - patrimonio) / pico);
+                }
+            }
+            fator *= 1 + validacao.calcularRetorno();
+        }
+        return maximo;
+    }
+
+    /**
+     * Exibe o resultado de cada janela e o resumo da otimização
+     */
+    public void exibirRelatorio() {
+        System.out.println("=== Otimização Walk-Forward ===");
+        System.out.println(" #  | Referência   | Quantidade   | Otimização | Validação | Drawdown | Operações");
+        for (JanelaWalkForward janela : this.janelas) {
+            ResultadoBacktest validacao = janela.getValidacao();
+            System.out.printf("%3d | %12.4f | %12.6f | %9.2f%% | %8.2f%% | %7.2f%% | %d%n", janela.getIndice() + 1,
+                    janela.getMelhor().getValorReferencia(), janela.getMelhor().getQuantidade(),
+                    janela.getMelhor().getResultado().calcularRetorno() * 100, validacao.calcularRetorno() * 100,
+                    validacao.getDrawdownMaximo() * 100, validacao.getQuantidadeOperacoes());
+        }
+        System.out.printf("Janelas: %d | Retorno composto na validação: %.2f%% | Drawdown máximo: %.2f%%%n",
+                this.janelas.size(), calcularRetornoComposto() * 100, calcularDrawdownMaximo() * 100);
+        System.out.printf("Eficiência walk-forward: %.2f%n", calcularEficiencia());
+        System.out.println("===============================");
+    }
+
+    // Getters e Setters
+    public double getSaldoInicial() {
+        return this.saldoInicial;
+    }
+
+    public List<JanelaWalkForward> getJanelas() {
+        return this.janelas;
+    }
+
+    /**
+     * Uma janela do walk-forward: trecho de otimização seguido do trecho de validação
+     */
+    public static class JanelaWalkForward {
+        private final int indice;
+        private final long inicioOtimizacao; // Instante do primeiro candle da otimização
+        private final long inicioValidacao; // Instante do primeiro candle da validação
+        private final long fimValidacao; // Instante do último candle da validação
+        private final int candlesOtimizacao;
+        private final int candlesValidacao;
+        private final ResultadoVarredura melhor; // Melhor combinação na otimização
+        private final ResultadoBacktest validacao; // Backtest da melhor combinação na validação
+
+        public JanelaWalkForward(int indice, long inicioOtimizacao, long inicioValidacao, long fimValidacao,
+                int candlesOtimizacao, int candlesValidacao, ResultadoVarredura melhor, ResultadoBacktest validacao) {
+            this.indice = indice;
+            this.inicioOtimizacao = inicioOtimizacao;
+            this.inicioValidacao = inicioValidacao;
+            this.fimValidacao = fimValidacao;
+            this.candlesOtimizacao = candlesOtimizacao;
+            this.candlesValidacao = candlesValidacao;
+            this.melhor = melhor;
+            this.validacao = validacao;
+        }
+
+        public int getIndice() {
+            return this.indice;
+        }
+
+        public long getInicioOtimizacao() {
+            return this.inicioOtimizacao;
+        }
+
+        public long getInicioValidacao() {
+            return this.inicioValidacao;
+        }
+
+        public long getFimValidacao() {
+            return this.fimValidacao;
+        }
+
+        public int getCandlesOtimizacao() {
+            return this.candlesOtimizacao;
+        }
+
+        public int getCandlesValidacao() {
+            return this.candlesValidacao;
+        }
+
+        public ResultadoVarredura getMelhor() {
+            return this.melhor;
+        }
+
+        public ResultadoBacktest getValidacao() {
+            return this.validacao;
+        }
+    }
+}
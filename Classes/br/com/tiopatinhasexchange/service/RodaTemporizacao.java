@@ -0,0 +1,218 @@
+package br.com.tiopatinhasexchange.service;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Roda de temporização hierárquica para grandes quantidades de expirações pendentes.
+ *
+ * O tempo é dividido em ticks de resolução fixa e as entradas ficam em
+ * {@value #NIVEIS} níveis de {@value #SLOTS} slots: o nível 0 cobre os próximos 64
+ * ticks, o nível 1 os próximos 64², e assim por diante. Ao cruzar a fronteira de um
+ * nível, o slot correspondente é redistribuído para os níveis inferiores. Agendar,
+ * cancelar e avançar um tick custam O(1), independentemente do número de entradas.
+ *
+ * As entradas ficam em vetores paralelos (listas duplamente encadeadas por índice),
+ * sem um objeto por entrada. A classe não é thread-safe.
+ */
+public class RodaTemporizacao {
+
+    public static final int NIVEIS = 4;
+    public static final int SLOTS = 64;
+    private static final int BITS_SLOT = 6;
+    private static final int MASCARA_SLOT = SLOTS - 1;
+    private static final long ALCANCE = 1L << (BITS_SLOT * NIVEIS); // Ticks cobertos sem reagendamento
+    private static final int NENHUM = -1;
+
+    // Atributos
+    private final long resolucaoMillis;
+    private long tickAtual;
+    private int tamanho;
+
+    private final int[] cabecas; // Primeira entrada de cada slot [nivel * SLOTS + slot]
+    private long[] chaves;
+    private long[] expiracoes; // Tick de expiração
+    private int[] proximos;
+    private int[] anteriores;
+    private int[] slots; // Slot onde a entrada está (NENHUM = livre)
+    private int livre; // Início da lista de entradas livres
+
+    // Construtores
+    public RodaTemporizacao(long resolucaoMillis, long instanteInicialMillis) {
+        if (resolucaoMillis <= 0) {
+            throw new IllegalArgumentException("A resolução deve ser positiva");
+        }
+        this.resolucaoMillis = resolucaoMillis;
+        this.tickAtual = instanteInicialMillis / resolucaoMillis;
+        this.cabecas = new int[NIVEIS * SLOTS];
+        Arrays.fill(this.cabecas, NENHUM);
+        this.chaves = new long[0];
+        this.expiracoes = new long[0];
+        this.proximos = new int[0];
+        this.anteriores = new int[0];
+        this.slots = new int[0];
+        this.livre = NENHUM;
+        crescer(1024);
+    }
+
+    // Métodos
+    /**
+     * Agenda uma expiração
+     * @param chave Valor entregue ao consumidor quando a entrada expirar
+     * @param instanteMillis Instante de expiração em milissegundos
+     * @return Identificador da entrada, usado para cancelar
+     */
+    public int agendar(long chave, long instanteMillis) {
+        if (this.livre == NENHUM) {
+            crescer(this.chaves.length * 2);
+        }
+        int entrada = this.livre;
+        this.livre = this.proximos[entrada];
+
+        // Arredonda para cima: a entrada nunca expira antes do instante pedido
+        long tick = Math.max(this.tickAtual + 1, Math.floorDiv(instanteMillis + this.resolucaoMillis - 1, this.resolucaoMillis));
+        this.chaves[entrada] = chave;
+        this.expiracoes[entrada] = tick;
+        inserir(entrada);
+        this.tamanho++;
+        return entrada;
+    }
+
+    /**
+     * Cancela uma entrada ainda pendente
+     * @param entrada Identificador retornado por {@link #agendar}
+     * @return true se a entrada estava pendente
+     */
+    public boolean cancelar(int entrada) {
+        if (entrada < 0 || entrada >= this.slots.length || this.slots[entrada] == NENHUM) {
+            return false;
+        }
+        desencadear(entrada);
+        liberar(entrada);
+        this.tamanho--;
+        return true;
+    }
+
+    /**
+     * Avança a roda até o instante informado, entregando as chaves expiradas
+     * @param agoraMillis Instante atual em milissegundos
+     * @param expiradas Consumidor das chaves expiradas
+     * @return Quantidade de entradas expiradas
+     */
+    public int avancar(long agoraMillis, LongConsumer expiradas) {
+        long alvo = Math.floorDiv(agoraMillis, this.resolucaoMillis);
+        int quantidade = 0;
+
+        while (this.tickAtual < alvo) {
+            if (this.tamanho == 0) {
+                // Nada pendente: pula direto para o alvo
+                this.tickAtual = alvo;
+                break;
+            }
+            this.tickAtual++;
+
+            // Redistribui de cima para baixo, para que as entradas cheguem ao nível 0 a tempo
+            for (int nivel = NIVEIS - 1; nivel >= 1; nivel--) {
+                if ((this.tickAtual & ((1L << (BITS_SLOT * nivel)) - 1)) == 0) {
+                    redistribuir(nivel, (int) ((this.tickAtual >>> (BITS_SLOT * nivel)) & MASCARA_SLOT));
+                }
+            }
+
+            // Retira uma entrada por vez: o consumidor pode agendar ou cancelar outras
+            int indice = (int) (this.tickAtual & MASCARA_SLOT);
+            int entrada;
+            while ((entrada = this.cabecas[indice]) != NENHUM) {
+                long chave = this.chaves[entrada];
+                desencadear(entrada);
+                liberar(entrada);
+                this.tamanho--;
+                quantidade++;
+                expiradas.accept(chave);
+            }
+        }
+        return quantidade;
+    }
+
+    private void redistribuir(int nivel, int slot) {
+        int indice = nivel * SLOTS + slot;
+        int entrada = this.cabecas[indice];
+        this.cabecas[indice] = NENHUM;
+        while (entrada != NENHUM) {
+            int seguinte = this.proximos[entrada];
+            inserir(entrada);
+            entrada = seguinte;
+        }
+    }
+
+    private void inserir(int entrada) {
+        long expiracao = this.expiracoes[entrada];
+        long delta = expiracao - this.tickAtual;
+        int nivel = 0;
+        long posicao = expiracao;
+
+        if (delta >= ALCANCE) {
+            // Além do alcance: fica no último slot do nível superior e é reavaliada ao ser redistribuída
+            nivel = NIVEIS - 1;
+            posicao = this.tickAtual + ALCANCE - 1;
+        } else {
+            while (delta >= (1L << (BITS_SLOT * (nivel + 1)))) {
+                nivel++;
+            }
+        }
+
+        int indice = nivel * SLOTS + (int) ((posicao >>> (BITS_SLOT * nivel)) & MASCARA_SLOT);
+        int cabeca = this.cabecas[indice];
+        this.proximos[entrada] = cabeca;
+        this.anteriores[entrada] = NENHUM;
+        if (cabeca != NENHUM) {
+            this.anteriores[cabeca] = entrada;
+        }
+        this.cabecas[indice] = entrada;
+        this.slots[entrada] = indice;
+    }
+
+    private void desencadear(int entrada) {
+        int anterior = this.anteriores[entrada];
+        int proximo = this.proximos[entrada];
+        if (anterior == NENHUM) {
+            this.cabecas[this.slots[entrada]] = proximo;
+        } else {
+            this.proximos[anterior] = proximo;
+        }
+        if (proximo != NENHUM) {
+            this.anteriores[proximo] = anterior;
+        }
+    }
+
+    private void liberar(int entrada) {
+        this.slots[entrada] = NENHUM;
+        this.proximos[entrada] = this.livre;
+        this.livre = entrada;
+    }
+
+    private void crescer(int capacidade) {
+        int antiga = this.chaves.length;
+        this.chaves = Arrays.copyOf(this.chaves, capacidade);
+        this.expiracoes = Arrays.copyOf(this.expiracoes, capacidade);
+        this.proximos = Arrays.copyOf(this.proximos, capacidade);
+        this.anteriores = Arrays.copyOf(this.anteriores, capacidade);
+        this.slots = Arrays.copyOf(this.slots, capacidade);
+        for (int i = capacidade - 1; i >= antiga; i--) {
+            this.slots[i] = NENHUM;
+            this.proximos[i] = this.livre;
+            this.livre = i;
+        }
+    }
+
+    // Getters e Setters
+    public int getTamanho() {
+        return this.tamanho;
+    }
+
+    public long getResolucaoMillis() {
+        return this.resolucaoMillis;
+    }
+
+    public long getInstanteAtualMillis() {
+        return this.tickAtual * this.resolucaoMillis;
+    }
+}
@@ -0,0 +1,240 @@
+package br.com.tiopatinhasexchange.service;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+import br.com.tiopatinhasexchange.model.AlertaPersonalizado;
+import br.com.tiopatinhasexchange.model.DisparoAlerta;
+import br.com.tiopatinhasexchange.model.EstrategiaAutomatica;
+import br.com.tiopatinhasexchange.model.ExecucaoEstrategia;
+import br.com.tiopatinhasexchange.model.Mercado;
+
+/**
+ * Sandbox que liga a reprodução de ticks ({@link ReprodutorMercado}) ao mesmo caminho do
+ * sistema em produção: a cada tick, o {@link IndiceGatilhosEstrategia} encontra as
+ * estratégias disparadas, o {@link AgendadorExecucaoEstrategias} as executa com
+ * compensação nas carteiras e, por fim, os alertas personalizados dos usuários são
+ * verificados.
+ *
+ * O tick só termina quando as execuções agendadas terminam, então a reprodução acompanha
+ * a capacidade real do motor. O mercado, as carteiras e o agendador devem pertencer à
+ * instância isolada usada na reprodução.
+ *
+ * O controle de recarga do agendador mede o tempo numa {@link RodaTemporizacao}, que não
+ * volta atrás. Um controle criado com o relógio do sistema estaria à frente dos instantes
+ * gravados e nunca liberaria recargas e janelas durante a reprodução; por isso, quando um
+ * tick chega com instante anterior ao do controle (o primeiro tick de um registro
+ * passado), o agendador recebe um controle novo, com a mesma resolução, iniciado no
+ * instante do tick. Os bloqueios do controle anterior são descartados.
+ */
+public class SandboxReproducao implements ReprodutorMercado.OuvinteTick {
+
+    private static final String CANAL_DISPARO = "APP";
+
+    // Atributos
+    private final Mercado mercado;
+    private final AgendadorExecucaoEstrategias agendador;
+    private final CompiladorCondicoes compilador; // null = expressões avaliadas sem memorização
+    private final IndiceGatilhosEstrategia indice;
+    private final List<EstrategiaAutomatica> avaliacaoCompleta; // Estratégias de variação, fora do índice
+    private final List<AlertaPersonalizado> alertas;
+    private final List<DisparoAlerta> disparos;
+    private final List<EstrategiaAutomatica> disparadas; // Reaproveitada a cada tick
+    private volatile ContextoAvaliacao contexto;
+
+    // Métricas
+    private final LongAdder ticks;
+    private final LongAdder estrategiasDisparadas;
+    private final LongAdder execucoes;
+    private final LongAdder ticksComErro;
+
+    // Construtores
+    public SandboxReproducao(Mercado mercado, AgendadorExecucaoEstrategias agendador,
+            CompiladorCondicoes compilador) {
+        if (mercado == null || agendador == null) {
+            throw new IllegalArgumentException("Mercado e agendador não podem ser nulos");
+        }
+        this.mercado = mercado;
+        this.agendador = agendador;
+        this.compilador = compilador;
+        this.indice = new IndiceGatilhosEstrategia();
+        this.avaliacaoCompleta = new CopyOnWriteArrayList<>();
+        this.alertas = new CopyOnWriteArrayList<>();
+        this.disparos = Collections.synchronizedList(new ArrayList<>());
+        this.disparadas = new ArrayList<>();
+        this.contexto = criarContexto();
+        this.ticks = new LongAdder();
+        this.estrategiasDisparadas = new LongAdder();
+        this.execucoes = new LongAdder();
+        this.ticksComErro = new LongAdder();
+    }
+
+    // Métodos
+    /**
+     * Adiciona uma estratégia à sandbox: as de preço e as compostas vão para o índice de
+     * gatilhos; as de variação são avaliadas a cada tick
+     * @param estrategia Estratégia a ser acompanhada
+     */
+    public void adicionarEstrategia(EstrategiaAutomatica estrategia) {
+        if (estrategia == null) {
+            throw new IllegalArgumentException("A estratégia não pode ser nula");
+        }
+        if (!this.indice.registrar(estrategia)) {
+            this.avaliacaoCompleta.add(estrategia);
+        }
+        if (estrategia.getExpressao() != null) {
+            // Recria o contexto para memorizar também as subexpressões da nova estratégia
+            this.contexto = criarContexto();
+        }
+    }
+
+    public boolean removerEstrategia(EstrategiaAutomatica estrategia) {
+        return this.indice.remover(estrategia) || this.avaliacaoCompleta.remove(estrategia);
+    }
+
+    /**
+     * Adiciona um alerta personalizado, verificado a cada tick do seu ativo
+     * @param alerta Alerta com condição "&gt;" (preço acima) ou "&lt;" (preço abaixo)
+     */
+    public void adicionarAlerta(AlertaPersonalizado alerta) {
+        if (alerta == null) {
+            throw new IllegalArgumentException("O alerta não pode ser nulo");
+        }
+        this.alertas.add(alerta);
+    }
+
+    public boolean removerAlerta(AlertaPersonalizado alerta) {
+        return this.alertas.remove(alerta);
+    }
+
+    @Override
+    public void aoAtualizar(long instanteMillis, Map<Integer, Double> precosAnteriores,
+            Map<Integer, Double> precosNovos) {
+        this.ticks.increment();
+        alinharControleRecarga(instanteMillis);
+        ContextoAvaliacao contextoTick = this.contexto;
+        contextoTick.novoTick();
+
+        this.disparadas.clear();
+        this.indice.processarAtualizacao(precosAnteriores, precosNovos, contextoTick, this.disparadas);
+        for (EstrategiaAutomatica estrategia : this.avaliacaoCompleta) {
+            if (precosNovos.containsKey(estrategia.getIdCriptoativo()) && estrategia.verificarCondicao(contextoTick)) {
+                this.disparadas.add(estrategia);
+            }
+        }
+
+        if (!this.disparadas.isEmpty()) {
+            this.estrategiasDisparadas.add(this.disparadas.size());
+            try {
+                List<ExecucaoEstrategia> executadas = this.agendador.agendarCompensado(this.disparadas).join();
+                this.execucoes.add(executadas.size());
+            } catch (CompletionException e) {
+                // O erro já está nas métricas do agendador; a reprodução segue no próximo tick
+                this.ticksComErro.increment();
+            }
+        }
+
+        verificarAlertas(precosAnteriores, precosNovos);
+    }
+
+    /**
+     * Dispara os alertas cujo valor de referência foi cruzado no tick, com a mesma regra
+     * do índice de gatilhos (sem preço anterior, basta a condição valer no novo preço)
+     */
+    private void verificarAlertas(Map<Integer, Double> precosAnteriores, Map<Integer, Double> precosNovos) {
+        for (AlertaPersonalizado alerta : this.alertas) {
+            Double novo = precosNovos.get(alerta.getIdCriptoativo());
+            if (novo == null || alerta.getCondicao() == null) {
+                continue;
+            }
+            double anterior = precosAnteriores.getOrDefault(alerta.getIdCriptoativo(), -1.0);
+            double referencia = alerta.getValorReferencia();
+            boolean cruzou;
+            switch (alerta.getCondicao().trim()) {
+                case ">":
+                    cruzou = novo >= referencia && (anterior < 0 || anterior < referencia);
+                    break;
+                case "<":
+                    cruzou = novo <= referencia && (anterior < 0 || anterior > referencia);
+                    break;
+                default:
+                    cruzou = false;
+            }
+            if (cruzou) {
+                this.disparos.add(new DisparoAlerta(alerta.getId(), alerta.getIdUsuario(), CANAL_DISPARO,
+                        alerta.getTitulo() + " (preço " + novo + ")"));
+            }
+        }
+    }
+
+    /**
+     * Troca o controle de recarga do agendador por um iniciado no instante do tick, se o
+     * atual já estiver à frente dele
+     */
+    private void alinharControleRecarga(long instanteMillis) {
+        ControleRecargaEstrategias controle = this.agendador.getControleRecarga();
+        if (controle != null && controle.getInstanteAtualMillis() > instanteMillis) {
+            this.agendador.setControleRecarga(
+                    new ControleRecargaEstrategias(controle.getResolucaoMillis(), instanteMillis));
+        }
+    }
+
+    private ContextoAvaliacao criarContexto() {
+        return this.compilador == null ? new ContextoAvaliacao(this.mercado)
+                : this.compilador.criarContexto(this.mercado);
+    }
+
+    /**
+     * Exibe as métricas da sandbox
+     */
+    public void exibirMetricas() {
+        System.out.println("=== Sandbox de Reprodução ===");
+        System.out.println("Ticks: " + getTicks() + " | Estratégias disparadas: " + getEstrategiasDisparadas()
+                + " | Execuções: " + getExecucoes() + " | Ticks com erro: " + getTicksComErro());
+        System.out.println("Alertas disparados: " + this.disparos.size());
+        System.out.println("=============================");
+    }
+
+    // Getters e Setters
+    public Mercado getMercado() {
+        return this.mercado;
+    }
+
+    public AgendadorExecucaoEstrategias getAgendador() {
+        return this.agendador;
+    }
+
+    public IndiceGatilhosEstrategia getIndice() {
+        return this.indice;
+    }
+
+    /**
+     * Obtém os disparos de alerta feitos durante a reprodução
+     * @return Cópia da lista, na ordem dos disparos
+     */
+    public List<DisparoAlerta> getDisparos() {
+        synchronized (this.disparos) {
+            return new ArrayList<>(this.disparos);
+        }
+    }
+
+    public long getTicks() {
+        return this.ticks.sum();
+    }
+
+    public long getEstrategiasDisparadas() {
+        return this.estrategiasDisparadas.sum();
+    }
+
+    public long getExecucoes() {
+        return this.execucoes.sum();
+    }
+
+    public long getTicksComErro() {
+        return this.ticksComErro.sum();
+    }
+}
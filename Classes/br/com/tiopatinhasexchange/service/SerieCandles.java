@@ -0,0 +1,233 @@
+package br.com.tiopatinhasexchange.service;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import br.com.tiopatinhasexchange.model.AtivoCotacao;
+
+/**
+ * Série de candles de um criptoativo em vetores paralelos (uma coluna por campo), para
+ * que a reprodução percorra memória contígua sem objetos por candle. É imutável depois
+ * de criada (o construtor público copia as colunas recebidas) e pode ser compartilhada
+ * entre threads.
+ *
+ * O arquivo binário também é colunar: um cabeçalho ({@code MAGICO}, versão, ID do ativo,
+ * quantidade) seguido das colunas de instantes, abertura, máxima, mínima, fechamento e
+ * volume. Na leitura, o arquivo é mapeado em memória e cada coluna é copiada em bloco.
+ */
+public class SerieCandles {
+
+    private static final int MAGICO = 0x54504331; // "TPC1"
+    private static final int VERSAO = 1;
+    private static final int TAMANHO_CABECALHO = 16;
+
+    // Atributos
+    private final int idCriptoativo;
+    private final long[] instantes; // Epoch em milissegundos
+    private final double[] aberturas;
+    private final double[] maximas;
+    private final double[] minimas;
+    private final double[] fechamentos;
+    private final double[] volumes;
+
+    // Construtores
+    public SerieCandles(int idCriptoativo, long[] instantes, double[] aberturas, double[] maximas,
+            double[] minimas, double[] fechamentos, double[] volumes) {
+        this(idCriptoativo, instantes.clone(), new double[][] { aberturas.clone(), maximas.clone(),
+                minimas.clone(), fechamentos.clone(), volumes.clone() });
+    }
+
+    /**
+     * Usa as colunas recebidas sem copiá-las; apenas para vetores criados pela própria classe
+     * @param colunas Aberturas, máximas, mínimas, fechamentos e volumes, nesta ordem
+     */
+    private SerieCandles(int idCriptoativo, long[] instantes, double[][] colunas) {
+        double[] aberturas = colunas[0];
+        double[] maximas = colunas[1];
+        double[] minimas = colunas[2];
+        double[] fechamentos = colunas[3];
+        double[] volumes = colunas[4];
+        int tamanho = instantes.length;
+        if (aberturas.length != tamanho || maximas.length != tamanho || minimas.length != tamanho
+                || fechamentos.length != tamanho || volumes.length != tamanho) {
+            throw new IllegalArgumentException("As colunas da série devem ter o mesmo tamanho");
+        }
+        for (int i = 1; i < tamanho; i++) {
+            if (instantes[i] < instantes[i - 1]) {
+                throw new IllegalArgumentException("Os candles devem estar em ordem cronológica");
+            }
+        }
+        this.idCriptoativo = idCriptoativo;
+        this.instantes = instantes;
+        this.aberturas = aberturas;
+        this.maximas = maximas;
+        this.minimas = minimas;
+        this.fechamentos = fechamentos;
+        this.volumes = volumes;
+    }
+
+    // Métodos
+    /**
+     * Monta a série a partir das cotações registradas de um ativo
+     * @param idCriptoativo ID do criptoativo
+     * @param cotacoes Cotações em ordem cronológica (as de outros ativos são ignoradas)
+     * @return Série de candles
+     */
+    public static SerieCandles deCotacoes(int idCriptoativo, List<AtivoCotacao> cotacoes) {
+        int tamanho = 0;
+        for (AtivoCotacao cotacao : cotacoes) {
+            if (cotacao.getIdCriptoativo() == idCriptoativo) {
+                tamanho++;
+            }
+        }
+
+        long[] instantes = new long[tamanho];
+        double[] aberturas = new double[tamanho];
+        double[] maximas = new double[tamanho];
+        double[] minimas = new double[tamanho];
+        double[] fechamentos = new double[tamanho];
+        double[] volumes = new double[tamanho];
+        int i = 0;
+        for (AtivoCotacao cotacao : cotacoes) {
+            if (cotacao.getIdCriptoativo() != idCriptoativo) {
+                continue;
+            }
+            instantes[i] = Relogio.paraMillis(cotacao.getTimestamp());
+            aberturas[i] = cotacao.getPrecoAbertura();
+            maximas[i] = cotacao.getPrecoMaximo();
+            minimas[i] = cotacao.getPrecoMinimo();
+            fechamentos[i] = cotacao.getPrecoFechamento();
+            volumes[i] = cotacao.getVolume();
+            // Sem volume em quantidade, estima pelo volume financeiro
+            if (volumes[i] <= 0 && cotacao.getVolumeFinanceiro() > 0 && fechamentos[i] > 0) {
+                volumes[i] = cotacao.getVolumeFinanceiro() / fechamentos[i];
+            }
+            i++;
+        }
+        return new SerieCandles(idCriptoativo, instantes,
+                new double[][] { aberturas, maximas, minimas, fechamentos, volumes });
+    }
+
+    /**
+     * Monta uma série só de preços de fechamento, com um candle por intervalo fixo
+     * @param idCriptoativo ID do criptoativo
+     * @param precos Preços de fechamento
+     * @param instanteInicialMillis Instante do primeiro preço
+     * @param intervaloMillis Intervalo entre preços
+     * @return Série de candles
+     */
+    public static SerieCandles dePrecos(int idCriptoativo, double[] precos, long instanteInicialMillis,
+            long intervaloMillis) {
+        long[] instantes = new long[precos.length];
+        for (int i = 0; i < precos.length; i++) {
+            instantes[i] = instanteInicialMillis + i * intervaloMillis;
+        }
+        double[] copia = precos.clone();
+        return new SerieCandles(idCriptoativo, instantes,
+                new double[][] { copia, copia, copia, copia, new double[precos.length] });
+    }
+
+    /**
+     * Grava a série no formato binário colunar
+     * @param arquivo Caminho do arquivo
+     */
+    public void gravar(Path arquivo) {
+        int tamanho = getTamanho();
+        long bytes = TAMANHO_CABECALHO + (long) tamanho * 6 * Long.BYTES;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Série grande demais para um único arquivo mapeado");
+        }
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGICO).putInt(VERSAO).putInt(this.idCriptoativo).putInt(tamanho);
+            buffer.asLongBuffer().put(this.instantes);
+            int posicao = TAMANHO_CABECALHO + tamanho * Long.BYTES;
+            for (double[] coluna : new double[][] { this.aberturas, this.maximas, this.minimas, this.fechamentos,
+                    this.volumes }) {
+                buffer.position(posicao);
+                buffer.asDoubleBuffer().put(coluna);
+                posicao += tamanho * Double.BYTES;
+            }
+            buffer.force();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível gravar a série em " + arquivo, e);
+        }
+    }
+
+    /**
+     * Carrega uma série gravada por {@link #gravar}, mapeando o arquivo em memória
+     * @param arquivo Caminho do arquivo
+     * @return Série de candles
+     */
+    public static SerieCandles carregar(Path arquivo) {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, Files.size(arquivo));
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.remaining() < TAMANHO_CABECALHO || buffer.getInt() != MAGICO || buffer.getInt() != VERSAO) {
+                throw new IllegalArgumentException("Arquivo de candles inválido: " + arquivo);
+            }
+            int idCriptoativo = buffer.getInt();
+            int tamanho = buffer.getInt();
+            if (tamanho < 0) {
+                throw new IllegalArgumentException("Arquivo de candles inválido: " + arquivo);
+            }
+            if (buffer.capacity() < TAMANHO_CABECALHO + (long) tamanho * 6 * Long.BYTES) {
+                throw new IllegalArgumentException("Arquivo de candles truncado: " + arquivo);
+            }
+
+            long[] instantes = new long[tamanho];
+            buffer.asLongBuffer().get(instantes);
+            double[][] colunas = new double[5][tamanho];
+            int posicao = TAMANHO_CABECALHO + tamanho * Long.BYTES;
+            for (double[] coluna : colunas) {
+                buffer.position(posicao);
+                buffer.asDoubleBuffer().get(coluna);
+                posicao += tamanho * Double.BYTES;
+            }
+            return new SerieCandles(idCriptoativo, instantes, colunas);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível ler a série de " + arquivo, e);
+        }
+    }
+
+    // Getters e Setters
+    public int getIdCriptoativo() {
+        return this.idCriptoativo;
+    }
+
+    public int getTamanho() {
+        return this.instantes.length;
+    }
+
+    public long getInstante(int i) {
+        return this.instantes[i];
+    }
+
+    public double getAbertura(int i) {
+        return this.aberturas[i];
+    }
+
+    public double getMaxima(int i) {
+        return this.maximas[i];
+    }
+
+    public double getMinima(int i) {
+        return this.minimas[i];
+    }
+
+    public double getFechamento(int i) {
+        return this.fechamentos[i];
+    }
+
+    public double getVolume(int i) {
+        return this.volumes[i];
+    }
+}
@@ -0,0 +1,14 @@
+package br.com.tiopatinhasexchange.service;
+
+/**
+ * Tipos de entidade que recebem IDs gerados pelo {@link GeradorIds}.
+ * Cada tipo possui sua própria sequência, independente das demais.
+ */
+public enum TipoEntidade {
+    TRANSACAO,
+    ALERTA,
+    EXECUCAO_ESTRATEGIA,
+    DISPARO_ALERTA,
+    SIMULADOR,
+    ESTRATEGIA
+}
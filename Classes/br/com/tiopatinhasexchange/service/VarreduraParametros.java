@@ -0,0 +1,186 @@
+package br.com.tiopatinhasexchange.service;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import br.com.tiopatinhasexchange.model.EstrategiaAutomatica;
+
+/**
+ * Busca de parâmetros (valor de referência e quantidade) de uma estratégia, em grade ou
+ * aleatória, sobre uma série histórica.
+ *
+ * Cada combinação vira uma cópia da estratégia modelo com conta própria no
+ * {@link MotorBacktest}, que já isola as contas por estratégia e processa os grupos em
+ * paralelo em todos os núcleos. A série é compartilhada, somente leitura, entre todas
+ * as execuções. O resultado é uma tabela ordenada pelo critério escolhido.
+ */
+public class VarreduraParametros {
+
+    /** Maior retorno primeiro */
+    public static final Comparator<ResultadoVarredura> POR_RETORNO =
+            Comparator.comparingDouble((ResultadoVarredura r) -> r.getResultado().calcularRetorno()).reversed();
+
+    /** Maior retorno por unidade de drawdown primeiro */
+    public static final Comparator<ResultadoVarredura> POR_RETORNO_AJUSTADO =
+            Comparator.comparingDouble(ResultadoVarredura::calcularRetornoAjustado).reversed();
+
+    // Atributos
+    private final MotorBacktest motor;
+
+    // Construtores
+    public VarreduraParametros(MotorBacktest motor) {
+        if (motor == null) {
+            throw new IllegalArgumentException("O motor de backtest não pode ser nulo");
+        }
+        this.motor = motor;
+    }
+
+    // Métodos
+    /**
+     * Testa todas as combinações da grade
+     * @param modelo Estratégia cujos demais parâmetros são mantidos
+     * @param referencias Faixa do valor de referência
+     * @param quantidades Faixa da quantidade
+     * @param serie Série de candles do ativo da estratégia
+     * @param criterio Ordenação da tabela
+     * @return Resultados ordenados, do melhor para o pior
+     */
+    public List<ResultadoVarredura> buscarEmGrade(EstrategiaAutomatica modelo, FaixaParametro referencias,
+            FaixaParametro quantidades, SerieCandles serie, Comparator<ResultadoVarredura> criterio) {
+        validarModelo(modelo);
+        List<EstrategiaAutomatica> candidatas = new ArrayList<>(referencias.getPassos() * quantidades.getPassos());
+        for (int i = 0; i < referencias.getPassos(); i++) {
+            for (int j = 0; j < quantidades.getPassos(); j++) {
+                candidatas.add(criarCandidata(modelo, referencias.valor(i), quantidades.valor(j), candidatas.size()));
+            }
+        }
+        return executar(candidatas, serie, criterio);
+    }
+
+    /**
+     * Testa combinações sorteadas dentro das faixas; o sorteio é o mesmo para a mesma semente
+     * @param modelo Estratégia cujos demais parâmetros são mantidos
+     * @param referencias Faixa do valor de referência
+     * @param quantidades Faixa da quantidade
+     * @param serie Série de candles do ativo da estratégia
+     * @param amostras Quantidade de combinações
+     * @param semente Semente do sorteio
+     * @param criterio Ordenação da tabela
+     * @return Resultados ordenados, do melhor para o pior
+     */
+    public List<ResultadoVarredura> buscarAleatoria(EstrategiaAutomatica modelo, FaixaParametro referencias,
+            FaixaParametro quantidades, SerieCandles serie, int amostras, long semente,
+            Comparator<ResultadoVarredura> criterio) {
+        validarModelo(modelo);
+        if (amostras <= 0) {
+            throw new IllegalArgumentException("A quantidade de amostras deve ser positiva");
+        }
+        SplittableRandom aleatorio = new SplittableRandom(semente);
+        List<EstrategiaAutomatica> candidatas = new ArrayList<>(amostras);
+        for (int i = 0; i < amostras; i++) {
+            candidatas.add(criarCandidata(modelo, referencias.sortear(aleatorio), quantidades.sortear(aleatorio), i));
+        }
+        return executar(candidatas, serie, criterio);
+    }
+
+    private List<ResultadoVarredura> executar(List<EstrategiaAutomatica> candidatas, SerieCandles serie,
+            Comparator<ResultadoVarredura> criterio) {
+        List<ResultadoBacktest> resultados = this.motor.executar(serie, candidatas);
+        List<ResultadoVarredura> tabela = new ArrayList<>(candidatas.size());
+        for (int i = 0; i < candidatas.size(); i++) {
+            EstrategiaAutomatica candidata = candidatas.get(i);
+            tabela.add(new ResultadoVarredura(candidata.getValorReferencia(), candidata.getQuantidade(),
+                    resultados.get(i)));
+        }
+        tabela.sort(criterio);
+        return tabela;
+    }
+
+    /**
+     * Verifica se a estratégia pode servir de modelo: só as de condição simples têm valor
+     * de referência a variar (e são as suportadas pelo {@link MotorBacktest})
+     */
+    static void validarModelo(EstrategiaAutomatica modelo) {
+        if (modelo == null) {
+            throw new IllegalArgumentException("A estratégia modelo não pode ser nula");
+        }
+        if (modelo.getCondicao() == null || modelo.getAcao() == null || modelo.getExpressao() != null) {
+            throw new IllegalArgumentException("A varredura só suporta estratégias de condição simples e com ação"
+                    + " (estratégia " + modelo.getId() + ")");
+        }
+    }
+
+    /**
+     * Copia a estratégia modelo com outros parâmetros, mantendo os limites de frequência.
+     * O ID da cópia é o índice da combinação (a cópia nunca é registrada nem executada de
+     * verdade).
+     */
+    static EstrategiaAutomatica criarCandidata(EstrategiaAutomatica modelo, double valorReferencia,
+            double quantidade, int indice) {
+        EstrategiaAutomatica candidata = new EstrategiaAutomatica(indice, modelo.getIdUsuario(),
+                modelo.getIdCriptoativo(), modelo.getCondicao().name(), modelo.getAcao().name(), valorReferencia,
+                quantidade, modelo.getIdCarteira());
+        candidata.setIntervaloRecargaSegundos(modelo.getIntervaloRecargaSegundos());
+        candidata.setLimiteExecucoes(modelo.getMaxExecucoesPorJanela(), modelo.getJanelaExecucoesSegundos());
+        candidata.setExecucaoUnica(modelo.isExecucaoUnica());
+        return candidata;
+    }
+
+    /**
+     * Exibe as primeiras linhas da tabela de resultados
+     * @param tabela Resultados ordenados
+     * @param limite Quantidade máxima de linhas
+     */
+    public static void exibirTabela(List<ResultadoVarredura> tabela, int limite) {
+        System.out.println("=== Varredura de Parâmetros ===");
+        System.out.println(" #  | Referência   | Quantidade   | Retorno   | Drawdown | Operações");
+        for (int i = 0; i < Math.min(limite, tabela.size()); i++) {
+            ResultadoVarredura linha = tabela.get(i);
+            ResultadoBacktest resultado = linha.getResultado();
+            System.out.printf("%3d | %12.4f | %12.6f | %8.2f%% | %7.2f%% | %d%n", i + 1,
+                    linha.getValorReferencia(), linha.getQuantidade(), resultado.calcularRetorno() * 100,
+                    resultado.getDrawdownMaximo() * 100, resultado.getQuantidadeOperacoes());
+        }
+        System.out.println("===============================");
+    }
+
+    // Getters e Setters
+    public MotorBacktest getMotor() {
+        return this.motor;
+    }
+
+    /**
+     * Linha da tabela de resultados: parâmetros testados e o resultado do backtest
+     */
+    public static class ResultadoVarredura {
+        private final double valorReferencia;
+        private final double quantidade;
+        private final ResultadoBacktest resultado;
+
+        public ResultadoVarredura(double valorReferencia, double quantidade, ResultadoBacktest resultado) {
+            this.valorReferencia = valorReferencia;
+            this.quantidade = quantidade;
+            this.resultado = resultado;
+        }
+
+        /**
+         * @return Retorno dividido pelo drawdown máximo (drawdown mínimo de 1%)
+         */
+        public double calcularRetornoAjustado() {
+            return this.resultado.calcularRetorno() / Math.max(0.01, this.resultado.getDrawdownMaximo());
+        }
+
+        public double getValorReferencia() {
+            return this.valorReferencia;
+        }
+
+        public double getQuantidade() {
+            return this.quantidade;
+        }
+
+        public ResultadoBacktest getResultado() {
+            return this.resultado;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package br.com.tiopatinhasexchange.model;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Teste de estresse da máquina de estados de {@link Transacao}: várias threads disputam
+ * {@code confirmar}, {@code cancelar} e {@code registrarExecucaoParcial} na mesma
+ * transação, liberadas ao mesmo tempo. Em cada rodada, exatamente uma transição para um
+ * estado final deve vencer, os ouvintes devem ser notificados uma única vez dessa
+ * transição e o status final deve ser o do vencedor.
+ *
+ * Execução (a partir da raiz do projeto):
+ * {@code javac -encoding UTF-8 -d out $(find Classes Testes -name "*.java")}
+ * e {@code java -cp out br.com.tiopatinhasexchange.model.TransacaoConcorrenciaTeste}
+ */
+public class TransacaoConcorrenciaTeste {
+
+    private static final int RODADAS = 10_000;
+    private static final int THREADS = 8;
+
+    public static void main(String[] args) throws InterruptedException {
+        int rodadas = args.length > 0 ? Integer.parseInt(args[0]) : RODADAS;
+        int parciaisAplicadas = 0;
+
+        for (int rodada = 0; rodada < rodadas; rodada++) {
+            Transacao transacao = new Transacao();
+            AtomicInteger notificacoesFinais = new AtomicInteger();
+            AtomicReference<StatusTransacao> notificado = new AtomicReference<>();
+            transacao.adicionarOuvinte((t, anterior, novo) -> {
+                if (novo.isFinal()) {
+                    notificacoesFinais.incrementAndGet();
+                    notificado.set(novo);
+                }
+            });
+
+            CountDownLatch largada = new CountDownLatch(1);
+            AtomicInteger confirmacoes = new AtomicInteger();
+            AtomicInteger cancelamentos = new AtomicInteger();
+            AtomicInteger parciais = new AtomicInteger();
+            List<Thread> threads = new ArrayList<>(THREADS);
+            for (int i = 0; i < THREADS; i++) {
+                int papel = i % 3;
+                Thread thread = new Thread(() -> {
+                    try {
+                        largada.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    if (papel == 0 && transacao.confirmar()) {
+                        confirmacoes.incrementAndGet();
+                    } else if (papel == 1 && transacao.cancelar()) {
+                        cancelamentos.incrementAndGet();
+                    } else if (papel == 2 && transacao.registrarExecucaoParcial()) {
+                        parciais.incrementAndGet();
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            largada.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            int vencedores = confirmacoes.get() + cancelamentos.get();
+            StatusTransacao esperado = confirmacoes.get() == 1 ? StatusTransacao.CONCLUIDA : StatusTransacao.CANCELADA;
+            verificar(vencedores == 1, rodada, "transições finais vencedoras: " + vencedores);
+            verificar(parciais.get() <= 1, rodada, "transições parciais aplicadas: " + parciais.get());
+            verificar(notificacoesFinais.get() == 1, rodada, "notificações finais: " + notificacoesFinais.get());
+            verificar(transacao.getStatus() == esperado, rodada, "status final " + transacao.getStatus()
+                    + ", esperado " + esperado);
+            verificar(notificado.get() == esperado, rodada, "status notificado " + notificado.get());
+            parciaisAplicadas += parciais.get();
+        }
+
+        System.out.println("OK: " + rodadas + " rodadas, " + THREADS + " threads por rodada, "
+                + parciaisAplicadas + " execuções parciais antes do estado final");
+    }
+
+    private static void verificar(boolean condicao, int rodada, String mensagem) {
+        if (!condicao) {
+            throw new AssertionError("Rodada " + rodada + ": " + mensagem);
+        }
+    }
+}